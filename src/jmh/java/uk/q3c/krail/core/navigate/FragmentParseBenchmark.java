@@ -0,0 +1,82 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.q3c.krail.core.navigate.sitemap.SyntheticSitemap;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link StrictURIFragmentHandler#navigationState(String)} for fragments taken from a {@link SyntheticSitemap}, with and without
+ * parameters
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FragmentParseBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    @Param({"4", "32"})
+    public int fanOut;
+
+    private StrictURIFragmentHandler uriHandler;
+    private String[] fragments;
+    private String[] fragmentsWithParameters;
+    private int next;
+
+    @Setup
+    public void setup() {
+        uriHandler = new StrictURIFragmentHandler();
+        List<String> uris = new SyntheticSitemap(10000, fanOut).getUris();
+        Random random = new Random(42);
+        fragments = new String[SAMPLES];
+        fragmentsWithParameters = new String[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            String uri = uris.get(random.nextInt(uris.size()));
+            fragments[i] = uri;
+            fragmentsWithParameters[i] = uri + "/id=" + i + "/year=2016";
+        }
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (SAMPLES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public NavigationState navigationState() {
+        return uriHandler.navigationState(fragments[nextIndex()]);
+    }
+
+    @Benchmark
+    public NavigationState navigationStateWithParameters() {
+        return uriHandler.navigationState(fragmentsWithParameters[nextIndex()]);
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate;
+
+import com.vaadin.server.Page;
+import net.engio.mbassy.bus.MBassador;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.q3c.krail.config.ApplicationConfiguration;
+import uk.q3c.krail.core.eventbus.UIBusProvider;
+import uk.q3c.krail.core.navigate.sitemap.DefaultUserSitemapCache;
+import uk.q3c.krail.core.navigate.sitemap.MasterSitemap;
+import uk.q3c.krail.core.navigate.sitemap.SitemapService;
+import uk.q3c.krail.core.navigate.sitemap.SyntheticSitemap;
+import uk.q3c.krail.core.navigate.sitemap.UserSitemapFixture;
+import uk.q3c.krail.core.navigate.sitemap.set.MasterSitemapQueue;
+import uk.q3c.krail.core.navigate.sitemap.set.VersionedSitemap;
+import uk.q3c.krail.core.shiro.BenchmarkSubjects;
+import uk.q3c.krail.core.ui.ScopedUI;
+import uk.q3c.krail.core.ui.ScopedUIProvider;
+import uk.q3c.krail.core.view.DefaultViewFactory;
+import uk.q3c.krail.core.view.PublicHomeView;
+import uk.q3c.krail.core.view.ViewCache;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Measures a full {@link DefaultNavigator#navigateTo(String)}, from parsing the fragment to the view change, between pages of a {@link
+ * SyntheticSitemap}.  The sitemaps, page access control, event bus and navigation metrics are real; the UI, view, view factory, view cache and
+ * prefetcher are Mockito stubs, so that the result reflects the navigator rather than the cost of building Vaadin components.  The stubs add a
+ * small, constant cost to each navigation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NavigatorBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    @Param({"1000", "10000", "50000"})
+    public int size;
+
+    @Param({"4", "32"})
+    public int fanOut;
+
+    private DefaultNavigator navigator;
+    private String[] fragments;
+    private int next;
+
+    @Setup
+    public void setup() {
+        SyntheticSitemap synthetic = new SyntheticSitemap(size, fanOut);
+        MasterSitemap masterSitemap = synthetic.build();
+        UserSitemapFixture fixture = new UserSitemapFixture(BenchmarkSubjects.member());
+
+        MasterSitemapQueue masterSitemapQueue = mock(MasterSitemapQueue.class);
+        when(masterSitemapQueue.getCurrent()).thenReturn(new VersionedSitemap<>(masterSitemap, 1));
+        when(masterSitemapQueue.getCurrentVersion()).thenReturn(1L);
+
+        ScopedUI ui = mock(ScopedUI.class);
+        when(ui.getPage()).thenReturn(mock(Page.class));
+        ScopedUIProvider uiProvider = mock(ScopedUIProvider.class);
+        when(uiProvider.get()).thenReturn(ui);
+
+        DefaultViewFactory viewFactory = mock(DefaultViewFactory.class);
+        when(viewFactory.get(PublicHomeView.class)).thenReturn(mock(PublicHomeView.class));
+        UIBusProvider eventBusProvider = mock(UIBusProvider.class);
+        when(eventBusProvider.get()).thenReturn(new MBassador<>());
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getBoolean(DefaultNavigationMetrics.METRICS_ENABLED, true)).thenReturn(true);
+
+        navigator = new DefaultNavigator(new StrictURIFragmentHandler(), mock(SitemapService.class), fixture.getSubjectProvider(), fixture
+                .getPageAccessController(), uiProvider, viewFactory, fixture.newBuilder(masterSitemap, new DefaultUserSitemapCache()), mock
+                (LoginNavigationRule.class), mock(LogoutNavigationRule.class), eventBusProvider, new DefaultViewChangeRule(), mock(InvalidURIHandler
+                .class), masterSitemapQueue, new DefaultNavigationMetrics(configuration), mock(ViewCache.class), mock(ViewPrefetcher.class),
+                mock(AsyncViewBuildFactory.class));
+        navigator.init();
+
+        // consecutive fragments must differ, or the navigator will (correctly) do nothing
+        List<String> uris = synthetic.getUris();
+        Random random = new Random(42);
+        fragments = new String[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            String uri;
+            do {
+                uri = uris.get(random.nextInt(uris.size()));
+            } while (i > 0 && (uri.equals(fragments[i - 1]) || (i == SAMPLES - 1 && uri.equals(fragments[0]))));
+            fragments[i] = uri;
+        }
+    }
+
+    @Benchmark
+    public NavigationState navigateTo() {
+        next = (next + 1) & (SAMPLES - 1);
+        navigator.navigateTo(fragments[next]);
+        return navigator.getCurrentNavigationState();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate.sitemap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the lookups made by {@link DefaultSitemapBase} on every navigation - {@link DefaultSitemapBase#nodeFor(String)}, {@link
+ * DefaultSitemapBase#nodeNearestFor(String)} and {@link DefaultSitemapBase#uri(SitemapNode)} - on a locked {@link SyntheticSitemap}.  Each
+ * invocation looks up the next of a fixed, randomly chosen set of pages, so that results are not flattered by a single hot path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SitemapLookupBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    @Param({"1000", "10000", "50000"})
+    public int size;
+
+    @Param({"4", "32"})
+    public int fanOut;
+
+    private MasterSitemap sitemap;
+    private String[] uris;
+    private String[] partialUris;
+    private MasterSitemapNode[] nodes;
+    private int next;
+
+    @Setup
+    public void setup() {
+        SyntheticSitemap synthetic = new SyntheticSitemap(size, fanOut);
+        sitemap = synthetic.build();
+        List<String> allUris = synthetic.getUris();
+        Random random = new Random(42);
+        uris = new String[SAMPLES];
+        partialUris = new String[SAMPLES];
+        nodes = new MasterSitemapNode[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            String uri = allUris.get(random.nextInt(allUris.size()));
+            uris[i] = uri;
+            partialUris[i] = uri + "/unknown/id=" + i;
+            nodes[i] = sitemap.nodeFor(uri);
+        }
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (SAMPLES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public MasterSitemapNode nodeFor() {
+        return sitemap.nodeFor(uris[nextIndex()]);
+    }
+
+    @Benchmark
+    public MasterSitemapNode nodeNearestFor() {
+        return sitemap.nodeNearestFor(partialUris[nextIndex()]);
+    }
+
+    @Benchmark
+    public String uri() {
+        return sitemap.uri(nodes[nextIndex()]);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate.sitemap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how reads of a {@link MasterSitemap} scale with the number of threads - as they would with many sessions navigating at once.  Each
+ * operation is the pair of reads made by a navigation, {@link DefaultSitemapBase#nodeFor(String)} then {@link DefaultSitemapBase#uri(SitemapNode)}.
+ * The {@code snapshot} methods read a locked sitemap, which answers from its {@link SitemapSnapshot} without taking a lock; the {@code
+ * synchronized} methods read the same sitemap unlocked, where every read synchronizes on the sitemap.
+ * <p>
+ * JMH fixes the thread count per method, so there is one method for each count.  Compare throughput per thread count: the snapshot should scale
+ * with the cores available, the synchronized path should not.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SitemapReadScalingBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    @Param({"10000"})
+    public int size;
+
+    @Param({"8"})
+    public int fanOut;
+
+    private MasterSitemap locked;
+    private MasterSitemap unlocked;
+    private String[] uris;
+
+    @Setup
+    public void setup() {
+        SyntheticSitemap synthetic = new SyntheticSitemap(size, fanOut);
+        locked = synthetic.build();
+        unlocked = synthetic.buildUnlocked();
+        List<String> allUris = synthetic.getUris();
+        Random random = new Random(42);
+        uris = new String[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            uris[i] = allUris.get(random.nextInt(allUris.size()));
+        }
+    }
+
+    private String read(MasterSitemap sitemap, Cursor cursor) {
+        return sitemap.uri(sitemap.nodeFor(uris[cursor.nextIndex()]));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String snapshot_1(Cursor cursor) {
+        return read(locked, cursor);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public String snapshot_2(Cursor cursor) {
+        return read(locked, cursor);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String snapshot_4(Cursor cursor) {
+        return read(locked, cursor);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String snapshot_8(Cursor cursor) {
+        return read(locked, cursor);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String synchronized_1(Cursor cursor) {
+        return read(unlocked, cursor);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public String synchronized_2(Cursor cursor) {
+        return read(unlocked, cursor);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String synchronized_4(Cursor cursor) {
+        return read(unlocked, cursor);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String synchronized_8(Cursor cursor) {
+        return read(unlocked, cursor);
+    }
+
+    /**
+     * Each thread walks the sample pages from its own position, so that the threads do not contend on a shared counter
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        @Setup
+        public void setup() {
+            next = (int) (Thread.currentThread()
+                                .getId() * 97) & (SAMPLES - 1);
+        }
+
+        int nextIndex() {
+            next = (next + 1) & (SAMPLES - 1);
+            return next;
+        }
+    }
+}
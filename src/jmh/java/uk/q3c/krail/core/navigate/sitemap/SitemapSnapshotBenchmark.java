@@ -0,0 +1,81 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate.sitemap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.q3c.krail.core.navigate.StrictURIFragmentHandler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building a {@link MasterSitemap} from its sources (appending every page, then checking and locking it) with restoring the same sitemap
+ * from a snapshot written by {@link MasterSitemapCodec}, as {@link DefaultSitemapService} does when the {@link SitemapSnapshotStore} is enabled.
+ * Reading the snapshot from memory excludes file IO, which depends on the host.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SitemapSnapshotBenchmark {
+
+    private static final String FINGERPRINT = "benchmark";
+
+    @Param({"10000"})
+    public int size;
+
+    @Param({"8"})
+    public int fanOut;
+
+    private SyntheticSitemap synthetic;
+    private byte[] snapshot;
+    private ClassLoader classLoader;
+
+    @Setup
+    public void setup() throws IOException {
+        synthetic = new SyntheticSitemap(size, fanOut);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MasterSitemapCodec.write(synthetic.build(), FINGERPRINT, out);
+        snapshot = out.toByteArray();
+        classLoader = getClass().getClassLoader();
+    }
+
+    @Benchmark
+    public MasterSitemap coldBuild() {
+        return synthetic.build();
+    }
+
+    @Benchmark
+    public MasterSitemap snapshotLoad() throws IOException {
+        MasterSitemap sitemap = new DefaultMasterSitemap(new StrictURIFragmentHandler());
+        if (!MasterSitemapCodec.read(new ByteArrayInputStream(snapshot), FINGERPRINT, sitemap, classLoader)) {
+            throw new IllegalStateException("snapshot could not be restored");
+        }
+        sitemap.lock();
+        return sitemap;
+    }
+}
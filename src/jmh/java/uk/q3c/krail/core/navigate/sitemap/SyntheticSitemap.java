@@ -0,0 +1,115 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate.sitemap;
+
+import uk.q3c.krail.core.i18n.LabelKey;
+import uk.q3c.krail.core.navigate.StrictURIFragmentHandler;
+import uk.q3c.krail.core.shiro.PageAccessControl;
+import uk.q3c.krail.core.view.PublicHomeView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates a synthetic {@link MasterSitemap} of a given size and fan-out, for the benchmarks.  The first {@code fanOut} nodes are roots, and every
+ * other node is a child of the node {@code fanOut} places before it in breadth first order, so every branch has the same depth (about
+ * log<sub>fanOut</sub>(size)).  Page access control cycles through {@link PageAccessControl#PUBLIC}, {@link PageAccessControl#PERMISSION} and
+ * {@link PageAccessControl#ROLES}, with {@link #ROLE} required by the last.
+ * <p>
+ * Node records are created fresh for each call, as {@link MasterSitemap#append(NodeRecord)} modifies them
+ */
+public class SyntheticSitemap {
+
+    public static final String ROLE = "member";
+
+    private final int fanOut;
+    private final int size;
+    private final List<String> uris;
+
+    public SyntheticSitemap(int size, int fanOut) {
+        this.size = size;
+        this.fanOut = fanOut;
+        uris = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            uris.add((i < fanOut) ? "p" + i : uris.get(parentOf(i)) + "/p" + i);
+        }
+    }
+
+    private int parentOf(int index) {
+        return (index / fanOut) - 1;
+    }
+
+    /**
+     * @return the URI of every page, parents before their children
+     */
+    public List<String> getUris() {
+        return uris;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return a node record for every page, parents before their children
+     */
+    public List<NodeRecord> nodeRecords() {
+        LabelKey[] labelKeys = LabelKey.values();
+        List<NodeRecord> nodeRecords = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            NodeRecord nodeRecord = new NodeRecord(uris.get(i));
+            nodeRecord.setLabelKey(labelKeys[i % labelKeys.length]);
+            nodeRecord.setViewClass(PublicHomeView.class);
+            nodeRecord.setPositionIndex(i);
+            switch (i % 3) {
+                case 0:
+                    nodeRecord.setPageAccessControl(PageAccessControl.PUBLIC);
+                    break;
+                case 1:
+                    nodeRecord.setPageAccessControl(PageAccessControl.PERMISSION);
+                    break;
+                default:
+                    nodeRecord.setPageAccessControl(PageAccessControl.ROLES);
+                    nodeRecord.addRole(ROLE);
+            }
+            nodeRecords.add(nodeRecord);
+        }
+        return nodeRecords;
+    }
+
+    /**
+     * Builds the sitemap as {@link DefaultSitemapService} does from its loaders - appending each page, checking with the {@link
+     * DefaultSitemapFinisher}, then locking
+     *
+     * @return a new, locked sitemap
+     */
+    public MasterSitemap build() {
+        MasterSitemap sitemap = buildUnlocked();
+        sitemap.lock();
+        return sitemap;
+    }
+
+    /**
+     * As {@link #build()}, but without locking, so that reads take the synchronized path rather than the snapshot
+     *
+     * @return a new, checked but unlocked sitemap
+     */
+    public MasterSitemap buildUnlocked() {
+        MasterSitemap sitemap = new DefaultMasterSitemap(new StrictURIFragmentHandler());
+        for (NodeRecord nodeRecord : nodeRecords()) {
+            sitemap.append(nodeRecord);
+        }
+        new DefaultSitemapFinisher(null).check(sitemap);
+        return sitemap;
+    }
+}
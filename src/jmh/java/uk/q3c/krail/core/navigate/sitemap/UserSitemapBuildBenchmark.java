@@ -0,0 +1,74 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate.sitemap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.q3c.krail.core.shiro.BenchmarkSubjects;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link UserSitemapBuilder#build()} for a new session, both when the {@link UserSitemap} has to be copied from the {@link
+ * MasterSitemap} ({@link #build}), and when another session with the same profile has already built it ({@link #adoptShared})
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserSitemapBuildBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    public int size;
+
+    @Param({"4", "32"})
+    public int fanOut;
+
+    private UserSitemapFixture fixture;
+    private MasterSitemap masterSitemap;
+    private UserSitemapCache sharedCache;
+
+    @Setup
+    public void setup() {
+        masterSitemap = new SyntheticSitemap(size, fanOut).build();
+        fixture = new UserSitemapFixture(BenchmarkSubjects.member());
+        sharedCache = new DefaultUserSitemapCache();
+        fixture.newBuilder(masterSitemap, sharedCache)
+               .build();
+    }
+
+    @Benchmark
+    public UserSitemap build() {
+        UserSitemapBuilder builder = fixture.newBuilder(masterSitemap, new DefaultUserSitemapCache());
+        builder.build();
+        return builder.getUserSitemap();
+    }
+
+    @Benchmark
+    public UserSitemap adoptShared() {
+        UserSitemapBuilder builder = fixture.newBuilder(masterSitemap, sharedCache);
+        builder.build();
+        return builder.getUserSitemap();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate.sitemap;
+
+import net.engio.mbassy.bus.MBassador;
+import org.apache.shiro.subject.Subject;
+import uk.q3c.krail.core.eventbus.SessionBusProvider;
+import uk.q3c.krail.core.navigate.StrictURIFragmentHandler;
+import uk.q3c.krail.core.shiro.PageAccessController;
+import uk.q3c.krail.core.shiro.SubjectProvider;
+import uk.q3c.krail.i18n.CurrentLocale;
+import uk.q3c.krail.i18n.I18NKey;
+import uk.q3c.krail.i18n.Translate;
+
+import java.util.Locale;
+
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Creates {@link UserSitemapBuilder}s for the benchmarks, wired as they would be by Guice, for a given {@link Subject}.  {@link Translate} is
+ * stubbed to return the name of the key, so that the cost of translation (which depends on the application's I18N patterns) is not included, and
+ * the locale is fixed at {@link Locale#UK}.  All builders share one {@link NodeLabelCache}, as they would in an application.  Page access is decided by a real {@link PageAccessController}
+ */
+public class UserSitemapFixture {
+
+    private final CurrentLocale currentLocale;
+    private final NodeLabelCache nodeLabelCache;
+    private final PageAccessController pageAccessController;
+    private final SessionBusProvider sessionBusProvider;
+    private final SubjectProvider subjectProvider;
+    private final Translate translate;
+
+    public UserSitemapFixture(Subject subject) {
+        translate = mock(Translate.class);
+        when(translate.from(any(I18NKey.class))).thenAnswer(invocation -> ((Enum<?>) invocation.getArguments()[0]).name());
+        when(translate.from(any(I18NKey.class), any(Locale.class))).thenAnswer(invocation -> ((Enum<?>) invocation.getArguments()[0]).name());
+        nodeLabelCache = new DefaultNodeLabelCache(translate);
+        currentLocale = mock(CurrentLocale.class);
+        when(currentLocale.getLocale()).thenReturn(Locale.UK);
+        subjectProvider = mock(SubjectProvider.class);
+        when(subjectProvider.get()).thenReturn(subject);
+        sessionBusProvider = mock(SessionBusProvider.class);
+        when(sessionBusProvider.get()).thenReturn(new MBassador<>());
+        pageAccessController = new PageAccessController() {
+        };
+    }
+
+    /**
+     * Returns a builder for a new, empty {@link UserSitemap}, which will build from {@code masterSitemap}, sharing content through {@code
+     * userSitemapCache}
+     */
+    public UserSitemapBuilder newBuilder(MasterSitemap masterSitemap, UserSitemapCache userSitemapCache) {
+        UserSitemap userSitemap = new DefaultUserSitemap(nodeLabelCache, new StrictURIFragmentHandler(), sessionBusProvider);
+        UserSitemapNodeModifier nodeModifier = new UserSitemapNodeModifier(subjectProvider, currentLocale, pageAccessController, nodeLabelCache);
+        UserSitemapCopyExtension copyExtension = new UserSitemapCopyExtension(userSitemap, nodeLabelCache, currentLocale);
+        UserSitemapBuilder builder = new UserSitemapBuilder(userSitemap, nodeModifier, copyExtension, subjectProvider, userSitemapCache,
+                currentLocale);
+        builder.setMasterSitemap(masterSitemap);
+        return builder;
+    }
+
+    public PageAccessController getPageAccessController() {
+        return pageAccessController;
+    }
+
+    public SubjectProvider getSubjectProvider() {
+        return subjectProvider;
+    }
+}
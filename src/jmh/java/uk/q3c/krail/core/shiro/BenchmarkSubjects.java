@@ -0,0 +1,43 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.shiro;
+
+import org.apache.shiro.authc.UsernamePasswordToken;
+import org.apache.shiro.config.Ini;
+import org.apache.shiro.mgt.DefaultSecurityManager;
+import org.apache.shiro.realm.text.IniRealm;
+import org.apache.shiro.subject.Subject;
+import uk.q3c.krail.core.navigate.sitemap.SyntheticSitemap;
+
+/**
+ * Provides a real Shiro {@link Subject} for the benchmarks, authenticated against an {@link IniRealm}, with {@link SyntheticSitemap#ROLE} and
+ * permission to view every page.  Using a real subject means that {@link PageAccessControl#PERMISSION} and {@link PageAccessControl#ROLES} checks
+ * include the cost of Shiro's permission and role resolution
+ */
+public class BenchmarkSubjects {
+
+    private BenchmarkSubjects() {
+    }
+
+    public static Subject member() {
+        Ini ini = new Ini();
+        ini.load("[users]\n" +
+                "bench = bench, " + SyntheticSitemap.ROLE + "\n" +
+                "[roles]\n" +
+                SyntheticSitemap.ROLE + " = page:view:*\n");
+        DefaultSecurityManager securityManager = new DefaultSecurityManager(new IniRealm(ini));
+        Subject subject = new Subject.Builder(securityManager).buildSubject();
+        subject.login(new UsernamePasswordToken("bench", "bench"));
+        return subject;
+    }
+}
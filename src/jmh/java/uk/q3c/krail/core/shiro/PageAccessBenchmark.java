@@ -0,0 +1,80 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.shiro;
+
+import org.apache.shiro.subject.Subject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.q3c.krail.core.navigate.sitemap.MasterSitemap;
+import uk.q3c.krail.core.navigate.sitemap.MasterSitemapNode;
+import uk.q3c.krail.core.navigate.sitemap.SyntheticSitemap;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PageAccessController#isAuthorised(Subject, MasterSitemap, MasterSitemapNode)} for a real, authenticated subject, over pages
+ * which are public, permission controlled and role controlled in equal measure (see {@link SyntheticSitemap})
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageAccessBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    @Param({"10000"})
+    public int size;
+
+    @Param({"8"})
+    public int fanOut;
+
+    private PageAccessController pageAccessController;
+    private MasterSitemap sitemap;
+    private Subject subject;
+    private MasterSitemapNode[] nodes;
+    private int next;
+
+    @Setup
+    public void setup() {
+        SyntheticSitemap synthetic = new SyntheticSitemap(size, fanOut);
+        sitemap = synthetic.build();
+        subject = BenchmarkSubjects.member();
+        pageAccessController = new PageAccessController();
+        List<String> uris = synthetic.getUris();
+        Random random = new Random(42);
+        nodes = new MasterSitemapNode[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            nodes[i] = sitemap.nodeFor(uris.get(random.nextInt(uris.size())));
+        }
+    }
+
+    @Benchmark
+    public boolean isAuthorised() {
+        next = (next + 1) & (SAMPLES - 1);
+        return pageAccessController.isAuthorised(subject, sitemap, nodes[next]);
+    }
+}
@@ -34,6 +34,8 @@ import uk.q3c.krail.core.guice.threadscope.ThreadScopeModule;
 import uk.q3c.krail.core.guice.uiscope.UIScopeModule;
 import uk.q3c.krail.core.guice.vsscope.VaadinSessionScopeModule;
 import uk.q3c.krail.core.i18n.KrailI18NModule;
+import uk.q3c.krail.core.navigate.NavigationExecutors;
+import uk.q3c.krail.core.navigate.NavigationMetrics;
 import uk.q3c.krail.core.navigate.NavigationModule;
 import uk.q3c.krail.core.navigate.sitemap.MasterSitemap;
 import uk.q3c.krail.core.navigate.sitemap.SitemapModule;
@@ -94,6 +96,22 @@ public abstract class DefaultBindingManager extends GuiceServletContextListener
         } catch (Exception e) {
             log.error("Exception while stopping service", e);
         }
+        try {
+            if (injector != null) {
+                injector.getInstance(NavigationExecutors.class)
+                        .shutdown();
+            }
+        } catch (Exception e) {
+            log.error("Exception while stopping navigation executors", e);
+        }
+        try {
+            if (injector != null) {
+                injector.getInstance(NavigationMetrics.class)
+                        .stop();
+            }
+        } catch (Exception e) {
+            log.error("Exception while stopping navigation metrics", e);
+        }
         //context may not have been crated, and super does not check for it
         if (servletContextEvent.getServletContext() != null) {
             super.contextDestroyed(servletContextEvent);
@@ -124,6 +142,10 @@ public abstract class DefaultBindingManager extends GuiceServletContextListener
         SecurityManager securityManager = injector.getInstance(SecurityManager.class);
         SecurityUtils.setSecurityManager(securityManager);
 
+        // started here rather than on construction, so that nothing is published before the instance is complete
+        injector.getInstance(NavigationMetrics.class)
+                .start();
+
     }
 
     private List<Module> getModules() {
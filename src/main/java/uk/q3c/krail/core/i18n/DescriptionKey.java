@@ -40,6 +40,8 @@ public enum DescriptionKey implements I18NKey {
     Display_style_for_the_description_caption, Display_style_for_the_description, Display_style_for_all_captions_unless_overridden,
     Display_style_for_all_values_unless_overridden, Display_style_for_the_connection_url_caption, Display_style_for_the_connection_url,
     Display_style_for_the_is_volatile_caption, Display_style_for_the_is_volatile, Start_the_export_for_the_chosen_Locales, Export_progress,
-    List_of_Locales_to_export, No_description_provided, Error_Information, Options, Flag_Icon_Size
+    List_of_Locales_to_export, No_description_provided, Error_Information, Options, Flag_Icon_Size,
+    Maximum_Retained_Views, Maximum_Retained_Components, Prefetch_Views, Maximum_Prefetched_Views, Prefetch_Timeout,
+    Lazy_Load_Navigation_Tree, Prune_Collapsed_Branches_After, Populate_Submenus_On_Demand, Maximum_Populated_Submenus
 
 }
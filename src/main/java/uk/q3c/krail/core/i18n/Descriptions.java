@@ -56,6 +56,15 @@ public class Descriptions extends EnumResourceBundle<DescriptionKey> {
         put(Sort_Ascending, "If true, sort in ascending order, otherwise in descending order");
         put(Flag_Icon_Size, "The size of the flag icon to use");
         put(Log_out_first, "You will need to log out to do that");
+        put(Maximum_Retained_Views, "The maximum number of views retained for each browser tab, so that returning to them does not rebuild them");
+        put(Maximum_Retained_Components, "The maximum total number of components in the views retained for each browser tab");
+        put(Prefetch_Views, "If true, the views most likely to be navigated to next are constructed in the background");
+        put(Maximum_Prefetched_Views, "The maximum number of views prefetched after each navigation");
+        put(Prefetch_Timeout, "The time, in seconds, after which an unused prefetched view is discarded");
+        put(Lazy_Load_Navigation_Tree, "If true, the children of a navigation tree node are only added when the node is first expanded");
+        put(Prune_Collapsed_Branches_After, "The time, in seconds, a branch of a lazily loaded tree may stay collapsed before its descendants are removed.  0 means never");
+        put(Populate_Submenus_On_Demand, "If true, only the top level of the navigation menu is built, and each submenu is added when it is first selected");
+        put(Maximum_Populated_Submenus, "The maximum number of navigation submenus kept populated when submenus are populated on demand");
     }
 
 
@@ -74,7 +74,10 @@ public enum LabelKey implements I18NKey {
     Password_Cannot_be_Empty, Application_Options, Options, Description, Connection_URL, Source_Data, In_Memory, Name, Active_Source, Selected_Source,
     Option_Source_Selection, Is_Volatile, Name_Caption_Style, Name_Style, Description_Caption_Style, Description_Style, Default_Caption_Style,
     Default_Value_Style, Connection_url_Caption_Style, Connection_url_Style, Is_volatile_Caption_Style, Is_volatile_Style, I18N, Export, Progress, Locales,
-    Retrieving_Locales, Looking_for_Database_Writer, Export_complete, This_feature_has_not_been_implemented, Yes
+    Retrieving_Locales, Looking_for_Database_Writer, Export_complete, This_feature_has_not_been_implemented, Yes, Maximum_Retained_Views,
+    Maximum_Retained_Components, Prefetch_Views, Maximum_Prefetched_Views, Prefetch_Timeout, Lazy_Load_Navigation_Tree,
+    Prune_Collapsed_Branches_After, Populate_Submenus_On_Demand, Maximum_Populated_Submenus,
+    Show_Submenu
 
 
 }
@@ -0,0 +1,152 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate;
+
+import com.vaadin.ui.UIDetachedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.q3c.krail.core.ui.ScopedUI;
+import uk.q3c.krail.core.view.AsyncKrailView;
+import uk.q3c.krail.core.view.component.ViewChangeBusMessage;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Runs {@link AsyncKrailView#load(ViewChangeBusMessage)} for one navigation on the
+ * {@link NavigationExecutors#asyncViewExecutor()}.  When the load finishes, {@link #complete()} is passed to {@link
+ * ScopedUI#access(Runnable)}, which calls it holding the session lock of this UI alone, and pushes the result to the
+ * browser.
+ * <p>
+ * If server push is not available, the load runs on the request thread instead, as the result could not otherwise
+ * reach the browser until the user's next request.
+ */
+class AsyncViewBuild {
+
+    private static Logger log = LoggerFactory.getLogger(AsyncViewBuild.class);
+    private final ExecutorService executor;
+    private final boolean pushEnabled;
+    private final ScopedUI ui;
+    private final AsyncKrailView view;
+    private final ViewChangeBusMessage busMessage;
+    private volatile boolean cancelled;
+    private volatile long loadNanos;
+    private volatile Throwable failure;
+    private Future<?> future;
+    private Runnable onComplete;
+    private Consumer<Throwable> onFailure;
+
+    AsyncViewBuild(ExecutorService executor, boolean pushEnabled, ScopedUI ui, AsyncKrailView view, ViewChangeBusMessage busMessage) {
+        this.executor = executor;
+        this.pushEnabled = pushEnabled;
+        this.ui = ui;
+        this.view = view;
+        this.busMessage = busMessage;
+    }
+
+    /**
+     * Starts the load.  Must be called holding the session lock.  {@code onComplete} or {@code onFailure} is called
+     * holding the session lock once the load has finished, unless the build has been cancelled
+     *
+     * @param onComplete called if the load succeeds
+     * @param onFailure  called with the exception if the load fails
+     */
+    void start(Runnable onComplete, Consumer<Throwable> onFailure) {
+        this.onComplete = onComplete;
+        this.onFailure = onFailure;
+        if (!pushEnabled) {
+            log.debug("server push is not available, loading {} on the request thread", view.getClass()
+                                                                                          .getName());
+            if (load()) {
+                complete();
+            }
+            return;
+        }
+        future = executor.submit(() -> {
+            if (load() && !cancelled) {
+                try {
+                    ui.access(this::complete);
+                } catch (UIDetachedException e) {
+                    log.debug("UI detached before {} loaded, build abandoned", view.getClass()
+                                                                                  .getName());
+                }
+            }
+        });
+    }
+
+    /**
+     * @return false if the load was interrupted
+     */
+    private boolean load() {
+        long startTime = System.nanoTime();
+        try {
+            view.load(busMessage);
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+            return false;
+        } catch (Exception e) {
+            failure = e;
+        }
+        loadNanos = System.nanoTime() - startTime;
+        return true;
+    }
+
+    /**
+     * Calls {@code onComplete} or {@code onFailure}, unless the build has been cancelled.  Must be called holding the
+     * session lock
+     */
+    void complete() {
+        if (cancelled) {
+            return;
+        }
+        if (failure == null) {
+            onComplete.run();
+        } else {
+            onFailure.accept(failure);
+        }
+    }
+
+    /**
+     * Cancels the build, interrupting the load if it is still running.  Must be called holding the session lock
+     */
+    void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        if (future != null) {
+            future.cancel(true);
+        }
+        log.debug("build of {} cancelled", view.getClass()
+                                               .getName());
+        view.loadCancelled(busMessage);
+    }
+
+    AsyncKrailView getView() {
+        return view;
+    }
+
+    ViewChangeBusMessage getBusMessage() {
+        return busMessage;
+    }
+
+    long getLoadNanos() {
+        return loadNanos;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+}
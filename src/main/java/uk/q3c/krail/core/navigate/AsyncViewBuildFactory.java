@@ -0,0 +1,51 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate;
+
+import com.google.inject.Inject;
+import com.vaadin.shared.communication.PushMode;
+import com.vaadin.ui.PushConfiguration;
+import uk.q3c.krail.config.ApplicationConfiguration;
+import uk.q3c.krail.config.config.ConfigKeys;
+import uk.q3c.krail.core.ui.ScopedUI;
+import uk.q3c.krail.core.view.AsyncKrailView;
+import uk.q3c.krail.core.view.component.ViewChangeBusMessage;
+
+/**
+ * Creates the {@link AsyncViewBuild} for each navigation to an {@link AsyncKrailView}, giving it the shared executor
+ */
+public class AsyncViewBuildFactory {
+
+    private final NavigationExecutors navigationExecutors;
+    private final ApplicationConfiguration applicationConfiguration;
+
+    @Inject
+    protected AsyncViewBuildFactory(NavigationExecutors navigationExecutors, ApplicationConfiguration applicationConfiguration) {
+        this.navigationExecutors = navigationExecutors;
+        this.applicationConfiguration = applicationConfiguration;
+    }
+
+    AsyncViewBuild create(ScopedUI ui, AsyncKrailView view, ViewChangeBusMessage busMessage) {
+        boolean pushEnabled = applicationConfiguration.getBoolean(ConfigKeys.SERVER_PUSH_ENABLED, true) && pushEnabled(ui);
+        return new AsyncViewBuild(navigationExecutors.asyncViewExecutor(), pushEnabled, ui, view, busMessage);
+    }
+
+    private boolean pushEnabled(ScopedUI ui) {
+        PushConfiguration pushConfiguration = ui.getPushConfiguration();
+        if (pushConfiguration == null) {
+            return false;
+        }
+        PushMode pushMode = pushConfiguration.getPushMode();
+        return pushMode != null && pushMode.isEnabled();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Default implementation of {@link NavigationExecutors}.  Each executor has a fixed maximum number of threads, which
+ * time out when idle, so an idle application holds no navigation threads.
+ */
+@Singleton
+public class DefaultNavigationExecutors implements NavigationExecutors {
+
+    /**
+     * Maximum number of threads used to prefetch views
+     */
+    public static final int PREFETCH_THREADS = 2;
+    /**
+     * Maximum number of threads used to load asynchronous views.  Further loads wait for a thread to become free
+     */
+    public static final int ASYNC_VIEW_THREADS = 8;
+    private static Logger log = LoggerFactory.getLogger(DefaultNavigationExecutors.class);
+    private final ExecutorService prefetchExecutor;
+    private final ExecutorService asyncViewExecutor;
+
+    public DefaultNavigationExecutors() {
+        prefetchExecutor = boundedExecutor(PREFETCH_THREADS, "krail-view-prefetch-%d");
+        asyncViewExecutor = boundedExecutor(ASYNC_VIEW_THREADS, "krail-async-view-%d");
+    }
+
+    private ExecutorService boundedExecutor(int threads, String nameFormat) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new
+                ThreadFactoryBuilder().setNameFormat(nameFormat)
+                                      .setDaemon(true)
+                                      .build());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @Override
+    public ExecutorService prefetchExecutor() {
+        return prefetchExecutor;
+    }
+
+    @Override
+    public ExecutorService asyncViewExecutor() {
+        return asyncViewExecutor;
+    }
+
+    @Override
+    public void shutdown() {
+        closeExecutor(prefetchExecutor);
+        closeExecutor(asyncViewExecutor);
+    }
+
+    /**
+     * Stops the @{code executor} with appropriate timeouts and logging
+     *
+     * @param executor the Executor to be shut down.
+     */
+    protected void closeExecutor(ExecutorService executor) {
+        try {
+            log.debug("Closing Executor, attempt to shutdown executor");
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            log.error("Thread interrupted while shutting down Executor");
+        } finally {
+            if (!executor.isTerminated()) {
+                log.error("forcing shutdown");
+            }
+            executor.shutdownNow();
+            log.info("Navigation Executor shutdown finished");
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate;
+
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.q3c.krail.config.ApplicationConfiguration;
+import uk.q3c.krail.core.view.KrailView;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Default {@link NavigationMetrics}, which holds a {@link LatencyHistogram} for each combination of view class and
+ * {@link NavigationPhase}, and publishes them through JMX as {@value #OBJECT_NAME} when {@link #start()} is called.
+ * Navigations which did not reach a view are recorded against {@value #NO_VIEW}.
+ * <p>
+ * Enabled unless {@link #METRICS_ENABLED} is set to false in the {@link ApplicationConfiguration}, in which case
+ * nothing is timed, counted or published.
+ */
+@Singleton
+public class DefaultNavigationMetrics implements NavigationMetrics, NavigationMetricsMXBean {
+    public static final String OBJECT_NAME = "uk.q3c.krail:type=NavigationMetrics";
+    public static final String NO_VIEW = "none";
+    public static final String METRICS_ENABLED = "navigation.metrics.enabled";
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+    private static Logger log = LoggerFactory.getLogger(DefaultNavigationMetrics.class);
+    private final ConcurrentMap<String, Map<NavigationPhase, LatencyHistogram>> histograms = new ConcurrentHashMap<>();
+    private final LongAdder prefetchHits = new LongAdder();
+    private final LongAdder prefetchMisses = new LongAdder();
+    private final boolean enabled;
+
+    @Inject
+    public DefaultNavigationMetrics(ApplicationConfiguration configuration) {
+        this.enabled = configuration.getBoolean(METRICS_ENABLED, true);
+    }
+
+    /**
+     * Registers with the platform MBean server, unless metrics are disabled
+     */
+    @Override
+    public void start() {
+        if (enabled) {
+            registerMBean();
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (enabled) {
+            unregisterMBean();
+        }
+    }
+
+    /**
+     * Registers this instance with the platform MBean server, replacing any earlier registration (for example from a
+     * previous deployment of the application in the same JVM).  Failure is logged but does not prevent metrics being
+     * recorded
+     */
+    protected void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException | SecurityException e) {
+            log.warn("Unable to register navigation metrics with JMX: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Removes the registration made by {@link #registerMBean()}, so that the MBean server does not hold on to this
+     * instance after the application has stopped
+     */
+    protected void unregisterMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException | SecurityException e) {
+            log.warn("Unable to unregister navigation metrics from JMX: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void record(Class<? extends KrailView> viewClass, NavigationPhase phase, long nanos) {
+        histogram(viewClass == null ? NO_VIEW : viewClass.getName(), phase).record(nanos);
+    }
+
+    @Override
+    public void recordPrefetch(boolean hit) {
+        if (!enabled) {
+            return;
+        }
+        if (hit) {
+            prefetchHits.increment();
+        } else {
+            prefetchMisses.increment();
+        }
+    }
+
+    /**
+     * Returns the histogram for {@code viewClassName} and {@code phase}, creating it if necessary
+     */
+    public LatencyHistogram histogram(String viewClassName, NavigationPhase phase) {
+        Map<NavigationPhase, LatencyHistogram> phases = histograms.computeIfAbsent(viewClassName, k -> {
+            Map<NavigationPhase, LatencyHistogram> map = new EnumMap<>(NavigationPhase.class);
+            for (NavigationPhase p : NavigationPhase.values()) {
+                map.put(p, new LatencyHistogram());
+            }
+            return map;
+        });
+        return phases.get(phase);
+    }
+
+    @Override
+    public Map<String, Long> getCounts() {
+        return collectLong(LatencyHistogram::getCount);
+    }
+
+    @Override
+    public Map<String, Double> getMeanMillis() {
+        return collectDouble(h -> h.getMeanNanos() / NANOS_PER_MILLI);
+    }
+
+    @Override
+    public Map<String, Double> getP95Millis() {
+        return collectDouble(h -> h.getPercentileNanos(95) / NANOS_PER_MILLI);
+    }
+
+    @Override
+    public Map<String, Double> getMaxMillis() {
+        return collectDouble(h -> h.getMaxNanos() / NANOS_PER_MILLI);
+    }
+
+    @Override
+    public long getPrefetchHits() {
+        return prefetchHits.sum();
+    }
+
+    @Override
+    public long getPrefetchMisses() {
+        return prefetchMisses.sum();
+    }
+
+    @Override
+    public double percentileMillis(String viewClassName, String phase, double percentile) {
+        Map<NavigationPhase, LatencyHistogram> phases = histograms.get(viewClassName);
+        if (phases == null) {
+            return 0;
+        }
+        return phases.get(NavigationPhase.valueOf(phase))
+                     .getPercentileNanos(percentile) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public void reset() {
+        histograms.clear();
+        prefetchHits.reset();
+        prefetchMisses.reset();
+    }
+
+    private Map<String, Long> collectLong(ToLongFunction<LatencyHistogram> function) {
+        ImmutableSortedMap.Builder<String, Long> builder = ImmutableSortedMap.naturalOrder();
+        histograms.forEach((viewClassName, phases) -> phases.forEach((phase, histogram) -> {
+            if (histogram.getCount() > 0) {
+                builder.put(viewClassName + '/' + phase.name(), function.applyAsLong(histogram));
+            }
+        }));
+        return builder.build();
+    }
+
+    private Map<String, Double> collectDouble(ToDoubleFunction<LatencyHistogram> function) {
+        ImmutableSortedMap.Builder<String, Double> builder = ImmutableSortedMap.naturalOrder();
+        histograms.forEach((viewClassName, phases) -> phases.forEach((phase, histogram) -> {
+            if (histogram.getCount() > 0) {
+                builder.put(viewClassName + '/' + phase.name(), function.applyAsDouble(histogram));
+            }
+        }));
+        return builder.build();
+    }
+}
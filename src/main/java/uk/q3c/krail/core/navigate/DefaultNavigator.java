@@ -29,22 +29,27 @@ import uk.q3c.krail.core.eventbus.UIBusProvider;
 import uk.q3c.krail.core.guice.uiscope.UIScoped;
 import uk.q3c.krail.core.navigate.sitemap.*;
 import uk.q3c.krail.core.navigate.sitemap.set.MasterSitemapQueue;
+import uk.q3c.krail.core.navigate.sitemap.set.VersionedSitemap;
 import uk.q3c.krail.core.shiro.PageAccessController;
 import uk.q3c.krail.core.shiro.SubjectProvider;
 import uk.q3c.krail.core.shiro.UnauthorizedExceptionHandler;
 import uk.q3c.krail.core.ui.ScopedUI;
 import uk.q3c.krail.core.ui.ScopedUIProvider;
 import uk.q3c.krail.core.user.status.UserStatusBusMessage;
+import uk.q3c.krail.core.view.AsyncKrailView;
 import uk.q3c.krail.core.view.BeforeViewChangeBusMessage;
 import uk.q3c.krail.core.view.DefaultViewFactory;
 import uk.q3c.krail.core.view.ErrorView;
 import uk.q3c.krail.core.view.KrailView;
+import uk.q3c.krail.core.view.ViewCache;
 import uk.q3c.krail.core.view.component.AfterViewChangeBusMessage;
+import uk.q3c.krail.core.view.component.ParameterChangeBusMessage;
 import uk.q3c.krail.core.view.component.ViewChangeBusMessage;
 import uk.q3c.krail.eventbus.BusMessage;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static com.google.common.base.Preconditions.*;
 
@@ -79,20 +84,28 @@ public class DefaultNavigator implements Navigator {
     private final LoginNavigationRule loginNavigationRule;
     private final LogoutNavigationRule logoutNavigationRule;
     private final InvalidURIHandler invalidURIHandler;
+    private final NavigationMetrics navigationMetrics;
+    private final ViewCache viewCache;
+    private final ViewPrefetcher viewPrefetcher;
+    private final AsyncViewBuildFactory asyncViewBuildFactory;
     private MasterSitemapQueue masterSitemapQueue;
     private MasterSitemap masterSitemap;
+    private long masterSitemapVersion;
     private NavigationState currentNavigationState;
     private KrailView currentView = null;
     private PubSubSupport<BusMessage> eventBus;
     private NavigationState previousNavigationState;
     private UserSitemap userSitemap;
     private ViewChangeRule viewChangeRule;
+    private AsyncViewBuild pendingBuild;
 
     @Inject
     public DefaultNavigator(URIFragmentHandler uriHandler, SitemapService sitemapService, SubjectProvider subjectProvider, PageAccessController
             pageAccessController, ScopedUIProvider uiProvider, DefaultViewFactory viewFactory, UserSitemapBuilder userSitemapBuilder, LoginNavigationRule
                                     loginNavigationRule, LogoutNavigationRule logoutNavigationRule, UIBusProvider eventBusProvider, ViewChangeRule
-                                    viewChangeRule, InvalidURIHandler invalidURIHandler, MasterSitemapQueue masterSitemapQueue) {
+                                    viewChangeRule, InvalidURIHandler invalidURIHandler, MasterSitemapQueue masterSitemapQueue,
+                            NavigationMetrics navigationMetrics, ViewCache viewCache, ViewPrefetcher viewPrefetcher, AsyncViewBuildFactory
+                                    asyncViewBuildFactory) {
         super();
         this.uriHandler = uriHandler;
         this.uiProvider = uiProvider;
@@ -109,6 +122,10 @@ public class DefaultNavigator implements Navigator {
 
         this.eventBus = eventBusProvider.get();
         this.viewChangeRule = viewChangeRule;
+        this.navigationMetrics = navigationMetrics;
+        this.viewCache = viewCache;
+        this.viewPrefetcher = viewPrefetcher;
+        this.asyncViewBuildFactory = asyncViewBuildFactory;
 
 
     }
@@ -118,9 +135,11 @@ public class DefaultNavigator implements Navigator {
     public void init() {
         try {
             sitemapService.start();
-            //take a reference and keep it in case current model changes
-            this.masterSitemap = masterSitemapQueue.getCurrentModel();
-            userSitemapBuilder.setMasterSitemap(masterSitemap);
+            //take a reference and keep it until a new model is published - see checkForNewMasterSitemap()
+            VersionedSitemap<MasterSitemap> current = masterSitemapQueue.getCurrent();
+            this.masterSitemap = current.getModel();
+            this.masterSitemapVersion = current.getVersion();
+            userSitemapBuilder.setMasterSitemap(current);
             userSitemapBuilder.build();
             userSitemap = userSitemapBuilder.getUserSitemap();
 
@@ -147,9 +166,11 @@ public class DefaultNavigator implements Navigator {
     public void navigateTo(String fragment) {
         log.debug("Navigating to fragment: {}", fragment);
 
+        NavigationTimer timer = new NavigationTimer(navigationMetrics);
         // set up the navigation state
         NavigationState navigationState = uriHandler.navigationState(fragment);
-        navigateTo(navigationState);
+        timer.stop(NavigationPhase.PARSE);
+        navigateTo(navigationState, timer);
     }
 
     /**
@@ -159,86 +180,214 @@ public class DefaultNavigator implements Navigator {
      * authorisation is checked. If the user is not authorised, a {@link AuthorizationException} is thrown. This would
      * be caught by the the implementation bound to {@link UnauthorizedExceptionHandler}. If the user is authorised,
      * the
-     * View is instantiated, and made the current view in the UI via {@link ScopedUI#changeView(KrailView)}.<br>
+     * View is instantiated (or taken from the {@link ViewCache} if it has been retained), and made the current view in
+     * the UI via {@link ScopedUI#changeView(KrailView)}.<br>
      * <br>
      * Messages are published to the {{@link #eventBus}} before and after the view change. Message handlers have the
      * option to block the view change by returning false (see {@link #publishBeforeViewChange(BeforeViewChangeBusMessage)}
      * <p>
+     * If only the parameters have changed, and the current view accepts the change through {@link
+     * KrailView#parametersChanged(ParameterChangeBusMessage)}, the view is kept, and a {@link ParameterChangeBusMessage}
+     * is published instead of the {@link AfterViewChangeBusMessage}.  The {@link BeforeViewChangeBusMessage} is
+     * published first either way, so a handler can still block the navigation
+     * <p>
+     *
+     * Each phase of the navigation is timed and recorded by {@link NavigationMetrics}
+     * <p>
      *
      * @param navigationState The navigationState to navigate to. May not be null.
      */
     @Override
     public void navigateTo(NavigationState navigationState) {
+        navigateTo(navigationState, new NavigationTimer(navigationMetrics));
+    }
+
+    /**
+     * If a new {@link MasterSitemap} has been published since this navigator last looked, moves to it.  This is just a volatile read when nothing
+     * has changed.  Retained and prefetched views are discarded, as their pages may no longer exist.  The {@link UserSitemap} is shared by all the
+     * UIs in the session, and is rebuilt only by the first of them to notice the change - {@link UserSitemapBuilder#masterSitemapChanged} does
+     * nothing for the others, which just update their own references
+     */
+    private void checkForNewMasterSitemap() {
+        if (masterSitemapQueue.getCurrentVersion() == masterSitemapVersion) {
+            return;
+        }
+        VersionedSitemap<MasterSitemap> current = masterSitemapQueue.getCurrent();
+        log.info("Master Sitemap version {} published, moving from version {}", current.getVersion(), masterSitemapVersion);
+        masterSitemap = current.getModel();
+        masterSitemapVersion = current.getVersion();
+        viewCache.clear();
+        viewPrefetcher.discard();
+        userSitemapBuilder.masterSitemapChanged(current);
+        userSitemap = userSitemapBuilder.getUserSitemap();
+    }
+
+    /**
+     * The timer is finished however the navigation ends - including when it is blocked, finds nothing to do, or throws - so that every navigation
+     * is recorded, against the view it reached or against no view
+     */
+    private void navigateTo(NavigationState navigationState, NavigationTimer timer) {
         checkNotNull(navigationState);
+        Class<? extends KrailView> reachedViewClass = null;
+        try {
+            reachedViewClass = navigate(navigationState, timer);
+        } finally {
+            timer.finish(reachedViewClass);
+        }
+    }
+
+    /**
+     * @return the view class navigated to, or null if the navigation did not reach a view
+     */
+    private Class<? extends KrailView> navigate(NavigationState navigationState, NavigationTimer timer) {
         //computer says no
         if (!viewChangeRule.changeIsAllowed(this, currentView)) {
-            return;
+            return null;
         }
+        checkForNewMasterSitemap();
         //makes sure the navigation state is up to date, removes the need to do this externally
+        timer.start();
         uriHandler.updateFragment(navigationState);
+        timer.stop(NavigationPhase.FRAGMENT_UPDATE);
 
+        timer.start();
         redirectIfNeeded(navigationState);
+        timer.stop(NavigationPhase.REDIRECT);
 
         // stop unnecessary changes, but also to prevent navigation aware
         // components from causing a loop by responding to a change of URI (they should suppress events when they do,
         // but may not)
         if (navigationState.equals(currentNavigationState)) {
             log.debug("fragment unchanged, no navigation required");
-            return;
+            return null;
         }
 
         // https://sites.google.com/site/q3cjava/sitemap#emptyURI
         if (navigationState.getVirtualPage()
                            .isEmpty()) {
+            timer.start();
             navigationState.virtualPage(userSitemap.standardPageURI(StandardPageKey.Public_Home));
             uriHandler.updateFragment(navigationState);
+            timer.stop(NavigationPhase.FRAGMENT_UPDATE);
         }
 
         String virtualPage = navigationState.getVirtualPage();
         log.debug("obtaining view for '{}'", virtualPage);
 
+        timer.start();
         UserSitemapNode node = userSitemap.nodeFor(navigationState);
+        timer.stop(NavigationPhase.NODE_LOOKUP);
         if (node == null) {
             invalidURIHandler.invoke(this, virtualPage);
-            return;
+            return null;
         }
 
+        timer.start();
         Subject subject = subjectProvider.get();
         boolean authorised = pageAccessController.isAuthorised(subject, masterSitemap, node);
-        if (authorised) {
-
-            // need this in case the change is blocked by a listener
-            NavigationState previousPreviousNavigationState = previousNavigationState;
-            previousNavigationState = currentNavigationState;
-            currentNavigationState = navigationState;
-
-            BeforeViewChangeBusMessage beforeMessage = new BeforeViewChangeBusMessage(previousNavigationState, navigationState);
-            // if change is blocked revert to previous state
-            if (!publishBeforeViewChange(beforeMessage)) {
-                currentNavigationState = previousNavigationState;
-                previousNavigationState = previousPreviousNavigationState;
-                return;
-            }
+        timer.stop(NavigationPhase.AUTHORISATION);
+        if (!authorised) {
+            throw new UnauthorizedException(navigationState.getVirtualPage());
+        }
+        boolean parameterChangeOnly = isParameterChangeOnly(node, navigationState);
+
+        // need this in case the change is blocked by a listener
+        NavigationState previousPreviousNavigationState = previousNavigationState;
+        previousNavigationState = currentNavigationState;
+        currentNavigationState = navigationState;
+
+        // published for a change of parameters too, so that a listener can veto any navigation away from the current state
+        BeforeViewChangeBusMessage beforeMessage = new BeforeViewChangeBusMessage(previousNavigationState, navigationState);
+        // if change is blocked revert to previous state
+        timer.start();
+        boolean allowed = publishBeforeViewChange(beforeMessage);
+        timer.stop(NavigationPhase.PUBLISH_BEFORE);
+        if (!allowed) {
+            currentNavigationState = previousNavigationState;
+            previousNavigationState = previousPreviousNavigationState;
+            return null;
+        }
+        if (parameterChangeOnly && parametersChanged(navigationState, timer)) {
+            return node.getViewClass();
+        }
 
-            // make sure the page uri is updated if necessary, but do not fire any change events
-            // as we have already responded to the change
-            ScopedUI ui = uiProvider.get();
-            Page page = ui.getPage();
-            String fragment = navigationState.getFragment();
-            if (!fragment
-                                .equals(page.getUriFragment())) {
-                page.setUriFragment(fragment, false);
+        updatePageFragment(navigationState);
+        // the user has moved on before the last view finished loading
+        cancelPendingBuild();
+        // now change the view
+        Class<? extends KrailView> viewClass = node.getViewClass();
+        timer.start();
+        KrailView view = viewCache.get(viewClass);
+        boolean resumed = view != null;
+        if (!resumed) {
+            view = viewPrefetcher.take(viewClass);
+            if (view == null) {
+                view = viewFactory.get(viewClass);
             }
-            // now change the view
-            KrailView view = viewFactory.get(node.getViewClass());
-            AfterViewChangeBusMessage afterMessage = new AfterViewChangeBusMessage(beforeMessage);
-            changeView(view, afterMessage);
-            // and tell listeners its changed
-            publishAfterViewChange(afterMessage);
-        } else {
-            throw new UnauthorizedException(navigationState.getVirtualPage());
         }
+        timer.stop(NavigationPhase.VIEW_CONSTRUCTION);
+        AfterViewChangeBusMessage afterMessage = new AfterViewChangeBusMessage(beforeMessage);
+        changeView(view, afterMessage, timer, resumed, viewClass, changeTimer -> viewChanged(afterMessage, node, changeTimer));
+        return viewClass;
+    }
+
+    /**
+     * Called once the view for {@code node} is in place - for an {@link AsyncKrailView} that is when its build
+     * completes, not when the placeholder is shown
+     */
+    private void viewChanged(AfterViewChangeBusMessage afterMessage, UserSitemapNode node, NavigationTimer timer) {
+        // tell listeners its changed
+        timer.start();
+        publishAfterViewChange(afterMessage);
+        timer.stop(NavigationPhase.PUBLISH_AFTER);
+        // start constructing the views the user is likely to go to next
+        viewPrefetcher.prefetch(userSitemap, node);
+    }
+
+    /**
+     * Returns true if {@code navigationState} is for the page of the current view, which is complete, so that a change of parameters could be
+     * handled by the current view
+     */
+    private boolean isParameterChangeOnly(UserSitemapNode node, NavigationState navigationState) {
+        if (currentView == null || currentNavigationState == null || pendingBuild != null || !node.getViewClass()
+                                                                          .isInstance(currentView)) {
+            return false;
+        }
+        return navigationState.getVirtualPage()
+                              .equals(currentNavigationState.getVirtualPage());
+    }
+
+    /**
+     * Handles a navigation which changes only the parameters of the current page, if the current view accepts it.  The {@link
+     * BeforeViewChangeBusMessage} has already been published, and the navigation states updated.
+     *
+     * @return true if the navigation has been completed by the current view, false if a full view change is needed
+     */
+    private boolean parametersChanged(NavigationState navigationState, NavigationTimer timer) {
+        timer.start();
+        ParameterChangeBusMessage busMessage = new ParameterChangeBusMessage(previousNavigationState, navigationState);
+        if (!currentView.parametersChanged(busMessage)) {
+            return false;
+        }
+        log.debug("parameters changed, view {} retained", currentView.getClass()
+                                                                     .getName());
+        updatePageFragment(navigationState);
+        eventBus.publish(busMessage);
+        timer.stop(NavigationPhase.PARAMETER_CHANGE);
+        return true;
+    }
 
+    /**
+     * Makes sure the page uri is updated if necessary, but does not fire any change events, as we have already
+     * responded to the change
+     */
+    private void updatePageFragment(NavigationState navigationState) {
+        ScopedUI ui = uiProvider.get();
+        Page page = ui.getPage();
+        String fragment = navigationState.getFragment();
+        if (!fragment.equals(page.getUriFragment())) {
+            page.setUriFragment(fragment, false);
+        }
     }
 
     /**
@@ -260,18 +409,106 @@ public class DefaultNavigator implements Navigator {
     }
 
     protected void changeView(KrailView view, ViewChangeBusMessage busMessage) {
+        NavigationTimer timer = new NavigationTimer(navigationMetrics);
+        changeView(view, busMessage, timer, false, null, changeTimer -> {
+        });
+        timer.finish(view.getClass());
+    }
+
+    /**
+     * A view which has been retained by the {@link ViewCache} is {@code resumed} - it has already been built, and is
+     * just told about the new navigation state by {@link KrailView#resume(ViewChangeBusMessage)}.  Otherwise the view
+     * is built, and then offered to the {@link ViewCache} under {@code newViewClass}, unless that is null.  An {@link
+     * AsyncKrailView} is built asynchronously, see {@link #changeViewAsync}.  {@code afterChange} is called with the
+     * timer in use once the view is in place
+     */
+    private void changeView(KrailView view, ViewChangeBusMessage busMessage, NavigationTimer timer, boolean resumed, Class<? extends KrailView>
+            newViewClass, Consumer<NavigationTimer> afterChange) {
         ScopedUI ui = uiProvider.get();
+        if (resumed) {
+            log.debug("calling view.resume(event) for {}", view.getClass()
+                                                              .getName());
+            timer.start();
+            view.resume(busMessage);
+            timer.stop(NavigationPhase.BUILD_VIEW);
+            timer.start();
+            ui.changeView(view);
+            timer.stop(NavigationPhase.UI_CHANGE_VIEW);
+            currentView = view;
+            afterChange.accept(timer);
+            return;
+        }
         log.debug("calling view.beforeBuild(event) for {}", view.getClass()
                                                                 .getName());
+        timer.start();
         view.beforeBuild(busMessage);
+        timer.stop(NavigationPhase.BEFORE_BUILD);
+        if (view instanceof AsyncKrailView) {
+            changeViewAsync((AsyncKrailView) view, busMessage, timer, newViewClass, ui, afterChange);
+            return;
+        }
+        completeBuild(view, busMessage, timer, ui);
+        if (newViewClass != null) {
+            viewCache.retain(newViewClass, view);
+        }
+        afterChange.accept(timer);
+    }
+
+    private void completeBuild(KrailView view, ViewChangeBusMessage busMessage, NavigationTimer timer, ScopedUI ui) {
         log.debug("calling view.buildView(event) {}", view.getClass()
                                                           .getName());
+        timer.start();
         view.buildView(busMessage);
+        timer.stop(NavigationPhase.BUILD_VIEW);
+        timer.start();
         ui.changeView(view);
+        timer.stop(NavigationPhase.UI_CHANGE_VIEW);
         log.debug("calling view.afterBuild(event) {}", view.getClass()
                                                            .getName());
+        timer.start();
         view.afterBuild(new AfterViewChangeBusMessage(busMessage));
+        timer.stop(NavigationPhase.AFTER_BUILD);
+        currentView = view;
+    }
+
+    /**
+     * Shows the placeholder for {@code view} and starts its load in the background.  The view becomes the current
+     * view immediately, and is built, shown and offered to the {@link ViewCache} when the load completes, unless the
+     * build is cancelled by a further navigation first.  The build phases are recorded separately from the navigation
+     * which started them.
+     */
+    private void changeViewAsync(AsyncKrailView view, ViewChangeBusMessage busMessage, NavigationTimer timer, Class<? extends KrailView> newViewClass,
+                                 ScopedUI ui, Consumer<NavigationTimer> afterChange) {
+        timer.start();
+        ui.showPlaceholder(view, view.getPlaceholder());
+        timer.stop(NavigationPhase.UI_CHANGE_VIEW);
         currentView = view;
+        AsyncViewBuild build = asyncViewBuildFactory.create(ui, view, busMessage);
+        pendingBuild = build;
+        build.start(() -> {
+            pendingBuild = null;
+            NavigationTimer buildTimer = new NavigationTimer(navigationMetrics);
+            buildTimer.add(NavigationPhase.ASYNC_LOAD, build.getLoadNanos());
+            completeBuild(view, busMessage, buildTimer, ui);
+            if (newViewClass != null) {
+                viewCache.retain(newViewClass, view);
+            }
+            afterChange.accept(buildTimer);
+            buildTimer.flush(view.getClass());
+        }, failure -> {
+            pendingBuild = null;
+            error(failure);
+        });
+    }
+
+    /**
+     * Cancels the asynchronous build of the current view, if there is one in progress
+     */
+    private void cancelPendingBuild() {
+        if (pendingBuild != null) {
+            pendingBuild.cancel();
+            pendingBuild = null;
+        }
     }
 
     /**
@@ -338,6 +575,7 @@ public class DefaultNavigator implements Navigator {
     public void error(Throwable error) {
         log.debug("A {} Error has been thrown, reporting via the Error View", error.getClass()
                                                                                    .getName());
+        cancelPendingBuild();
         NavigationState navigationState = uriHandler.navigationState("error");
         ViewChangeBusMessage viewChangeBusMessage = new ViewChangeBusMessage(previousNavigationState, navigationState);
         ErrorView view = viewFactory.get(ErrorView.class);
@@ -387,6 +625,10 @@ public class DefaultNavigator implements Navigator {
     @Handler(priority = -1)
     public void userStatusChange(UserStatusBusMessage busMessage) {
         log.debug("UserStatusBusMessage received");
+        // retained views may hold data for the previous user
+        viewCache.clear();
+        viewPrefetcher.discard();
+        cancelPendingBuild();
         if (busMessage.isAuthenticated()) {
             log.info("user logged in successfully, applying login navigation rule");
             Optional<NavigationState> newState = loginNavigationRule.changedNavigationState(this, busMessage.getSource());
@@ -0,0 +1,260 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate;
+
+import com.google.inject.Inject;
+import com.vaadin.data.Property;
+import com.vaadin.ui.UIDetachedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.q3c.krail.core.guice.uiscope.UIScoped;
+import uk.q3c.krail.core.i18n.DescriptionKey;
+import uk.q3c.krail.core.i18n.LabelKey;
+import uk.q3c.krail.core.navigate.sitemap.UserSitemap;
+import uk.q3c.krail.core.navigate.sitemap.UserSitemapNode;
+import uk.q3c.krail.core.option.VaadinOptionContext;
+import uk.q3c.krail.core.ui.ScopedUI;
+import uk.q3c.krail.core.ui.ScopedUIProvider;
+import uk.q3c.krail.core.view.KrailView;
+import uk.q3c.krail.core.view.ViewCache;
+import uk.q3c.krail.core.view.ViewFactory;
+import uk.q3c.krail.option.Option;
+import uk.q3c.krail.option.OptionKey;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * Default implementation of {@link ViewPrefetcher}.  The likely next views are taken to be the sub-pages of the page
+ * just navigated to, followed by its ancestors, nearest first (the pages offered by the sub-page panel and the
+ * breadcrumb).  Up to {@link #optionKeyMaximumViews} of them are constructed on the
+ * {@link NavigationExecutors#prefetchExecutor()}.  Each view is constructed in its own
+ * {@link ScopedUI#access(Runnable)}, so that UIScoped dependencies resolve correctly but the session lock is released
+ * between views, and a navigation made meanwhile stops the prefetch before the next view is constructed.
+ * <p>
+ * Prefetched views are held by soft reference, so they are released under memory pressure, and are discarded after
+ * {@link #optionKeyTimeoutSeconds}, on the next navigation, or when the user logs in or out.  Views of the current
+ * class, and views already retained by the {@link ViewCache}, are not prefetched.
+ * <p>
+ * Prefetching is disabled by default - enable it with {@link #optionKeyEnabled}.  Hits and misses are reported to
+ * {@link NavigationMetrics#recordPrefetch(boolean)}, which holds the counts
+ */
+@UIScoped
+public class DefaultViewPrefetcher implements ViewPrefetcher, VaadinOptionContext {
+
+    public static final OptionKey<Boolean> optionKeyEnabled = new OptionKey<>(Boolean.FALSE, DefaultViewPrefetcher.class, LabelKey.Prefetch_Views,
+            DescriptionKey.Prefetch_Views);
+    public static final OptionKey<Integer> optionKeyMaximumViews = new OptionKey<>(3, DefaultViewPrefetcher.class, LabelKey.Maximum_Prefetched_Views,
+            DescriptionKey.Maximum_Prefetched_Views);
+    public static final OptionKey<Integer> optionKeyTimeoutSeconds = new OptionKey<>(60, DefaultViewPrefetcher.class, LabelKey.Prefetch_Timeout,
+            DescriptionKey.Prefetch_Timeout);
+    private static Logger log = LoggerFactory.getLogger(DefaultViewPrefetcher.class);
+    private final ViewFactory viewFactory;
+    private final ViewCache viewCache;
+    private final ScopedUIProvider uiProvider;
+    private final NavigationMetrics navigationMetrics;
+    private final Option option;
+    private final NavigationExecutors navigationExecutors;
+    private final Map<Class<? extends KrailView>, Prefetched> prefetched = new ConcurrentHashMap<>();
+    private final AtomicInteger generation = new AtomicInteger();
+    private volatile boolean active;
+
+    @Inject
+    protected DefaultViewPrefetcher(ViewFactory viewFactory, ViewCache viewCache, ScopedUIProvider uiProvider, NavigationMetrics navigationMetrics,
+                                    Option option, NavigationExecutors navigationExecutors) {
+        this.viewFactory = viewFactory;
+        this.viewCache = viewCache;
+        this.uiProvider = uiProvider;
+        this.navigationMetrics = navigationMetrics;
+        this.option = option;
+        this.navigationExecutors = navigationExecutors;
+    }
+
+    @Override
+    public void prefetch(UserSitemap userSitemap, UserSitemapNode node) {
+        checkNotNull(userSitemap);
+        checkNotNull(node);
+        discard();
+        if (!getOptionEnabled()) {
+            return;
+        }
+        List<Class<? extends KrailView>> candidates = candidates(userSitemap, node);
+        if (candidates.isEmpty()) {
+            return;
+        }
+        active = true;
+        int requested = generation.get();
+        long expiry = System.currentTimeMillis() + getOptionTimeoutSeconds() * 1000L;
+        ScopedUI ui = uiProvider.get();
+        navigationExecutors.prefetchExecutor()
+                           .execute(() -> constructAll(ui, requested, candidates, expiry));
+    }
+
+    /**
+     * Returns the classes of the views most likely to be navigated to from {@code node} - sub-pages first, then
+     * ancestors, nearest first - limited to {@link #optionKeyMaximumViews}
+     */
+    protected List<Class<? extends KrailView>> candidates(UserSitemap userSitemap, UserSitemapNode node) {
+        Set<Class<? extends KrailView>> candidates = new LinkedHashSet<>();
+        for (UserSitemapNode child : userSitemap.getChildren(node)) {
+            candidates.add(child.getViewClass());
+        }
+        List<UserSitemapNode> chain = userSitemap.nodeChainFor(node);
+        for (int i = chain.size() - 2; i >= 0; i--) {
+            candidates.add(chain.get(i)
+                                .getViewClass());
+        }
+        candidates.remove(null);
+        candidates.remove(node.getViewClass());
+        List<Class<? extends KrailView>> selected = new ArrayList<>();
+        int max = getOptionMaximumViews();
+        for (Class<? extends KrailView> candidate : candidates) {
+            if (selected.size() >= max) {
+                break;
+            }
+            if (viewCache.get(candidate) == null) {
+                selected.add(candidate);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Constructs each of {@code candidates} in turn, each in its own {@link ScopedUI#access(Runnable)}, waiting for
+     * one to finish before the next is started
+     */
+    private void constructAll(ScopedUI ui, int requested, List<Class<? extends KrailView>> candidates, long expiry) {
+        for (Class<? extends KrailView> viewClass : candidates) {
+            if (superseded(requested, expiry)) {
+                return;
+            }
+            try {
+                Future<Void> access = ui.access(() -> construct(requested, viewClass, expiry));
+                if (access != null) {
+                    access.get();
+                }
+            } catch (UIDetachedException e) {
+                log.debug("UI detached before views could be prefetched");
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread()
+                      .interrupt();
+                return;
+            } catch (ExecutionException e) {
+                log.warn("Unable to prefetch view {}: {}", viewClass.getName(), e.getMessage());
+            }
+        }
+    }
+
+    private void construct(int requested, Class<? extends KrailView> viewClass, long expiry) {
+        // checked again holding the session lock, as a navigation may have happened while waiting for it
+        if (superseded(requested, expiry)) {
+            return;
+        }
+        try {
+            KrailView view = viewFactory.get(viewClass);
+            prefetched.put(viewClass, new Prefetched(view, expiry));
+            log.debug("prefetched view {}", viewClass.getName());
+        } catch (Exception e) {
+            log.warn("Unable to prefetch view {}: {}", viewClass.getName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Returns true if a navigation has taken place since the prefetch was requested, or the prefetch has timed out
+     */
+    private boolean superseded(int requested, long expiry) {
+        return generation.get() != requested || System.currentTimeMillis() > expiry;
+    }
+
+    @Override
+    public KrailView take(Class<? extends KrailView> viewClass) {
+        if (!active) {
+            return null;
+        }
+        Prefetched entry = prefetched.remove(viewClass);
+        KrailView view = entry == null ? null : entry.get();
+        // whatever else has been prefetched is for the wrong page now
+        discard();
+        navigationMetrics.recordPrefetch(view != null);
+        return view;
+    }
+
+    @Override
+    public void discard() {
+        generation.incrementAndGet();
+        prefetched.clear();
+        active = false;
+    }
+
+    public boolean getOptionEnabled() {
+        return option.get(optionKeyEnabled);
+    }
+
+    public void setOptionEnabled(boolean enabled) {
+        option.set(optionKeyEnabled, enabled);
+    }
+
+    public int getOptionMaximumViews() {
+        return option.get(optionKeyMaximumViews);
+    }
+
+    public void setOptionMaximumViews(int maximumViews) {
+        option.set(optionKeyMaximumViews, maximumViews);
+    }
+
+    public int getOptionTimeoutSeconds() {
+        return option.get(optionKeyTimeoutSeconds);
+    }
+
+    public void setOptionTimeoutSeconds(int timeoutSeconds) {
+        option.set(optionKeyTimeoutSeconds, timeoutSeconds);
+    }
+
+    @Override
+    public Option optionInstance() {
+        return option;
+    }
+
+    /**
+     * New values take effect from the next prefetch
+     */
+    @Override
+    public void optionValueChanged(Property.ValueChangeEvent event) {
+        discard();
+    }
+
+    private static class Prefetched {
+        private final SoftReference<KrailView> view;
+        private final long expiry;
+
+        Prefetched(KrailView view, long expiry) {
+            this.view = new SoftReference<>(view);
+            this.expiry = expiry;
+        }
+
+        KrailView get() {
+            return System.currentTimeMillis() > expiry ? null : view.get();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Provides the background executors used by navigation.  The executors are shared by all UIs, and are owned by the
+ * injector - they are shut down by {@link #shutdown()} when the servlet context is destroyed, so that no threads
+ * survive a redeploy.
+ */
+public interface NavigationExecutors {
+
+    /**
+     * Returns the executor used by the {@link ViewPrefetcher} to construct views in the background
+     *
+     * @return the executor used by the {@link ViewPrefetcher} to construct views in the background
+     */
+    ExecutorService prefetchExecutor();
+
+    /**
+     * Returns the executor used to load {@link uk.q3c.krail.core.view.AsyncKrailView}s in the background
+     *
+     * @return the executor used to load {@link uk.q3c.krail.core.view.AsyncKrailView}s in the background
+     */
+    ExecutorService asyncViewExecutor();
+
+    /**
+     * Shuts down all the executors.  Tasks already running are given a short time to finish, and are then
+     * interrupted
+     */
+    void shutdown();
+}
@@ -0,0 +1,63 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate;
+
+import uk.q3c.krail.core.view.KrailView;
+
+/**
+ * A sink for the phase timings taken by the {@link DefaultNavigator}.  Bind a different implementation via
+ * {@link NavigationModule#bindNavigationMetrics()} to send the figures to an external metrics system.
+ */
+public interface NavigationMetrics {
+
+    /**
+     * Returns false if timings are not wanted.  The {@link DefaultNavigator} does not read the clock at all when disabled
+     *
+     * @return true if timings should be taken
+     */
+    boolean isEnabled();
+
+    /**
+     * Records the duration of one phase of a navigation.
+     *
+     * @param viewClass the class of the view navigated to, or null if the navigation did not reach a view (for example,
+     *                  an invalid URI or a blocked change)
+     * @param phase     the phase timed
+     * @param nanos     the elapsed time in nanoseconds
+     */
+    void record(Class<? extends KrailView> viewClass, NavigationPhase phase, long nanos);
+
+    /**
+     * Records whether the view needed by a navigation had been prefetched by the {@link ViewPrefetcher}.  By default
+     * does nothing
+     *
+     * @param hit true if the view had been prefetched
+     */
+    default void recordPrefetch(boolean hit) {
+    }
+
+    /**
+     * Called by the {@link uk.q3c.krail.core.guice.DefaultBindingManager} once the injector has been created, so that
+     * an implementation can publish itself (for example through JMX) only when fully constructed.  By default does
+     * nothing
+     */
+    default void start() {
+    }
+
+    /**
+     * Called by the {@link uk.q3c.krail.core.guice.DefaultBindingManager} when the servlet context is destroyed, to
+     * release anything acquired by {@link #start()}.  By default does nothing
+     */
+    default void stop() {
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate;
+
+import java.util.Map;
+
+/**
+ * JMX view of the navigation timings held by {@link DefaultNavigationMetrics}.  Map keys are of the form
+ * {@code <view class name>/<phase>}; times are in milliseconds.
+ */
+public interface NavigationMetricsMXBean {
+
+    Map<String, Long> getCounts();
+
+    Map<String, Double> getMeanMillis();
+
+    Map<String, Double> getP95Millis();
+
+    Map<String, Double> getMaxMillis();
+
+    long getPrefetchHits();
+
+    long getPrefetchMisses();
+
+    double percentileMillis(String viewClassName, String phase, double percentile);
+
+    void reset();
+}
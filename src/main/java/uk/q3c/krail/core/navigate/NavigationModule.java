@@ -29,6 +29,9 @@ public class NavigationModule extends AbstractModule {
         bindNavigationRules();
         bindViewChangeRule();
         bindInvalidURIHandler();
+        bindNavigationMetrics();
+        bindViewPrefetcher();
+        bindNavigationExecutors();
     }
 
     protected void bindViewChangeRule() {
@@ -60,4 +63,26 @@ public class NavigationModule extends AbstractModule {
     protected void bindInvalidURIHandler() {
         bind(InvalidURIHandler.class).to(DefaultInvalidURIHandler.class);
     }
+
+    /**
+     * Override to send navigation phase timings somewhere other than the default JMX published histograms
+     */
+    protected void bindNavigationMetrics() {
+        bind(NavigationMetrics.class).to(DefaultNavigationMetrics.class);
+    }
+
+    /**
+     * Override to provide your own way of choosing and constructing the views a user is likely to navigate to next
+     */
+    protected void bindViewPrefetcher() {
+        bind(ViewPrefetcher.class).to(DefaultViewPrefetcher.class);
+    }
+
+    /**
+     * Override to provide your own executors for background navigation work.  The executors are shut down when the
+     * servlet context is destroyed
+     */
+    protected void bindNavigationExecutors() {
+        bind(NavigationExecutors.class).to(DefaultNavigationExecutors.class);
+    }
 }
@@ -0,0 +1,49 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate;
+
+/**
+ * The phases of a navigation, as timed by the {@link DefaultNavigator} and recorded by {@link NavigationMetrics}
+ */
+public enum NavigationPhase {
+    /** parsing of the URI fragment into a {@link NavigationState} */
+    PARSE,
+    /** update of the URI fragment to match the navigation state */
+    FRAGMENT_UPDATE,
+    /** resolution of any redirect for the requested page */
+    REDIRECT,
+    /** lookup of the user sitemap node for the navigation state */
+    NODE_LOOKUP,
+    /** the page permission check made by the PageAccessController */
+    AUTHORISATION,
+    /** publication of the BeforeViewChangeBusMessage */
+    PUBLISH_BEFORE,
+    /** construction of the view by the view factory */
+    VIEW_CONSTRUCTION,
+    /** AsyncKrailView.load, which runs on a background thread */
+    ASYNC_LOAD,
+    /** KrailView.beforeBuild */
+    BEFORE_BUILD,
+    /** KrailView.buildView */
+    BUILD_VIEW,
+    /** ScopedUI.changeView, which includes the I18N translation of the view */
+    UI_CHANGE_VIEW,
+    /** KrailView.afterBuild */
+    AFTER_BUILD,
+    /** publication of the AfterViewChangeBusMessage */
+    PUBLISH_AFTER,
+    /** KrailView.parametersChanged and the ParameterChangeBusMessage, when only the parameters have changed */
+    PARAMETER_CHANGE,
+    /** the whole navigation, from start to finish */
+    TOTAL
+}
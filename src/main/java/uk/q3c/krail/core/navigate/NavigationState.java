@@ -22,7 +22,6 @@ import java.io.Serializable;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.*;
 import static org.slf4j.LoggerFactory.*;
@@ -56,17 +55,24 @@ import static org.slf4j.LoggerFactory.*;
  * </code>
  * <p>
  * A NavigationState 'a' is equal to NavigationState 'b' if a.getFragment.equals(b.getFragment())
+ * <p>
+ * The read accessors return immutable collections, which are built once and then returned without copying until the
+ * state is next modified.  A state populated from a {@link ParsedFragment} shares its collections, and only takes a
+ * private copy of the parameters if they are modified.
  *
  * @author David Sowerby
  */
 public class NavigationState implements Serializable {
     private static Logger log = getLogger(NavigationState.class);
-    private final Map<String, String> parameters = new LinkedHashMap<String, String>();
+    // the mutable parameters, null while the parameters are shared with a ParsedFragment
+    private Map<String, String> parameters = new LinkedHashMap<String, String>();
+    private ImmutableMap<String, String> parametersView;
+    private ImmutableList<String> parameterList;
     // fragment is out of date
     private boolean fragmentChanged;
     private boolean partsChanged;
     private String fragment;
-    private List<String> pathSegments;
+    private ImmutableList<String> pathSegments;
     private String virtualPage;
     private boolean updateInProgress;
 
@@ -126,15 +132,34 @@ public class NavigationState implements Serializable {
 
     public Map<String, String> getParameters() {
         validStateCheck();
-        return ImmutableMap.copyOf(parameters);
+        return parametersView();
     }
 
     public List<String> getParameterList() {
         validStateCheck();
-        return parameters.entrySet()
-                         .stream()
-                         .map(entry -> entry.getKey() + '=' + entry.getValue())
-                         .collect(Collectors.toList());
+        if (parameterList == null) {
+            parameterList = ParsedFragment.parameterList(parametersView());
+        }
+        return parameterList;
+    }
+
+    private ImmutableMap<String, String> parametersView() {
+        if (parametersView == null) {
+            parametersView = ImmutableMap.copyOf(parameters);
+        }
+        return parametersView;
+    }
+
+    /**
+     * Returns the parameters for modification, taking a private copy if they are shared
+     */
+    private Map<String, String> mutableParameters() {
+        if (parameters == null) {
+            parameters = new LinkedHashMap<>(parametersView);
+        }
+        parametersView = null;
+        parameterList = null;
+        return parameters;
     }
 
     private void validStateCheck() {
@@ -146,13 +171,13 @@ public class NavigationState implements Serializable {
     public String getParameterValue(String key) {
         validStateCheck();
         checkNotNull(key);
-        return parameters.get(key);
+        return parametersView().get(key);
     }
 
 
     public List<String> getPathSegments() {
         validStateCheck();
-        return pathSegments == null ? ImmutableList.of() : ImmutableList.copyOf(pathSegments);
+        return pathSegments == null ? ImmutableList.of() : pathSegments;
     }
 
     /**
@@ -165,7 +190,7 @@ public class NavigationState implements Serializable {
 
     public NavigationState pathSegments(List<String> pathSegments) {
         checkNotNull(pathSegments);
-        this.pathSegments = pathSegments;
+        this.pathSegments = ImmutableList.copyOf(pathSegments);
         partsChanged = true;
         if (!updateInProgress) {
             virtualPage = null;
@@ -192,7 +217,10 @@ public class NavigationState implements Serializable {
 
     public NavigationState removeParameter(String key) {
         checkNotNull(key);
-        String result = parameters.remove(key);
+        if (!parametersView().containsKey(key)) {
+            return this;
+        }
+        String result = mutableParameters().remove(key);
         if (result != null) {
             partsChanged = true;
         }
@@ -230,7 +258,7 @@ public class NavigationState implements Serializable {
     public boolean hasParameter(String parameterName) {
         validStateCheck();
         checkNotNull(parameterName);
-        return parameters.containsKey(parameterName);
+        return parametersView().containsKey(parameterName);
     }
 
     public NavigationState virtualPage(final String virtualPage) {
@@ -247,7 +275,7 @@ public class NavigationState implements Serializable {
     public NavigationState parameter(String key, String value) {
         checkNotNull(key);
         checkNotNull(value);
-        parameters.put(key, value);
+        mutableParameters().put(key, value);
         partsChanged = true;
         return this;
     }
@@ -272,6 +300,24 @@ public class NavigationState implements Serializable {
     }
 
 
+    /**
+     * Sets the fragment and all component parts from {@code parsed}, sharing its immutable collections.  Intended for
+     * use by a {@link URIFragmentHandler}, which should call {@link #updated()} afterwards
+     *
+     * @param parsed the parsed fragment to take the state from
+     * @return this for fluency
+     */
+    public NavigationState parsed(ParsedFragment parsed) {
+        checkNotNull(parsed);
+        this.fragment = parsed.getFragment();
+        this.virtualPage = parsed.getVirtualPage();
+        this.pathSegments = parsed.getPathSegments();
+        this.parametersView = parsed.getParameters();
+        this.parameterList = parsed.getParameterList();
+        this.parameters = null;
+        return this;
+    }
+
     public void updated() {
         fragmentChanged = false;
         partsChanged = false;
@@ -0,0 +1,97 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate;
+
+import uk.q3c.krail.core.view.KrailView;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Collects the phase timings of a single navigation.  The view class is not known until part way through a
+ * navigation, so timings are held until {@link #finish(Class)} passes them to {@link NavigationMetrics}.  When metrics
+ * are disabled the clock is never read.
+ * <p>
+ * Not thread safe - a timer is used by one navigation only
+ */
+class NavigationTimer {
+
+    private final NavigationMetrics metrics;
+    private final boolean enabled;
+    private final long start;
+    private final Map<NavigationPhase, Long> timings;
+    private long phaseStart;
+    private boolean finished;
+
+    NavigationTimer(NavigationMetrics metrics) {
+        this.metrics = metrics;
+        this.enabled = metrics.isEnabled();
+        this.start = enabled ? System.nanoTime() : 0;
+        this.phaseStart = start;
+        this.timings = enabled ? new EnumMap<>(NavigationPhase.class) : null;
+    }
+
+    /**
+     * Marks the start of a phase
+     */
+    void start() {
+        if (enabled) {
+            phaseStart = System.nanoTime();
+        }
+    }
+
+    /**
+     * Records the time since the last call to {@link #start()} against {@code phase}
+     */
+    void stop(NavigationPhase phase) {
+        if (enabled) {
+            timings.merge(phase, System.nanoTime() - phaseStart, Long::sum);
+        }
+    }
+
+    /**
+     * Records a duration measured elsewhere against {@code phase}
+     */
+    void add(NavigationPhase phase, long nanos) {
+        if (enabled) {
+            timings.merge(phase, nanos, Long::sum);
+        }
+    }
+
+    /**
+     * Passes the timings, and the total elapsed time, to {@link NavigationMetrics}.  Only the first call has any effect, so a navigation can
+     * finish its timer in a {@code finally} block whichever way it ends
+     *
+     * @param viewClass the view navigated to, or null if the navigation did not reach a view
+     */
+    void finish(Class<? extends KrailView> viewClass) {
+        if (enabled && !finished) {
+            finished = true;
+            flush(viewClass);
+            metrics.record(viewClass, NavigationPhase.TOTAL, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Passes the timings to {@link NavigationMetrics}, without a total - used for the part of a navigation which
+     * completes asynchronously
+     *
+     * @param viewClass the view navigated to
+     */
+    void flush(Class<? extends KrailView> viewClass) {
+        if (enabled) {
+            timings.forEach((phase, nanos) -> metrics.record(viewClass, phase, nanos));
+            timings.clear();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import javax.annotation.concurrent.Immutable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * The component parts of a URI fragment, as parsed by {@link StrictURIFragmentHandler}.  Instances are immutable and
+ * interned through a bounded, shared, least recently used cache keyed by fragment, so that repeat navigations to the
+ * same page parse nothing, and a {@link NavigationState} can hand out the same immutable collections to every caller.
+ * <p>
+ * The fragment given to {@link #of(String)} is expected to have already had any bang and leading or trailing '/'
+ * removed
+ * <p>
+ * The cache is deliberately static, and so shared by every application in the classloader.  An entry is a pure function
+ * of its fragment string and holds no application or user state, so one application can never see a result which
+ * differs from what it would have parsed itself - sharing only pools the bounded memory.  It is static, rather than an
+ * injected Singleton, because {@link StrictURIFragmentHandler} (and so {@link NavigationState}) is routinely created
+ * without an injector.
+ */
+@Immutable
+public final class ParsedFragment {
+
+    /**
+     * The maximum number of parsed fragments held in the shared cache
+     */
+    public static final int CACHE_SIZE = 2048;
+
+    private static final Splitter PATH_SPLITTER = Splitter.on('/');
+    private static final Splitter PARAMETER_SPLITTER = Splitter.on('=');
+    private static final LoadingCache<String, ParsedFragment> cache = CacheBuilder.newBuilder()
+                                                                                  .maximumSize(CACHE_SIZE)
+                                                                                  .build(CacheLoader.from(ParsedFragment::new));
+
+    private final String fragment;
+    private final String virtualPage;
+    private final ImmutableList<String> pathSegments;
+    private final ImmutableMap<String, String> parameters;
+    private final ImmutableList<String> parameterList;
+
+    private ParsedFragment(String fragment) {
+        this.fragment = fragment;
+        ImmutableList.Builder<String> segmentsBuilder = ImmutableList.builder();
+        Map<String, String> params = new LinkedHashMap<>();
+        boolean paramsStarted = false;
+        for (String s : PATH_SPLITTER.split(fragment)) {
+            if (paramsStarted || s.contains("=")) {
+                paramsStarted = true;
+                addParameter(params, s);
+            } else {
+                segmentsBuilder.add(s);
+            }
+        }
+        this.pathSegments = segmentsBuilder.build();
+        this.virtualPage = Joiner.on('/')
+                                 .join(pathSegments);
+        this.parameters = ImmutableMap.copyOf(params);
+        this.parameterList = parameterList(parameters);
+    }
+
+    /**
+     * Returns the parsed form of {@code fragment}, from the shared cache if possible.  Concurrent requests for a
+     * fragment which is not yet cached wait for a single parse
+     *
+     * @param fragment the fragment to parse, with bang and leading or trailing '/' already removed
+     * @return the parsed form of {@code fragment}
+     */
+    public static ParsedFragment of(String fragment) {
+        checkNotNull(fragment);
+        return cache.getUnchecked(fragment);
+    }
+
+    /**
+     * Returns the parameters as a list of 'key=value' Strings
+     */
+    static ImmutableList<String> parameterList(Map<String, String> parameters) {
+        ImmutableList.Builder<String> builder = ImmutableList.builder();
+        parameters.forEach((key, value) -> builder.add(key + '=' + value));
+        return builder.build();
+    }
+
+    /**
+     * Parameters which have no '=', an empty key or an empty value are ignored.  A repeated key takes the last value
+     */
+    private static void addParameter(Map<String, String> params, String s) {
+        if (s.contains("=")) {
+            Iterator<String> iter = PARAMETER_SPLITTER.split(s)
+                                                      .iterator();
+            String key = iter.next();
+            String value = iter.next();
+            if (Strings.isNullOrEmpty(key)) {
+                return;
+            }
+            if (Strings.isNullOrEmpty(value)) {
+                return;
+            }
+            params.put(key, value);
+        }
+    }
+
+    /**
+     * Empties the shared cache
+     */
+    public static void clearCache() {
+        cache.invalidateAll();
+    }
+
+    public static long cacheSize() {
+        return cache.size();
+    }
+
+    public String getFragment() {
+        return fragment;
+    }
+
+    public String getVirtualPage() {
+        return virtualPage;
+    }
+
+    public ImmutableList<String> getPathSegments() {
+        return pathSegments;
+    }
+
+    public ImmutableMap<String, String> getParameters() {
+        return parameters;
+    }
+
+    public ImmutableList<String> getParameterList() {
+        return parameterList;
+    }
+}
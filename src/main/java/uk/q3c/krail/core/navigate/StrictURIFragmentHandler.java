@@ -15,14 +15,11 @@ package uk.q3c.krail.core.navigate;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
-import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -88,40 +85,14 @@ public class StrictURIFragmentHandler implements URIFragmentHandler, Serializabl
         return navigationState;
     }
 
+    /**
+     * Takes the parts from the shared {@link ParsedFragment} cache, so that a fragment which has been seen before is
+     * not parsed again
+     */
     @Override
     public void updateParts(NavigationState navigationState) {
         navigationState.setUpdateInProgress(true);
-        String fragment = navigationState.getFragment();
-
-        List<String> pathSegments = new ArrayList<>();
-        // no parameters, everything is the virtual page path
-        // if (!fragment.contains("=")) {
-        // navigationState.setVirtualPage(fragment);
-        // return navigationState;
-        // }
-
-        Iterable<String> segments = Splitter.on('/')
-                                            .split(fragment);
-
-        boolean paramsStarted = false;
-        Iterator<String> iter = segments.iterator();
-        while (iter.hasNext()) {
-            String s = iter.next();
-            if (paramsStarted) {
-                addParameter(navigationState, s);
-            } else {
-                if (s.contains("=")) {
-                    paramsStarted = true;
-                    addParameter(navigationState, s);
-                } else {
-                    pathSegments.add(s);
-                }
-            }
-        }
-        navigationState.setUpdateInProgress(true);
-        // join the virtual page path up again
-        navigationState.pathSegments(pathSegments);
-        validateSegments(navigationState);
+        navigationState.parsed(ParsedFragment.of(navigationState.getFragment()));
         navigationState.updated();
     }
 
@@ -131,23 +102,6 @@ public class StrictURIFragmentHandler implements URIFragmentHandler, Serializabl
                       .join(pathSegments.toArray());
     }
 
-    private void addParameter(NavigationState navigationState, String s) {
-        if (s.contains("=")) {
-            Iterable<String> segments = Splitter.on('=')
-                                                .split(s);
-            Iterator<String> iter = segments.iterator();
-            String key = iter.next();
-            String value = iter.next();
-            if (Strings.isNullOrEmpty(key)) {
-                return;
-            }
-            if (Strings.isNullOrEmpty(value)) {
-                return;
-            }
-            navigationState.addParameter(key, value);
-        }
-    }
-
     private String stripBangAndTrailingSlash(String path) {
         int copyStart = 0;
         int copyEnd = path.length();
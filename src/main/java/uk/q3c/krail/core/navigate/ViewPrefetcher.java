@@ -0,0 +1,48 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate;
+
+import uk.q3c.krail.core.navigate.sitemap.UserSitemap;
+import uk.q3c.krail.core.navigate.sitemap.UserSitemapNode;
+import uk.q3c.krail.core.view.KrailView;
+
+/**
+ * Constructs, in the background, the views a user is most likely to navigate to next, so that the {@link Navigator}
+ * can use them instead of constructing a view when the user does navigate.  Prefetched views are constructed and
+ * initialised, but not built or attached.
+ */
+public interface ViewPrefetcher {
+
+    /**
+     * Starts prefetching the likely next views after a navigation to {@code node}.  Returns immediately.  Any views
+     * prefetched for an earlier navigation are discarded
+     *
+     * @param userSitemap the user sitemap containing {@code node}
+     * @param node        the node just navigated to
+     */
+    void prefetch(UserSitemap userSitemap, UserSitemapNode node);
+
+    /**
+     * Returns a prefetched instance of {@code viewClass} and removes it from the prefetcher, or returns null if there
+     * is none.  Records a hit or a miss.
+     *
+     * @param viewClass the class of view required
+     * @return a prefetched instance of {@code viewClass}, or null if there is none
+     */
+    KrailView take(Class<? extends KrailView> viewClass);
+
+    /**
+     * Discards all prefetched views, and cancels any prefetch in progress
+     */
+    void discard();
+}
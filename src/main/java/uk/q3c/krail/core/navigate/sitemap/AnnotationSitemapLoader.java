@@ -26,6 +26,7 @@ public interface AnnotationSitemapLoader extends SitemapLoader {
     String LABEL_NOT_VALID = "Annotation for View {0}.  {1} is not a valid key value for enum {2}";
     String REDIRECT_FROM_IGNORED = "The @RedirectFrom annotation for {0} has been ignored.  A @RedirectFrom "
             + "must be accompanied by a @View";
+    String INDEXED_CLASS_NOT_FOUND = "View index entry {0} could not be loaded.  The View index may be out of date";
 
     Map<String, AnnotationSitemapEntry> getSources();
 }
@@ -0,0 +1,304 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate.sitemap;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import uk.q3c.util.forest.BasicForest;
+
+import javax.annotation.concurrent.Immutable;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A compact, read only copy of the structure of a sitemap {@link BasicForest}, with every node identified by its position, depth first.  The structure
+ * is held in int arrays - parent, first child, next sibling and child count for each position - and the children of each parent are indexed by URI
+ * segment in a single open addressing hash table.  Apart from the methods which are documented as returning a new list, nothing here allocates, so a
+ * traversal is written as:
+ * <pre>
+ * for (int child = forest.firstChildOf(parent); child != CompactForest.NONE; child = forest.nextSiblingOf(child)) {
+ *     T node = forest.nodeAt(child);
+ * }
+ * </pre>
+ * Use {@link #NONE} as the parent position to work with the roots.  Where siblings share a URI segment, the first sibling wins, as it does for {@link
+ * DefaultSitemapBase#findNodeBySegment(List, String, boolean)}.
+ * <p>
+ * Nodes are located by {@link SitemapNode#getId()}, as node equality is based on the id - through an array indexed by id, or if the ids are negative
+ * or too sparse for that, a map.  Ids must therefore be unique within the forest.
+ *
+ * @param <T> the type of sitemap node held
+ */
+@Immutable
+public class CompactForest<T extends SitemapNode> implements Serializable {
+
+    /**
+     * The position used for 'no node' - the parent of a root, the first child of a leaf, or a node not in the forest
+     */
+    public static final int NONE = -1;
+    private static final int MAX_SPARSENESS = 4;
+
+    private final ImmutableList<T> nodes;
+    private final int[] parents;
+    private final int[] firstChildren;
+    private final int[] nextSiblings;
+    private final int[] childCounts;
+    private final int firstRoot;
+    private final int rootCount;
+    /**
+     * Open addressing table of (parent position, segment) to child position + 1, with 0 marking an empty slot
+     */
+    private final int[] segmentTable;
+    /**
+     * Position + 1 of each node, by id, with 0 where there is no node for an id.  Null if {@link #sparsePositionsById} is used instead
+     */
+    private final int[] positionsById;
+    private final ImmutableMap<Integer, Integer> sparsePositionsById;
+
+    private CompactForest(List<T> nodeList, int[] parents) {
+        int size = nodeList.size();
+        this.nodes = ImmutableList.copyOf(nodeList);
+        this.parents = parents;
+        firstChildren = new int[size];
+        nextSiblings = new int[size];
+        childCounts = new int[size];
+        Arrays.fill(firstChildren, NONE);
+        Arrays.fill(nextSiblings, NONE);
+
+        // link the siblings, working backwards so that each list is in forest order
+        int root = NONE;
+        int roots = 0;
+        for (int i = size - 1; i >= 0; i--) {
+            int parent = parents[i];
+            if (parent == NONE) {
+                nextSiblings[i] = root;
+                root = i;
+                roots++;
+            } else {
+                nextSiblings[i] = firstChildren[parent];
+                firstChildren[parent] = i;
+                childCounts[parent]++;
+            }
+        }
+        firstRoot = root;
+        rootCount = roots;
+
+        // at most half full
+        int capacity = Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+        segmentTable = new int[capacity];
+        for (int i = 0; i < size; i++) {
+            int slot = slotFor(parents[i], nodes.get(i)
+                                                .getUriSegment());
+            // first sibling wins
+            if (segmentTable[slot] == 0) {
+                segmentTable[slot] = i + 1;
+            }
+        }
+
+        int maxId = NONE;
+        boolean idsUsable = true;
+        for (T node : nodes) {
+            if (node.getId() < 0) {
+                idsUsable = false;
+            }
+            maxId = Math.max(maxId, node.getId());
+        }
+        if (idsUsable && maxId < (long) size * MAX_SPARSENESS + 64) {
+            positionsById = new int[maxId + 1];
+            for (int i = 0; i < size; i++) {
+                int id = nodes.get(i)
+                              .getId();
+                if (positionsById[id] != 0) {
+                    throw duplicateId(id);
+                }
+                positionsById[id] = i + 1;
+            }
+            sparsePositionsById = null;
+        } else {
+            Map<Integer, Integer> sparse = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                int id = nodes.get(i)
+                              .getId();
+                if (sparse.put(id, i) != null) {
+                    throw duplicateId(id);
+                }
+            }
+            sparsePositionsById = ImmutableMap.copyOf(sparse);
+            positionsById = null;
+        }
+    }
+
+    private static SitemapException duplicateId(int id) {
+        return new SitemapException("Sitemap node id " + id + " is used by more than one node, so nodes cannot be located by id");
+    }
+
+    /**
+     * Copies the current structure of {@code forest}.  The caller is responsible for ensuring that {@code forest} is not modified while it is being
+     * copied
+     *
+     * @param forest the forest to copy
+     * @param <T>    the type of sitemap node held
+     * @return a compact copy of {@code forest}
+     * @throws SitemapException if two nodes in {@code forest} have the same id
+     */
+    public static <T extends SitemapNode> CompactForest<T> of(BasicForest<T> forest) {
+        checkNotNull(forest);
+        int nodeCount = forest.getNodeCount();
+        List<T> nodeList = new ArrayList<>(nodeCount);
+        List<Integer> parentList = new ArrayList<>(nodeCount);
+        for (T root : forest.getRoots()) {
+            flatten(forest, root, NONE, nodeList, parentList);
+        }
+        int[] parents = new int[parentList.size()];
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = parentList.get(i);
+        }
+        return new CompactForest<>(nodeList, parents);
+    }
+
+    /**
+     * Depth first, so that a node's children are held in the same order as the forest holds them
+     */
+    private static <T extends SitemapNode> void flatten(BasicForest<T> forest, T node, int parent, List<T> nodeList, List<Integer> parentList) {
+        int position = nodeList.size();
+        nodeList.add(node);
+        parentList.add(parent);
+        for (T child : forest.getChildren(node)) {
+            flatten(forest, child, position, nodeList, parentList);
+        }
+    }
+
+    /**
+     * Returns the slot holding the child of {@code parent} with {@code segment}, or the empty slot where it would be
+     */
+    private int slotFor(int parent, String segment) {
+        int mask = segmentTable.length - 1;
+        int slot = mix(parent * 31 + segment.hashCode()) & mask;
+        while (true) {
+            int entry = segmentTable[slot];
+            if (entry == 0) {
+                return slot;
+            }
+            int candidate = entry - 1;
+            if (parents[candidate] == parent && segment.equals(nodes.get(candidate)
+                                                                    .getUriSegment())) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * @return every node, depth first.  The list is immutable, and is not copied
+     */
+    public ImmutableList<T> nodes() {
+        return nodes;
+    }
+
+    public T nodeAt(int position) {
+        return nodes.get(position);
+    }
+
+    /**
+     * Returns the position of {@code node}, or {@link #NONE} if it is not in this forest
+     */
+    public int positionOf(T node) {
+        if (node == null) {
+            return NONE;
+        }
+        int position = positionOfId(node.getId());
+        return (position != NONE && nodes.get(position)
+                                         .equals(node)) ? position : NONE;
+    }
+
+    /**
+     * Returns the position of the node with {@link SitemapNode#getId()} of {@code id}, or {@link #NONE} if there is no such node
+     */
+    public int positionOfId(int id) {
+        if (positionsById == null) {
+            Integer position = sparsePositionsById.get(id);
+            return (position == null) ? NONE : position;
+        }
+        if (id < 0 || id >= positionsById.length) {
+            return NONE;
+        }
+        return positionsById[id] - 1;
+    }
+
+    public boolean contains(T node) {
+        return positionOf(node) != NONE;
+    }
+
+    /**
+     * Returns the position of the parent of the node at {@code position}, or {@link #NONE} if it is a root
+     */
+    public int parentOf(int position) {
+        return parents[position];
+    }
+
+    /**
+     * Returns the position of the first child of {@code position}, or the first root if {@code position} is {@link #NONE}.  Returns {@link #NONE} if
+     * there is no such node
+     */
+    public int firstChildOf(int position) {
+        return (position == NONE) ? firstRoot : firstChildren[position];
+    }
+
+    /**
+     * Returns the position of the next sibling of the node at {@code position}, or {@link #NONE} if it is the last
+     */
+    public int nextSiblingOf(int position) {
+        return nextSiblings[position];
+    }
+
+    /**
+     * Returns the number of children of the node at {@code position}, or the number of roots if {@code position} is {@link #NONE}
+     */
+    public int childCountOf(int position) {
+        return (position == NONE) ? rootCount : childCounts[position];
+    }
+
+    /**
+     * Returns the position of the child of {@code parent} with the URI segment {@code segment} (a root if {@code parent} is {@link #NONE}), or
+     * {@link #NONE} if there is none
+     */
+    public int childFor(int parent, String segment) {
+        checkNotNull(segment);
+        return segmentTable[slotFor(parent, segment)] - 1;
+    }
+
+    /**
+     * Returns a new list of the children of the node at {@code position}, or of the roots if {@code position} is {@link #NONE}
+     */
+    public List<T> childrenOf(int position) {
+        List<T> list = new ArrayList<>(childCountOf(position));
+        for (int child = firstChildOf(position); child != NONE; child = nextSiblings[child]) {
+            list.add(nodes.get(child));
+        }
+        return list;
+    }
+}
@@ -13,6 +13,8 @@
 package uk.q3c.krail.core.navigate.sitemap;
 
 import com.google.common.base.Splitter;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.inject.Inject;
 import org.apache.commons.lang3.StringUtils;
 import org.reflections.Reflections;
@@ -21,9 +23,14 @@ import org.slf4j.LoggerFactory;
 import uk.q3c.krail.core.view.KrailView;
 import uk.q3c.krail.i18n.I18NKey;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.*;
 
@@ -49,94 +56,145 @@ public class DefaultAnnotationSitemapLoader extends SitemapLoaderBase implements
      * not implement {@link KrailView}, then it is ignored.
      * <p/>
      * <br>
-     * Also scans for the {@link RedirectFrom} annotation, and populates the {@link MasterSitemap} redirects with the appropriate entries. If a class is
+     * Also scans for the {@link RedirectFrom} annotation, and populates the redirects with the appropriate entries. If a class is
      * annotated with {@link RedirectFrom}, but does not implement {@link KrailView}, then the annotation is ignored.
-     *
+     * <p/>
+     * <br>
+     * Where a {@link ViewIndex} (generated at compile time by {@link ViewIndexProcessor}) has entries for a reflectionRoot, those are used and the
+     * classpath is not scanned for that reflectionRoot.  Otherwise, each package is scanned concurrently, as that is where almost all the time goes.
+     * The results are then processed in the order of {@link #sources}, with the classes in each package sorted by name, so the buffer contents do not
+     * depend on thread timing
      */
-    @SuppressWarnings("unchecked")
     @Override
-    public boolean load(MasterSitemap sitemap) {
-        checkNotNull(sitemap);
+    public boolean load(SitemapLoadBuffer buffer) {
+        checkNotNull(buffer);
         clearCounts();
         if (sources != null) {
+            // pool threads do not share the context class loader of the caller
+            ClassLoader classLoader = classLoader();
+            ViewIndex index = ViewIndex.load(classLoader);
+            List<PackageScan> scans = new ArrayList<>(sources.entrySet()).parallelStream()
+                                                                          .map(entry -> new PackageScan(entry, index, classLoader))
+                                                                          .collect(Collectors.toList());
+            for (PackageScan scan : scans) {
+                processScan(scan, buffer, classLoader);
+            }
+            for (PackageScan scan : scans) {
+                addInfo(scan.indexed ? "Read from View index" : "Scanned for annotations", "Package name: " + scan.source);
+            }
+            return true;
+        } else {
+            log.info("No Annotations Sitemap sources to load");
+            return false;
+        }
+    }
 
+    /**
+     * The fingerprint covers the reflectionRoots and their {@link ViewIndex} entries.  It is null if any reflectionRoot has no index entries, as the
+     * classpath would then have to be scanned to find out what would be loaded
+     */
+    @Override
+    public String fingerprint() {
+        Hasher hasher = Hashing.sha256()
+                               .newHasher();
+        if (sources != null) {
+            ViewIndex index = ViewIndex.load(classLoader());
             for (Entry<String, AnnotationSitemapEntry> entry : sources.entrySet()) {
-                String source = entry.getKey();
-                log.debug("scanning {} for View annotations", entry.getKey());
-                Reflections reflections = new Reflections(entry.getKey());
-
-                // find the View annotations
-                Set<Class<?>> typesWithView = reflections.getTypesAnnotatedWith(View.class);
-                log.debug("{} KrailViews with View annotation found", typesWithView.size());
-
-                // find the RedirectFrom annotations
-                Set<Class<?>> typesWithRedirectFrom = reflections.getTypesAnnotatedWith(RedirectFrom.class);
-                log.debug("{} KrailViews with RedirectFrom annotation found", typesWithRedirectFrom.size());
-
-                // process the View annotations
-                for (Class<?> clazz : typesWithView) {
-                    Class<? extends KrailView> viewClass = null;
-                    if (KrailView.class.isAssignableFrom(clazz)) {
-                        viewClass = (Class<? extends KrailView>) clazz;
-                        View annotation = viewClass.getAnnotation(View.class);
-                        NodeRecord nodeRecord = new NodeRecord(annotation.uri());
-                        nodeRecord.setViewClass(viewClass);
-                        nodeRecord.setPageAccessControl(annotation.pageAccessControl());
-                        nodeRecord.setPositionIndex(annotation.positionIndex());
-                        if (StringUtils.isNotEmpty(annotation.roles())) {
-                            Splitter splitter = Splitter.on(",")
-                                                        .trimResults();
-                            Iterable<String> roles = splitter.split(annotation.roles());
-                            for (String role : roles) {
-                                nodeRecord.addRole(role);
-                            }
-                        }
-                        I18NKey keySample = entry.getValue()
-                                                    .getLabelSample();
-                        String keyName = annotation.labelKeyName();
-                        try {
-                            I18NKey key = keyFromName(keyName, keySample);
-                            nodeRecord.setLabelKey(key);
-                        } catch (IllegalArgumentException iae) {
-                            addError(source, AnnotationSitemapLoader.LABEL_NOT_VALID, clazz, keyName,
-                                    keySample.getClass());
+                List<ViewIndex.Entry> indexEntries = index.entriesFor(entry.getKey());
+                if (indexEntries.isEmpty()) {
+                    return null;
+                }
+                putField(hasher, entry.getKey());
+                putField(hasher, entry.getValue()
+                                      .getLabelSample());
+                for (ViewIndex.Entry indexEntry : indexEntries) {
+                    for (String line : indexEntry.toLines()) {
+                        putField(hasher, line);
+                    }
+                }
+            }
+        }
+        return hasher.hash()
+                     .toString();
+    }
+
+    private ClassLoader classLoader() {
+        ClassLoader classLoader = Thread.currentThread()
+                                        .getContextClassLoader();
+        return (classLoader == null) ? getClass().getClassLoader() : classLoader;
+    }
 
+    private void processScan(PackageScan scan, SitemapLoadBuffer buffer, ClassLoader classLoader) {
+        String source = scan.source;
+        // process the View annotations
+        for (ViewIndex.Entry indexEntry : scan.entries) {
+            if (indexEntry.hasView()) {
+                Class<? extends KrailView> viewClass = viewClass(source, indexEntry, classLoader);
+                if (viewClass != null) {
+                    NodeRecord nodeRecord = new NodeRecord(indexEntry.getUri());
+                    nodeRecord.setViewClass(viewClass);
+                    nodeRecord.setPageAccessControl(indexEntry.getPageAccessControl());
+                    nodeRecord.setPositionIndex(indexEntry.getPositionIndex());
+                    if (StringUtils.isNotEmpty(indexEntry.getRoles())) {
+                        Splitter splitter = Splitter.on(",")
+                                                    .trimResults();
+                        Iterable<String> roles = splitter.split(indexEntry.getRoles());
+                        for (String role : roles) {
+                            nodeRecord.addRole(role);
                         }
-                        sitemap.append(nodeRecord);
                     }
+                    I18NKey keySample = scan.entry.getLabelSample();
+                    String keyName = indexEntry.getLabelKeyName();
+                    try {
+                        I18NKey key = keyFromName(keyName, keySample);
+                        nodeRecord.setLabelKey(key);
+                    } catch (IllegalArgumentException iae) {
+                        addError(source, AnnotationSitemapLoader.LABEL_NOT_VALID, viewClass, keyName,
+                                keySample.getClass());
+
+                    }
+                    buffer.append(nodeRecord);
                 }
-                // process the RedirectFrom annotations
-                for (Class<?> clazz : typesWithRedirectFrom) {
-                    Class<? extends KrailView> viewClass = null;
-                    if (KrailView.class.isAssignableFrom(clazz)) {
-                        viewClass = (Class<? extends KrailView>) clazz;
-                        RedirectFrom redirectAnnotation = viewClass.getAnnotation(RedirectFrom.class);
-                        View viewAnnotation = viewClass.getAnnotation(View.class);
-                        if (viewAnnotation == null) {
-                            // report this
-                            addWarning(source, REDIRECT_FROM_IGNORED, clazz);
-
-                        } else {
-                            String[] sourcePages = redirectAnnotation.sourcePages();
-                            String targetPage = viewAnnotation.uri();
-                            for (String sourcePage : sourcePages) {
-                                sitemap.addRedirect(sourcePage, targetPage);
-                            }
+            }
+        }
+        // process the RedirectFrom annotations
+        for (ViewIndex.Entry indexEntry : scan.entries) {
+            if (indexEntry.hasRedirectFrom()) {
+                Class<? extends KrailView> viewClass = viewClass(source, indexEntry, classLoader);
+                if (viewClass != null) {
+                    if (!indexEntry.hasView()) {
+                        // report this
+                        addWarning(source, REDIRECT_FROM_IGNORED, viewClass);
+
+                    } else {
+                        String targetPage = indexEntry.getUri();
+                        for (String sourcePage : indexEntry.getRedirectSources()) {
+                            buffer.addRedirect(sourcePage, targetPage);
                         }
                     }
                 }
-
-            }
-            for (String source : sources.keySet()) {
-                addInfo("Scanned for annotations", "Package name: " + source);
             }
-            return true;
-        } else {
-            log.info("No Annotations Sitemap sources to load");
-            return false;
         }
     }
 
+    /**
+     * Returns the class for {@code indexEntry}, or null if it is not a {@link KrailView}, or cannot be loaded (which is reported as an error)
+     */
+    @SuppressWarnings("unchecked")
+    private Class<? extends KrailView> viewClass(String source, ViewIndex.Entry indexEntry, ClassLoader classLoader) {
+        Class<?> clazz;
+        try {
+            clazz = Class.forName(indexEntry.getClassName(), false, classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            addError(source, AnnotationSitemapLoader.INDEXED_CLASS_NOT_FOUND, indexEntry.getClassName());
+            return null;
+        }
+        if (KrailView.class.isAssignableFrom(clazz)) {
+            return (Class<? extends KrailView>) clazz;
+        }
+        return null;
+    }
+
     /**
      * Returns an {@link I18NKey} enum constant from {@code labelKeyName} using the class from {@code sampleKey}.
      *
@@ -157,4 +215,47 @@ public class DefaultAnnotationSitemapLoader extends SitemapLoaderBase implements
         this.sources = sources;
     }
 
+    /**
+     * The {@link View} and {@link RedirectFrom} declarations for one package, from the {@link ViewIndex} if it has any, otherwise by scanning.  Holds no
+     * reference to the loader, so that scans can run on any thread
+     */
+    private static class PackageScan {
+        private final AnnotationSitemapEntry entry;
+        private final List<ViewIndex.Entry> entries;
+        private final boolean indexed;
+        private final String source;
+
+        PackageScan(Entry<String, AnnotationSitemapEntry> sourceEntry, ViewIndex index, ClassLoader classLoader) {
+            this.source = sourceEntry.getKey();
+            this.entry = sourceEntry.getValue();
+            List<ViewIndex.Entry> indexEntries = index.entriesFor(source);
+            indexed = !indexEntries.isEmpty();
+            if (indexed) {
+                log.debug("{} View index entries found for {}", indexEntries.size(), source);
+                entries = indexEntries;
+            } else {
+                entries = scan(source, classLoader);
+            }
+        }
+
+        private static List<ViewIndex.Entry> scan(String source, ClassLoader classLoader) {
+            log.debug("scanning {} for View annotations", source);
+            Reflections reflections = new Reflections(source, classLoader);
+
+            // find the View and RedirectFrom annotations
+            Set<Class<?>> types = new HashSet<>(reflections.getTypesAnnotatedWith(View.class));
+            log.debug("{} KrailViews with View annotation found", types.size());
+            Set<Class<?>> typesWithRedirectFrom = reflections.getTypesAnnotatedWith(RedirectFrom.class);
+            log.debug("{} KrailViews with RedirectFrom annotation found", typesWithRedirectFrom.size());
+            types.addAll(typesWithRedirectFrom);
+
+            List<ViewIndex.Entry> entries = new ArrayList<>();
+            for (Class<?> type : types) {
+                entries.add(ViewIndex.Entry.of(type));
+            }
+            entries.sort(Comparator.comparing(ViewIndex.Entry::getClassName));
+            return entries;
+        }
+    }
+
 }
@@ -12,19 +12,22 @@
  */
 package uk.q3c.krail.core.navigate.sitemap;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.inject.Inject;
 
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeMap;
 
 import static com.google.common.base.Preconditions.*;
 
 /**
  * If a Map<String, DirectSitemapEntry> binding has been created (using Guice modules sub-classed from
- * {@link DirectSitemapModule}), then {@link #pageMap} will be non-null. If so, its contents are transferred to the
- * {@link MasterSitemap}. Also loads the standard pages.
+ * {@link DirectSitemapModule}), then {@link #pageMap} will be non-null. If so, its contents are transferred to a
+ * {@link SitemapLoadBuffer}, for later transfer to the {@link MasterSitemap}. Also loads the standard pages.
  *
  * @author David Sowerby
  */
@@ -46,8 +49,8 @@ public class DefaultDirectSitemapLoader extends SitemapLoaderBase implements Dir
     }
 
     @Override
-    public boolean load(MasterSitemap sitemap) {
-        checkNotNull(sitemap);
+    public boolean load(SitemapLoadBuffer buffer) {
+        checkNotNull(buffer);
         sourceModules = new HashSet<>();
         if (pageMap != null) {
             for (Entry<String, DirectSitemapEntry> entry : pageMap.entrySet()) {
@@ -57,28 +60,58 @@ public class DefaultDirectSitemapLoader extends SitemapLoaderBase implements Dir
                 nodeRecord.setPageAccessControl(value.getPageAccessControl());
                 nodeRecord.setViewClass(value.getViewClass());
                 nodeRecord.setPositionIndex(value.getPositionIndex());
-                sitemap.append(nodeRecord);
+                buffer.append(nodeRecord);
                 sourceModules.add(value.getModuleName());
             }
-            processRedirects(sitemap);
+            processRedirects(buffer);
             for (String sourceModule : sourceModules) {
                 addInfo("Source Module:", "Module name: " + sourceModule);
             }
             return true;
         }
-        processRedirects(sitemap);
+        processRedirects(buffer);
         return false;
     }
 
     /**
-     * Transfers directly defined URI redirects to the {@code sitemap}
+     * The fingerprint covers every entry and redirect bound through Guice, in URI order
+     */
+    @Override
+    public String fingerprint() {
+        Hasher hasher = Hashing.sha256()
+                               .newHasher();
+        if (pageMap != null) {
+            for (Entry<String, DirectSitemapEntry> entry : new TreeMap<>(pageMap).entrySet()) {
+                DirectSitemapEntry value = entry.getValue();
+                putField(hasher, entry.getKey());
+                putField(hasher, value.getLabelKey());
+                putField(hasher, value.getPageAccessControl());
+                putField(hasher, value.getViewClass());
+                putField(hasher, value.getPositionIndex());
+                putField(hasher, value.getModuleName());
+            }
+        }
+        putField(hasher, "redirects");
+        if (redirects != null) {
+            for (Entry<String, RedirectEntry> entry : new TreeMap<>(redirects).entrySet()) {
+                putField(hasher, entry.getKey());
+                putField(hasher, entry.getValue()
+                                      .getRedirectTarget());
+            }
+        }
+        return hasher.hash()
+                     .toString();
+    }
+
+    /**
+     * Transfers directly defined URI redirects to the {@code buffer}
      *
-     * @param sitemap the sitemap to pass the redirects to
+     * @param buffer the buffer to pass the redirects to
      */
-    protected void processRedirects(MasterSitemap sitemap) {
+    protected void processRedirects(SitemapLoadBuffer buffer) {
         if (redirects != null) {
             for (Entry<String, RedirectEntry> entry : redirects.entrySet()) {
-                sitemap.addRedirect(entry.getKey(), entry.getValue()
+                buffer.addRedirect(entry.getKey(), entry.getValue()
                                                          .getRedirectTarget());
             }
         }
@@ -0,0 +1,102 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate.sitemap;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.q3c.krail.i18n.I18NKey;
+import uk.q3c.krail.i18n.Translate;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * Default implementation of {@link NodeLabelCache}.  Each locale has its own {@link Collator}, which is not thread safe and is therefore only used
+ * while holding its lock.  Entries are keyed by master node id, and an entry is replaced if the node it is asked for has a different label key - which
+ * happens when a new {@link MasterSitemap} re-uses the id - so there is no need to clear the cache when the {@link MasterSitemap} changes.  {@link #invalidate()}
+ * is called by {@link PatternChangeInterceptor} when the I18N patterns are cleared
+ */
+@Singleton
+@ThreadSafe
+public class DefaultNodeLabelCache implements NodeLabelCache {
+    private static Logger log = LoggerFactory.getLogger(DefaultNodeLabelCache.class);
+    private final Map<Locale, Partition> partitions = new ConcurrentHashMap<>();
+    private final Translate translate;
+
+    @Inject
+    protected DefaultNodeLabelCache(Translate translate) {
+        this.translate = translate;
+    }
+
+    @Override
+    public NodeLabel labelFor(MasterSitemapNode masterNode, Locale locale) {
+        checkNotNull(masterNode);
+        checkNotNull(locale);
+        I18NKey labelKey = checkNotNull(masterNode.getLabelKey(), "node has no label key");
+        Partition partition = partitions.computeIfAbsent(locale, Partition::new);
+        NodeLabel cached = partition.labels.get(masterNode.getId());
+        if (cached != null && cached.getLabelKey()
+                                    .equals(labelKey)) {
+            return cached;
+        }
+        String label = translate.from(labelKey, locale);
+        NodeLabel nodeLabel = new NodeLabel(labelKey, label, partition.collationKey(label));
+        partition.labels.put(masterNode.getId(), nodeLabel);
+        return nodeLabel;
+    }
+
+    @Override
+    public void invalidate() {
+        log.debug("invalidating labels for all locales");
+        partitions.clear();
+    }
+
+    @Override
+    public void invalidate(Locale locale) {
+        checkNotNull(locale);
+        log.debug("invalidating labels for {}", locale);
+        partitions.remove(locale);
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for (Partition partition : partitions.values()) {
+            size += partition.labels.size();
+        }
+        return size;
+    }
+
+    private static class Partition {
+        private final Collator collator;
+        private final Map<Integer, NodeLabel> labels = new ConcurrentHashMap<>();
+
+        Partition(Locale locale) {
+            collator = Collator.getInstance(locale);
+        }
+
+        CollationKey collationKey(String label) {
+            synchronized (collator) {
+                return collator.getCollationKey(label);
+            }
+        }
+    }
+}
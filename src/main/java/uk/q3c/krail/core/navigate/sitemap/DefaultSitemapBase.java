@@ -32,11 +32,32 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
     protected final Map<String, T> uriMap = new LinkedHashMap<>();
     protected final Map<StandardPageKey, T> standardPages = new HashMap<>();
     protected final Map<String, StandardPageKey> uriStandardPages = new HashMap<>();
+    // reverse of uriStandardPages, maintained with it by putStandardPageUri / removeStandardPageUri
+    protected final Map<StandardPageKey, String> standardPageUriIndex = new EnumMap<>(StandardPageKey.class);
     // Uses LinkedHashMap to retain insertion order
     protected final Map<String, String> redirects = new LinkedHashMap<>();
     protected BasicForest<T> forest;
-    private boolean loaded;
-    private boolean locked;
+    /**
+     * Segment keyed index of {@link #forest}, built by {@link #lock()} (or {@link #buildRouteTrie()}), and discarded by any structural change.  Null
+     * when not available, in which case lookups fall back to {@link #uriMap} and {@link #forest}
+     */
+    protected volatile RouteTrie<T> routeTrie;
+    /**
+     * Frozen copy of the whole sitemap, produced by {@link #lock()}.  While this is not null, all the read methods use it without taking any lock.
+     */
+    protected volatile SitemapSnapshot<T> snapshot;
+    /**
+     * Full URIs computed while the sitemap is being built, keyed by node.  Cleared by any structural change.  Not used once {@link #snapshot} is
+     * available, as the snapshot holds all URIs already
+     */
+    protected final Map<T, String> uriTable = new HashMap<>();
+    /**
+     * Compiled form of {@link #redirects}, built when first needed while the sitemap is being built, and cleared by any change.  Not used once
+     * {@link #snapshot} is available
+     */
+    protected RedirectTable redirectTable;
+    private volatile boolean loaded;
+    private volatile boolean locked;
 
     protected DefaultSitemapBase(URIFragmentHandler uriHandler) {
         super();
@@ -51,11 +72,46 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
     }
 
     @Override
-    public void lock() {
+    public synchronized void lock() {
         checkLock();
+        freeze();
         this.locked = true;
     }
 
+    /**
+     * Captures the current content of this sitemap in a {@link SitemapSnapshot}, which is then used by all read methods until the next change
+     */
+    protected synchronized void freeze() {
+        if (routeTrie == null) {
+            buildRouteTrie();
+        }
+        snapshot = new SitemapSnapshot<>(forest, routeTrie, uriMap, standardPages, uriStandardPages, redirects);
+    }
+
+    /**
+     * Discards {@link #routeTrie} and {@link #snapshot}, which must be called before any change to the content of the sitemap
+     */
+    protected void discardIndexes() {
+        routeTrie = null;
+        snapshot = null;
+        uriTable.clear();
+        redirectTable = null;
+    }
+
+    /**
+     * Must be called after any change to the structure of {@link #forest}, as URIs already in {@link #uriTable} may no longer be valid
+     */
+    protected void forestChanged() {
+        uriTable.clear();
+    }
+
+    /**
+     * Builds the {@link #routeTrie} from the current structure of the {@link #forest}
+     */
+    protected synchronized void buildRouteTrie() {
+        routeTrie = RouteTrie.build(forest);
+    }
+
     /**
      * Delegates to {@link BasicForest#getRootFor(Object)}
      *
@@ -63,8 +119,14 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
      * @return
      */
     @Override
-    public synchronized T getRootFor(T node) {
-        return forest.getRootFor(node);
+    public T getRootFor(T node) {
+        SitemapSnapshot<T> frozen = snapshot;
+        if (frozen != null) {
+            return frozen.getRootFor(node);
+        }
+        synchronized (this) {
+            return forest.getRootFor(node);
+        }
     }
 
     /**
@@ -74,8 +136,14 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
      * @return
      */
     @Override
-    public synchronized boolean containsNode(T node) {
-        return forest.containsNode(node);
+    public boolean containsNode(T node) {
+        SitemapSnapshot<T> frozen = snapshot;
+        if (frozen != null) {
+            return frozen.containsNode(node);
+        }
+        synchronized (this) {
+            return forest.containsNode(node);
+        }
     }
 
     /**
@@ -85,22 +153,43 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
      * @return
      */
     @Override
-    public synchronized String uri(T node) {
+    public String uri(T node) {
         checkNotNull(node);
-        StringBuilder buf = new StringBuilder(node.getUriSegment());
-        prependParent(node, buf);
-        return buf.toString();
+        SitemapSnapshot<T> frozen = snapshot;
+        if (frozen != null) {
+            return frozen.uri(node);
+        }
+        synchronized (this) {
+            return uriFor(node);
+        }
     }
 
     /**
-     * Recursively prepends the parent URI segment of {@code node}, until the full URI has been built
+     * Returns the URI of {@code node} from {@link #uriTable}, building it from the URI of its parent (and adding it to the table) if necessary
      */
-    protected void prependParent(T node, StringBuilder buf) {
-        T parentNode = forest.getParent(node);
-        if (parentNode != null) {
-            buf.insert(0, "/");
-            buf.insert(0, parentNode.getUriSegment());
-            prependParent(parentNode, buf);
+    protected String uriFor(T node) {
+        String uri = uriTable.get(node);
+        if (uri == null) {
+            T parentNode = forest.getParent(node);
+            uri = (parentNode == null) ? node.getUriSegment() : uriFor(parentNode) + '/' + node.getUriSegment();
+            uriTable.put(node, uri);
+        }
+        return uri;
+    }
+
+    @Override
+    public List<String> uriSegments(T node) {
+        checkNotNull(node);
+        SitemapSnapshot<T> frozen = snapshot;
+        if (frozen != null) {
+            return frozen.uriSegments(node);
+        }
+        synchronized (this) {
+            LinkedList<String> segments = new LinkedList<>();
+            for (T n = node; n != null; n = forest.getParent(n)) {
+                segments.addFirst(n.getUriSegment());
+            }
+            return ImmutableList.copyOf(segments);
         }
     }
 
@@ -110,13 +199,25 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
      * @return
      */
     @Override
-    public synchronized List<T> getAllNodes() {
-        return forest.getAllNodes();
+    public List<T> getAllNodes() {
+        SitemapSnapshot<T> frozen = snapshot;
+        if (frozen != null) {
+            return frozen.getAllNodes();
+        }
+        synchronized (this) {
+            return forest.getAllNodes();
+        }
     }
 
     @Override
-    public synchronized List<T> getRoots() {
-        return forest.getRoots();
+    public List<T> getRoots() {
+        SitemapSnapshot<T> frozen = snapshot;
+        if (frozen != null) {
+            return frozen.getRoots();
+        }
+        synchronized (this) {
+            return forest.getRoots();
+        }
     }
 
     /**
@@ -127,11 +228,17 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
      */
 
     @Override
-    public synchronized int getChildCount(T node) {
-        try {
-            return forest.getChildCount(node);
-        } catch (NullPointerException npe) {
-            throw new SitemapException("Cannot count children of non-existent node", npe);
+    public int getChildCount(T node) {
+        SitemapSnapshot<T> frozen = snapshot;
+        if (frozen != null) {
+            return frozen.getChildCount(node);
+        }
+        synchronized (this) {
+            try {
+                return forest.getChildCount(node);
+            } catch (NullPointerException npe) {
+                throw new SitemapException("Cannot count children of non-existent node", npe);
+            }
         }
     }
 
@@ -143,7 +250,7 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
      * @return
      */
     @Override
-    public synchronized boolean hasUri(String uri) {
+    public boolean hasUri(String uri) {
         NavigationState navigationState = uriHandler.navigationState(uri);
         return hasUri(navigationState);
     }
@@ -155,8 +262,14 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
      * @return
      */
     @Override
-    public synchronized boolean hasUri(NavigationState navigationState) {
-        return uriMap.containsKey(navigationState.getVirtualPage());
+    public boolean hasUri(NavigationState navigationState) {
+        SitemapSnapshot<T> frozen = snapshot;
+        if (frozen != null) {
+            return frozen.hasUri(navigationState.getVirtualPage());
+        }
+        synchronized (this) {
+            return uriMap.containsKey(navigationState.getVirtualPage());
+        }
     }
 
     /**
@@ -166,7 +279,7 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
      * @return
      */
     @Override
-    public synchronized NavigationState navigationState(T node) {
+    public NavigationState navigationState(T node) {
         return uriHandler.navigationState(uri(node));
     }
 
@@ -182,8 +295,8 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
      * @return
      */
     @Override
-    public synchronized PagePermission pagePermission(T node) {
-        return new PagePermission(navigationState(node));
+    public PagePermission pagePermission(T node) {
+        return new PagePermission(uri(node));
     }
 
     /**
@@ -201,13 +314,15 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
     @Override
     public synchronized void removeNode(T node) {
         checkLock();
+        discardIndexes();
         String uri = uri(node);
         if (node.getLabelKey() instanceof StandardPageKey) {
             StandardPageKey pageKey = (StandardPageKey) node.getLabelKey();
-            uriStandardPages.remove(uri);
+            removeStandardPageUri(uri);
             standardPages.remove(pageKey);
         }
         forest.removeNode(node);
+        forestChanged();
         uriMap.remove(uri);
 
     }
@@ -221,7 +336,7 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
      * @return
      */
     @Override
-    public synchronized T nodeNearestFor(String uri) {
+    public T nodeNearestFor(String uri) {
         return nodeNearestFor(uriHandler.navigationState(uri));
     }
 
@@ -234,39 +349,56 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
      * @return
      */
     @Override
-    public synchronized T nodeNearestFor(NavigationState navigationState) {
-        List<String> segments = new ArrayList<>(navigationState.getPathSegments());
-        T node = null;
-        Joiner joiner = Joiner.on("/");
-        while ((segments.size() > 0) && (node == null)) {
-            String path = joiner.join(segments);
-            node = uriMap.get(path);
-            segments.remove(segments.size() - 1);
+    public T nodeNearestFor(NavigationState navigationState) {
+        RouteTrie<T> trie = routeTrie;
+        if (trie != null) {
+            return trie.nodeNearestFor(navigationState.getPathSegments());
+        }
+        synchronized (this) {
+            List<String> segments = new ArrayList<>(navigationState.getPathSegments());
+            T node = null;
+            Joiner joiner = Joiner.on("/");
+            while ((segments.size() > 0) && (node == null)) {
+                String path = joiner.join(segments);
+                node = uriMap.get(path);
+                segments.remove(segments.size() - 1);
+            }
+            return node;
         }
-        return node;
     }
 
     @Override
-    public synchronized String standardPageURI(StandardPageKey pageKey) {
+    public String standardPageURI(StandardPageKey pageKey) {
         checkNotNull(pageKey);
-
-        //can't use the uri method as the standard page keys may not be in the main uri map (which define the full uri by virtue of
-        //parent child relationships
-        for (Map.Entry<String, StandardPageKey> entry : uriStandardPages.entrySet()) {
-
-            if (entry.getValue() == pageKey) {
-                return entry.getKey();
+        SitemapSnapshot<T> frozen = snapshot;
+        if (frozen != null) {
+            String uri = frozen.standardPageURI(pageKey);
+            if (uri != null) {
+                return uri;
+            }
+        } else {
+            synchronized (this) {
+                //can't use the uri method as the standard page keys may not be in the main uri map (which define the full uri by virtue of
+                //parent child relationships
+                String uri = standardPageUriIndex.get(pageKey);
+                if (uri != null) {
+                    return uri;
+                }
             }
         }
-
-
         throw new SitemapException("No URI found for StandardPageKey " + pageKey);
 
     }
 
     @Override
-    public synchronized ImmutableMap<StandardPageKey, T> getStandardPages() {
-        return ImmutableMap.copyOf(standardPages);
+    public ImmutableMap<StandardPageKey, T> getStandardPages() {
+        SitemapSnapshot<T> frozen = snapshot;
+        if (frozen != null) {
+            return frozen.getStandardPages();
+        }
+        synchronized (this) {
+            return ImmutableMap.copyOf(standardPages);
+        }
     }
 
     /**
@@ -276,9 +408,73 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
      * @return
      */
     @Override
-    public synchronized List<T> getChildren(T parentNode) {
-        return forest.getChildren(parentNode);
+    public List<T> getChildren(T parentNode) {
+        SitemapSnapshot<T> frozen = snapshot;
+        if (frozen != null) {
+            return frozen.getChildren(parentNode);
+        }
+        synchronized (this) {
+            return forest.getChildren(parentNode);
+        }
+    }
+
+    /**
+     * Uses the {@link #snapshot} when there is one, which does not allocate.  While the sitemap is being built, the children are copied from the
+     * {@link #forest}
+     */
+    @Override
+    public T firstChildOf(T parentNode) {
+        SitemapSnapshot<T> frozen = snapshot;
+        if (frozen != null) {
+            return frozen.firstChildOf(parentNode);
+        }
+        synchronized (this) {
+            if (parentNode != null && !forest.containsNode(parentNode)) {
+                return null;
+            }
+            List<T> children = (parentNode == null) ? forest.getRoots() : forest.getChildren(parentNode);
+            return children.isEmpty() ? null : children.get(0);
+        }
+    }
+
+    /**
+     * Uses the {@link #snapshot} when there is one, which does not allocate.  While the sitemap is being built, the siblings are copied from the
+     * {@link #forest} and searched
+     */
+    @Override
+    public T nextSiblingOf(T node) {
+        SitemapSnapshot<T> frozen = snapshot;
+        if (frozen != null) {
+            return frozen.nextSiblingOf(node);
+        }
+        synchronized (this) {
+            if (node == null || !forest.containsNode(node)) {
+                return null;
+            }
+            T parentNode = forest.getParent(node);
+            List<T> siblings = (parentNode == null) ? forest.getRoots() : forest.getChildren(parentNode);
+            int next = siblings.indexOf(node) + 1;
+            return (next == 0 || next == siblings.size()) ? null : siblings.get(next);
+        }
+    }
 
+    /**
+     * Uses the {@link #snapshot} when there is one, which is a single hash lookup.  While the sitemap is being built, the children are searched by
+     * {@link #findNodeBySegment(List, String, boolean)}
+     */
+    @Override
+    public T childFor(T parentNode, String segment) {
+        SitemapSnapshot<T> frozen = snapshot;
+        if (frozen != null) {
+            return frozen.childFor(parentNode, segment);
+        }
+        synchronized (this) {
+            if (parentNode != null && !forest.containsNode(parentNode)) {
+                return null;
+            }
+            List<T> children = (parentNode == null) ? forest.getRoots() : forest.getChildren(parentNode);
+            return findNodeBySegment(children, segment, false);
+        }
     }
 
     /**
@@ -288,9 +484,8 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
      * @return
      */
     @Override
-    public synchronized T nodeFor(String uri) {
-        return uriMap.get(uriHandler.navigationState(uri)
-                                    .getVirtualPage());
+    public T nodeFor(String uri) {
+        return nodeFor(uriHandler.navigationState(uri));
     }
 
     /**
@@ -300,11 +495,17 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
      * @return
      */
     @Override
-    public synchronized T nodeFor(NavigationState navigationState) {
+    public T nodeFor(NavigationState navigationState) {
         if (navigationState == null) {
             return null;
         }
-        return uriMap.get(navigationState.getVirtualPage());
+        RouteTrie<T> trie = routeTrie;
+        if (trie != null) {
+            return trie.nodeFor(navigationState.getPathSegments());
+        }
+        synchronized (this) {
+            return uriMap.get(navigationState.getVirtualPage());
+        }
     }
 
     /**
@@ -313,7 +514,7 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
      * @return
      */
     @Override
-    public synchronized T getRedirectNodeFor(T sourceNode) {
+    public T getRedirectNodeFor(T sourceNode) {
         String sourceUri = uri(sourceNode);
 
         String redirectPageFor = getRedirectPageFor(sourceUri);
@@ -326,9 +527,14 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
      * @return
      */
     @Override
-    public synchronized ImmutableMap<String, String> getRedirects() {
-        return ImmutableMap.copyOf(redirects);
-
+    public ImmutableMap<String, String> getRedirects() {
+        SitemapSnapshot<T> frozen = snapshot;
+        if (frozen != null) {
+            return frozen.getRedirects();
+        }
+        synchronized (this) {
+            return ImmutableMap.copyOf(redirects);
+        }
     }
 
     /**
@@ -343,23 +549,46 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
     @Override
     public synchronized Sitemap<T> addRedirect(String fromPage, String toPage) {
         checkLock();
+        discardIndexes();
         redirects.put(fromPage, toPage);
         return this;
     }
 
+    @Override
+    public synchronized Sitemap<T> removeRedirect(String fromPage) {
+        checkLock();
+        if (redirects.containsKey(fromPage)) {
+            discardIndexes();
+            redirects.remove(fromPage);
+        }
+        return this;
+    }
+
     /**
      * Returns a safe copy of all the URIs contained in the sitemap.
      *
      * @return
      */
     @Override
-    public synchronized ImmutableList<String> uris() {
-        return ImmutableList.copyOf(uriMap.keySet());
+    public ImmutableList<String> uris() {
+        SitemapSnapshot<T> frozen = snapshot;
+        if (frozen != null) {
+            return frozen.uris();
+        }
+        synchronized (this) {
+            return ImmutableList.copyOf(uriMap.keySet());
+        }
     }
 
     @Override
-    public synchronized int getNodeCount() {
-        return forest.getNodeCount();
+    public int getNodeCount() {
+        SitemapSnapshot<T> frozen = snapshot;
+        if (frozen != null) {
+            return frozen.getNodeCount();
+        }
+        synchronized (this) {
+            return forest.getNodeCount();
+        }
     }
 
     /**
@@ -373,7 +602,7 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
      * @return
      */
     @Override
-    public synchronized List<T> nodeChainForUri(String uri, boolean allowPartialPath) {
+    public List<T> nodeChainForUri(String uri, boolean allowPartialPath) {
         return nodeChainFor(uriHandler.navigationState(uri), allowPartialPath);
     }
 
@@ -387,7 +616,7 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
      * @return a list of {@link SitemapNode} matching the virtual page of the {@code navigationState} provided.
      */
     @Override
-    public synchronized List<T> nodeChainFor(NavigationState navigationState, boolean allowPartialPath) {
+    public List<T> nodeChainFor(NavigationState navigationState, boolean allowPartialPath) {
         List<String> segments = navigationState.getPathSegments();
         return nodeChainForSegments(segments, allowPartialPath);
     }
@@ -404,7 +633,17 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
      */
 
     @Override
-    public synchronized List<T> nodeChainForSegments(List<String> segments, boolean allowPartialPath) {
+    public List<T> nodeChainForSegments(List<String> segments, boolean allowPartialPath) {
+        RouteTrie<T> trie = routeTrie;
+        if (trie != null) {
+            return trie.nodeChainFor(segments, allowPartialPath);
+        }
+        synchronized (this) {
+            return walkSegments(segments, allowPartialPath);
+        }
+    }
+
+    private List<T> walkSegments(List<String> segments, boolean allowPartialPath) {
         List<T> nodeChain = new ArrayList<>();
         int i = 0;
         String currentSegment = null;
@@ -429,6 +668,11 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
         return nodeChain;
     }
 
+    /**
+     * Searches {@code nodes} in order, which is linear in the number of siblings.  This is only used while the sitemap is being built, when the
+     * structure is still changing and the sitemap lock is held anyway - once the sitemap is locked (or otherwise frozen), segments are resolved by
+     * the hash lookups of the {@link RouteTrie} and {@link #childFor(SitemapNode, String)} instead
+     */
     protected T findNodeBySegment(List<T> nodes, String segment, boolean createIfAbsent) {
         T foundNode = null;
         for (T node : nodes) {
@@ -455,15 +699,21 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
      * @return
      */
     @Override
-    public synchronized List<T> nodeChainFor(T node) {
-        List<T> nodes = new ArrayList<>();
-        nodes.add(node);
-        T parent = this.getParent(node);
-        while (parent != null) {
-            nodes.add(0, parent);
-            parent = this.getParent(parent);
+    public List<T> nodeChainFor(T node) {
+        SitemapSnapshot<T> frozen = snapshot;
+        if (frozen != null) {
+            return frozen.nodeChainFor(node);
+        }
+        synchronized (this) {
+            List<T> nodes = new ArrayList<>();
+            nodes.add(node);
+            T parent = this.getParent(node);
+            while (parent != null) {
+                nodes.add(0, parent);
+                parent = this.getParent(parent);
+            }
+            return nodes;
         }
-        return nodes;
     }
 
     /**
@@ -473,8 +723,14 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
      * @return
      */
     @Override
-    public synchronized T getParent(T childNode) {
-        return forest.getParent(childNode);
+    public T getParent(T childNode) {
+        SitemapSnapshot<T> frozen = snapshot;
+        if (frozen != null) {
+            return frozen.getParent(childNode);
+        }
+        synchronized (this) {
+            return forest.getParent(childNode);
+        }
     }
 
     /**
@@ -485,7 +741,7 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
      * @return
      */
     @Override
-    public synchronized String getRedirectPageFor(NavigationState navigationState) {
+    public String getRedirectPageFor(NavigationState navigationState) {
         String virtualPage = navigationState.getVirtualPage();
         return getRedirectPageFor(virtualPage);
     }
@@ -498,18 +754,17 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
      * @return
      */
     @Override
-    public synchronized String getRedirectPageFor(String page) {
-        String p = redirects.get(page);
-        if (p == null) {
-            return page;
+    public String getRedirectPageFor(String page) {
+        SitemapSnapshot<T> frozen = snapshot;
+        if (frozen != null) {
+            return frozen.redirectPageFor(page);
         }
-        String p1 = null;
-        while (p != null) {
-            p1 = p;
-            p = redirects.get(p1);
+        synchronized (this) {
+            if (redirectTable == null) {
+                redirectTable = RedirectTable.compile(redirects);
+            }
+            return redirectTable.targetFor(page);
         }
-
-        return p1;
     }
 
     /**
@@ -524,9 +779,11 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
     public synchronized void addChild(T parentNode, T childNode) {
         checkLock();
         checkNotNull(childNode);
+        discardIndexes();
         // add the parent node if not already there
         if ((parentNode != null) && (!containsNode(parentNode))) {
             forest.addNode(parentNode);
+            forestChanged();
             String newUri = uri(parentNode);
             uriMap.put(newUri, parentNode);
             checkForStandardPage(parentNode);
@@ -540,6 +797,7 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
 
         // add it to structure first, otherwise the uri will be wrong
         forest.addChild(parentNode, childNode);
+        forestChanged();
         uriMap.put(uri(childNode), childNode);
         checkForStandardPage(childNode);
     }
@@ -549,6 +807,12 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
         return forest;
     }
 
+    @Override
+    public CompactForest<T> getCompactForest() {
+        SitemapSnapshot<T> frozen = snapshot;
+        return (frozen == null) ? null : frozen.getForest();
+    }
+
     protected void checkForStandardPage(T node) {
         checkNotNull(node);
         if (node.getLabelKey() instanceof StandardPageKey) {
@@ -557,21 +821,42 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
     }
 
     @Override
-    public void addStandardPage(T node, String uri) {
+    public synchronized void addStandardPage(T node, String uri) {
         checkLock();
+        discardIndexes();
         checkArgument(node.getLabelKey() instanceof StandardPageKey, "Key must be a Standard Page Key");
         StandardPageKey pageKey = (StandardPageKey) node.getLabelKey();
         standardPages.put(pageKey, node);
-        uriStandardPages.put(uri, pageKey);
+        putStandardPageUri(uri, pageKey);
+    }
+
+    /**
+     * Records {@code uri} as the URI of standard page {@code pageKey}, in both directions
+     */
+    protected void putStandardPageUri(String uri, StandardPageKey pageKey) {
+        StandardPageKey previous = uriStandardPages.put(uri, pageKey);
+        if (previous != null && previous != pageKey) {
+            standardPageUriIndex.remove(previous, uri);
+        }
+        standardPageUriIndex.put(pageKey, uri);
+    }
+
+    protected void removeStandardPageUri(String uri) {
+        StandardPageKey pageKey = uriStandardPages.remove(uri);
+        if (pageKey != null) {
+            standardPageUriIndex.remove(pageKey, uri);
+        }
     }
 
     @Override
-    public void clear() {
+    public synchronized void clear() {
         checkLock();
+        discardIndexes();
         forest.clear();
         standardPages.clear();
         uriMap.clear();
         uriStandardPages.clear();
+        standardPageUriIndex.clear();
 
         redirects.clear();
         loaded = false;
@@ -584,7 +869,7 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
     }
 
     @Override
-    public void setLoaded(boolean loaded) {
+    public synchronized void setLoaded(boolean loaded) {
         checkLock();
         this.loaded = loaded;
     }
@@ -596,7 +881,13 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
      */
     @Override
     public Map<String, T> getUriMap() {
-        return ImmutableMap.copyOf(uriMap);
+        SitemapSnapshot<T> frozen = snapshot;
+        if (frozen != null) {
+            return frozen.getUriMap();
+        }
+        synchronized (this) {
+            return ImmutableMap.copyOf(uriMap);
+        }
     }
 
     /**
@@ -614,7 +905,7 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
      * @param parentNode
      * @param childNode
      */
-    public void addOrReplaceChild(T parentNode, T childNode) {
+    public synchronized void addOrReplaceChild(T parentNode, T childNode) {
         checkLock();
         checkNotNull(childNode);
         checkArgument(childNode.getId() > 0);
@@ -638,17 +929,19 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
      * @param oldInstance the instance to be replaced
      * @param newInstance the instance to put in place
      */
-    public void replaceNode(T oldInstance, T newInstance) {
+    public synchronized void replaceNode(T oldInstance, T newInstance) {
         checkLock();
         checkNotNull(oldInstance);
         checkNotNull(newInstance);
+        discardIndexes();
         forest.replaceNode(oldInstance, newInstance);
+        forestChanged();
         if (oldInstance.getLabelKey() instanceof StandardPageKey) {
             standardPages.remove(oldInstance.getLabelKey());
         }
         if (newInstance.getLabelKey() instanceof StandardPageKey) {
             standardPages.put((StandardPageKey) newInstance.getLabelKey(), newInstance);
-            uriStandardPages.put(uri(newInstance), (StandardPageKey) newInstance.getLabelKey());
+            putStandardPageUri(uri(newInstance), (StandardPageKey) newInstance.getLabelKey());
         }
         uriMap.put(uri(newInstance), newInstance);
 
@@ -668,12 +961,24 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
     }
 
     private boolean isStandardUri(StandardPageKey key, NavigationState navigationState) {
-        return key == (uriStandardPages.get(navigationState.getVirtualPage()));
+        SitemapSnapshot<T> frozen = snapshot;
+        if (frozen != null) {
+            return key == frozen.standardPageKeyFor(navigationState.getVirtualPage());
+        }
+        synchronized (this) {
+            return key == (uriStandardPages.get(navigationState.getVirtualPage()));
+        }
     }
 
     @Override
-    public synchronized T standardPageNode(StandardPageKey pageKey) {
-        return standardPages.get(pageKey);
+    public T standardPageNode(StandardPageKey pageKey) {
+        SitemapSnapshot<T> frozen = snapshot;
+        if (frozen != null) {
+            return frozen.standardPageNode(pageKey);
+        }
+        synchronized (this) {
+            return standardPages.get(pageKey);
+        }
     }
 
     /**
@@ -713,7 +1018,13 @@ public abstract class DefaultSitemapBase<T extends SitemapNode> implements Sitem
     }
 
     public ImmutableMap<String, StandardPageKey> getStandardPageUris() {
-        return ImmutableMap.copyOf(uriStandardPages);
+        SitemapSnapshot<T> frozen = snapshot;
+        if (frozen != null) {
+            return frozen.getStandardPageUris();
+        }
+        synchronized (this) {
+            return ImmutableMap.copyOf(uriStandardPages);
+        }
     }
 
     /**
@@ -12,20 +12,18 @@
  */
 package uk.q3c.krail.core.navigate.sitemap;
 
-import com.google.common.collect.ImmutableMap;
 import com.google.inject.Inject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.q3c.krail.core.view.KrailView;
 import uk.q3c.krail.i18n.CurrentLocale;
 import uk.q3c.krail.i18n.I18NKey;
-import uk.q3c.util.MessageFormat;
-import uk.q3c.util.dag.CycleDetectedException;
-import uk.q3c.util.dag.DynamicDAG;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashSet;
-import java.util.List;
-import java.util.Map.Entry;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 
 import static com.google.common.base.Preconditions.*;
@@ -66,49 +64,75 @@ public class DefaultSitemapFinisher implements SitemapFinisher {
 
 
 
+    /**
+     * Validates the sitemap in a single traversal.  The URI of each node is built from its parent's as the tree is walked, the redirects are read and
+     * compiled once, and each node is replaced at most once, with any default view or key and (if redirected) the pageAccessControl of its target
+     * applied together.
+     */
     @Override
     public void check(MasterSitemap sitemap) {
         checkNotNull(sitemap);
-        // do this first, because a redirection loop will cause the main check to fail
-        redirectCheck(sitemap);
-        replaceMissingViews(sitemap);
-        replaceMissingKeys(sitemap);
-        for (MasterSitemapNode node : sitemap.getAllNodes()) {
-            String nodeUri = sitemap.uri(node);
+        // compile the redirects first, because a redirection loop will cause the main check to fail
+        Map<String, String> redirects = sitemap.getRedirects();
+        RedirectTable redirectTable = RedirectTable.compile(redirects);
+        redirectLoops.addAll(redirectTable.getLoops());
+        Map<String, NodeCheck> checks = collectNodes(sitemap);
+        for (NodeCheck check : checks.values()) {
+            MasterSitemapNode node = check.node;
+            String nodeUri = check.uri;
             log.debug("Checking {}", nodeUri);
+            MasterSitemapNode newNode = node;
+            if (defaultView != null && node.getViewClass() == null) {
+                newNode = newNode.modifyView(defaultView);
+            }
+            if (defaultKey != null && node.getLabelKey() == null) {
+                newNode = newNode.modifyLabelKey(defaultKey);
+            }
 
             // If no redirect, must have a label key, pageAccessControl and view
-            if (!sitemap.getRedirects()
-                        .containsKey(nodeUri)) {
+            if (!redirects.containsKey(nodeUri)) {
 
-                if (node.getViewClass() == null) {
+                if (newNode.getViewClass() == null) {
                     missingViewClasses.add(nodeUri);
                 }
 
-                if (node.getLabelKey() == null) {
+                if (newNode.getLabelKey() == null) {
                     missingLabelKeys.add(nodeUri);
                 }
 
-                if (node.getPageAccessControl() == null) {
+                if (newNode.getPageAccessControl() == null) {
                     missingPageAccessControl.add(nodeUri);
                 }
             } else {
                 // if redirected, take the accessControlPermission from the redirect target
-                // note: Sitemap allows for multiple levels of redirect
-                MasterSitemapNode targetNode = sitemap.nodeFor(sitemap.getRedirectPageFor(nodeUri));
-                MasterSitemapNode newNode = node.modifyPageAccessControl(targetNode.getPageAccessControl());
-                sitemap.replaceNode(node, newNode);
+                // note: the redirect table allows for multiple levels of redirect
+                String targetUri = redirectTable.targetFor(nodeUri);
+                NodeCheck target = checks.get(targetUri);
+                MasterSitemapNode targetNode = (target == null) ? sitemap.nodeFor(targetUri) : target.node;
+                newNode = newNode.modifyPageAccessControl(targetNode.getPageAccessControl());
 
                 // if redirect is from parent to child, the parent must have a label key, or it cannot display, in a
                 // UserNavigationTree for example. Easiest way to check is to take the target node, get the chain
-                // of nodes 'above' it, then ensure they all have a label key
-                List<MasterSitemapNode> nodeChainForTarget = sitemap.nodeChainFor(targetNode);
-                for (MasterSitemapNode n : nodeChainForTarget) {
-                    if (n.getLabelKey() == null) {
-                        missingLabelKeys.add(sitemap.uri(n));
+                // of nodes 'above' it, then ensure they all have a label key.  A chain shared with an earlier
+                // redirect target is only walked as far as the part already checked
+                if (target == null) {
+                    for (MasterSitemapNode n : sitemap.nodeChainFor(targetNode)) {
+                        if (n.getLabelKey() == null && defaultKey == null) {
+                            missingLabelKeys.add(sitemap.uri(n));
+                        }
+                    }
+                } else {
+                    for (NodeCheck n = target; n != null && !n.chainChecked; n = n.parent) {
+                        n.chainChecked = true;
+                        if (n.node.getLabelKey() == null && defaultKey == null) {
+                            missingLabelKeys.add(n.uri);
+                        }
                     }
                 }
             }
+            if (newNode != node) {
+                sitemap.replaceNode(node, newNode);
+            }
 
         }
         // if there are no missing keys or views, return
@@ -175,46 +199,25 @@ public class DefaultSitemapFinisher implements SitemapFinisher {
         throw new SitemapException("Sitemap check failed, see log for failed items");
     }
 
-    private void replaceMissingViews(MasterSitemap sitemap) {
-        //there's nothing to replace missing items with
-        if (defaultView == null) {
-            return;
-        }
-        for (MasterSitemapNode node : sitemap.getAllNodes()) {
-            if (node.getViewClass() == null) {
-                MasterSitemapNode newNode = node.modifyView(defaultView);
-                sitemap.replaceNode(node, newNode);
-            }
-        }
-    }
-
-    private void replaceMissingKeys(MasterSitemap sitemap) {
-        //there's nothing to replace missing items with
-        if (defaultKey == null) {
-            return;
-        }
-        for (MasterSitemapNode node : sitemap.getAllNodes()) {
-            if (node.getLabelKey() == null) {
-                MasterSitemapNode newNode = node.modifyLabelKey(defaultKey);
-                sitemap.replaceNode(node, newNode);
-            }
+    /**
+     * Walks the sitemap from its roots, building the URI of each node from that of its parent
+     *
+     * @return a {@link NodeCheck} for every node, keyed by URI, parents before their children
+     */
+    private Map<String, NodeCheck> collectNodes(MasterSitemap sitemap) {
+        Map<String, NodeCheck> checks = new LinkedHashMap<>();
+        Deque<NodeCheck> stack = new ArrayDeque<>();
+        for (MasterSitemapNode root : sitemap.getRoots()) {
+            stack.push(new NodeCheck(root, null));
         }
-    }
-
-    private void redirectCheck(MasterSitemap sitemap) {
-        DynamicDAG<String> dag = new DynamicDAG<>();
-        ImmutableMap<String, String> redirectMap = sitemap.getRedirects();
-        for (Entry<String, String> entry : redirectMap.entrySet()) {
-            try {
-                dag.addChild(entry.getKey(), entry.getValue());
-            } catch (CycleDetectedException cde) {
-                String msg = MessageFormat.format("Redirecting {0} to {1} would cause a loop", entry.getKey(), entry.getValue());
-                redirectLoops.add(msg);
-                // throw new CycleDetectedException(msg);
+        while (!stack.isEmpty()) {
+            NodeCheck check = stack.pop();
+            checks.put(check.uri, check);
+            for (MasterSitemapNode child : sitemap.getChildren(check.node)) {
+                stack.push(new NodeCheck(child, check));
             }
-
         }
-
+        return checks;
     }
 
     @Override
@@ -259,4 +262,20 @@ public class DefaultSitemapFinisher implements SitemapFinisher {
         return missingPageAccessControl;
     }
 
+    /**
+     * A node, its URI and the check of its parent, captured once per node by {@link #collectNodes(MasterSitemap)}
+     */
+    private static class NodeCheck {
+        private final MasterSitemapNode node;
+        private final NodeCheck parent;
+        private final String uri;
+        private boolean chainChecked;
+
+        NodeCheck(MasterSitemapNode node, NodeCheck parent) {
+            this.node = node;
+            this.parent = parent;
+            this.uri = (parent == null) ? node.getUriSegment() : parent.uri + '/' + node.getUriSegment();
+        }
+    }
+
 }
@@ -12,7 +12,10 @@
  */
 package uk.q3c.krail.core.navigate.sitemap;
 
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
@@ -33,6 +36,7 @@ import uk.q3c.krail.service.RelatedServiceExecutor;
 import uk.q3c.krail.util.ResourceUtils;
 import uk.q3c.util.clazz.ClassNameUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -48,6 +52,7 @@ public class DefaultSitemapService extends AbstractService implements SitemapSer
     private final Provider<DirectSitemapLoader> directSitemapLoaderProvider;
     private final Provider<AnnotationSitemapLoader> annotationSitemapLoaderProvider;
     private final SitemapFinisher sitemapFinisher;
+    private final SitemapSnapshotStore snapshotStore;
     private MasterSitemapQueue masterSitemapQueue;
     private boolean loaded;
     private List<SitemapLoader> loaders;
@@ -60,7 +65,7 @@ public class DefaultSitemapService extends AbstractService implements SitemapSer
             directSitemapLoaderProvider, Provider<AnnotationSitemapLoader> annotationSitemapLoaderProvider, Provider<MasterSitemap> sitemapProvider,
                                     SitemapFinisher sitemapFinisher, MasterSitemapQueue masterSitemapQueue, ApplicationConfiguration configuration,
                                     GlobalBusProvider globalBusProvider, ResourceUtils resourceUtils, ClassNameUtils
-                                            classNameUtils, RelatedServiceExecutor servicesExecutor) {
+                                            classNameUtils, RelatedServiceExecutor servicesExecutor, SitemapSnapshotStore snapshotStore) {
         super(translate, globalBusProvider, servicesExecutor);
         this.annotationSitemapLoaderProvider = annotationSitemapLoaderProvider;
         this.directSitemapLoaderProvider = directSitemapLoaderProvider;
@@ -70,36 +75,98 @@ public class DefaultSitemapService extends AbstractService implements SitemapSer
         this.configuration = configuration;
         this.resourceUtils = resourceUtils;
         this.classNameUtils = classNameUtils;
+        this.snapshotStore = snapshotStore;
         setDescriptionKey(DescriptionKey.Sitemap_Service);
     }
 
 
+    /**
+     * Restores the Sitemap from the {@link SitemapSnapshotStore} if snapshots are enabled and the sources have not changed since the snapshot was
+     * taken, otherwise loads it from its sources (and stores a new snapshot, if enabled)
+     */
     @Override
     protected void doStart() {
         //start with a new and empty model
         MasterSitemap sitemap = sitemapProvider.get();
-        loadSources(sitemap);
-        LoaderReportBuilder lrb = new LoaderReportBuilder(loaders, classNameUtils);
-        report = lrb.getReport();
-        sitemap.setReport(report.toString());
-        if (!loaded) {
-            throw new SitemapException("No valid sources found");
+        List<SourceLoad> sourceLoads = prepareSources();
+        String fingerprint = snapshotStore.isEnabled() ? fingerprint(sourceLoads) : null;
+        boolean restored = (fingerprint != null) && snapshotStore.restore(sitemap, fingerprint);
+        if (restored) {
+            report = new StringBuilder(Strings.nullToEmpty(sitemap.getReport()));
+            loaded = true;
+        } else {
+            loadSources(sourceLoads, sitemap);
+            LoaderReportBuilder lrb = new LoaderReportBuilder(loaders, classNameUtils);
+            report = lrb.getReport();
+            sitemap.setReport(report.toString());
+            if (!loaded) {
+                throw new SitemapException("No valid sources found");
+            }
         }
         sitemap.lock();
-        masterSitemapQueue.addModel(sitemap);
+        publish(sitemap);
+        if ((fingerprint != null) && !restored) {
+            snapshotStore.store(sitemap, fingerprint);
+        }
         log.info("{}", report.toString());
     }
 
     /**
-     * Loads the Sitemap from all the sources specified in {@link #sourceTypes}. The first call to
-     * {@link #loadSource(SitemapSourceType, MasterSitemap)} has {@code firstLoad} set to true. Subsequent calls have {@code firstLoad}
-     * set to false
+     * The first model becomes current as soon as it is added to the {@link #masterSitemapQueue}.  A model loaded when this service is restarted is
+     * published in place of the current one, without stalling live sessions - they move to it at their next navigation
      */
-    private void loadSources(MasterSitemap sitemap) {
+    private void publish(MasterSitemap sitemap) {
+        boolean first = masterSitemapQueue.getCurrentVersion() == 0;
+        if (masterSitemapQueue.addModel(sitemap) && !first) {
+            masterSitemapQueue.publishNextModel();
+        }
+    }
+
+    /**
+     * Creates a {@link SourceLoad} for each of the sources specified in {@link #sourceTypes}
+     */
+    private List<SourceLoad> prepareSources() {
         extractSourcesFromConfig();
         loaders = new ArrayList<>();
+        List<SourceLoad> sourceLoads = new ArrayList<>();
         for (SitemapSourceType source : sourceTypes) {
-            loadSource(source, sitemap);
+            SourceLoad sourceLoad = new SourceLoad(source);
+            sourceLoads.add(sourceLoad);
+            loaders.add(sourceLoad.loader);
+        }
+        return sourceLoads;
+    }
+
+    /**
+     * Combines the fingerprints of all the loaders, or returns null if any of them cannot provide one
+     */
+    private String fingerprint(List<SourceLoad> sourceLoads) {
+        Hasher hasher = Hashing.sha256()
+                               .newHasher();
+        hasher.putInt(MasterSitemapCodec.VERSION);
+        for (SourceLoad sourceLoad : sourceLoads) {
+            String loaderFingerprint = sourceLoad.loader.fingerprint();
+            if (loaderFingerprint == null) {
+                log.info("Sitemap sources of type {} cannot be fingerprinted, Sitemap snapshot not used", sourceLoad.sourceType);
+                return null;
+            }
+            hasher.putString(sourceLoad.sourceType.name(), StandardCharsets.UTF_8);
+            hasher.putString(loaderFingerprint, StandardCharsets.UTF_8);
+        }
+        return hasher.hash()
+                     .toString();
+    }
+
+    /**
+     * Loads the Sitemap from all the sources specified in {@link #sourceTypes}. Each source is loaded concurrently into its own {@link
+     * SitemapLoadBuffer}, and the buffers are then transferred to {@code sitemap} in the order of {@link #sourceTypes} - so the result is the same as
+     * loading each source in turn
+     */
+    private void loadSources(List<SourceLoad> sourceLoads, MasterSitemap sitemap) {
+        sourceLoads.parallelStream()
+                   .forEach(SourceLoad::load);
+        for (SourceLoad sourceLoad : sourceLoads) {
+            transferSource(sourceLoad, sitemap);
         }
         log.debug("Checking Sitemap, sitemap has {} nodes", sitemap.getNodeCount());
         sitemapFinisher.check(sitemap);
@@ -107,26 +174,23 @@ public class DefaultSitemapService extends AbstractService implements SitemapSer
     }
 
     /**
-     * Loads the Sitemap with all sources of the specified {@code source type}.
+     * Transfers the output of a source load to the Sitemap, and passes source information to the {@link #sitemapFinisher}
      *
-     * @param sourceType the source type to use
+     * @param sourceLoad the completed load
      * @param sitemap    the sitemap to load
      */
-    private void loadSource(SitemapSourceType sourceType, MasterSitemap sitemap) {
-        log.debug("Loading Sitemap from {}", sourceType);
-        switch (sourceType) {
+    private void transferSource(SourceLoad sourceLoad, MasterSitemap sitemap) {
+        log.debug("Transferring Sitemap entries from {}", sourceLoad.sourceType);
+        sourceLoad.buffer.replayInto(sitemap);
+        switch (sourceLoad.sourceType) {
 
             case DIRECT:
-                DirectSitemapLoader directSitemapLoader = directSitemapLoaderProvider.get();
-                loaders.add(directSitemapLoader);
-                directSitemapLoader.load(sitemap);
+                DirectSitemapLoader directSitemapLoader = (DirectSitemapLoader) sourceLoad.loader;
                 sitemapFinisher.setSourceModuleNames(directSitemapLoader.sourceModules());
                 loaded = true;
                 return;
             case ANNOTATION:
-                AnnotationSitemapLoader annotationSitemapLoader = annotationSitemapLoaderProvider.get();
-                loaders.add(annotationSitemapLoader);
-                annotationSitemapLoader.load(sitemap);
+                AnnotationSitemapLoader annotationSitemapLoader = (AnnotationSitemapLoader) sourceLoad.loader;
                 Map<String, AnnotationSitemapEntry> sources = annotationSitemapLoader.getSources();
                 if (sources != null) {
                     sitemapFinisher.setAnnotationSources(sources.keySet());
@@ -186,4 +250,32 @@ public class DefaultSitemapService extends AbstractService implements SitemapSer
     public I18NKey getNameKey() {
         return LabelKey.Sitemap_Service;
     }
+
+    /**
+     * A loader for one {@link SitemapSourceType}, with the buffer it loads into
+     */
+    private class SourceLoad {
+        private final SitemapLoadBuffer buffer = new SitemapLoadBuffer();
+        private final SitemapLoader loader;
+        private final SitemapSourceType sourceType;
+
+        SourceLoad(SitemapSourceType sourceType) {
+            this.sourceType = sourceType;
+            switch (sourceType) {
+                case DIRECT:
+                    loader = directSitemapLoaderProvider.get();
+                    break;
+                case ANNOTATION:
+                    loader = annotationSitemapLoaderProvider.get();
+                    break;
+                default:
+                    throw new SitemapException("Unsupported Sitemap source type " + sourceType);
+            }
+        }
+
+        void load() {
+            log.debug("Loading Sitemap from {}", sourceType);
+            loader.load(buffer);
+        }
+    }
 }
@@ -0,0 +1,126 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate.sitemap;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.q3c.krail.config.ApplicationConfiguration;
+import uk.q3c.krail.util.ResourceUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * Stores the {@link MasterSitemap} snapshot in a file, using {@link MasterSitemapCodec}.  Disabled unless {@link #SNAPSHOT_ENABLED} is set to true
+ * in the {@link ApplicationConfiguration}.  The file is {@link #SNAPSHOT_FILE} if set, otherwise {@link #DEFAULT_FILE_NAME} in {@link
+ * ResourceUtils#userTempDirectory()}.
+ * <p>
+ * The snapshot is written to a temporary file and then moved into place, so a partly written snapshot is never read
+ */
+@Singleton
+public class DefaultSitemapSnapshotStore implements SitemapSnapshotStore {
+
+    public static final String DEFAULT_FILE_NAME = "krail-sitemap.snapshot";
+    public static final String SNAPSHOT_ENABLED = "sitemap.snapshot.enabled";
+    public static final String SNAPSHOT_FILE = "sitemap.snapshot.file";
+    private static Logger log = LoggerFactory.getLogger(DefaultSitemapSnapshotStore.class);
+    private final ApplicationConfiguration configuration;
+    private final ResourceUtils resourceUtils;
+
+    @Inject
+    protected DefaultSitemapSnapshotStore(ApplicationConfiguration configuration, ResourceUtils resourceUtils) {
+        this.configuration = configuration;
+        this.resourceUtils = resourceUtils;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return configuration.getBoolean(SNAPSHOT_ENABLED, false);
+    }
+
+    @Override
+    public boolean restore(MasterSitemap sitemap, String fingerprint) {
+        checkNotNull(sitemap);
+        checkNotNull(fingerprint);
+        File file = snapshotFile();
+        if (!file.exists()) {
+            log.debug("No Sitemap snapshot at {}", file);
+            return false;
+        }
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            boolean restored = MasterSitemapCodec.read(in, fingerprint, sitemap, classLoader());
+            if (restored) {
+                log.info("Sitemap restored from snapshot {}", file);
+            } else {
+                log.info("Sitemap snapshot {} is out of date, Sitemap will be loaded from its sources", file);
+            }
+            return restored;
+        } catch (IOException e) {
+            log.warn("Unable to read Sitemap snapshot {}, Sitemap will be loaded from its sources", file, e);
+            sitemap.clear();
+            return false;
+        }
+    }
+
+    @Override
+    public void store(MasterSitemap sitemap, String fingerprint) {
+        checkNotNull(sitemap);
+        checkNotNull(fingerprint);
+        File file = snapshotFile();
+        try {
+            File dir = file.getAbsoluteFile()
+                           .getParentFile();
+            if (!dir.exists() && !dir.mkdirs()) {
+                throw new IOException("Unable to create directory " + dir);
+            }
+            File temp = File.createTempFile(file.getName(), ".tmp", dir);
+            try {
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(temp))) {
+                    MasterSitemapCodec.write(sitemap, fingerprint, out);
+                }
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp.toPath());
+            }
+            log.debug("Sitemap snapshot written to {}", file);
+        } catch (IOException e) {
+            log.warn("Unable to write Sitemap snapshot {}", file, e);
+        }
+    }
+
+    protected File snapshotFile() {
+        String fileName = configuration.getString(SNAPSHOT_FILE, null);
+        if (fileName != null) {
+            return new File(fileName);
+        }
+        return new File(resourceUtils.userTempDirectory(), DEFAULT_FILE_NAME);
+    }
+
+    private ClassLoader classLoader() {
+        ClassLoader classLoader = Thread.currentThread()
+                                        .getContextClassLoader();
+        return (classLoader == null) ? getClass().getClassLoader() : classLoader;
+    }
+}
@@ -12,6 +12,7 @@
  */
 package uk.q3c.krail.core.navigate.sitemap;
 
+import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 import net.engio.mbassy.bus.common.PubSubSupport;
 import net.engio.mbassy.listener.Handler;
@@ -21,13 +22,20 @@ import org.slf4j.LoggerFactory;
 import uk.q3c.krail.core.eventbus.SessionBusProvider;
 import uk.q3c.krail.core.guice.vsscope.VaadinSessionScoped;
 import uk.q3c.krail.core.navigate.URIFragmentHandler;
+import uk.q3c.krail.core.navigate.sitemap.comparator.DefaultUserSitemapSorters.SortType;
 import uk.q3c.krail.eventbus.BusMessage;
 import uk.q3c.krail.i18n.CurrentLocale;
 import uk.q3c.krail.i18n.LocaleChangeBusMessage;
-import uk.q3c.krail.i18n.Translate;
+import uk.q3c.util.forest.BasicForest;
+import uk.q3c.util.forest.NodeFilter;
 
-import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.google.common.base.Preconditions.*;
 
@@ -49,14 +57,29 @@ import static com.google.common.base.Preconditions.*;
 public class DefaultUserSitemap extends DefaultSitemapBase<UserSitemapNode> implements UserSitemap {
     private static Logger log = LoggerFactory.getLogger(DefaultUserSitemap.class);
 
-    private final Translate translate;
+    private final NodeLabelCache nodeLabelCache;
     private final PubSubSupport<BusMessage> eventBus;
+    /**
+     * Not null while the content of this sitemap is borrowed from a {@link UserSitemapCache}, and therefore must not be modified
+     */
+    private volatile SharedUserSitemap shared;
+    /**
+     * Replaced, rather than cleared, whenever the structure or labels change, so that a lookup which overlaps a change cannot leave a stale entry in
+     * its replacement
+     */
+    private volatile NavigationMemo navigationMemo = new NavigationMemo();
+    /**
+     * The nodes of {@link #forest} keyed by master node id, maintained by {@link #addChild}, {@link #removeNode} and {@link #replaceNode} so that
+     * {@link #userNodeFor} is a lookup while the sitemap is being built or updated.  Nodes added directly to the forest (by the {@link
+     * UserSitemapBuilder} full copy) are indexed by {@link #buildUriMap()}.  Not used while the content is shared, as there is then a snapshot
+     */
+    private final Map<Integer, UserSitemapNode> nodesByMasterId = new HashMap<>();
 
 
     @Inject
-    public DefaultUserSitemap(Translate translate, URIFragmentHandler uriHandler, SessionBusProvider eventBusProvider) {
+    public DefaultUserSitemap(NodeLabelCache nodeLabelCache, URIFragmentHandler uriHandler, SessionBusProvider eventBusProvider) {
         super(uriHandler);
-        this.translate = translate;
+        this.nodeLabelCache = nodeLabelCache;
         this.eventBus = eventBusProvider.get();
     }
 
@@ -64,41 +87,47 @@ public class DefaultUserSitemap extends DefaultSitemapBase<UserSitemapNode> impl
     /**
      * Iterates through contained nodes and resets the label and collation key properties to reflect a change in
      * {@link CurrentLocale}. There is no need to reload all the nodes, no change of page authorisation is dealt with
-     * here}
+     * here.  The labels are taken from the {@link NodeLabelCache}, so only nodes which no other session has already used in the new locale are
+     * translated and collated
      */
     @Handler
     public synchronized void localeChanged(LocaleChangeBusMessage busMessage) {
         checkNotNull(busMessage);
+        if (shared != null) {
+            log.debug("content is shared, {} will replace it for locale {}", UserSitemapBuilder.class.getSimpleName(), busMessage.getNewLocale());
+            return;
+        }
         log.debug("responding to locale change to {}", busMessage.getNewLocale());
         List<UserSitemapNode> nodeList = getAllNodes();
-        Collator collator = translate.collator();
+        Locale locale = busMessage.getNewLocale();
         for (UserSitemapNode userNode : nodeList) {
-            String label = translate.from(userNode.getMasterNode()
-                                                  .getLabelKey());
-            userNode.setLabel(label);
-            userNode.setCollationKey(collator.getCollationKey(userNode.getLabel()));
+            userNode.applyLabel(nodeLabelCache.labelFor(userNode.getMasterNode(), locale));
         }
+        navigationMemo = new NavigationMemo();
         eventBus.publish(new UserSitemapLabelChangeMessage());
     }
 
 
     /**
-     * Returns the userNode which contains {@code masterNode}. Note that this method is not very efficient for larger
-     * instances, it has to scan the {@link UserSitemap} until it finds a match. Returns null if no match found (and
-     * will have scanned the entire {@link UserSitemap}
+     * Returns the userNode which contains {@code masterNode}, or null if there is none.  This is always a lookup by master node id - in the snapshot
+     * when there is one, otherwise in {@link #nodesByMasterId}
      *
      * @param masterNode
      * @return
      */
     @Override
-    public synchronized UserSitemapNode userNodeFor(SitemapNode masterNode) {
+    public UserSitemapNode userNodeFor(SitemapNode masterNode) {
         checkNotNull(masterNode);
-        for (UserSitemapNode candidate : getAllNodes()) {
-            if (candidate.getMasterNode() == masterNode) {
-                return candidate;
+        SitemapSnapshot<UserSitemapNode> frozen = snapshot;
+        UserSitemapNode candidate;
+        if (frozen != null) {
+            candidate = frozen.nodeForId(masterNode.getId());
+        } else {
+            synchronized (this) {
+                candidate = nodesByMasterId.get(masterNode.getId());
             }
         }
-        return null;
+        return (candidate != null && candidate.getMasterNode() == masterNode) ? candidate : null;
     }
 
     /**
@@ -115,19 +144,47 @@ public class DefaultUserSitemap extends DefaultSitemapBase<UserSitemapNode> impl
         super.setLoaded(loaded);
         buildUriMap();
         if (loaded) {
+            freeze();
+            navigationMemo = new NavigationMemo();
             eventBus.publish(new UserSitemapStructureChangeMessage());
         }
     }
 
     @Override
     public synchronized void buildUriMap() {
+        discardIndexes();
         uriMap.clear();
+        nodesByMasterId.clear();
         for (UserSitemapNode node : forest.getAllNodes()) {
             uriMap.put(uri(node), node);
+            nodesByMasterId.put(node.getId(), node);
         }
+        buildRouteTrie();
 
     }
 
+    @Override
+    public synchronized void addChild(UserSitemapNode parentNode, UserSitemapNode childNode) {
+        super.addChild(parentNode, childNode);
+        if (parentNode != null) {
+            nodesByMasterId.put(parentNode.getId(), parentNode);
+        }
+        nodesByMasterId.put(childNode.getId(), childNode);
+    }
+
+    @Override
+    public synchronized void removeNode(UserSitemapNode node) {
+        super.removeNode(node);
+        nodesByMasterId.remove(node.getId());
+    }
+
+    @Override
+    public synchronized void replaceNode(UserSitemapNode oldInstance, UserSitemapNode newInstance) {
+        super.replaceNode(oldInstance, newInstance);
+        nodesByMasterId.remove(oldInstance.getId());
+        nodesByMasterId.put(newInstance.getId(), newInstance);
+    }
+
     @Override
     public boolean hasNoVisibleChildren(UserSitemapNode sourceNode) {
         checkNotNull(sourceNode);
@@ -144,9 +201,177 @@ public class DefaultUserSitemap extends DefaultSitemapBase<UserSitemapNode> impl
     }
 
 
-    public Translate getTranslate() {
-        return translate;
+    @Override
+    public synchronized SharedUserSitemap share() {
+        checkState(isLoaded(), "The user sitemap must be loaded before it can be shared");
+        if (shared != null) {
+            return shared;
+        }
+        if (snapshot == null) {
+            freeze();
+        }
+        // hand over the frozen content rather than copying it - it is treated as shared from now on, so any change takes a private copy first
+        shared = SharedUserSitemap.of(forest, snapshot);
+        return shared;
+    }
+
+    @Override
+    public void adopt(SharedUserSitemap sharedSitemap) {
+        adopt(sharedSitemap, new UserSitemapStructureChangeMessage());
+    }
+
+    @Override
+    public synchronized void adopt(SharedUserSitemap sharedSitemap, UserSitemapStructureChangeMessage change) {
+        checkNotNull(sharedSitemap);
+        checkNotNull(change);
+        clear();
+        shared = sharedSitemap;
+        forest = sharedSitemap.getForest();
+        snapshot = sharedSitemap.getSnapshot();
+        routeTrie = snapshot.getRouteTrie();
+        super.setLoaded(true);
+        navigationMemo = new NavigationMemo();
+        eventBus.publish(change);
+    }
+
+    @Override
+    public synchronized void structureChanged(UserSitemapStructureChangeMessage change) {
+        checkNotNull(change);
+        freeze();
+        navigationMemo = new NavigationMemo();
+        eventBus.publish(change);
+    }
+
+    @Override
+    public boolean isShared() {
+        return shared != null;
+    }
+
+    @Override
+    public List<UserSitemapNode> cachedNodeChainFor(UserSitemapNode node) {
+        checkNotNull(node);
+        NavigationMemo memo = navigationMemo;
+        List<UserSitemapNode> chain = memo.chains.get(node);
+        if (chain == null) {
+            chain = ImmutableList.copyOf(nodeChainFor(node));
+            memo.chains.putIfAbsent(node, chain);
+        }
+        return chain;
+    }
+
+    @Override
+    public List<UserSitemapNode> sortedVisibleChildren(UserSitemapNode parent, SortType sortType, boolean ascending, Comparator<UserSitemapNode>
+            comparator, List<NodeFilter<UserSitemapNode>> filters) {
+        checkNotNull(parent);
+        checkNotNull(sortType);
+        checkNotNull(comparator);
+        checkNotNull(filters);
+        NavigationMemo memo = navigationMemo;
+        // the filters are only copied when a new list is held
+        List<UserSitemapNode> children = memo.childLists.get(new ChildListKey(parent, sortType, ascending, filters));
+        if (children == null) {
+            List<UserSitemapNode> accepted = new ArrayList<>();
+            for (UserSitemapNode child : getChildren(parent)) {
+                if (accepts(filters, child)) {
+                    accepted.add(child);
+                }
+            }
+            accepted.sort(comparator);
+            children = ImmutableList.copyOf(accepted);
+            memo.childLists.putIfAbsent(new ChildListKey(parent, sortType, ascending, ImmutableList.copyOf(filters)), children);
+        }
+        return children;
+    }
+
+    private boolean accepts(List<NodeFilter<UserSitemapNode>> filters, UserSitemapNode node) {
+        for (NodeFilter<UserSitemapNode> filter : filters) {
+            if (!filter.accept(node)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * If the content is shared, takes a private copy of it before the indexes are discarded - this is always called before any change to the
+     * content, so the shared copy is never modified
+     */
+    @Override
+    protected synchronized void discardIndexes() {
+        if (shared != null) {
+            SharedUserSitemap copy = new SharedUserSitemap(shared.getSnapshot());
+            SitemapSnapshot<UserSitemapNode> content = copy.getSnapshot();
+            shared = null;
+            forest = copy.getForest();
+            nodesByMasterId.clear();
+            for (UserSitemapNode node : content.getAllNodes()) {
+                nodesByMasterId.put(node.getId(), node);
+            }
+            uriMap.putAll(content.getUriMap());
+            standardPages.putAll(content.getStandardPages());
+            for (Map.Entry<String, StandardPageKey> entry : content.getStandardPageUris()
+                                                                   .entrySet()) {
+                putStandardPageUri(entry.getKey(), entry.getValue());
+            }
+            redirects.putAll(content.getRedirects());
+        }
+        navigationMemo = new NavigationMemo();
+        super.discardIndexes();
+    }
+
+    /**
+     * Shared content is simply dropped, there is no need to copy it
+     */
+    @Override
+    public synchronized void clear() {
+        if (shared != null) {
+            shared = null;
+            forest = new BasicForest<>();
+        }
+        super.clear();
+        nodesByMasterId.clear();
+    }
+
+
+    /**
+     * The node chains and child lists held by {@link #cachedNodeChainFor} and {@link #sortedVisibleChildren}
+     */
+    private static class NavigationMemo {
+        private final Map<UserSitemapNode, List<UserSitemapNode>> chains = new ConcurrentHashMap<>();
+        private final Map<ChildListKey, List<UserSitemapNode>> childLists = new ConcurrentHashMap<>();
     }
 
+    private static final class ChildListKey {
+        private final boolean ascending;
+        private final List<NodeFilter<UserSitemapNode>> filters;
+        private final UserSitemapNode parent;
+        private final SortType sortType;
 
+        ChildListKey(UserSitemapNode parent, SortType sortType, boolean ascending, List<NodeFilter<UserSitemapNode>> filters) {
+            this.parent = parent;
+            this.sortType = sortType;
+            this.ascending = ascending;
+            this.filters = filters;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ChildListKey)) {
+                return false;
+            }
+            ChildListKey that = (ChildListKey) o;
+            return ascending == that.ascending && sortType == that.sortType && parent.equals(that.parent) && filters.equals(that.filters);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = parent.hashCode();
+            result = 31 * result + sortType.hashCode();
+            result = 31 * result + (ascending ? 1 : 0);
+            return 31 * result + filters.hashCode();
+        }
+    }
 }
@@ -0,0 +1,69 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate.sitemap;
+
+import com.google.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * Default implementation of {@link UserSitemapCache}.  Entries are only useful for the {@link MasterSitemap} they were copied from, so the cache is
+ * emptied whenever it sees a profile for a different {@link MasterSitemap}.  The number of entries is otherwise bounded by the number of distinct
+ * {@link UserSitemapProfile}s in use, which is expected to be small.
+ */
+@Singleton
+@ThreadSafe
+public class DefaultUserSitemapCache implements UserSitemapCache {
+    private static Logger log = LoggerFactory.getLogger(DefaultUserSitemapCache.class);
+    private final Map<UserSitemapProfile, SharedUserSitemap> entries = new ConcurrentHashMap<>();
+    private volatile MasterSitemap masterSitemap;
+
+    @Override
+    public SharedUserSitemap get(UserSitemapProfile profile) {
+        checkNotNull(profile);
+        if (profile.getMasterSitemap() != masterSitemap) {
+            return null;
+        }
+        return entries.get(profile);
+    }
+
+    @Override
+    public synchronized SharedUserSitemap putIfAbsent(UserSitemapProfile profile, SharedUserSitemap sharedSitemap) {
+        checkNotNull(profile);
+        checkNotNull(sharedSitemap);
+        if (profile.getMasterSitemap() != masterSitemap) {
+            log.debug("MasterSitemap has changed, discarding {} shared user sitemaps", entries.size());
+            entries.clear();
+            masterSitemap = profile.getMasterSitemap();
+        }
+        SharedUserSitemap existing = entries.putIfAbsent(profile, sharedSitemap);
+        return (existing == null) ? sharedSitemap : existing;
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+        masterSitemap = null;
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate.sitemap;
+
+import com.google.common.collect.ImmutableMap;
+import uk.q3c.krail.core.shiro.PageAccessControl;
+import uk.q3c.krail.core.view.KrailView;
+import uk.q3c.krail.i18n.I18NKey;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * Writes a locked {@link MasterSitemap} in a compact binary form, and restores it into an empty {@link MasterSitemap}, so that a sitemap can be
+ * reloaded at startup without running the loaders and {@link SitemapFinisher} again.  See {@link SitemapSnapshotStore}.
+ * <p>
+ * The nodes are written depth first, each with the position of its parent, so that a restore is a single pass of {@link MasterSitemap#addChild}.
+ * Classes and label keys are held by name, and are resolved when the snapshot is read - a restore fails (and the caller is expected to load the
+ * sitemap from its sources) if any of them no longer exists.
+ */
+public class MasterSitemapCodec {
+
+    static final int MAGIC = 0x4B534D53;
+    static final int VERSION = 1;
+    private static final int NONE = -1;
+
+    private MasterSitemapCodec() {
+    }
+
+    /**
+     * Writes {@code sitemap} to {@code outputStream}, identified by {@code fingerprint}.  {@code outputStream} is not closed
+     *
+     * @param sitemap      the sitemap to write, which should be locked
+     * @param fingerprint  a fingerprint of the sources {@code sitemap} was loaded from, checked by {@link #read}
+     * @param outputStream the stream to write to
+     *
+     * @throws IOException if the stream cannot be written to
+     */
+    public static void write(MasterSitemap sitemap, String fingerprint, OutputStream outputStream) throws IOException {
+        checkNotNull(sitemap);
+        checkNotNull(fingerprint);
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeString(out, fingerprint);
+        writeString(out, sitemap.getReport());
+
+        List<MasterSitemapNode> nodes = new ArrayList<>(sitemap.getNodeCount());
+        List<Integer> parents = new ArrayList<>(sitemap.getNodeCount());
+        for (MasterSitemapNode root : sitemap.getRoots()) {
+            flatten(sitemap, root, NONE, nodes, parents);
+        }
+        out.writeInt(nodes.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            out.writeInt(parents.get(i));
+            writeNode(out, nodes.get(i));
+        }
+
+        ImmutableMap<String, String> redirects = sitemap.getRedirects();
+        out.writeInt(redirects.size());
+        for (Map.Entry<String, String> entry : redirects.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+
+        ImmutableMap<StandardPageKey, MasterSitemapNode> standardPages = sitemap.getStandardPages();
+        out.writeInt(standardPages.size());
+        for (Map.Entry<StandardPageKey, MasterSitemapNode> entry : standardPages.entrySet()) {
+            writeString(out, entry.getKey()
+                                  .name());
+            out.writeInt(nodes.indexOf(entry.getValue()));
+            writeString(out, sitemap.standardPageURI(entry.getKey()));
+        }
+        out.flush();
+    }
+
+    /**
+     * Restores a sitemap written by {@link #write} into {@code sitemap}, provided that it was written with the same {@code fingerprint}.  If the
+     * restore fails for any reason, {@code sitemap} is cleared and false is returned.  {@code sitemap} is not locked.  {@code inputStream} is not
+     * closed
+     *
+     * @param inputStream the stream to read from
+     * @param fingerprint the fingerprint the snapshot must have been written with
+     * @param sitemap     an empty, unlocked sitemap to restore into
+     * @param classLoader used to resolve view classes and label keys
+     *
+     * @return true if {@code sitemap} has been restored
+     *
+     * @throws IOException if the stream cannot be read
+     */
+    public static boolean read(InputStream inputStream, String fingerprint, MasterSitemap sitemap, ClassLoader classLoader) throws IOException {
+        checkNotNull(fingerprint);
+        checkNotNull(sitemap);
+        checkNotNull(classLoader);
+        DataInputStream in = new DataInputStream(inputStream);
+        if (in.readInt() != MAGIC || in.readInt() != VERSION || !fingerprint.equals(readString(in))) {
+            return false;
+        }
+        try {
+            sitemap.setReport(readString(in));
+            int nodeCount = in.readInt();
+            List<MasterSitemapNode> nodes = new ArrayList<>(nodeCount);
+            for (int i = 0; i < nodeCount; i++) {
+                int parent = in.readInt();
+                MasterSitemapNode node = readNode(in, classLoader);
+                nodes.add(node);
+                sitemap.addChild(parent == NONE ? null : nodes.get(parent), node);
+            }
+            int redirectCount = in.readInt();
+            for (int i = 0; i < redirectCount; i++) {
+                sitemap.addRedirect(readString(in), readString(in));
+            }
+            int standardPageCount = in.readInt();
+            for (int i = 0; i < standardPageCount; i++) {
+                StandardPageKey pageKey = StandardPageKey.valueOf(readString(in));
+                MasterSitemapNode node = nodes.get(in.readInt());
+                String uri = readString(in);
+                checkState(node.getLabelKey() == pageKey, "Standard page node does not match its key");
+                sitemap.addStandardPage(node, uri);
+            }
+            return true;
+        } catch (ClassNotFoundException | LinkageError | RuntimeException e) {
+            sitemap.clear();
+            return false;
+        }
+    }
+
+    private static void flatten(MasterSitemap sitemap, MasterSitemapNode node, int parent, List<MasterSitemapNode> nodes, List<Integer> parents) {
+        int index = nodes.size();
+        nodes.add(node);
+        parents.add(parent);
+        for (MasterSitemapNode child : sitemap.getChildren(node)) {
+            flatten(sitemap, child, index, nodes, parents);
+        }
+    }
+
+    private static void writeNode(DataOutputStream out, MasterSitemapNode node) throws IOException {
+        out.writeInt(node.getId());
+        writeString(out, node.getUriSegment());
+        writeString(out, (node.getViewClass() == null) ? null : node.getViewClass()
+                                                                    .getName());
+        I18NKey labelKey = node.getLabelKey();
+        if (labelKey == null) {
+            writeString(out, null);
+        } else {
+            Enum<?> key = (Enum<?>) labelKey;
+            writeString(out, key.getDeclaringClass()
+                                .getName());
+            writeString(out, key.name());
+        }
+        out.writeInt(node.getPositionIndex());
+        writeString(out, node.getPageAccessControl()
+                             .name());
+        out.writeInt(node.getRoles()
+                         .size());
+        for (String role : node.getRoles()) {
+            writeString(out, role);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MasterSitemapNode readNode(DataInputStream in, ClassLoader classLoader) throws IOException, ClassNotFoundException {
+        int id = in.readInt();
+        String uriSegment = readString(in);
+        String viewClassName = readString(in);
+        Class<? extends KrailView> viewClass = null;
+        if (viewClassName != null) {
+            viewClass = Class.forName(viewClassName, false, classLoader)
+                             .asSubclass(KrailView.class);
+        }
+        I18NKey labelKey = null;
+        String keyClassName = readString(in);
+        if (keyClassName != null) {
+            Class keyClass = Class.forName(keyClassName, true, classLoader);
+            labelKey = (I18NKey) Enum.valueOf(keyClass, readString(in));
+        }
+        int positionIndex = in.readInt();
+        PageAccessControl pageAccessControl = PageAccessControl.valueOf(readString(in));
+        int roleCount = in.readInt();
+        List<String> roles = new ArrayList<>(roleCount);
+        for (int i = 0; i < roleCount; i++) {
+            roles.add(readString(in));
+        }
+        return new MasterSitemapNode(id, uriSegment, viewClass, labelKey, positionIndex, pageAccessControl, roles);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NONE);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == NONE) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate.sitemap;
+
+import uk.q3c.krail.i18n.I18NKey;
+
+import javax.annotation.concurrent.Immutable;
+import java.text.CollationKey;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * The label and {@link CollationKey} of a {@link MasterSitemapNode} in one locale, as held by a {@link NodeLabelCache}.  Instances are shared between
+ * sessions, so a {@link UserSitemapNode} takes its values from one rather than holding a reference to it
+ */
+@Immutable
+public class NodeLabel {
+
+    private final CollationKey collationKey;
+    private final String label;
+    private final I18NKey labelKey;
+
+    public NodeLabel(I18NKey labelKey, String label, CollationKey collationKey) {
+        this.labelKey = checkNotNull(labelKey);
+        this.label = checkNotNull(label);
+        this.collationKey = checkNotNull(collationKey);
+    }
+
+    /**
+     * @return the key the label was translated from
+     */
+    public I18NKey getLabelKey() {
+        return labelKey;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public CollationKey getCollationKey() {
+        return collationKey;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate.sitemap;
+
+import java.util.Locale;
+
+/**
+ * A process-wide store of the {@link NodeLabel} for each {@link MasterSitemapNode}, partitioned by locale.  The label of a node in a given locale is
+ * the same for every user, so a {@link UserSitemap} takes its labels from here instead of translating and collating every node itself
+ */
+public interface NodeLabelCache {
+
+    /**
+     * Returns the label and collation key for {@code masterNode} in {@code locale}, translating and collating it only if it is not already held.
+     * {@code masterNode} must have a label key
+     *
+     * @return the label and collation key for {@code masterNode} in {@code locale}
+     */
+    NodeLabel labelFor(MasterSitemapNode masterNode, Locale locale);
+
+    /**
+     * Removes all entries.  Call this when the I18N patterns have changed, so that labels are translated again
+     */
+    void invalidate();
+
+    /**
+     * Removes all entries for {@code locale}
+     */
+    void invalidate(Locale locale);
+
+    /**
+     * @return the total number of entries, across all locales
+     */
+    long size();
+}
@@ -0,0 +1,47 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate.sitemap;
+
+import com.google.inject.Provider;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.q3c.krail.i18n.persist.PatternSource;
+
+/**
+ * Intercepts the cache clearing methods of {@link PatternSource} (bound by {@link SitemapModule}), so that a change of I18N patterns also removes the
+ * labels held by the {@link NodeLabelCache} and the content shared through the {@link UserSitemapCache} - otherwise sessions would continue to be
+ * given the old labels.  The caches are cleared after the pattern cache, so that a label cannot be translated again from the old pattern
+ */
+public class PatternChangeInterceptor implements MethodInterceptor {
+    private static Logger log = LoggerFactory.getLogger(PatternChangeInterceptor.class);
+    private final Provider<NodeLabelCache> nodeLabelCacheProvider;
+    private final Provider<UserSitemapCache> userSitemapCacheProvider;
+
+    public PatternChangeInterceptor(Provider<NodeLabelCache> nodeLabelCacheProvider, Provider<UserSitemapCache> userSitemapCacheProvider) {
+        this.nodeLabelCacheProvider = nodeLabelCacheProvider;
+        this.userSitemapCacheProvider = userSitemapCacheProvider;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        log.debug("I18N patterns cleared, removing cached sitemap labels");
+        nodeLabelCacheProvider.get()
+                              .invalidate();
+        userSitemapCacheProvider.get()
+                                .clear();
+        return result;
+    }
+}
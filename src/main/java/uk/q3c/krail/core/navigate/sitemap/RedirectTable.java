@@ -0,0 +1,135 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate.sitemap;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import javax.annotation.concurrent.Immutable;
+import java.io.Serializable;
+import java.util.*;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A compiled form of the redirects in a {@link Sitemap}, in which every redirect chain has been followed to its final target, so that resolving a
+ * redirect is a single lookup.  Redirects which form a loop (or lead into one) cannot be resolved - they are excluded from the table and listed by
+ * {@link #getLoops()}, so that they can be reported once, by {@link SitemapFinisher}, rather than found at navigation time.
+ */
+@Immutable
+public class RedirectTable implements Serializable {
+
+    private static final RedirectTable EMPTY = new RedirectTable(ImmutableMap.of(), ImmutableSet.of());
+    private final ImmutableMap<String, String> targets;
+    private final ImmutableSet<String> loops;
+
+    private RedirectTable(ImmutableMap<String, String> targets, ImmutableSet<String> loops) {
+        this.targets = targets;
+        this.loops = loops;
+    }
+
+    /**
+     * Follows each redirect in {@code redirects} to its final target.  Each page is visited at most once, however long the chains are.
+     *
+     * @param redirects map of page to the page it is redirected to
+     *
+     * @return the compiled table
+     */
+    public static RedirectTable compile(Map<String, String> redirects) {
+        checkNotNull(redirects);
+        if (redirects.isEmpty()) {
+            return EMPTY;
+        }
+        Map<String, String> resolved = new LinkedHashMap<>();
+        Set<String> unresolvable = new HashSet<>();
+        Set<String> loops = new LinkedHashSet<>();
+        for (String source : redirects.keySet()) {
+            if (resolved.containsKey(source) || unresolvable.contains(source)) {
+                continue;
+            }
+            // walk the chain until reaching a page which is not redirected, already resolved, or already on this path
+            List<String> path = new ArrayList<>();
+            Set<String> onPath = new HashSet<>();
+            String page = source;
+            String target = null;
+            boolean loop = false;
+            while (true) {
+                if (resolved.containsKey(page)) {
+                    target = resolved.get(page);
+                    break;
+                }
+                if (unresolvable.contains(page)) {
+                    loop = true;
+                    break;
+                }
+                String next = redirects.get(page);
+                if (next == null) {
+                    target = page;
+                    break;
+                }
+                if (!onPath.add(page)) {
+                    loop = true;
+                    loops.add(describeLoop(path, page));
+                    break;
+                }
+                path.add(page);
+                page = next;
+            }
+            for (String p : path) {
+                if (loop) {
+                    unresolvable.add(p);
+                } else {
+                    resolved.put(p, target);
+                }
+            }
+        }
+        return new RedirectTable(ImmutableMap.copyOf(resolved), ImmutableSet.copyOf(loops));
+    }
+
+    private static String describeLoop(List<String> path, String repeated) {
+        StringBuilder buf = new StringBuilder();
+        for (String p : path.subList(path.indexOf(repeated), path.size())) {
+            buf.append(p)
+               .append(" -> ");
+        }
+        buf.append(repeated);
+        return "Redirect loop: " + buf.toString();
+    }
+
+    /**
+     * Returns the final target of {@code page}, or {@code page} itself if it is not redirected.  A page whose redirect forms a loop is treated as
+     * not redirected
+     */
+    public String targetFor(String page) {
+        String target = targets.get(page);
+        return (target == null) ? page : target;
+    }
+
+    /**
+     * @return source page to final target, for every redirect which can be resolved
+     */
+    public ImmutableMap<String, String> getTargets() {
+        return targets;
+    }
+
+    /**
+     * @return a description of each loop found, empty if there are none
+     */
+    public ImmutableSet<String> getLoops() {
+        return loops;
+    }
+
+    public boolean hasLoops() {
+        return !loops.isEmpty();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate.sitemap;
+
+import uk.q3c.util.forest.BasicForest;
+
+import javax.annotation.concurrent.Immutable;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * An immutable index of the nodes of a {@link Sitemap}, keyed by URI segment.  Each level of the trie corresponds to a level in the sitemap forest, so
+ * exact, nearest-ancestor and node chain lookups are all answered with a single walk of the segments, without any need to re-assemble a URI string.
+ * The trie is held as a {@link CompactForest}, each step of the walk being a lookup in its segment index, so a lookup allocates nothing (except the
+ * list returned by {@link #nodeChainFor(List, boolean)}).
+ * <p>
+ * Where siblings share a URI segment, the first sibling wins - the same result as {@link DefaultSitemapBase#findNodeBySegment(List, String, boolean)}.
+ * <p>
+ * Instances are built from a {@link BasicForest} while the owning sitemap holds its own lock, but once built can be read by any number of threads
+ * without synchronisation.
+ *
+ * @param <T> the type of sitemap node held
+ */
+@Immutable
+public class RouteTrie<T extends SitemapNode> implements Serializable {
+
+    private final CompactForest<T> forest;
+
+    private RouteTrie(CompactForest<T> forest) {
+        this.forest = forest;
+    }
+
+    /**
+     * Builds a trie from the current structure of {@code forest}.  The caller is responsible for ensuring that {@code forest} is not modified while
+     * the trie is being built
+     *
+     * @param forest the forest to index
+     * @param <T>    the type of sitemap node held
+     * @return a new trie representing the structure of {@code forest}
+     */
+    public static <T extends SitemapNode> RouteTrie<T> build(BasicForest<T> forest) {
+        checkNotNull(forest);
+        return new RouteTrie<>(CompactForest.of(forest));
+    }
+
+    /**
+     * @return the compact copy of the forest which this trie indexes
+     */
+    public CompactForest<T> getForest() {
+        return forest;
+    }
+
+    /**
+     * Returns the node exactly matching {@code segments}, or null if there is no such node
+     *
+     * @param segments the URI path segments to look up
+     * @return the node exactly matching {@code segments}, or null if there is no such node
+     */
+    public T nodeFor(List<String> segments) {
+        checkNotNull(segments);
+        if (segments.isEmpty()) {
+            return null;
+        }
+        int position = CompactForest.NONE;
+        for (int i = 0; i < segments.size(); i++) {
+            position = forest.childFor(position, segments.get(i));
+            if (position == CompactForest.NONE) {
+                return null;
+            }
+        }
+        return forest.nodeAt(position);
+    }
+
+    /**
+     * Returns the node which matches the most leading segments of {@code segments}, or null if not even the first segment matches
+     *
+     * @param segments the URI path segments to look up
+     * @return the node which matches the most leading segments of {@code segments}, or null if not even the first segment matches
+     */
+    public T nodeNearestFor(List<String> segments) {
+        checkNotNull(segments);
+        int position = CompactForest.NONE;
+        for (int i = 0; i < segments.size(); i++) {
+            int next = forest.childFor(position, segments.get(i));
+            if (next == CompactForest.NONE) {
+                break;
+            }
+            position = next;
+        }
+        return (position == CompactForest.NONE) ? null : forest.nodeAt(position);
+    }
+
+    /**
+     * Returns the chain of nodes, starting from a root, which match {@code segments}. See {@link Sitemap#nodeChainForSegments(List, boolean)} for the
+     * effect of {@code allowPartialPath}
+     *
+     * @param segments         the URI path segments to look up
+     * @param allowPartialPath if true, a partial match returns the nodes matched so far, if false a partial match returns an empty list
+     * @return the chain of nodes, starting from a root, which match {@code segments}
+     */
+    public List<T> nodeChainFor(List<String> segments, boolean allowPartialPath) {
+        checkNotNull(segments);
+        List<T> nodeChain = new ArrayList<>(segments.size());
+        int position = CompactForest.NONE;
+        for (int i = 0; i < segments.size(); i++) {
+            position = forest.childFor(position, segments.get(i));
+            if (position == CompactForest.NONE) {
+                if (!allowPartialPath) {
+                    nodeChain.clear();
+                }
+                return nodeChain;
+            }
+            nodeChain.add(forest.nodeAt(position));
+        }
+        return nodeChain;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate.sitemap;
+
+import uk.q3c.util.forest.BasicForest;
+
+import javax.annotation.concurrent.Immutable;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * The content of a {@link UserSitemap} in a form which can be shared by any number of sessions with the same {@link UserSitemapProfile}.  The nodes,
+ * forest and snapshot held here must never be modified - a {@link UserSitemap} which needs to change shared content takes its own copy first.
+ */
+@Immutable
+public class SharedUserSitemap implements Serializable {
+
+    private final BasicForest<UserSitemapNode> forest;
+    private final SitemapSnapshot<UserSitemapNode> snapshot;
+
+    private SharedUserSitemap(BasicForest<UserSitemapNode> forest, SitemapSnapshot<UserSitemapNode> snapshot) {
+        this.forest = forest;
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Takes a deep copy of {@code source}, so that later changes to the nodes of the originating {@link UserSitemap} (for example, a relabel on locale
+     * change) do not leak into the shared copy.
+     *
+     * @param source the snapshot to copy
+     */
+    public SharedUserSitemap(SitemapSnapshot<UserSitemapNode> source) {
+        checkNotNull(source);
+        Map<UserSitemapNode, UserSitemapNode> copies = new HashMap<>();
+        forest = new BasicForest<>();
+        // getAllNodes is in depth first order, so a parent is always copied before its children
+        for (UserSitemapNode node : source.getAllNodes()) {
+            UserSitemapNode copy = new UserSitemapNode(node);
+            copies.put(node, copy);
+            UserSitemapNode parent = source.getParent(node);
+            if (parent == null) {
+                forest.addNode(copy);
+            } else {
+                forest.addChild(copies.get(parent), copy);
+            }
+        }
+        Map<String, UserSitemapNode> uriMap = new LinkedHashMap<>();
+        for (Map.Entry<String, UserSitemapNode> entry : source.getUriMap()
+                                                              .entrySet()) {
+            uriMap.put(entry.getKey(), copyOf(copies, entry.getValue()));
+        }
+        Map<StandardPageKey, UserSitemapNode> standardPages = new HashMap<>();
+        for (Map.Entry<StandardPageKey, UserSitemapNode> entry : source.getStandardPages()
+                                                                       .entrySet()) {
+            standardPages.put(entry.getKey(), copyOf(copies, entry.getValue()));
+        }
+        snapshot = new SitemapSnapshot<>(forest, RouteTrie.build(forest), uriMap, standardPages, source.getStandardPageUris(), source.getRedirects());
+    }
+
+    /**
+     * Wraps {@code snapshot} and the {@code forest} it was frozen from, without copying them.  The caller hands over the content, and must treat it
+     * as shared from then on
+     *
+     * @param forest   the forest {@code snapshot} was frozen from
+     * @param snapshot the snapshot to share
+     * @return a {@link SharedUserSitemap} holding {@code forest} and {@code snapshot} themselves
+     */
+    public static SharedUserSitemap of(BasicForest<UserSitemapNode> forest, SitemapSnapshot<UserSitemapNode> snapshot) {
+        checkNotNull(forest);
+        checkNotNull(snapshot);
+        return new SharedUserSitemap(forest, snapshot);
+    }
+
+    private static UserSitemapNode copyOf(Map<UserSitemapNode, UserSitemapNode> copies, UserSitemapNode node) {
+        UserSitemapNode copy = copies.get(node);
+        if (copy == null) {
+            // standard pages are not necessarily in the forest
+            copy = new UserSitemapNode(node);
+            copies.put(node, copy);
+        }
+        return copy;
+    }
+
+    public BasicForest<UserSitemapNode> getForest() {
+        return forest;
+    }
+
+    public SitemapSnapshot<UserSitemapNode> getSnapshot() {
+        return snapshot;
+    }
+}
@@ -35,6 +35,29 @@ public interface Sitemap<T extends SitemapNode> extends Serializable {
 
     BasicForest<T> getForest();
 
+    /**
+     * Returns a compact, read only copy of the structure of this sitemap, which can be traversed without allocation, or null if the sitemap has
+     * been changed since it was last locked (or otherwise frozen)
+     */
+    CompactForest<T> getCompactForest();
+
+    /**
+     * Returns the first child of {@code parentNode}, or the first root if {@code parentNode} is null.  Returns null if there is no such child, or
+     * {@code parentNode} is not in the sitemap.  Together with {@link #nextSiblingOf(SitemapNode)}, traverses the children without allocation once
+     * the sitemap is locked
+     */
+    T firstChildOf(T parentNode);
+
+    /**
+     * Returns the next sibling of {@code node}, or null if it is the last, or is not in the sitemap
+     */
+    T nextSiblingOf(T node);
+
+    /**
+     * Returns the child of {@code parentNode} with the URI segment {@code segment} (a root if {@code parentNode} is null), or null if there is none
+     */
+    T childFor(T parentNode, String segment);
+
     void addChild(T parentNode, T childNode);
 
     String getRedirectPageFor(NavigationState navigationState);
@@ -49,6 +72,8 @@ public interface Sitemap<T extends SitemapNode> extends Serializable {
 
     Sitemap<T> addRedirect(String fromPage, String toPage);
 
+    Sitemap<T> removeRedirect(String fromPage);
+
     ImmutableMap<String, String> getRedirects();
 
     String getRedirectPageFor(String page);
@@ -81,6 +106,12 @@ public interface Sitemap<T extends SitemapNode> extends Serializable {
 
     PagePermission pagePermission(T node);
 
+    /**
+     * Returns the URI segments of {@code node}, from its root down to the node itself.  For a locked sitemap these are held ready, and no parsing
+     * is needed
+     */
+    List<String> uriSegments(T node);
+
     NavigationState navigationState(T node);
 
     boolean hasUri(NavigationState navigationState);
@@ -0,0 +1,78 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate.sitemap;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * Collects the output of a single {@link SitemapLoader} - {@link NodeRecord}s and redirects - without touching the
+ * {@link MasterSitemap}.  This allows loaders to run concurrently, each into its own buffer, with the buffers then
+ * replayed into the {@link MasterSitemap} on one thread, in a fixed order, so that the result is the same as a
+ * sequential load.
+ * <p>
+ * Not thread safe - each buffer is expected to be filled by one loader only
+ */
+public class SitemapLoadBuffer {
+
+    private final List<NodeRecord> nodeRecords = new ArrayList<>();
+    private final Map<String, String> redirects = new LinkedHashMap<>();
+
+    public SitemapLoadBuffer append(NodeRecord nodeRecord) {
+        checkNotNull(nodeRecord);
+        nodeRecords.add(nodeRecord);
+        return this;
+    }
+
+    public SitemapLoadBuffer addRedirect(String fromPage, String toPage) {
+        checkNotNull(fromPage);
+        checkNotNull(toPage);
+        redirects.put(fromPage, toPage);
+        return this;
+    }
+
+    /**
+     * Appends all the buffered node records to {@code sitemap}, in the order they were buffered, followed by the
+     * redirects
+     *
+     * @param sitemap the sitemap to transfer the buffer contents to
+     */
+    public void replayInto(MasterSitemap sitemap) {
+        checkNotNull(sitemap);
+        for (NodeRecord nodeRecord : nodeRecords) {
+            sitemap.append(nodeRecord);
+        }
+        for (Map.Entry<String, String> entry : redirects.entrySet()) {
+            sitemap.addRedirect(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public ImmutableList<NodeRecord> getNodeRecords() {
+        return ImmutableList.copyOf(nodeRecords);
+    }
+
+    public ImmutableMap<String, String> getRedirects() {
+        return ImmutableMap.copyOf(redirects);
+    }
+
+    public boolean isEmpty() {
+        return nodeRecords.isEmpty() && redirects.isEmpty();
+    }
+}
@@ -26,11 +26,37 @@ import java.util.Map;
 public interface SitemapLoader {
 
     /**
-     * Loads the {@code sitemap} from whichever source the implementation chooses. Returns true if the load is successful
+     * Loads the {@code buffer} from whichever source the implementation chooses. Returns true if the load is successful.
+     * Implementations must not rely on any state outside their own instance, as loaders for different sources may be
+     * called concurrently
      *
      * @return true if the load is successful
      */
-    boolean load(MasterSitemap sitemap);
+    boolean load(SitemapLoadBuffer buffer);
+
+    /**
+     * Loads the {@code sitemap} from whichever source the implementation chooses, by loading a {@link SitemapLoadBuffer}
+     * and replaying it into {@code sitemap}. Returns true if the load is successful
+     *
+     * @return true if the load is successful
+     */
+    default boolean load(MasterSitemap sitemap) {
+        SitemapLoadBuffer buffer = new SitemapLoadBuffer();
+        boolean result = load(buffer);
+        buffer.replayInto(sitemap);
+        return result;
+    }
+
+    /**
+     * Returns a fingerprint of everything this loader would load, determined without loading it, or null if that is not possible.  Used to decide
+     * whether a {@link SitemapSnapshotStore} snapshot is still valid.  The default is null, so that the output of a loader which does not implement
+     * this is never taken from a snapshot
+     *
+     * @return a fingerprint of everything this loader would load, or null
+     */
+    default String fingerprint() {
+        return null;
+    }
 
     Map<String, List<LogEntry>> getInfos();
 
@@ -12,6 +12,9 @@
  */
 package uk.q3c.krail.core.navigate.sitemap;
 
+import com.google.common.hash.Hasher;
+
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -109,5 +112,28 @@ public abstract class SitemapLoaderBase implements SitemapLoader {
         infoCount = 0;
     }
 
+    /**
+     * Adds {@code value} to a {@link #fingerprint()} hash.  Classes and enum constants are identified by their fully qualified names, and null is
+     * distinct from "null"
+     */
+    protected static void putField(Hasher hasher, Object value) {
+        if (value == null) {
+            hasher.putByte((byte) 0);
+            return;
+        }
+        String text;
+        if (value instanceof Class) {
+            text = ((Class<?>) value).getName();
+        } else if (value instanceof Enum) {
+            text = ((Enum<?>) value).getDeclaringClass()
+                                    .getName() + '.' + ((Enum<?>) value).name();
+        } else {
+            text = value.toString();
+        }
+        hasher.putByte((byte) 1);
+        hasher.putString(text, StandardCharsets.UTF_8);
+        hasher.putByte((byte) 0);
+    }
+
 
 }
@@ -12,6 +12,8 @@
  */
 package uk.q3c.krail.core.navigate.sitemap;
 
+import com.google.inject.matcher.AbstractMatcher;
+import com.google.inject.matcher.Matchers;
 import uk.q3c.krail.config.i18n.ConfigurationLabelKey;
 import uk.q3c.krail.core.i18n.LabelKey;
 import uk.q3c.krail.core.navigate.sitemap.comparator.DefaultUserSitemapSorters;
@@ -19,8 +21,11 @@ import uk.q3c.krail.core.navigate.sitemap.comparator.UserSitemapSorters;
 import uk.q3c.krail.core.navigate.sitemap.set.DefaultMasterSitemapQueue;
 import uk.q3c.krail.core.navigate.sitemap.set.MasterSitemapQueue;
 import uk.q3c.krail.service.AbstractServiceModule;
+import uk.q3c.krail.i18n.persist.PatternSource;
 import uk.q3c.krail.service.Dependency;
 
+import java.lang.reflect.Method;
+
 public class SitemapModule extends AbstractServiceModule {
 
     @Override
@@ -32,6 +37,16 @@ public class SitemapModule extends AbstractServiceModule {
         bindLoaders();
         bindChecker();
         bindMasterSitemapQueue();
+        bindSnapshotStore();
+        bindNodeLabelCache();
+        bindPatternChangeInterceptor();
+    }
+
+    /**
+     * Override this method to provide your own {@link SitemapSnapshotStore} binding
+     */
+    protected void bindSnapshotStore() {
+        bind(SitemapSnapshotStore.class).to(DefaultSitemapSnapshotStore.class);
     }
 
     protected void bindMasterSitemapQueue() {
@@ -55,6 +70,23 @@ public class SitemapModule extends AbstractServiceModule {
     private void bindUserSitemap() {
         bind(UserSitemap.class).to(DefaultUserSitemap.class);
         bind(UserSitemapSorters.class).to(DefaultUserSitemapSorters.class);
+        bind(UserSitemapCache.class).to(DefaultUserSitemapCache.class);
+    }
+
+    /**
+     * Override this method to provide your own {@link NodeLabelCache} binding
+     */
+    protected void bindNodeLabelCache() {
+        bind(NodeLabelCache.class).to(DefaultNodeLabelCache.class);
+    }
+
+    /**
+     * Clears the {@link NodeLabelCache} and {@link UserSitemapCache} whenever the {@link PatternSource} cache is cleared.  Override this method
+     * (with an empty body) if your application never changes I18N patterns at runtime
+     */
+    protected void bindPatternChangeInterceptor() {
+        PatternChangeInterceptor interceptor = new PatternChangeInterceptor(getProvider(NodeLabelCache.class), getProvider(UserSitemapCache.class));
+        bindInterceptor(Matchers.subclassesOf(PatternSource.class), new ClearCacheMethodMatcher(), interceptor);
     }
 
     protected void bindService() {
@@ -71,4 +103,11 @@ public class SitemapModule extends AbstractServiceModule {
 
     }
 
+    private static class ClearCacheMethodMatcher extends AbstractMatcher<Method> {
+        @Override
+        public boolean matches(Method method) {
+            return "clearCache".equals(method.getName());
+        }
+    }
+
 }
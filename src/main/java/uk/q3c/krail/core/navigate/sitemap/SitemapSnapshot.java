@@ -0,0 +1,306 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate.sitemap;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import uk.q3c.util.forest.BasicForest;
+
+import javax.annotation.concurrent.Immutable;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A frozen, read only representation of a {@link Sitemap}, produced by {@link DefaultSitemapBase#lock()}.  The forest structure is the {@link
+ * CompactForest} held by the {@link RouteTrie}, with the full URI and segments of each node held in arrays indexed by its position in that forest,
+ * alongside immutable copies of the URI map, standard pages and redirects.  Nothing in the snapshot ever changes once it has been constructed, so readers need no synchronisation at all.
+ *
+ * @param <T> the type of sitemap node held
+ */
+@Immutable
+public class SitemapSnapshot<T extends SitemapNode> implements Serializable {
+
+    private static final int NONE = CompactForest.NONE;
+    private final CompactForest<T> forest;
+    private final String[] uris;
+    private final ImmutableList<ImmutableList<String>> segments;
+    private final RouteTrie<T> routeTrie;
+    private final ImmutableMap<String, T> uriMap;
+    private final ImmutableMap<StandardPageKey, T> standardPages;
+    private final ImmutableMap<String, StandardPageKey> uriStandardPages;
+    private final ImmutableMap<StandardPageKey, String> standardPageUriIndex;
+    private final ImmutableMap<String, String> redirects;
+    private final RedirectTable redirectTable;
+
+    /**
+     * The caller is responsible for ensuring that none of the parameters are modified while the snapshot is being constructed.  The structure is
+     * taken from {@code routeTrie}, which must have been built from the current state of {@code forest}
+     */
+    public SitemapSnapshot(BasicForest<T> forest, RouteTrie<T> routeTrie, Map<String, T> uriMap, Map<StandardPageKey, T> standardPages,
+                           Map<String, StandardPageKey> uriStandardPages, Map<String, String> redirects) {
+        checkNotNull(forest);
+        checkNotNull(routeTrie);
+        this.routeTrie = routeTrie;
+        this.uriMap = ImmutableMap.copyOf(uriMap);
+        this.standardPages = ImmutableMap.copyOf(standardPages);
+        this.uriStandardPages = ImmutableMap.copyOf(uriStandardPages);
+        Map<StandardPageKey, String> uriIndex = new EnumMap<>(StandardPageKey.class);
+        for (Map.Entry<String, StandardPageKey> entry : this.uriStandardPages.entrySet()) {
+            uriIndex.put(entry.getValue(), entry.getKey());
+        }
+        this.standardPageUriIndex = Maps.immutableEnumMap(uriIndex);
+        this.redirects = ImmutableMap.copyOf(redirects);
+        this.redirectTable = RedirectTable.compile(this.redirects);
+
+        this.forest = routeTrie.getForest();
+        // parents always precede their children
+        int nodeCount = this.forest.size();
+        this.uris = new String[nodeCount];
+        List<ImmutableList<String>> segmentList = new ArrayList<>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            String segment = this.forest.nodeAt(i)
+                                        .getUriSegment();
+            int parent = this.forest.parentOf(i);
+            if (parent == NONE) {
+                uris[i] = segment;
+                segmentList.add(ImmutableList.of(segment));
+            } else {
+                uris[i] = uris[parent] + '/' + segment;
+                segmentList.add(ImmutableList.<String>builder()
+                                             .addAll(segmentList.get(parent))
+                                             .add(segment)
+                                             .build());
+            }
+        }
+        this.segments = ImmutableList.copyOf(segmentList);
+    }
+
+    private int indexOf(T node) {
+        return forest.positionOf(node);
+    }
+
+    /**
+     * @return the structure of the sitemap, which can be traversed without allocation
+     */
+    public CompactForest<T> getForest() {
+        return forest;
+    }
+
+    public RouteTrie<T> getRouteTrie() {
+        return routeTrie;
+    }
+
+    public boolean containsNode(T node) {
+        return forest.contains(node);
+    }
+
+    public T getParent(T node) {
+        int i = indexOf(node);
+        if (i == NONE || forest.parentOf(i) == NONE) {
+            return null;
+        }
+        return forest.nodeAt(forest.parentOf(i));
+    }
+
+    public T getRootFor(T node) {
+        int i = indexOf(node);
+        if (i == NONE) {
+            return null;
+        }
+        while (forest.parentOf(i) != NONE) {
+            i = forest.parentOf(i);
+        }
+        return forest.nodeAt(i);
+    }
+
+    /**
+     * Returns a new, modifiable list of the children of {@code node}, which is empty if {@code node} has no children or is not in this snapshot.
+     * Use {@link #firstChildOf(SitemapNode)} and {@link #nextSiblingOf(SitemapNode)} to traverse the children without allocation
+     */
+    public List<T> getChildren(T node) {
+        int i = indexOf(node);
+        if (i == NONE) {
+            return new ArrayList<>();
+        }
+        return forest.childrenOf(i);
+    }
+
+    /**
+     * @throws SitemapException if {@code node} is not in this snapshot
+     */
+    public int getChildCount(T node) {
+        int i = indexOf(node);
+        if (i == NONE) {
+            throw new SitemapException("Cannot count children of non-existent node");
+        }
+        return forest.childCountOf(i);
+    }
+
+    /**
+     * Returns the first child of {@code node}, or the first root if {@code node} is null.  Returns null if there is no such child, or {@code node}
+     * is not in this snapshot.  Together with {@link #nextSiblingOf(SitemapNode)}, this allows the children to be traversed without allocation
+     */
+    public T firstChildOf(T node) {
+        if (node == null) {
+            return nodeAt(forest.firstChildOf(NONE));
+        }
+        int i = indexOf(node);
+        return (i == NONE) ? null : nodeAt(forest.firstChildOf(i));
+    }
+
+    /**
+     * Returns the next sibling of {@code node}, or null if it is the last, or is not in this snapshot
+     */
+    public T nextSiblingOf(T node) {
+        int i = indexOf(node);
+        return (i == NONE) ? null : nodeAt(forest.nextSiblingOf(i));
+    }
+
+    /**
+     * Returns the child of {@code parent} with the URI segment {@code segment} (a root if {@code parent} is null), or null if there is none.  A
+     * single hash lookup, which does not allocate
+     */
+    public T childFor(T parent, String segment) {
+        if (parent == null) {
+            return nodeAt(forest.childFor(NONE, segment));
+        }
+        int i = indexOf(parent);
+        return (i == NONE) ? null : nodeAt(forest.childFor(i, segment));
+    }
+
+    private T nodeAt(int position) {
+        return (position == NONE) ? null : forest.nodeAt(position);
+    }
+
+    /**
+     * Returns the full URI of {@code node}. If {@code node} is not in this snapshot, it has no known parent, and its own URI segment is returned
+     */
+    public String uri(T node) {
+        int i = indexOf(node);
+        return (i == NONE) ? node.getUriSegment() : uris[i];
+    }
+
+    /**
+     * Returns the URI segments of {@code node}, from the root down.  If {@code node} is not in this snapshot, just its own segment is returned
+     */
+    public ImmutableList<String> uriSegments(T node) {
+        int i = indexOf(node);
+        return (i == NONE) ? ImmutableList.of(node.getUriSegment()) : segments.get(i);
+    }
+
+    /**
+     * Returns a new list of the chain of nodes from the root to {@code node}, inclusive.  {@link #getParent(SitemapNode)} walks the same chain,
+     * upwards, without allocation
+     */
+    public List<T> nodeChainFor(T node) {
+        int i = indexOf(node);
+        if (i == NONE) {
+            List<T> chain = new ArrayList<>(1);
+            chain.add(node);
+            return chain;
+        }
+        List<T> chain = new ArrayList<>();
+        for (int p = i; p != NONE; p = forest.parentOf(p)) {
+            chain.add(forest.nodeAt(p));
+        }
+        Collections.reverse(chain);
+        return chain;
+    }
+
+    /**
+     * Returns a new, modifiable list of every node.  {@link CompactForest#nodes()} from {@link #getForest()} is the same list, immutable and not
+     * copied
+     */
+    public List<T> getAllNodes() {
+        return new ArrayList<>(forest.nodes());
+    }
+
+    public List<T> getRoots() {
+        return forest.childrenOf(NONE);
+    }
+
+    public int getNodeCount() {
+        return forest.size();
+    }
+
+    public T nodeForVirtualPage(String virtualPage) {
+        return uriMap.get(virtualPage);
+    }
+
+    public boolean hasUri(String virtualPage) {
+        return uriMap.containsKey(virtualPage);
+    }
+
+    public ImmutableList<String> uris() {
+        return uriMap.keySet()
+                     .asList();
+    }
+
+    public ImmutableMap<String, T> getUriMap() {
+        return uriMap;
+    }
+
+    public ImmutableMap<StandardPageKey, T> getStandardPages() {
+        return standardPages;
+    }
+
+    public T standardPageNode(StandardPageKey pageKey) {
+        return standardPages.get(pageKey);
+    }
+
+    /**
+     * Returns the URI for {@code pageKey}, or null if there is none
+     */
+    public String standardPageURI(StandardPageKey pageKey) {
+        return standardPageUriIndex.get(pageKey);
+    }
+
+    /**
+     * Returns the node with {@link SitemapNode#getId()} equal to {@code id}, or null if there is none
+     */
+    public T nodeForId(int id) {
+        int i = forest.positionOfId(id);
+        return (i == NONE) ? null : forest.nodeAt(i);
+    }
+
+    public StandardPageKey standardPageKeyFor(String virtualPage) {
+        return uriStandardPages.get(virtualPage);
+    }
+
+    public ImmutableMap<String, StandardPageKey> getStandardPageUris() {
+        return uriStandardPages;
+    }
+
+    public ImmutableMap<String, String> getRedirects() {
+        return redirects;
+    }
+
+    /**
+     * Returns the final target of the redirect chain from {@code page}, or {@code page} itself if it is not redirected.  The chains are compiled
+     * when the snapshot is created, so this is a single lookup
+     */
+    public String redirectPageFor(String page) {
+        return redirectTable.targetFor(page);
+    }
+
+    public RedirectTable getRedirectTable() {
+        return redirectTable;
+    }
+}
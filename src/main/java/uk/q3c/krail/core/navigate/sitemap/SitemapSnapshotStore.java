@@ -0,0 +1,46 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate.sitemap;
+
+/**
+ * Persists a locked {@link MasterSitemap} between application starts, so that {@link SitemapService} can restore it rather than loading it from
+ * its sources, as long as those sources have not changed.  Changes are detected by comparing fingerprints of the sources - see {@link
+ * SitemapLoader#fingerprint()}
+ */
+public interface SitemapSnapshotStore {
+
+    /**
+     * Returns true if snapshots should be used at all
+     *
+     * @return true if snapshots should be used at all
+     */
+    boolean isEnabled();
+
+    /**
+     * Restores the stored snapshot into {@code sitemap}, if there is one with a matching {@code fingerprint}.
+     *
+     * @param sitemap     an empty sitemap to restore into
+     * @param fingerprint the fingerprint of the current sitemap sources
+     *
+     * @return true if {@code sitemap} has been restored, false if there is no usable snapshot, in which case {@code sitemap} is still empty
+     */
+    boolean restore(MasterSitemap sitemap, String fingerprint);
+
+    /**
+     * Stores {@code sitemap}, replacing any previous snapshot.  Failure to store is logged, but otherwise ignored
+     *
+     * @param sitemap     the locked sitemap to store
+     * @param fingerprint the fingerprint of the sources {@code sitemap} was loaded from
+     */
+    void store(MasterSitemap sitemap, String fingerprint);
+}
@@ -13,6 +13,12 @@
 
 package uk.q3c.krail.core.navigate.sitemap;
 
+import uk.q3c.krail.core.navigate.sitemap.comparator.DefaultUserSitemapSorters.SortType;
+import uk.q3c.util.forest.NodeFilter;
+
+import java.util.Comparator;
+import java.util.List;
+
 /**
  * A user specific view of the {@link MasterSitemap}
  * <p>
@@ -27,4 +33,59 @@ public interface UserSitemap extends Sitemap<UserSitemapNode> {
 
 
     boolean hasNoVisibleChildren(UserSitemapNode sourceNode);
+
+    /**
+     * Returns the content of this sitemap in a form which can be given to other sessions with the same {@link UserSitemapProfile}.  The sitemap must
+     * be loaded.  The content is handed over rather than copied, so from then on this sitemap treats it as shared, exactly as if it had been
+     * adopted.
+     */
+    SharedUserSitemap share();
+
+    /**
+     * Replaces the content of this sitemap with {@code sharedSitemap}, which is then used without copying.  If the sitemap is subsequently changed, it
+     * takes a private copy first.
+     */
+    void adopt(SharedUserSitemap sharedSitemap);
+
+    /**
+     * As {@link #adopt(SharedUserSitemap)}, but publishes {@code change} instead of a full rebuild message
+     */
+    void adopt(SharedUserSitemap sharedSitemap, UserSitemapStructureChangeMessage change);
+
+    /**
+     * Called when the content has been changed in place.  Freezes the new content, and publishes {@code change} to the navigation components.
+     */
+    void structureChanged(UserSitemapStructureChangeMessage change);
+
+    /**
+     * @return true if the content of this sitemap is currently shared with other sessions
+     */
+    boolean isShared();
+
+    /**
+     * Returns the same chain of nodes as {@link #nodeChainFor(SitemapNode)}, but held until the structure of this sitemap next changes, so that
+     * repeated calls for the same node (as from a breadcrumb) do not build it again.  The list is immutable
+     *
+     * @param node the node to find the chain for
+     *
+     * @return the chain of nodes from the root to {@code node}, inclusive
+     */
+    List<UserSitemapNode> cachedNodeChainFor(UserSitemapNode node);
+
+    /**
+     * Returns the children of {@code parent} which are accepted by all of {@code filters}, sorted by {@code comparator}.  The list is held until
+     * the structure or labels of this sitemap next change, keyed by {@code parent}, {@code sortType}, {@code ascending} and {@code filters} - which
+     * must therefore identify {@code comparator}.  Filters are compared by equals, so the same filter instances should be passed each time.  The
+     * list is immutable
+     *
+     * @param parent     the node whose children are needed
+     * @param sortType   the sort type {@code comparator} represents
+     * @param ascending  the sort direction {@code comparator} represents
+     * @param comparator the comparator used to sort the children, if they are not already held
+     * @param filters    the filters a child must pass to be included
+     *
+     * @return the accepted children of {@code parent}, sorted
+     */
+    List<UserSitemapNode> sortedVisibleChildren(UserSitemapNode parent, SortType sortType, boolean ascending, Comparator<UserSitemapNode> comparator,
+                                                List<NodeFilter<UserSitemapNode>> filters);
 }
@@ -18,15 +18,24 @@ import net.engio.mbassy.listener.Listener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.q3c.krail.core.guice.vsscope.VaadinSessionScoped;
+import uk.q3c.krail.core.navigate.sitemap.set.VersionedSitemap;
 import uk.q3c.krail.core.shiro.SubjectProvider;
 import uk.q3c.krail.core.user.status.UserStatusBusMessage;
+import uk.q3c.krail.i18n.CurrentLocale;
+import uk.q3c.krail.i18n.LocaleChangeBusMessage;
 import uk.q3c.util.forest.SourceTreeWrapper_BasicForest;
 import uk.q3c.util.forest.TargetTreeWrapper_BasicForest;
 import uk.q3c.util.forest.TreeCopy;
 
 import javax.annotation.concurrent.ThreadSafe;
 import java.io.Serializable;
+import java.util.*;
 
+/**
+ * Builds the {@link UserSitemap} for the current session by copying those parts of the {@link MasterSitemap} which the user is permitted to see.
+ * Before copying, the user's {@link UserSitemapProfile} is checked against the {@link UserSitemapCache}, and if another session has already built a
+ * sitemap for the same profile, that content is adopted instead of being copied again.
+ */
 @VaadinSessionScoped
 @Listener
 @ThreadSafe
@@ -34,23 +43,24 @@ public class UserSitemapBuilder implements Serializable {
     private static Logger log = LoggerFactory.getLogger(UserSitemapBuilder.class);
     private final UserSitemap userSitemap;
     private final UserSitemapCopyExtension copyExtension;
+    private final UserSitemapCache userSitemapCache;
+    private final CurrentLocale currentLocale;
     private UserSitemapNodeModifier nodeModifier;
     private SubjectProvider subjectProvider;
-    private TargetTreeWrapper_BasicForest<MasterSitemapNode, UserSitemapNode> target;
     private MasterSitemap masterSitemap;
+    private long masterSitemapVersion;
+    private UserSitemapProfile profile;
 
     @Inject
     protected UserSitemapBuilder(UserSitemap userSitemap, UserSitemapNodeModifier nodeModifier, UserSitemapCopyExtension
-            copyExtension, SubjectProvider subjectProvider) {
+            copyExtension, SubjectProvider subjectProvider, UserSitemapCache userSitemapCache, CurrentLocale currentLocale) {
 
         this.userSitemap = userSitemap;
         this.nodeModifier = nodeModifier;
         this.copyExtension = copyExtension;
         this.subjectProvider = subjectProvider;
-        this.target = new TargetTreeWrapper_BasicForest<>(userSitemap.getForest());
-        target.setNodeModifier(nodeModifier);
-
-
+        this.userSitemapCache = userSitemapCache;
+        this.currentLocale = currentLocale;
     }
 
     public UserSitemap getUserSitemap() {
@@ -58,28 +68,213 @@ public class UserSitemapBuilder implements Serializable {
     }
 
 
+    /**
+     * If the {@link UserSitemap} is already loaded, it is updated with only those pages gained or lost by the change of user status, and the
+     * navigation components are told which nodes have changed
+     */
     @Handler
     public synchronized void userStatusChanged(UserStatusBusMessage busMessage) {
         log.debug("UserStatusBusMessage received");
-        log.debug("user status is now authenticated = '{}', rebuild the userSitemap", busMessage.isAuthenticated());
-        userSitemap.clear();
-        build();
+        log.debug("user status is now authenticated = '{}', update the userSitemap", busMessage.isAuthenticated());
+        if (profile == null || !userSitemap.isLoaded()) {
+            userSitemap.clear();
+            build();
+        } else {
+            update();
+        }
+
+    }
 
+    /**
+     * A {@link UserSitemap} which holds its own content relabels itself on a locale change, but shared content must not be modified, so is replaced
+     * by content for the new locale
+     */
+    @Handler
+    public synchronized void localeChanged(LocaleChangeBusMessage busMessage) {
+        if (userSitemap.isShared()) {
+            log.debug("locale changed to {}, replacing shared userSitemap", busMessage.getNewLocale());
+            userSitemap.clear();
+            build();
+        }
     }
 
     public synchronized void build() {
         log.debug("building or rebuilding the map, user status is {}", subjectProvider.get()
                                                                                       .isAuthenticated());
+        if (userSitemap.isLoaded()) {
+            return;
+        }
+
+        UserSitemapProfile profile = profile();
+        SharedUserSitemap sharedSitemap = userSitemapCache.get(profile);
+        if (sharedSitemap != null) {
+            log.debug("using shared userSitemap for {}", profile);
+            userSitemap.adopt(sharedSitemap);
+            this.profile = profile;
+            return;
+        }
 
         copyExtension.setMasterSitemap(masterSitemap);
         SourceTreeWrapper_BasicForest<MasterSitemapNode> source = new SourceTreeWrapper_BasicForest<>(masterSitemap.getForest());
+        // the forest is replaced by UserSitemap.clear() when shared, so the target must be created for each build
+        TargetTreeWrapper_BasicForest<MasterSitemapNode, UserSitemapNode> target = new TargetTreeWrapper_BasicForest<>(userSitemap.getForest());
+        target.setNodeModifier(nodeModifier);
         TreeCopy<MasterSitemapNode, UserSitemapNode> treeCopy = new TreeCopy<>(source, target);
         treeCopy.setExtension(copyExtension);
+        treeCopy.copy();
+        userSitemap.setLoaded(true);
+        this.profile = profile;
+        userSitemapCache.putIfAbsent(profile, userSitemap.share());
+    }
+
+    /**
+     * Updates a loaded {@link UserSitemap} to match the current user.  If another session has the same {@link UserSitemapProfile} its content is
+     * adopted, otherwise nodes are removed and created only where page access has changed, and the uri map and standard pages are patched for those
+     * nodes alone.  Either way, a {@link UserSitemapStructureChangeMessage} listing the changed nodes is published.
+     * <p>
+     * This is not delta-sized: the cost of an update is O(N) in the number of pages, whatever the number of nodes which change.  Page access is checked
+     * for every page to identify the profile, content which is shared (as it is after every build) is copied before it is changed, and the result is
+     * frozen again (see {@link UserSitemap#structureChanged}) and handed to the {@link UserSitemapCache}.  What is saved is the rebuild of every node
+     * from the {@link MasterSitemap}, and the replacement of unchanged nodes in the navigation components
+     */
+    protected void update() {
+        UserSitemapProfile newProfile = profile();
+        if (newProfile.equals(profile)) {
+            log.debug("page access has not changed, userSitemap not updated");
+            return;
+        }
+        SharedUserSitemap sharedSitemap = userSitemapCache.get(newProfile);
+        if (sharedSitemap != null) {
+            log.debug("using shared userSitemap for {}", newProfile);
+            userSitemap.adopt(sharedSitemap, changeTo(sharedSitemap.getSnapshot()));
+            profile = newProfile;
+            return;
+        }
+
+        BitSet authorised = newProfile.getAuthorisedNodes();
+        Set<UserSitemapNode> removed = new LinkedHashSet<>();
+        Set<UserSitemapNode> changedParents = new HashSet<>();
+        boolean rootsChanged = false;
+        for (UserSitemapNode userNode : userSitemap.getAllNodes()) {
+            if (!authorised.get(userNode.getId()) && !removed.contains(userNode)) {
+                UserSitemapNode parent = userSitemap.getParent(userNode);
+                if (parent == null) {
+                    rootsChanged = true;
+                } else {
+                    changedParents.add(parent);
+                }
+                collectSubtree(userNode, removed);
+            }
+        }
+        List<UserSitemapNode> removalOrder = new ArrayList<>(removed);
+        Collections.reverse(removalOrder);
+        for (UserSitemapNode userNode : removalOrder) {
+            userSitemap.removeNode(userNode);
+        }
+
+        List<UserSitemapNode> added = new ArrayList<>();
+        for (MasterSitemapNode masterRoot : masterSitemap.getRoots()) {
+            rootsChanged = addGained(null, masterRoot, authorised, added, changedParents) || rootsChanged;
+        }
+        changedParents.removeAll(removed);
+
+        copyExtension.setMasterSitemap(masterSitemap);
+        copyExtension.nodesChanged(added, removed);
+        log.debug("userSitemap updated, {} nodes added, {} removed", added.size(), removed.size());
+        userSitemap.structureChanged(new UserSitemapStructureChangeMessage(added, removed, changedParents, rootsChanged));
+        profile = newProfile;
+        userSitemapCache.putIfAbsent(newProfile, userSitemap.share());
+    }
+
+    private void collectSubtree(UserSitemapNode userNode, Set<UserSitemapNode> subtree) {
+        subtree.add(userNode);
+        for (UserSitemapNode child : userSitemap.getChildren(userNode)) {
+            collectSubtree(child, subtree);
+        }
+    }
 
-        if (!userSitemap.isLoaded()) {
-            treeCopy.copy();
-            userSitemap.setLoaded(true);
+    /**
+     * Walks the authorised part of the {@link MasterSitemap} below {@code masterNode}, adding a node for each page which is authorised but not yet in
+     * the {@link UserSitemap}.  As with the full copy, nothing is added below a page which is not authorised.  Existing nodes are found with {@link
+     * UserSitemap#userNodeFor}, which is a lookup by id.
+     *
+     * @return true if {@code masterNode} was added as a root
+     */
+    private boolean addGained(UserSitemapNode parentUserNode, MasterSitemapNode masterNode, BitSet authorised, List<UserSitemapNode> added,
+                              Set<UserSitemapNode> changedParents) {
+        if (!authorised.get(masterNode.getId())) {
+            return false;
+        }
+        boolean addedRoot = false;
+        UserSitemapNode userNode = userSitemap.userNodeFor(masterNode);
+        if (userNode == null) {
+            userNode = nodeModifier.create(parentUserNode, masterNode);
+            if (userNode == null) {
+                return false;
+            }
+            userSitemap.addChild(parentUserNode, userNode);
+            added.add(userNode);
+            if (parentUserNode == null) {
+                addedRoot = true;
+            } else if (!added.contains(parentUserNode)) {
+                changedParents.add(parentUserNode);
+            }
+        }
+        for (MasterSitemapNode masterChild : masterSitemap.getChildren(masterNode)) {
+            addGained(userNode, masterChild, authorised, added, changedParents);
         }
+        return addedRoot;
+    }
+
+    /**
+     * Identifies the differences between the current {@link UserSitemap} and {@code target}
+     */
+    private UserSitemapStructureChangeMessage changeTo(SitemapSnapshot<UserSitemapNode> target) {
+        List<UserSitemapNode> added = new ArrayList<>();
+        List<UserSitemapNode> removed = new ArrayList<>();
+        Set<UserSitemapNode> changedParents = new HashSet<>();
+        boolean rootsChanged = false;
+        for (UserSitemapNode userNode : userSitemap.getAllNodes()) {
+            if (!target.containsNode(userNode)) {
+                removed.add(userNode);
+                UserSitemapNode parent = userSitemap.getParent(userNode);
+                if (parent == null) {
+                    rootsChanged = true;
+                } else if (target.containsNode(parent)) {
+                    changedParents.add(parent);
+                }
+            }
+        }
+        for (UserSitemapNode userNode : target.getAllNodes()) {
+            if (!userSitemap.containsNode(userNode)) {
+                added.add(userNode);
+                UserSitemapNode parent = target.getParent(userNode);
+                if (parent == null) {
+                    rootsChanged = true;
+                } else if (userSitemap.containsNode(parent)) {
+                    changedParents.add(parent);
+                }
+            }
+        }
+        return new UserSitemapStructureChangeMessage(added, removed, changedParents, rootsChanged);
+    }
+
+    /**
+     * Identifies the content the current user should see - the nodes accepted by the {@link UserSitemapNodeModifier}, together with the locale and
+     * authentication status
+     */
+    protected UserSitemapProfile profile() {
+        BitSet authorisedNodes = new BitSet();
+        // a locked master sitemap provides its nodes without copying them
+        CompactForest<MasterSitemapNode> structure = masterSitemap.getCompactForest();
+        List<MasterSitemapNode> masterNodes = (structure == null) ? masterSitemap.getAllNodes() : structure.nodes();
+        for (MasterSitemapNode masterNode : masterNodes) {
+            if (nodeModifier.accepts(masterNode)) {
+                authorisedNodes.set(masterNode.getId());
+            }
+        }
+        return new UserSitemapProfile(masterSitemap, currentLocale.getLocale(), subjectProvider.get()
+                                                                                               .isAuthenticated(), authorisedNodes);
     }
 
 
@@ -87,4 +282,35 @@ public class UserSitemapBuilder implements Serializable {
         this.masterSitemap = masterSitemap;
         nodeModifier.setMasterSitemap(masterSitemap);
     }
+
+    /**
+     * As {@link #setMasterSitemap(MasterSitemap)}, but also records the version of {@code current}, so that {@link #masterSitemapChanged} can tell
+     * whether the {@link UserSitemap} is already built from it
+     */
+    public synchronized void setMasterSitemap(VersionedSitemap<MasterSitemap> current) {
+        setMasterSitemap(current.getModel());
+        masterSitemapVersion = current.getVersion();
+    }
+
+    /**
+     * Moves to {@code current}, which has been published in place of the master sitemap currently in use, and rebuilds the {@link UserSitemap} from
+     * it (or adopts shared content already built from it by another session).  The {@link UserSitemap} publishes a full rebuild message to the
+     * navigation components.
+     * <p>
+     * Every UI in the session calls this when it notices the new version, but only the first call rebuilds - the others find the version is already
+     * current, and do nothing
+     *
+     * @param current the newly published master sitemap, with its version
+     */
+    public synchronized void masterSitemapChanged(VersionedSitemap<MasterSitemap> current) {
+        if (current.getVersion() <= masterSitemapVersion) {
+            log.debug("userSitemap already built from MasterSitemap version {}", masterSitemapVersion);
+            return;
+        }
+        log.debug("MasterSitemap changed to version {}, rebuilding the userSitemap", current.getVersion());
+        setMasterSitemap(current);
+        userSitemap.clear();
+        profile = null;
+        build();
+    }
 }
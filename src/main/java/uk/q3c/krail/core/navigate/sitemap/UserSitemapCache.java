@@ -0,0 +1,39 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate.sitemap;
+
+/**
+ * Holds {@link SharedUserSitemap} instances keyed by {@link UserSitemapProfile}, so that sessions with identical page access and locale can use the
+ * same {@link UserSitemap} content instead of each copying the {@link MasterSitemap}
+ */
+public interface UserSitemapCache {
+
+    /**
+     * @return the shared content for {@code profile}, or null if there is none
+     */
+    SharedUserSitemap get(UserSitemapProfile profile);
+
+    /**
+     * Adds {@code sharedSitemap} for {@code profile} unless there is already an entry for it
+     *
+     * @return the entry now held for {@code profile} - which is the existing entry if there was one
+     */
+    SharedUserSitemap putIfAbsent(UserSitemapProfile profile, SharedUserSitemap sharedSitemap);
+
+    /**
+     * Removes all entries
+     */
+    void clear();
+
+    int size();
+}
@@ -13,18 +13,19 @@
 package uk.q3c.krail.core.navigate.sitemap;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
 import com.google.inject.Inject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.q3c.krail.core.navigate.LoginNavigationRule;
 import uk.q3c.krail.i18n.CurrentLocale;
-import uk.q3c.krail.i18n.Translate;
 import uk.q3c.util.forest.SourceTreeWrapper;
 import uk.q3c.util.forest.TargetTreeWrapper;
 import uk.q3c.util.forest.TreeCopy;
 import uk.q3c.util.forest.TreeCopyExtension;
 
-import java.text.Collator;
+import java.util.Collection;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -40,11 +41,11 @@ public class UserSitemapCopyExtension implements TreeCopyExtension<MasterSitemap
     private final UserSitemap userSitemap;
     private MasterSitemap masterSitemap;
     private CurrentLocale currentLocale;
-    private Translate translate;
+    private NodeLabelCache nodeLabelCache;
     @Inject
-    protected UserSitemapCopyExtension(UserSitemap userSitemap, Translate translate, CurrentLocale currentLocale) {
+    protected UserSitemapCopyExtension(UserSitemap userSitemap, NodeLabelCache nodeLabelCache, CurrentLocale currentLocale) {
         this.userSitemap = userSitemap;
-        this.translate = translate;
+        this.nodeLabelCache = nodeLabelCache;
         this.currentLocale = currentLocale;
     }
 
@@ -56,10 +57,38 @@ public class UserSitemapCopyExtension implements TreeCopyExtension<MasterSitemap
     public void invoke(SourceTreeWrapper<MasterSitemapNode> source, TargetTreeWrapper<MasterSitemapNode, UserSitemapNode> target, Map<MasterSitemapNode,
             UserSitemapNode> nodeMap) {
         log.debug("invoked");
+        refresh();
+
+    }
+
+    /**
+     * Rebuilds the uri map, standard pages and redirects of the {@link UserSitemap} to match its current structure.  Used after the full copy
+     */
+    public void refresh() {
         userSitemap.buildUriMap();
         copyStandardPages();
         loadRedirects();
+    }
 
+    /**
+     * Brings the standard pages and redirects of the {@link UserSitemap} up to date after an incremental change made by {@link UserSitemapBuilder}.
+     * The uri map is maintained by the {@link UserSitemap} as nodes are added and removed, so only the standard pages among {@code added} and {@code
+     * removed} are copied again (adding or removing a node replaces or drops its standard page entry)
+     *
+     * @param added   the nodes added to the {@link UserSitemap}
+     * @param removed the nodes removed from the {@link UserSitemap}
+     */
+    public void nodesChanged(Collection<UserSitemapNode> added, Collection<UserSitemapNode> removed) {
+        Locale locale = currentLocale.getLocale();
+        for (UserSitemapNode userNode : Iterables.concat(added, removed)) {
+            if (userNode.getLabelKey() instanceof StandardPageKey) {
+                MasterSitemapNode masterNode = masterSitemap.standardPageNode((StandardPageKey) userNode.getLabelKey());
+                if (masterNode != null) {
+                    copyStandardPage(masterNode, locale);
+                }
+            }
+        }
+        loadRedirects();
     }
 
     /**
@@ -70,29 +99,37 @@ public class UserSitemapCopyExtension implements TreeCopyExtension<MasterSitemap
     private void copyStandardPages() {
         log.debug("copying standard pages");
         ImmutableMap<StandardPageKey, MasterSitemapNode> sourcePages = masterSitemap.getStandardPages();
-        Collator collator = Collator.getInstance(currentLocale.getLocale());
+        Locale locale = currentLocale.getLocale();
 
         for (StandardPageKey spk : sourcePages.keySet()) {
-            MasterSitemapNode masterNode = sourcePages.get(spk);
-            UserSitemapNode userNode = new UserSitemapNode(masterNode);
-            userNode.setLabel(translate.from(masterNode.getLabelKey()));
-            userNode.setCollationKey(collator.getCollationKey(userNode.getLabel()));
-            userSitemap.addStandardPage(userNode, masterSitemap.uri(masterNode));
+            copyStandardPage(sourcePages.get(spk), locale);
         }
 
     }
 
+    private void copyStandardPage(MasterSitemapNode masterNode, Locale locale) {
+        UserSitemapNode userNode = new UserSitemapNode(masterNode);
+        if (masterNode.getLabelKey() != null) {
+            userNode.applyLabel(nodeLabelCache.labelFor(masterNode, locale));
+        }
+        userSitemap.addStandardPage(userNode, masterSitemap.uri(masterNode));
+    }
+
     /**
      * Copies the redirects from the {@link MasterSitemap},. but only adds it to this {@link UserSitemap} if the target
-     * exists in this sitemap.
+     * exists in this sitemap.  A redirect whose target no longer exists is removed.  Each redirect is copied already resolved to its final target
+     * in the {@link MasterSitemap}, so a chain is not broken by an intermediate page which is not in this sitemap
      */
     private void loadRedirects() {
         log.debug("loading redirects");
         for (Entry<String, String> entry : masterSitemap.getRedirects()
                                                         .entrySet()) {
             // only add the entry if the target exists
-            if (userSitemap.hasUri(entry.getValue())) {
-                userSitemap.addRedirect(entry.getKey(), entry.getValue());
+            String target = masterSitemap.getRedirectPageFor(entry.getKey());
+            if (userSitemap.hasUri(target)) {
+                userSitemap.addRedirect(entry.getKey(), target);
+            } else {
+                userSitemap.removeRedirect(entry.getKey());
             }
         }
     }
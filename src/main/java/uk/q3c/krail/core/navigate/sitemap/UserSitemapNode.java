@@ -47,6 +47,17 @@ public class UserSitemapNode implements SitemapNode, Comparable<UserSitemapNode>
         this.positionIndex = masterNode.getPositionIndex();
     }
 
+    /**
+     * Creates a copy of {@code other}, referring to the same master node
+     */
+    public UserSitemapNode(UserSitemapNode other) {
+        super();
+        this.masterNode = other.masterNode;
+        this.label = other.label;
+        this.collationKey = other.collationKey;
+        this.positionIndex = other.positionIndex;
+    }
+
     /**
      * Updates the {@link #label} and {@link #collationKey} for the {@code locale}
      */
@@ -56,6 +67,14 @@ public class UserSitemapNode implements SitemapNode, Comparable<UserSitemapNode>
         collationKey = collator.getCollationKey(label);
     }
 
+    /**
+     * Takes the label and collation key from {@code nodeLabel}, usually obtained from a {@link NodeLabelCache}
+     */
+    public void applyLabel(NodeLabel nodeLabel) {
+        label = nodeLabel.getLabel();
+        collationKey = nodeLabel.getCollationKey();
+    }
+
     public MasterSitemapNode getMasterNode() {
         return masterNode;
     }
@@ -19,10 +19,8 @@ import uk.q3c.krail.core.guice.vsscope.VaadinSessionScoped;
 import uk.q3c.krail.core.shiro.PageAccessController;
 import uk.q3c.krail.core.shiro.SubjectProvider;
 import uk.q3c.krail.i18n.CurrentLocale;
-import uk.q3c.krail.i18n.Translate;
 import uk.q3c.util.forest.NodeModifier;
 
-import java.text.Collator;
 import java.util.Comparator;
 
 import static com.google.common.base.Preconditions.*;
@@ -32,19 +30,19 @@ public class UserSitemapNodeModifier implements NodeModifier<MasterSitemapNode,
 
     private final SubjectProvider subjectProvider;
     private final PageAccessController pageAccessController;
-    private final Collator collator;
-    private final Translate translate;
+    private final CurrentLocale currentLocale;
+    private final NodeLabelCache nodeLabelCache;
     private MasterSitemap masterSitemap;
 
     @Inject
     public UserSitemapNodeModifier(SubjectProvider subjectProvider, CurrentLocale currentLocale,
                                    PageAccessController pageAccessController,
-                                   Translate translate) {
+                                   NodeLabelCache nodeLabelCache) {
         super();
         this.subjectProvider = subjectProvider;
         this.pageAccessController = pageAccessController;
-        this.collator = Collator.getInstance(currentLocale.getLocale());
-        this.translate = translate;
+        this.currentLocale = currentLocale;
+        this.nodeLabelCache = nodeLabelCache;
     }
 
     /**
@@ -55,7 +53,7 @@ public class UserSitemapNodeModifier implements NodeModifier<MasterSitemapNode,
      * Nodes which have a null label key are ignored, as they cannot be displayed. The logout page is never loaded. The
      * login page is only shown if the user is not authenticated.<br>
      * <br>
-     * The label and collation key for the node are created using {@link CurrentLocale}, which may be different for
+     * The label and collation key for the node are taken from the {@link NodeLabelCache} for the {@link CurrentLocale}, which may be different for
      * different users; so both this class and CurrentLocale are {@link VaadinSessionScoped}
      *
      * {@link #setMasterSitemap} must be called first
@@ -68,9 +66,27 @@ public class UserSitemapNodeModifier implements NodeModifier<MasterSitemapNode,
     public UserSitemapNode create(UserSitemapNode parentUserNode, MasterSitemapNode masterNode) {
         checkNotNull(masterNode);
         log.debug("creating a node for master node {}", masterNode);
+        if (accepts(masterNode)) {
+            UserSitemapNode userNode = new UserSitemapNode(masterNode);
+            userNode.applyLabel(nodeLabelCache.labelFor(masterNode, currentLocale.getLocale()));
+            return userNode;
+        }
+        return null;
+    }
+
+    /**
+     * Applies the rules described in {@link #create}, without creating a node.  Used by {@link UserSitemapBuilder} to identify a user's {@link
+     * UserSitemapProfile}
+     *
+     * @param masterNode the node to check
+     *
+     * @return true if a node would be created for {@code masterNode}
+     */
+    public boolean accepts(MasterSitemapNode masterNode) {
+        checkNotNull(masterNode);
         // if there is no labelKey (usually when page is redirected), cannot be shown
         if (masterNode.getLabelKey() == null) {
-            return null;
+            return false;
         }
 
         // if the subject is already authenticated, don't show the login page
@@ -78,18 +94,15 @@ public class UserSitemapNodeModifier implements NodeModifier<MasterSitemapNode,
                            .isAuthenticated()) {
             if (masterNode.equals(masterSitemap.standardPageNode(StandardPageKey.Log_In))) {
                 log.debug("User has already authenticated, do not show the login node");
-                return null;
+                return false;
             }
         }
         if (pageAccessController.isAuthorised(subjectProvider.get(), masterSitemap, masterNode)) {
-            log.debug("User is authorised for page {}, creating a node for it", masterSitemap.uri(masterNode));
-            UserSitemapNode userNode = new UserSitemapNode(masterNode);
-            userNode.setLabel(translate.from(masterNode.getLabelKey()));
-            userNode.setCollationKey(collator.getCollationKey(userNode.getLabel()));
-            return userNode;
+            log.debug("User is authorised for page {}", masterSitemap.uri(masterNode));
+            return true;
         } else {
-            log.debug("User is NOT authorised for page {}, returning null", masterSitemap.uri(masterNode));
-            return null;
+            log.debug("User is NOT authorised for page {}", masterSitemap.uri(masterNode));
+            return false;
         }
     }
 
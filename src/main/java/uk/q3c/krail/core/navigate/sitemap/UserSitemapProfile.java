@@ -0,0 +1,94 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate.sitemap;
+
+import javax.annotation.concurrent.Immutable;
+import java.io.Serializable;
+import java.util.BitSet;
+import java.util.Locale;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * Identifies everything which determines the content of a {@link UserSitemap}:  the {@link MasterSitemap} it is copied from, the locale used for
+ * labels and sort order, whether the user is authenticated, and the set of master node ids which the user is permitted to see.  Two users with equal
+ * profiles will always be given identical {@link UserSitemap} content, which is what allows {@link UserSitemapCache} to share it between them.
+ * <p>
+ * The {@link MasterSitemap} is compared by identity, so a new {@link MasterSitemap} always produces a new profile.
+ */
+@Immutable
+public class UserSitemapProfile implements Serializable {
+
+    private final MasterSitemap masterSitemap;
+    private final Locale locale;
+    private final boolean authenticated;
+    private final BitSet authorisedNodes;
+    private final int hash;
+
+    public UserSitemapProfile(MasterSitemap masterSitemap, Locale locale, boolean authenticated, BitSet authorisedNodes) {
+        checkNotNull(masterSitemap);
+        checkNotNull(locale);
+        checkNotNull(authorisedNodes);
+        this.masterSitemap = masterSitemap;
+        this.locale = locale;
+        this.authenticated = authenticated;
+        this.authorisedNodes = (BitSet) authorisedNodes.clone();
+        int result = System.identityHashCode(masterSitemap);
+        result = 31 * result + locale.hashCode();
+        result = 31 * result + (authenticated ? 1 : 0);
+        result = 31 * result + this.authorisedNodes.hashCode();
+        this.hash = result;
+    }
+
+    public MasterSitemap getMasterSitemap() {
+        return masterSitemap;
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    public boolean isAuthenticated() {
+        return authenticated;
+    }
+
+    /**
+     * @return a copy of the ids of the master nodes the user is permitted to see
+     */
+    public BitSet getAuthorisedNodes() {
+        return (BitSet) authorisedNodes.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof UserSitemapProfile)) {
+            return false;
+        }
+        UserSitemapProfile that = (UserSitemapProfile) o;
+        return masterSitemap == that.masterSitemap && authenticated == that.authenticated && locale.equals(that.locale) && authorisedNodes.equals(that
+                .authorisedNodes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "UserSitemapProfile{locale=" + locale + ", authenticated=" + authenticated + ", authorisedNodes=" + authorisedNodes + '}';
+    }
+}
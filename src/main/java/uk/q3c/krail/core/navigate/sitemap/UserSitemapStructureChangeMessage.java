@@ -11,15 +11,99 @@
 
 package uk.q3c.krail.core.navigate.sitemap;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import uk.q3c.krail.eventbus.BusMessage;
 
+import java.util.Collection;
+
+import static com.google.common.base.Preconditions.*;
+
 /**
  * /**
  * Published when a page is added / removed, or its position has changed. This will happen as a result of permission
  * changes, logging in /out or potentially the dynamic addition / removal of pages (see
  * https://github.com/davidsowerby/krail/issues/254).
  * <p>
+ * When the change is known in detail (for example, after a login / logout which only adds or removes a few pages) the message lists the nodes added
+ * and removed, together with the nodes whose children changed, so that navigation components can update themselves rather than rebuild.  A
+ * message created with the default constructor is a full rebuild, and everything should be assumed to have changed.
+ * <p>
  * Created by David Sowerby on 13/03/15.
  */
 public class UserSitemapStructureChangeMessage implements BusMessage {
+
+    private final boolean fullRebuild;
+    private final ImmutableList<UserSitemapNode> addedNodes;
+    private final ImmutableList<UserSitemapNode> removedNodes;
+    private final ImmutableSet<UserSitemapNode> changedParents;
+    private final boolean rootsChanged;
+
+    /**
+     * A full rebuild
+     */
+    public UserSitemapStructureChangeMessage() {
+        fullRebuild = true;
+        addedNodes = ImmutableList.of();
+        removedNodes = ImmutableList.of();
+        changedParents = ImmutableSet.of();
+        rootsChanged = true;
+    }
+
+    /**
+     * An incremental change
+     *
+     * @param addedNodes     nodes added, parents always before their children
+     * @param removedNodes   nodes removed, including the descendants of any removed node
+     * @param changedParents nodes which have had children added or removed, excluding any which have themselves been removed
+     * @param rootsChanged   true if any root nodes have been added or removed
+     */
+    public UserSitemapStructureChangeMessage(Collection<UserSitemapNode> addedNodes, Collection<UserSitemapNode> removedNodes, Collection<UserSitemapNode>
+            changedParents, boolean rootsChanged) {
+        checkNotNull(addedNodes);
+        checkNotNull(removedNodes);
+        checkNotNull(changedParents);
+        this.fullRebuild = false;
+        this.addedNodes = ImmutableList.copyOf(addedNodes);
+        this.removedNodes = ImmutableList.copyOf(removedNodes);
+        this.changedParents = ImmutableSet.copyOf(changedParents);
+        this.rootsChanged = rootsChanged;
+    }
+
+    public boolean isFullRebuild() {
+        return fullRebuild;
+    }
+
+    public ImmutableList<UserSitemapNode> getAddedNodes() {
+        return addedNodes;
+    }
+
+    public ImmutableList<UserSitemapNode> getRemovedNodes() {
+        return removedNodes;
+    }
+
+    public ImmutableSet<UserSitemapNode> getChangedParents() {
+        return changedParents;
+    }
+
+    public boolean isRootsChanged() {
+        return rootsChanged;
+    }
+
+    /**
+     * @return true if this is a full rebuild, or {@code node} has been removed or has had children added or removed
+     */
+    public boolean affects(UserSitemapNode node) {
+        if (fullRebuild) {
+            return true;
+        }
+        if (node == null) {
+            return rootsChanged;
+        }
+        return changedParents.contains(node) || removedNodes.contains(node);
+    }
+
+    public boolean isEmpty() {
+        return !fullRebuild && addedNodes.isEmpty() && removedNodes.isEmpty();
+    }
 }
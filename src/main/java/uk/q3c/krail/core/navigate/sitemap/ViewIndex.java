@@ -0,0 +1,299 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate.sitemap;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.q3c.krail.core.shiro.PageAccessControl;
+
+import javax.annotation.concurrent.Immutable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * An index of the classes carrying {@link View} and / or {@link RedirectFrom} annotations, generated at compile time by {@link ViewIndexProcessor} and
+ * read by {@link DefaultAnnotationSitemapLoader}, so that the classpath does not need to be scanned at startup.  Each jar (or classes directory)
+ * has its own index resource at {@link #RESOURCE} - {@link #load(ClassLoader)} merges all of them.
+ * <p>
+ * The index is line based, with tab separated fields:
+ * <pre>
+ * view      className  uri  labelKeyName  pageAccessControl  positionIndex  roles
+ * redirect  className  sourcePage  [sourcePage ...]
+ * </pre>
+ */
+@Immutable
+public class ViewIndex {
+
+    public static final String RESOURCE = "META-INF/krail/view.index";
+    static final String REDIRECT = "redirect";
+    static final char SEPARATOR = '\t';
+    static final String VIEW = "view";
+    private static final ViewIndex EMPTY = new ViewIndex(ImmutableList.of());
+    private static Logger log = LoggerFactory.getLogger(ViewIndex.class);
+    private final ImmutableList<Entry> entries;
+
+    private ViewIndex(ImmutableList<Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Reads and merges every index resource visible to {@code classLoader}.
+     *
+     * @param classLoader the class loader to look for index resources with
+     *
+     * @return the merged index, which is empty if there are no index resources
+     *
+     * @throws SitemapException if an index resource cannot be read, or is not valid
+     */
+    public static ViewIndex load(ClassLoader classLoader) {
+        checkNotNull(classLoader);
+        List<String> lines = new ArrayList<>();
+        try {
+            Enumeration<URL> resources = classLoader.getResources(RESOURCE);
+            while (resources.hasMoreElements()) {
+                URL url = resources.nextElement();
+                log.debug("reading View index from {}", url);
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        lines.add(line);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new SitemapException("Unable to read View index", e);
+        }
+        return parse(lines);
+    }
+
+    /**
+     * Builds an index from the lines of one or more index resources.  Blank lines are ignored
+     *
+     * @param lines the lines to parse
+     *
+     * @return the index
+     *
+     * @throws SitemapException if a line is not valid
+     */
+    public static ViewIndex parse(Iterable<String> lines) {
+        checkNotNull(lines);
+        Splitter splitter = Splitter.on(SEPARATOR);
+        Map<String, Entry.Builder> builders = new TreeMap<>();
+        for (String line : lines) {
+            if (line.trim()
+                    .isEmpty()) {
+                continue;
+            }
+            List<String> fields = splitter.splitToList(line);
+            if (fields.size() < 2) {
+                throw new SitemapException("Invalid View index entry: " + line);
+            }
+            Entry.Builder builder = builders.computeIfAbsent(fields.get(1), Entry.Builder::new);
+            switch (fields.get(0)) {
+                case VIEW:
+                    if (fields.size() != 7) {
+                        throw new SitemapException("Invalid View index entry: " + line);
+                    }
+                    try {
+                        builder.view(fields.get(2), fields.get(3), PageAccessControl.valueOf(fields.get(4)), Integer.parseInt(fields.get(5)), fields.get(6));
+                    } catch (IllegalArgumentException e) {
+                        throw new SitemapException("Invalid View index entry: " + line, e);
+                    }
+                    break;
+                case REDIRECT:
+                    builder.redirectFrom(fields.subList(2, fields.size()));
+                    break;
+                default:
+                    throw new SitemapException("Invalid View index entry: " + line);
+            }
+        }
+        if (builders.isEmpty()) {
+            return EMPTY;
+        }
+        ImmutableList.Builder<Entry> entries = ImmutableList.builder();
+        for (Entry.Builder builder : builders.values()) {
+            entries.add(builder.build());
+        }
+        return new ViewIndex(entries.build());
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Returns all entries, sorted by class name
+     *
+     * @return all entries, sorted by class name
+     */
+    public ImmutableList<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns the entries for classes whose name starts with {@code source} - the same selection as a scan of {@code source} would make
+     *
+     * @param source the package (or package prefix) to select
+     *
+     * @return the entries for {@code source}, sorted by class name
+     */
+    public ImmutableList<Entry> entriesFor(String source) {
+        checkNotNull(source);
+        ImmutableList.Builder<Entry> selected = ImmutableList.builder();
+        for (Entry entry : entries) {
+            if (entry.getClassName()
+                     .startsWith(source)) {
+                selected.add(entry);
+            }
+        }
+        return selected.build();
+    }
+
+    /**
+     * A {@link View} and / or {@link RedirectFrom} declaration for one class
+     */
+    @Immutable
+    public static class Entry {
+        private final String className;
+        private final String labelKeyName;
+        private final PageAccessControl pageAccessControl;
+        private final int positionIndex;
+        private final ImmutableList<String> redirectSources;
+        private final String roles;
+        private final String uri;
+
+        public Entry(String className, String uri, String labelKeyName, PageAccessControl pageAccessControl, int positionIndex, String roles,
+                     List<String> redirectSources) {
+            this.className = checkNotNull(className);
+            this.uri = uri;
+            this.labelKeyName = labelKeyName;
+            this.pageAccessControl = pageAccessControl;
+            this.positionIndex = positionIndex;
+            this.roles = roles;
+            this.redirectSources = ImmutableList.copyOf(redirectSources);
+        }
+
+        /**
+         * Creates an entry from the annotations on {@code clazz}
+         *
+         * @param clazz the class to read annotations from
+         *
+         * @return an entry for {@code clazz}
+         */
+        public static Entry of(Class<?> clazz) {
+            checkNotNull(clazz);
+            Builder builder = new Builder(clazz.getName());
+            View view = clazz.getAnnotation(View.class);
+            if (view != null) {
+                builder.view(view.uri(), view.labelKeyName(), view.pageAccessControl(), view.positionIndex(), view.roles());
+            }
+            RedirectFrom redirectFrom = clazz.getAnnotation(RedirectFrom.class);
+            if (redirectFrom != null) {
+                builder.redirectFrom(Arrays.asList(redirectFrom.sourcePages()));
+            }
+            return builder.build();
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public boolean hasView() {
+            return uri != null;
+        }
+
+        public boolean hasRedirectFrom() {
+            return !redirectSources.isEmpty();
+        }
+
+        public String getUri() {
+            return uri;
+        }
+
+        public String getLabelKeyName() {
+            return labelKeyName;
+        }
+
+        public PageAccessControl getPageAccessControl() {
+            return pageAccessControl;
+        }
+
+        public int getPositionIndex() {
+            return positionIndex;
+        }
+
+        public String getRoles() {
+            return roles;
+        }
+
+        public ImmutableList<String> getRedirectSources() {
+            return redirectSources;
+        }
+
+        /**
+         * Returns this entry in index format - one line for the {@link View}, and one for the {@link RedirectFrom}, if present
+         *
+         * @return this entry in index format
+         */
+        public List<String> toLines() {
+            Joiner joiner = Joiner.on(SEPARATOR);
+            List<String> lines = new ArrayList<>();
+            if (hasView()) {
+                lines.add(joiner.join(VIEW, className, uri, labelKeyName, pageAccessControl.name(), positionIndex, roles));
+            }
+            if (hasRedirectFrom()) {
+                lines.add(joiner.join(REDIRECT, className, joiner.join(redirectSources)));
+            }
+            return lines;
+        }
+
+        private static class Builder {
+            private final String className;
+            private final List<String> redirectSources = new ArrayList<>();
+            private String labelKeyName;
+            private PageAccessControl pageAccessControl;
+            private int positionIndex;
+            private String roles;
+            private String uri;
+
+            Builder(String className) {
+                this.className = className;
+            }
+
+            void view(String uri, String labelKeyName, PageAccessControl pageAccessControl, int positionIndex, String roles) {
+                this.uri = uri;
+                this.labelKeyName = labelKeyName;
+                this.pageAccessControl = pageAccessControl;
+                this.positionIndex = positionIndex;
+                this.roles = roles;
+            }
+
+            void redirectFrom(List<String> sourcePages) {
+                redirectSources.addAll(sourcePages);
+            }
+
+            Entry build() {
+                return new Entry(className, uri, labelKeyName, pageAccessControl, positionIndex, roles, redirectSources);
+            }
+        }
+    }
+}
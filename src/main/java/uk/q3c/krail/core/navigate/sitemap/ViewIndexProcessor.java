@@ -0,0 +1,181 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate.sitemap;
+
+import com.google.common.base.CharMatcher;
+import com.google.common.io.CharStreams;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Generates a {@link ViewIndex} resource from the {@link View} and {@link RedirectFrom} annotations in the classes being compiled, so that {@link
+ * DefaultAnnotationSitemapLoader} does not need to scan the classpath at startup.  Registered as a service, so it is picked up by javac from the
+ * compile classpath without further configuration.
+ * <p>
+ * All types are indexed, whether or not they implement {@link uk.q3c.krail.core.view.KrailView} - that check is made by the loader, exactly as it is
+ * when scanning, so that the index and a scan produce the same result.
+ * <p>
+ * An incremental compile (as made by an IDE) only presents the classes being recompiled, so the index written by the previous compile is merged with
+ * them - see {@link #mergePreviousIndex()}.  Without that, the index would hold only the recompiled classes, and the loader would not scan for the
+ * others.
+ */
+// all types, so that the processor also runs for an incremental compile which has removed the last annotation
+@SupportedAnnotationTypes("*")
+public class ViewIndexProcessor extends AbstractProcessor {
+
+    private final Map<String, ViewIndex.Entry> entries = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+        collect(roundEnv.getElementsAnnotatedWith(View.class));
+        collect(roundEnv.getElementsAnnotatedWith(RedirectFrom.class));
+        return false;
+    }
+
+    private void collect(Set<? extends Element> elements) {
+        for (Element element : elements) {
+            if (element instanceof TypeElement) {
+                collect((TypeElement) element);
+            }
+        }
+    }
+
+    private void collect(TypeElement type) {
+        String className = processingEnv.getElementUtils()
+                                        .getBinaryName(type)
+                                        .toString();
+        if (entries.containsKey(className)) {
+            return;
+        }
+        View view = type.getAnnotation(View.class);
+        RedirectFrom redirectFrom = type.getAnnotation(RedirectFrom.class);
+        if (view == null && redirectFrom == null) {
+            return;
+        }
+        List<String> redirectSources = (redirectFrom == null) ? Collections.emptyList() : Arrays.asList(redirectFrom.sourcePages());
+        ViewIndex.Entry entry = (view == null)
+                                ? new ViewIndex.Entry(className, null, null, null, 0, null, redirectSources)
+                                : new ViewIndex.Entry(className, view.uri(), view.labelKeyName(), view.pageAccessControl(), view.positionIndex(),
+                                                      view.roles(), redirectSources);
+        if (isValid(entry, type)) {
+            entries.put(className, entry);
+        }
+    }
+
+    /**
+     * Carries over the entries of the index written by a previous compile, for the classes which are not being compiled now.  Each is checked against
+     * the type as it is now, so a class which has been deleted, or has lost its annotations, is dropped.
+     *
+     * @return true if there was a previous index
+     */
+    private boolean mergePreviousIndex() {
+        ViewIndex previous;
+        try {
+            FileObject resource = processingEnv.getFiler()
+                                               .getResource(StandardLocation.CLASS_OUTPUT, "", ViewIndex.RESOURCE);
+            try (Reader reader = resource.openReader(true)) {
+                previous = ViewIndex.parse(CharStreams.readLines(reader));
+            }
+        } catch (IOException e) {
+            // there is no previous index
+            return false;
+        } catch (SitemapException e) {
+            processingEnv.getMessager()
+                         .printMessage(Diagnostic.Kind.WARNING, "Ignoring invalid " + ViewIndex.RESOURCE + " from a previous compile: " + e.getMessage());
+            return true;
+        }
+        for (ViewIndex.Entry entry : previous.getEntries()) {
+            if (!entries.containsKey(entry.getClassName())) {
+                TypeElement type = processingEnv.getElementUtils()
+                                                .getTypeElement(entry.getClassName()
+                                                                     .replace('$', '.'));
+                if (type != null) {
+                    collect(type);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The index format cannot hold values containing tabs or line breaks
+     */
+    private boolean isValid(ViewIndex.Entry entry, TypeElement type) {
+        List<String> values = new ArrayList<>(entry.getRedirectSources());
+        if (entry.hasView()) {
+            values.add(entry.getUri());
+            values.add(entry.getLabelKeyName());
+            values.add(entry.getRoles());
+        }
+        for (String value : values) {
+            if (CharMatcher.anyOf("\t\r\n")
+                           .matchesAnyOf(value)) {
+                processingEnv.getMessager()
+                             .printMessage(Diagnostic.Kind.ERROR, "View annotation values must not contain tabs or line breaks", type);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeIndex() {
+        // a previous index is rewritten even if it is now empty, or it would still list classes which are no longer annotated
+        if (!mergePreviousIndex() && entries.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject resource = processingEnv.getFiler()
+                                               .createResource(StandardLocation.CLASS_OUTPUT, "", ViewIndex.RESOURCE);
+            try (Writer writer = new OutputStreamWriter(resource.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (ViewIndex.Entry entry : entries.values()) {
+                    for (String line : entry.toLines()) {
+                        writer.write(line);
+                        writer.write('\n');
+                    }
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager()
+                         .printMessage(Diagnostic.Kind.ERROR, "Unable to write " + ViewIndex.RESOURCE + ": " + e.getMessage());
+        }
+    }
+}
@@ -23,92 +23,121 @@ import uk.q3c.krail.core.navigate.sitemap.SitemapLockedException;
 import uk.q3c.krail.eventbus.BusMessage;
 import uk.q3c.krail.eventbus.BusProvider;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Preconditions.*;
 import static org.slf4j.LoggerFactory.*;
 
 /**
+ * The current model is held in a volatile reference, so once there is one, {@link #getCurrentModel()} is a single read and never blocks or
+ * contends with other readers.  Only the first call(s), made before any model has been added, wait - for up to the configured {@link
+ * ConfigKeys#SITEMAP_LOAD_TIMEOUT_PERIOD}.  Writers ({@link #addModel} and {@link #publishNextModel()}) are synchronised with each other, but not
+ * with readers.
+ * <p>
+ * Each model made current is given a version (see {@link VersionedSitemap}), so that sessions can detect a newly published model cheaply, and move
+ * to it at their next navigation.
+ * <p>
  * Created by David Sowerby on 05 Jan 2016
  */
 public class DefaultSitemapQueue<T extends Sitemap> implements SitemapQueue<T> {
+    static final int CAPACITY = 10;
     private static Logger log = getLogger(DefaultSitemapQueue.class);
     private final PubSubSupport<BusMessage> eventBus;
     private final ApplicationConfiguration applicationConfiguration;
-
-    private BlockingQueue<T> queue;
+    private final CountDownLatch firstModelAdded = new CountDownLatch(1);
+    private final Deque<T> pending = new ArrayDeque<>();
+    private volatile VersionedSitemap<T> current;
 
     @Inject
     protected DefaultSitemapQueue(BusProvider busProvider, ApplicationConfiguration applicationConfiguration) {
         this.applicationConfiguration = applicationConfiguration;
-        queue = new ArrayBlockingQueue<>(10, true);
         eventBus = busProvider.get();
     }
 
-    /**
-     * BlockingQueue does not block on peek(), so we need to provide a block until a model is added
-     */
     @Override
-    public synchronized T getCurrentModel() {
+    public T getCurrentModel() {
+        return getCurrent().getModel();
+    }
+
+    @Override
+    public VersionedSitemap<T> getCurrent() {
+        VersionedSitemap<T> model = current;
+        if (model != null) {
+            return model;
+        }
+        return awaitFirstModel();
+    }
+
+    private VersionedSitemap<T> awaitFirstModel() {
         long timeoutPeriod = applicationConfiguration.getLong(ConfigKeys.SITEMAP_LOAD_TIMEOUT_PERIOD, 20000);
-        boolean timedOut = false;
-        long elapsed = 0;
-        while (queue.isEmpty() && !timedOut) {
-            try {
-                LocalDateTime start = LocalDateTime.now();
-                log.info("waiting for model to be added");
-                wait(timeoutPeriod);
-                LocalDateTime stop = LocalDateTime.now();
-                elapsed = Duration.between(start, stop)
-                                  .toMillis();
-                if (elapsed > timeoutPeriod) {
-                    timedOut = true;
-                }
-            } catch (InterruptedException e) {
-                // do nothing, stay in loop to make sure there is now an entry in queue
-            }
+        log.info("waiting for model to be added");
+        long start = System.nanoTime();
+        boolean added;
+        try {
+            added = firstModelAdded.await(timeoutPeriod, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+            added = current != null;
         }
-        if (timedOut) {
+        if (!added) {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
             String msg = "Master Sitemap loading timed out after " + elapsed + "ms";
             throw new SitemapTimeoutException(msg);
         }
-        return queue.peek();
+        return current;
     }
 
+    @Override
+    public long getCurrentVersion() {
+        VersionedSitemap<T> model = current;
+        return (model == null) ? 0 : model.getVersion();
+    }
+
+    /**
+     * The first model added becomes current immediately.  Later models wait for {@link #publishNextModel()}
+     */
     @Override
     public synchronized boolean addModel(T newModel) {
         checkNotNull(newModel);
         if (!newModel.isLocked()) {
             throw new SitemapLockedException("Sitemap must be locked before being added");
         }
-        boolean result = queue.offer(newModel);
-        if (result) {
-            log.debug("Adding new model succeeded");
-        } else {
+        if (size() >= CAPACITY) {
             log.warn("Adding new model failed, maximum models reached");
+            return false;
         }
-        notifyAll();
-        return result;
+        if (current == null) {
+            current = new VersionedSitemap<>(newModel, 1);
+            firstModelAdded.countDown();
+        } else {
+            pending.add(newModel);
+        }
+        log.debug("Adding new model succeeded");
+        return true;
     }
 
     @Override
     public synchronized boolean publishNextModel() {
-        if (queue.size() < 2) {
+        if (pending.isEmpty()) {
             log.warn("Attempted to publish next model when there are none to publish");
             return false;
         }
-        //by removing the head, the next model is 'published'
-        queue.remove();
-        eventBus.publish(new SitemapChangedMessage());
+        VersionedSitemap<T> next = new VersionedSitemap<>(pending.remove(), current.getVersion() + 1);
+        current = next;
+        eventBus.publish(new SitemapChangedMessage(next.getVersion()));
         log.info("New Master Sitemap published");
         return true;
     }
 
+    /**
+     * @return the number of models held, including the current one
+     */
     @Override
-    public int size() {
-        return queue.size();
+    public synchronized int size() {
+        return pending.size() + ((current == null) ? 0 : 1);
     }
 }
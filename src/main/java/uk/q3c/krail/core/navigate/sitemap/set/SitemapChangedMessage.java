@@ -16,7 +16,21 @@ package uk.q3c.krail.core.navigate.sitemap.set;
 import uk.q3c.krail.eventbus.BusMessage;
 
 /**
+ * Published by a {@link SitemapQueue} when a new model is made current.  Sessions move to the new model at their next navigation
+ * <p>
  * Created by David Sowerby on 06 Jan 2016
  */
 public class SitemapChangedMessage implements BusMessage {
+    private final long version;
+
+    public SitemapChangedMessage(long version) {
+        this.version = version;
+    }
+
+    /**
+     * @return the version of the model which has just been made current
+     */
+    public long getVersion() {
+        return version;
+    }
 }
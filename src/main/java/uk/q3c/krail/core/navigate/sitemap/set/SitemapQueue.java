@@ -25,12 +25,27 @@ public interface SitemapQueue<T extends Sitemap> extends Serializable {
 
     /**
      * Returns the {@link Sitemap} currently at the head of the queue.  This call will block if there is no head (that is, the queue is empty), and release
-     * when a model is added.
+     * when a model is added.  Once there is a head, this never blocks.
      *
      * @return the {@link Sitemap} currently at the head of the queue
      */
     T getCurrentModel();
 
+    /**
+     * Returns the current model together with its version.  Blocks in the same way as {@link #getCurrentModel()}
+     *
+     * @return the current model together with its version
+     */
+    VersionedSitemap<T> getCurrent();
+
+    /**
+     * Returns the version of the current model, or 0 if there is none yet.  Never blocks, so can be called on every navigation to find out whether a
+     * new model has been published
+     *
+     * @return the version of the current model, or 0 if there is none yet
+     */
+    long getCurrentVersion();
+
 
     /**
      * Adds a model to the queue.  This will not be current until {@link #publishNextModel} is called
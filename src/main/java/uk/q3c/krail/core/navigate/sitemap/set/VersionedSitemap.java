@@ -0,0 +1,42 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.navigate.sitemap.set;
+
+import uk.q3c.krail.core.navigate.sitemap.Sitemap;
+
+import javax.annotation.concurrent.Immutable;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A {@link Sitemap} model paired with the version under which it was made current by a {@link SitemapQueue}.  The first model is version 1, and
+ * each published model has a version one greater than the last, so a change of version is a change of model
+ */
+@Immutable
+public class VersionedSitemap<T extends Sitemap> {
+    private final T model;
+    private final long version;
+
+    public VersionedSitemap(T model, long version) {
+        this.model = checkNotNull(model);
+        this.version = version;
+    }
+
+    public T getModel() {
+        return model;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
@@ -47,9 +47,8 @@ public class PageAccessController implements Serializable {
         checkNotNull(masterNode, "node");
         checkNotNull(subject, "subject");
         //get reference early and keep it use provider directly - the sitemap instance could change
-
-        String virtualPage = sitemap.navigationState(masterNode)
-                                    .getVirtualPage();
+        // the uri of a node is its virtual page, and is held ready by a locked sitemap
+        String virtualPage = sitemap.uri(masterNode);
         checkNotNull(virtualPage, "virtualPage");
         checkNotNull(masterNode.getPageAccessControl(), "node.getPageAccessControl(), " + masterNode.getUriSegment());
         log.debug("checking page access rights for {}", virtualPage);
@@ -35,6 +35,7 @@ import uk.q3c.krail.core.navigate.Navigator;
 import uk.q3c.krail.core.push.Broadcaster;
 import uk.q3c.krail.core.push.Broadcaster.BroadcastListener;
 import uk.q3c.krail.core.push.PushMessageRouter;
+import uk.q3c.krail.core.view.AsyncKrailView;
 import uk.q3c.krail.core.view.KrailView;
 import uk.q3c.krail.core.view.KrailViewHolder;
 import uk.q3c.krail.i18n.CurrentLocale;
@@ -148,6 +149,22 @@ public abstract class ScopedUI extends UI implements KrailViewHolder, BroadcastL
         log.debug("Page title set to '{}'", pageTitle);
     }
 
+    /**
+     * Shows {@code placeholder} in the view area while {@code toView} is built asynchronously, and sets the page title
+     * for {@code toView}.  {@link #changeView(KrailView)} replaces the placeholder once the view is ready.
+     *
+     * @param toView      the view being built
+     * @param placeholder the component to show while the view is built
+     */
+    public void showPlaceholder(AsyncKrailView toView, Component placeholder) {
+        checkNotNull(toView);
+        checkNotNull(placeholder);
+        log.debug("showing placeholder for {}", toView.getName());
+        getViewDisplayPanel().setContent(placeholder);
+        this.view = toView;
+        getPage().setTitle(pageTitle());
+    }
+
     public Panel getViewDisplayPanel() {
         if (viewDisplayPanel == null) {
             viewDisplayPanel = new Panel();
@@ -0,0 +1,71 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.view;
+
+import com.vaadin.ui.Component;
+import com.vaadin.ui.ProgressBar;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import uk.q3c.krail.core.view.component.AfterViewChangeBusMessage;
+import uk.q3c.krail.core.view.component.ViewChangeBusMessage;
+
+/**
+ * A {@link KrailView} which loads its data off the request thread, so that the Vaadin session is not locked while
+ * the load takes place.  The navigator calls:
+ * <ol>
+ * <li>{@link #beforeBuild(ViewChangeBusMessage)}, on the request thread</li>
+ * <li>{@link #getPlaceholder()}, which is shown immediately in place of the view</li>
+ * <li>{@link #load(ViewChangeBusMessage)}, on a background thread</li>
+ * <li>{@link #buildView(ViewChangeBusMessage)} and {@link #afterBuild(AfterViewChangeBusMessage)}, once the
+ * load has finished, through {@link com.vaadin.ui.UI#access(Runnable)}, and the real content replaces the
+ * placeholder.  The change reaches the browser by server push.  The AfterViewChangeBusMessage is
+ * published at this point, not when the placeholder is shown</li>
+ * </ol>
+ * If server push is not enabled, {@link #load(ViewChangeBusMessage)} is called on the request thread instead.
+ * If the user navigates away before the load completes, the load is cancelled (its thread is interrupted), {@link
+ * #loadCancelled(ViewChangeBusMessage)} is called, and the view is never built.  If the load throws an exception, it
+ * is reported in the same way as any other navigation error.
+ */
+public interface AsyncKrailView extends KrailView {
+
+    /**
+     * Returns the component shown while {@link #load(ViewChangeBusMessage)} runs.  Called on the request thread.  By
+     * default, an indeterminate progress bar
+     *
+     * @return the component shown while the view loads
+     */
+    default Component getPlaceholder() {
+        ProgressBar progressBar = new ProgressBar();
+        progressBar.setIndeterminate(true);
+        return progressBar;
+    }
+
+    /**
+     * Carries out the expensive part of building the view, typically loading data.  This is called on a background
+     * thread without the session lock, so it must not create or modify any Vaadin components, and should respond to
+     * interruption by returning promptly.
+     *
+     * @param busMessage contains information about the change to this View
+     * @throws Exception if the load fails
+     */
+    void load(ViewChangeBusMessage busMessage) throws Exception;
+
+    /**
+     * Called on the request thread if the user navigates away before {@link #load(ViewChangeBusMessage)} completes.  By
+     * default does nothing
+     *
+     * @param busMessage contains information about the change to this View
+     */
+    @SuppressFBWarnings("ACEM_ABSTRACT_CLASS_EMPTY_METHODS")
+    default void loadCancelled(ViewChangeBusMessage busMessage) {
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.view;
+
+import com.google.inject.Inject;
+import com.vaadin.data.Property;
+import com.vaadin.ui.Component;
+import com.vaadin.ui.HasComponents;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.q3c.krail.core.guice.uiscope.UIScoped;
+import uk.q3c.krail.core.i18n.DescriptionKey;
+import uk.q3c.krail.core.i18n.LabelKey;
+import uk.q3c.krail.core.option.VaadinOptionContext;
+import uk.q3c.krail.option.Option;
+import uk.q3c.krail.option.OptionKey;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * Default implementation of {@link ViewCache}, a least recently used cache held per UI.  Views are evicted when either
+ * the number of views retained exceeds {@link #optionKeyMaximumViews}, or the estimated size of all retained views
+ * (the total number of components in their component trees) exceeds {@link #optionKeyMaximumComponents}.  A single
+ * view which is larger than the maximum on its own is not retained at all.
+ */
+@UIScoped
+public class DefaultViewCache implements ViewCache, VaadinOptionContext {
+
+    public static final OptionKey<Integer> optionKeyMaximumViews = new OptionKey<>(5, DefaultViewCache.class, LabelKey.Maximum_Retained_Views,
+            DescriptionKey.Maximum_Retained_Views);
+    public static final OptionKey<Integer> optionKeyMaximumComponents = new OptionKey<>(5000, DefaultViewCache.class, LabelKey.Maximum_Retained_Components,
+            DescriptionKey.Maximum_Retained_Components);
+    private static Logger log = LoggerFactory.getLogger(DefaultViewCache.class);
+    private final Option option;
+    // access ordered, so iteration starts with the least recently used
+    private final LinkedHashMap<Class<? extends KrailView>, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long estimatedSize;
+
+    @Inject
+    protected DefaultViewCache(Option option) {
+        this.option = option;
+    }
+
+    /**
+     * Returns the number of components in the tree rooted at {@code root}, including {@code root} itself
+     *
+     * @param root the root of the tree to count
+     * @return the number of components in the tree rooted at {@code root}
+     */
+    public static int componentCount(Component root) {
+        int count = 0;
+        Deque<Component> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Component component = stack.pop();
+            count++;
+            if (component instanceof HasComponents) {
+                for (Component child : (HasComponents) component) {
+                    stack.push(child);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns true if the view should be retained, that is, if either the instance class or the class it was
+     * requested by is annotated with {@link RetainView}
+     */
+    public static boolean isRetainable(Class<? extends KrailView> viewClass, KrailView view) {
+        return viewClass.isAnnotationPresent(RetainView.class) || view.getClass()
+                                                                      .isAnnotationPresent(RetainView.class);
+    }
+
+    @Override
+    public synchronized <T extends KrailView> T get(Class<T> viewClass) {
+        checkNotNull(viewClass);
+        Entry entry = entries.get(viewClass);
+        return entry == null ? null : viewClass.cast(entry.view);
+    }
+
+    @Override
+    public synchronized void retain(Class<? extends KrailView> viewClass, KrailView view) {
+        checkNotNull(viewClass);
+        checkNotNull(view);
+        if (!isRetainable(viewClass, view)) {
+            return;
+        }
+        int size = componentCount(view.getRootComponent());
+        if (size > getOptionMaximumComponents()) {
+            log.debug("{} has an estimated size of {}, which is too large to retain", viewClass.getName(), size);
+            remove(viewClass);
+            return;
+        }
+        Entry previous = entries.put(viewClass, new Entry(view, size));
+        if (previous != null) {
+            estimatedSize -= previous.size;
+        }
+        estimatedSize += size;
+        evict();
+    }
+
+    private void evict() {
+        int maxViews = getOptionMaximumViews();
+        int maxComponents = getOptionMaximumComponents();
+        Iterator<Map.Entry<Class<? extends KrailView>, Entry>> iterator = entries.entrySet()
+                                                                                .iterator();
+        while (iterator.hasNext() && (entries.size() > maxViews || estimatedSize > maxComponents)) {
+            Map.Entry<Class<? extends KrailView>, Entry> eldest = iterator.next();
+            log.debug("evicting retained view {}", eldest.getKey()
+                                                         .getName());
+            estimatedSize -= eldest.getValue().size;
+            iterator.remove();
+        }
+    }
+
+    @Override
+    public synchronized void remove(Class<? extends KrailView> viewClass) {
+        Entry entry = entries.remove(viewClass);
+        if (entry != null) {
+            estimatedSize -= entry.size;
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+        estimatedSize = 0;
+    }
+
+    @Override
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized long estimatedSize() {
+        return estimatedSize;
+    }
+
+    public int getOptionMaximumViews() {
+        return option.get(optionKeyMaximumViews);
+    }
+
+    public void setOptionMaximumViews(int maximumViews) {
+        option.set(optionKeyMaximumViews, maximumViews);
+        optionValueChanged(null);
+    }
+
+    public int getOptionMaximumComponents() {
+        return option.get(optionKeyMaximumComponents);
+    }
+
+    public void setOptionMaximumComponents(int maximumComponents) {
+        option.set(optionKeyMaximumComponents, maximumComponents);
+        optionValueChanged(null);
+    }
+
+    @Override
+    public Option optionInstance() {
+        return option;
+    }
+
+    /**
+     * Applies any reduced limits immediately
+     */
+    @Override
+    public synchronized void optionValueChanged(Property.ValueChangeEvent event) {
+        evict();
+    }
+
+    private static class Entry {
+        private final KrailView view;
+        private final int size;
+
+        Entry(KrailView view, int size) {
+            this.view = view;
+            this.size = size;
+        }
+    }
+}
@@ -17,6 +17,7 @@ import com.vaadin.ui.Component;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import uk.q3c.krail.core.ui.ScopedUI;
 import uk.q3c.krail.core.view.component.AfterViewChangeBusMessage;
+import uk.q3c.krail.core.view.component.ParameterChangeBusMessage;
 import uk.q3c.krail.core.view.component.ViewChangeBusMessage;
 import uk.q3c.krail.i18n.NamedAndDescribed;
 
@@ -86,4 +87,32 @@ public interface KrailView extends NamedAndDescribed {
     @SuppressFBWarnings("ACEM_ABSTRACT_CLASS_EMPTY_METHODS")
     default void rebuild() {
     }
+
+    /**
+     * Called instead of {@link #init()} and the build sequence when a view retained by the {@link ViewCache} (see
+     * {@link RetainView}) is shown again, to tell it about the new navigation state.  By default, calls {@link
+     * #beforeBuild(ViewChangeBusMessage)}, {@link #buildView(ViewChangeBusMessage)} and {@link
+     * #afterBuild(AfterViewChangeBusMessage)} - override if the view can respond more cheaply.
+     *
+     * @param busMessage contains information about the change to this View
+     */
+    default void resume(ViewChangeBusMessage busMessage) {
+        beforeBuild(busMessage);
+        buildView(busMessage);
+        afterBuild(new AfterViewChangeBusMessage(busMessage));
+    }
+
+    /**
+     * Called when a navigation changes only the parameters of the page this view is showing (for example, from
+     * {@code orders/id=1} to {@code orders/id=2}).  Return true if the view has updated itself for the new parameters,
+     * in which case it is kept, and no view change takes place.  Return false (the default) for the navigation to be
+     * handled as a full view change.  This is not called if a handler of the {@link
+     * BeforeViewChangeBusMessage} has blocked the navigation.
+     *
+     * @param busMessage contains the previous and new navigation states
+     * @return true if the view has handled the change of parameters
+     */
+    default boolean parametersChanged(ParameterChangeBusMessage busMessage) {
+        return false;
+    }
 }
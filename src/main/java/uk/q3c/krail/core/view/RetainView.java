@@ -0,0 +1,34 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.view;
+
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Marks a {@link KrailView} implementation as one which should be retained by the {@link ViewCache} once built.  When
+ * the user navigates back to a retained view, the same instance is re-used - it is not constructed or initialised
+ * again, and is told about the new navigation state through {@link KrailView#resume(ViewChangeBusMessage)}.
+ * <p>
+ * Only use this for views which are expensive to build, and which are safe to show again with different parameters.
+ * Retained views are discarded when the user logs in or out.
+ */
+@Target({TYPE})
+@Retention(RUNTIME)
+@Inherited
+public @interface RetainView {
+}
@@ -0,0 +1,59 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.view;
+
+/**
+ * Holds built instances of views annotated with {@link RetainView}, so that they can be shown again without being
+ * reconstructed.  Implementations are expected to be UIScoped, and to be bounded so that memory use stays limited.
+ */
+public interface ViewCache {
+
+    /**
+     * Returns the retained instance of {@code viewClass}, or null if there is none
+     *
+     * @param viewClass the class of view required
+     * @param <T>       the type of view
+     * @return the retained instance of {@code viewClass}, or null if there is none
+     */
+    <T extends KrailView> T get(Class<T> viewClass);
+
+    /**
+     * Retains {@code view} if its class is annotated with {@link RetainView}, otherwise does nothing.  Should be called
+     * after the view has been built, so that the size of its component tree can be estimated.  May cause other views
+     * to be evicted
+     *
+     * @param viewClass the class under which to retain the view (usually the class the sitemap declares)
+     * @param view      the built view
+     */
+    void retain(Class<? extends KrailView> viewClass, KrailView view);
+
+    /**
+     * Discards any retained instance of {@code viewClass}
+     */
+    void remove(Class<? extends KrailView> viewClass);
+
+    /**
+     * Discards all retained views
+     */
+    void clear();
+
+    /**
+     * @return the number of views retained
+     */
+    int size();
+
+    /**
+     * @return the estimated size of all retained views, as a count of components
+     */
+    long estimatedSize();
+}
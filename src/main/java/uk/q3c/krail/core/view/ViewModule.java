@@ -42,6 +42,7 @@ public class ViewModule extends AbstractModule {
         bindRequestSystemAccountRefreshView();
         bindSystemAccountView();
         bindViewFactory();
+        bindViewCache();
 
     }
 
@@ -49,6 +50,13 @@ public class ViewModule extends AbstractModule {
         bind(ViewFactory.class).to(DefaultViewFactory.class);
     }
 
+    /**
+     * Override this to provide your own {@link ViewCache} for views annotated with {@link RetainView}
+     */
+    protected void bindViewCache() {
+        bind(ViewCache.class).to(DefaultViewCache.class);
+    }
+
     /**
      * Override this to provide your own {@link KrailView} for the parent page of system account related pages.
      */
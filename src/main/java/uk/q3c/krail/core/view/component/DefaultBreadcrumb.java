@@ -34,7 +34,8 @@ public class DefaultBreadcrumb extends NavigationButtonPanel implements Breadcru
     @Override
     protected void build() {
         log.debug("building breadcrumb");
-        List<UserSitemapNode> nodeChain = getSitemap().nodeChainFor(getNavigator().getCurrentNode());
+        UserSitemapNode currentNode = getNavigator().getCurrentNode();
+        List<UserSitemapNode> nodeChain = (currentNode == null) ? getSitemap().nodeChainFor(null) : getSitemap().cachedNodeChainFor(currentNode);
         organiseButtons(nodeChain);
     }
 }
@@ -24,7 +24,6 @@ import uk.q3c.krail.core.navigate.Navigator;
 import uk.q3c.krail.core.navigate.sitemap.UserSitemap;
 import uk.q3c.krail.core.navigate.sitemap.UserSitemapLabelChangeMessage;
 import uk.q3c.krail.core.navigate.sitemap.UserSitemapNode;
-import uk.q3c.krail.core.navigate.sitemap.UserSitemapStructureChangeMessage;
 import uk.q3c.krail.core.navigate.sitemap.comparator.DefaultUserSitemapSorters.SortType;
 import uk.q3c.krail.core.navigate.sitemap.comparator.UserSitemapSorters;
 import uk.q3c.krail.core.option.VaadinOptionContext;
@@ -92,9 +91,15 @@ public class DefaultSubPagePanel extends NavigationButtonPanel implements Vaadin
                 } else {
                     log.debug("current node is '{}'", userSitemap.uri(currentNode));
                 }
-                List<UserSitemapNode> authorisedSubNodes = userSitemap.getChildren(currentNode);
-                Collections.sort(authorisedSubNodes, getSortComparator());
-                organiseButtons(authorisedSubNodes);
+                if (currentNode == null) {
+                    List<UserSitemapNode> authorisedSubNodes = userSitemap.getChildren(null);
+                    Collections.sort(authorisedSubNodes, getSortComparator());
+                    organiseButtons(authorisedSubNodes);
+                } else {
+                    // filtered and sorted, and held by the sitemap until its structure or labels change
+                    showButtons(userSitemap.sortedVisibleChildren(currentNode, getOptionSortType(), getOptionSortAscending(), getSortComparator(),
+                            getFilters()));
+                }
                 rebuildRequired = false;
             }
         } else {
@@ -134,12 +139,6 @@ public class DefaultSubPagePanel extends NavigationButtonPanel implements Vaadin
 
     }
 
-    @Handler
-    public void structureChanged(UserSitemapStructureChangeMessage busMessage) {
-        rebuildRequired = true;
-        build();
-    }
-
 
     @Override
     public Option optionInstance() {
@@ -22,6 +22,7 @@ import org.slf4j.LoggerFactory;
 import uk.q3c.krail.core.eventbus.SessionBus;
 import uk.q3c.krail.core.i18n.DescriptionKey;
 import uk.q3c.krail.core.i18n.LabelKey;
+import uk.q3c.krail.core.navigate.sitemap.UserSitemap;
 import uk.q3c.krail.core.navigate.sitemap.UserSitemapLabelChangeMessage;
 import uk.q3c.krail.core.navigate.sitemap.UserSitemapStructureChangeMessage;
 import uk.q3c.krail.core.option.VaadinOptionContext;
@@ -38,6 +39,10 @@ public class DefaultUserNavigationMenu extends MenuBar implements VaadinOptionCo
 
     protected static final OptionKey<Integer> optionKeyMaximumDepth = new OptionKey<>(10, DefaultUserNavigationMenu.class, LabelKey.Maxiumum_Depth,
             DescriptionKey.Maximum_Menu_Depth);
+    protected static final OptionKey<Boolean> optionKeyOnDemand = new OptionKey<>(Boolean.FALSE, DefaultUserNavigationMenu.class, LabelKey
+            .Populate_Submenus_On_Demand, DescriptionKey.Populate_Submenus_On_Demand);
+    protected static final OptionKey<Integer> optionKeyMaximumSubmenus = new OptionKey<>(20, DefaultUserNavigationMenu.class, LabelKey
+            .Maximum_Populated_Submenus, DescriptionKey.Maximum_Populated_Submenus);
     private static Logger log = LoggerFactory.getLogger(DefaultUserNavigationMenu.class);
     private final Option option;
     private final UserNavigationMenuBuilder builder;
@@ -70,6 +75,16 @@ public class DefaultUserNavigationMenu extends MenuBar implements VaadinOptionCo
         build();
     }
 
+    @Override
+    public boolean getOptionOnDemand() {
+        return option.get(optionKeyOnDemand);
+    }
+
+    @Override
+    public int getOptionMaximumSubmenus() {
+        return option.get(optionKeyMaximumSubmenus);
+    }
+
     @Override
     public void build() {
         log.debug("rebuilding");
@@ -83,13 +98,33 @@ public class DefaultUserNavigationMenu extends MenuBar implements VaadinOptionCo
         log.debug("contents cleared");
     }
 
+    /**
+     * The builder reconciles the menu with the {@link UserSitemap}, so that only captions and sibling groups affected by the change are changed.
+     * The menu is rebuilt if the builder cannot do that
+     */
     @Handler
     public void labelsChanged(UserSitemapLabelChangeMessage busMessage) {
+        if (builder.reconcile()) {
+            log.debug("menu reconciled after label change");
+            return;
+        }
         build();
     }
 
+    /**
+     * If the change lists the nodes affected, the builder applies just those, otherwise the builder reconciles the whole menu with the {@link
+     * UserSitemap}.  The menu is rebuilt only if neither is possible
+     */
     @Handler
     public void structureChanged(UserSitemapStructureChangeMessage busMessage) {
+        if (builder.applyChange(busMessage)) {
+            log.debug("menu updated");
+            return;
+        }
+        if (busMessage.isFullRebuild() && builder.reconcile()) {
+            log.debug("menu reconciled after structure change");
+            return;
+        }
         build();
     }
 
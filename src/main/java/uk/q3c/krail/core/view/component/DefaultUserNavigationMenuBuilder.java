@@ -13,52 +13,439 @@
 package uk.q3c.krail.core.view.component;
 
 import com.google.inject.Inject;
+import com.vaadin.ui.MenuBar;
 import com.vaadin.ui.MenuBar.MenuItem;
+import uk.q3c.krail.core.i18n.LabelKey;
 import uk.q3c.krail.core.navigate.Navigator;
 import uk.q3c.krail.core.navigate.sitemap.UserSitemap;
 import uk.q3c.krail.core.navigate.sitemap.UserSitemapNode;
+import uk.q3c.krail.core.navigate.sitemap.UserSitemapStructureChangeMessage;
+import uk.q3c.krail.core.navigate.sitemap.comparator.UserSitemapSorters;
 import uk.q3c.krail.core.vaadin.TargetTreeWrapper_MenuBar;
 import uk.q3c.krail.core.vaadin.UserSitemapNodeCaption;
+import uk.q3c.krail.i18n.Translate;
 import uk.q3c.util.forest.NodeFilter;
 import uk.q3c.util.forest.SourceTreeWrapper_BasicForest;
 import uk.q3c.util.forest.TreeCopy;
 import uk.q3c.util.forest.TreeCopy.SortOption;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 public class DefaultUserNavigationMenuBuilder implements UserNavigationMenuBuilder {
 
     private final UserSitemap userSitemap;
     private final Navigator navigator;
+    private final UserSitemapSorters sorters;
+    private final Translate translate;
+    /**
+     * The top level nodes whose submenus have been populated, when populating on demand, in the order they were populated
+     */
+    private final Set<UserSitemapNode> populated = new LinkedHashSet<>();
     private UserNavigationMenu userNavigationMenu;
+    private MenuBarNodeModifier nodeModifier;
 
     @Inject
-    protected DefaultUserNavigationMenuBuilder(UserSitemap userSitemap, Navigator navigator) {
+    protected DefaultUserNavigationMenuBuilder(UserSitemap userSitemap, Navigator navigator, UserSitemapSorters sorters, Translate translate) {
         this.userSitemap = userSitemap;
         this.navigator = navigator;
+        this.sorters = sorters;
+        this.translate = translate;
     }
 
+    /**
+     * Copies the {@link UserSitemap} to the menu, to the maximum depth.  If the menu is populated on demand, only the top level items are created,
+     * each with a placeholder child in place of its submenu - see {@link #populate(UserSitemapNode)}
+     */
     @Override
     public void build() {
+        populated.clear();
+        if (userNavigationMenu.getOptionOnDemand()) {
+            buildTopLevel();
+            return;
+        }
         SourceTreeWrapper_BasicForest<UserSitemapNode> source = new SourceTreeWrapper_BasicForest<>(userSitemap
                 .getForest());
         TargetTreeWrapper_MenuBar<UserSitemapNode, MenuItem> target = new TargetTreeWrapper_MenuBar<>
                 ();
         UserSitemapNodeCaption nodeCaptionReader = new UserSitemapNodeCaption();
         target.setCaptionReader(nodeCaptionReader);
-        MenuBarNodeModifier nodeModifier = new MenuBarNodeModifier(userNavigationMenu.getMenuBar(), navigator,
+        nodeModifier = new MenuBarNodeModifier(userNavigationMenu.getMenuBar(), navigator,
                 nodeCaptionReader, userSitemap);
         target.setNodeModifier(nodeModifier);
 
         TreeCopy<UserSitemapNode, MenuItem> treeCopy = new TreeCopy<>(source, target);
         treeCopy.setSortOption(SortOption.SORT_SOURCE_NODES);
         treeCopy.setMaxDepth(userNavigationMenu.getOptionMaxDepth());
-        treeCopy.setSorted(userNavigationMenu.isSorted());
+        // sorted afterwards with the UserSitemapSorters, which TreeCopy does not support
+        treeCopy.setSorted(false);
         List<NodeFilter> filters = new ArrayList<>();
         defineFilters(filters);
         applyFilters(treeCopy, filters);
         treeCopy.copy();
+        if (userNavigationMenu.isSorted()) {
+            sortAll(null);
+        }
+    }
+
+    private void sortAll(MenuItem parentItem) {
+        nodeModifier.sortChildren(parentItem, itemComparator());
+        List<MenuItem> children = (parentItem == null) ? userNavigationMenu.getMenuBar()
+                                                                           .getItems() : parentItem.getChildren();
+        if (children != null) {
+            for (MenuItem child : children) {
+                if (child.hasChildren()) {
+                    sortAll(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Orders MenuItems by their nodes, using the {@link UserSitemapSorters}
+     */
+    private Comparator<MenuItem> itemComparator() {
+        Comparator<UserSitemapNode> comparator = sorters.getSortComparator();
+        return (item1, item2) -> comparator.compare(nodeModifier.sourceNodeFor(item1), nodeModifier.sourceNodeFor(item2));
+    }
+
+    /**
+     * Removes and adds only the MenuItems for the nodes listed in {@code change}, applying the same filters, maximum depth and sort order as {@link
+     * #build()}.  Only possible after {@link #build()} has been called at least once
+     */
+    @Override
+    public boolean applyChange(UserSitemapStructureChangeMessage change) {
+        if (change.isFullRebuild() || nodeModifier == null) {
+            return false;
+        }
+        MenuBar menuBar = userNavigationMenu.getMenuBar();
+        int maxDepth = userNavigationMenu.getOptionMaxDepth();
+
+        for (UserSitemapNode removedNode : change.getRemovedNodes()) {
+            MenuItem item = nodeModifier.targetNodeFor(removedNode);
+            if (item != null) {
+                removeItem(item);
+                nodeModifier.remove(removedNode);
+                populated.remove(removedNode);
+            }
+        }
+        // parents which have lost all their children become leaves, and need a command
+        for (UserSitemapNode parent : change.getChangedParents()) {
+            MenuItem item = nodeModifier.targetNodeFor(parent);
+            if (item != null && !item.hasChildren()) {
+                nodeModifier.forceSetLeaf(item);
+            }
+        }
+
+        List<NodeFilter> filters = new ArrayList<>();
+        defineFilters(filters);
+        for (UserSitemapNode addedNode : change.getAddedNodes()) {
+            int depth = userSitemap.nodeChainFor(addedNode)
+                                   .size();
+            UserSitemapNode parent = userSitemap.getParent(addedNode);
+            MenuItem parentItem = (parent == null) ? null : nodeModifier.targetNodeFor(parent);
+            if (depth > maxDepth || !accepted(addedNode, filters) || (parent != null && parentItem == null)) {
+                continue;
+            }
+            // an unpopulated submenu gets all its items when it is populated
+            if (userNavigationMenu.getOptionOnDemand() && parentItem != null && parentItem.getParent() == null && !populated.contains(parent)) {
+                if (!parentItem.hasChildren()) {
+                    addPlaceholder(parentItem, parent);
+                }
+                continue;
+            }
+            if (parent == null && userNavigationMenu.getOptionOnDemand()) {
+                MenuItem item = nodeModifier.create(null, addedNode);
+                if (isLeaf(addedNode, depth)) {
+                    nodeModifier.forceSetLeaf(item);
+                } else {
+                    addPlaceholder(item, addedNode);
+                }
+                if (userNavigationMenu.isSorted()) {
+                    nodeModifier.sortChildren(null, itemComparator());
+                }
+                continue;
+            }
+            if (parentItem != null) {
+                // no longer a leaf
+                parentItem.setCommand(null);
+            }
+            MenuItem item = nodeModifier.create(parentItem, addedNode);
+            if (depth == maxDepth) {
+                nodeModifier.forceSetLeaf(item);
+            } else {
+                nodeModifier.setLeaf(item);
+            }
+            if (userNavigationMenu.isSorted()) {
+                nodeModifier.sortChildren(parentItem, itemComparator());
+            }
+        }
+        menuBar.markAsDirty();
+        return true;
+    }
+
+    /**
+     * Walks the {@link UserSitemap} with the same filters, maximum depth and sort order as {@link #build()}, creating missing MenuItems, and updating
+     * captions, commands and the order of sibling groups only where they differ.  MenuItems for nodes which should no longer be there are then
+     * removed.  Nodes are matched by equality, so content replaced by equal nodes (as when a shared {@link UserSitemap} is replaced for a change of
+     * locale) keeps its MenuItems.  Only possible after {@link #build()} has been called at least once
+     */
+    @Override
+    public boolean reconcile() {
+        if (nodeModifier == null) {
+            return false;
+        }
+        MenuBar menuBar = userNavigationMenu.getMenuBar();
+        List<NodeFilter> filters = new ArrayList<>();
+        defineFilters(filters);
+        Set<UserSitemapNode> wanted = new HashSet<>();
+        boolean changed = reconcileChildren(null, userSitemap.getRoots(), 1, filters, wanted);
+        populated.retainAll(wanted);
+        for (UserSitemapNode node : nodeModifier.sourceNodes()) {
+            if (!wanted.contains(node)) {
+                removeItem(nodeModifier.targetNodeFor(node));
+                nodeModifier.remove(node);
+                changed = true;
+            }
+        }
+        if (changed) {
+            menuBar.markAsDirty();
+        }
+        return true;
+    }
+
+    /**
+     * @return true if any MenuItem was added, moved or re-ordered
+     */
+    private boolean reconcileChildren(MenuItem parentItem, List<UserSitemapNode> children, int depth, List<NodeFilter> filters, Set<UserSitemapNode>
+            wanted) {
+        boolean changed = false;
+        boolean onDemand = userNavigationMenu.getOptionOnDemand();
+        UserSitemapNodeCaption captionReader = new UserSitemapNodeCaption();
+        List<UserSitemapNode> accepted = acceptedAndSorted(children, filters);
+
+        for (UserSitemapNode child : accepted) {
+            wanted.add(child);
+            MenuItem item = nodeModifier.targetNodeFor(child);
+            if (item != null && item.getParent() != parentItem) {
+                // moved to a different parent, so its descendants will be re-created too
+                removeItem(item);
+                nodeModifier.remove(child);
+                item = null;
+            }
+            if (item == null) {
+                item = nodeModifier.create(parentItem, child);
+                changed = true;
+            } else {
+                if (nodeModifier.sourceNodeFor(item) != child) {
+                    nodeModifier.rebind(child, item);
+                }
+                String caption = captionReader.getCaption(child);
+                if (!Objects.equals(caption, item.getText())) {
+                    item.setText(caption);
+                }
+            }
+            if (isLeaf(child, depth)) {
+                MenuBar.Command command = item.getCommand();
+                if (!(command instanceof NavigationCommand) || ((NavigationCommand) command).getNode() != child) {
+                    if (item.hasChildren()) {
+                        forgetDescendants(item);
+                        item.removeChildren();
+                    }
+                    nodeModifier.forceSetLeaf(item);
+                }
+            } else if (onDemand && parentItem == null && !populated.contains(child)) {
+                if (!item.hasChildren()) {
+                    addPlaceholder(item, child);
+                    changed = true;
+                } else {
+                    // the locale may have changed
+                    MenuItem placeholder = item.getChildren()
+                                               .get(0);
+                    String caption = translate.from(LabelKey.Show_Submenu);
+                    if (!Objects.equals(caption, placeholder.getText())) {
+                        placeholder.setText(caption);
+                    }
+                }
+            } else {
+                if (item.getCommand() != null) {
+                    item.setCommand(null);
+                }
+                changed |= reconcileChildren(item, userSitemap.getChildren(child), depth + 1, filters, wanted);
+            }
+        }
+
+        if (!inOrder(parentItem, accepted)) {
+            Map<UserSitemapNode, Integer> positions = new HashMap<>();
+            for (int i = 0; i < accepted.size(); i++) {
+                positions.put(accepted.get(i), i);
+            }
+            // anything not accepted goes to the end, and is removed later
+            nodeModifier.sortChildren(parentItem, Comparator.comparingInt(item -> positions.getOrDefault(nodeModifier.sourceNodeFor(item), Integer
+                    .MAX_VALUE)));
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Returns true if the MenuItems for the {@code expected} nodes are already in that order among the children of {@code parentItem}, ignoring any
+     * other children
+     */
+    private boolean inOrder(MenuItem parentItem, List<UserSitemapNode> expected) {
+        List<MenuItem> items = (parentItem == null) ? userNavigationMenu.getMenuBar()
+                                                                        .getItems() : parentItem.getChildren();
+        if (items == null) {
+            return expected.isEmpty();
+        }
+        int next = 0;
+        Set<UserSitemapNode> expectedSet = new HashSet<>(expected);
+        for (MenuItem item : items) {
+            UserSitemapNode node = nodeModifier.sourceNodeFor(item);
+            if (expectedSet.contains(node) && (next >= expected.size() || !expected.get(next++)
+                                                                                   .equals(node))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void removeItem(MenuItem item) {
+        if (item.getParent() == null) {
+            userNavigationMenu.getMenuBar()
+                              .removeItem(item);
+        } else {
+            item.getParent()
+                .removeChild(item);
+        }
+    }
+
+    private void buildTopLevel() {
+        nodeModifier = new MenuBarNodeModifier(userNavigationMenu.getMenuBar(), navigator, new UserSitemapNodeCaption(), userSitemap);
+        List<NodeFilter> filters = new ArrayList<>();
+        defineFilters(filters);
+        for (UserSitemapNode root : acceptedAndSorted(userSitemap.getRoots(), filters)) {
+            MenuItem item = nodeModifier.create(null, root);
+            if (isLeaf(root, 1)) {
+                nodeModifier.forceSetLeaf(item);
+            } else {
+                addPlaceholder(item, root);
+            }
+        }
+    }
+
+    /**
+     * Replaces the placeholder of the top level item for {@code root} with its submenu, sorted and filtered as it would be by {@link #build()}.  If
+     * that makes more than {@link UserNavigationMenu#getOptionMaximumSubmenus()} populated, the submenu populated longest ago is replaced by a
+     * placeholder again.  Vaadin's MenuBar does not tell the server when a submenu is opened, so this is called when the placeholder is selected
+     *
+     * @param root the top level node whose submenu is needed
+     */
+    public void populate(UserSitemapNode root) {
+        MenuItem item = (nodeModifier == null) ? null : nodeModifier.targetNodeFor(root);
+        if (item == null || populated.contains(root)) {
+            return;
+        }
+        item.removeChildren();
+        List<NodeFilter> filters = new ArrayList<>();
+        defineFilters(filters);
+        addSubmenu(item, root, 2, filters);
+        if (!item.hasChildren()) {
+            // nothing left to show under it
+            nodeModifier.forceSetLeaf(item);
+        }
+        populated.add(root);
+        Iterator<UserSitemapNode> iterator = populated.iterator();
+        while (populated.size() > userNavigationMenu.getOptionMaximumSubmenus() && iterator.hasNext()) {
+            UserSitemapNode eldest = iterator.next();
+            if (eldest != root) {
+                iterator.remove();
+                unpopulate(eldest);
+            }
+        }
+        userNavigationMenu.getMenuBar()
+                          .markAsDirty();
+    }
+
+    /**
+     * @return true if the submenu for {@code root} has been populated, always false unless populating on demand
+     */
+    public boolean isPopulated(UserSitemapNode root) {
+        return populated.contains(root);
+    }
+
+    private void addSubmenu(MenuItem parentItem, UserSitemapNode parent, int depth, List<NodeFilter> filters) {
+        for (UserSitemapNode child : acceptedAndSorted(userSitemap.getChildren(parent), filters)) {
+            MenuItem item = nodeModifier.create(parentItem, child);
+            if (isLeaf(child, depth)) {
+                nodeModifier.forceSetLeaf(item);
+            } else {
+                addSubmenu(item, child, depth + 1, filters);
+            }
+        }
+    }
+
+    private void unpopulate(UserSitemapNode root) {
+        MenuItem item = nodeModifier.targetNodeFor(root);
+        if (item != null) {
+            forgetDescendants(item);
+            item.removeChildren();
+            addPlaceholder(item, root);
+        }
+    }
+
+    private void forgetDescendants(MenuItem item) {
+        if (item.getChildren() != null) {
+            for (MenuItem child : item.getChildren()) {
+                forgetDescendants(child);
+                UserSitemapNode node = nodeModifier.sourceNodeFor(child);
+                if (node != null) {
+                    nodeModifier.remove(node);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gives {@code item} a single child, captioned with {@link LabelKey#Show_Submenu}, which populates the submenu of {@code root} when selected
+     */
+    private void addPlaceholder(MenuItem item, UserSitemapNode root) {
+        item.setCommand(null);
+        item.addItem(translate.from(LabelKey.Show_Submenu), selectedItem -> populate(root));
+    }
+
+    private boolean isLeaf(UserSitemapNode node, int depth) {
+        return depth >= userNavigationMenu.getOptionMaxDepth() || userSitemap.hasNoVisibleChildren(node);
+    }
+
+    private List<UserSitemapNode> acceptedAndSorted(List<UserSitemapNode> nodes, List<NodeFilter> filters) {
+        List<UserSitemapNode> accepted = new ArrayList<>(nodes.size());
+        for (UserSitemapNode node : nodes) {
+            if (accepted(node, filters)) {
+                accepted.add(node);
+            }
+        }
+        if (userNavigationMenu.isSorted()) {
+            accepted.sort(sorters.getSortComparator());
+        }
+        return accepted;
+    }
+
+    private boolean accepted(UserSitemapNode node, List<NodeFilter> filters) {
+        for (NodeFilter filter : filters) {
+            if (!filter.accept(node)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
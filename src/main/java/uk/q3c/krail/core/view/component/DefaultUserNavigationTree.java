@@ -38,6 +38,9 @@ import uk.q3c.krail.option.OptionKey;
 
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.Optional;
 
 import static com.google.common.base.Preconditions.*;
@@ -48,6 +51,10 @@ import static com.google.common.base.Preconditions.*;
  * authorised pages. Although this seems naturally to be a {@link UIScoped} class it is not currently possible to have
  * a
  * UIScoped Component (see https://github.com/davidsowerby/krail/issues/177)
+ * <p>
+ * If {@link #optionKeyLazyLoad} is set, only the root nodes and the path to the current page are added when the tree is built, and the children of a
+ * node are added when it is first expanded.  If {@link #optionKeyPruneAfterSeconds} is also set, the descendants of a branch which has stayed
+ * collapsed for that long are removed again, to limit the size of the tree held for each UI
  *
  * @author David Sowerby 17 May 2013
  * @modified David Sowerby 29 May 2015
@@ -62,6 +69,13 @@ public class DefaultUserNavigationTree extends Tree implements VaadinOptionConte
             DescriptionKey.Sort_Ascending);
     public static final OptionKey<Integer> optionKeyMaximumDepth = new OptionKey<>(10, DefaultUserNavigationTree.class, LabelKey.Maxiumum_Depth, DescriptionKey
             .Maximum_Tree_Depth);
+    public static final OptionKey<Boolean> optionKeyLazyLoad = new OptionKey<>(Boolean.FALSE, DefaultUserNavigationTree.class, LabelKey
+            .Lazy_Load_Navigation_Tree, DescriptionKey.Lazy_Load_Navigation_Tree);
+    /**
+     * The number of seconds a branch of a lazily loaded tree may stay collapsed before its descendants are removed.  0 means never
+     */
+    public static final OptionKey<Integer> optionKeyPruneAfterSeconds = new OptionKey<>(0, DefaultUserNavigationTree.class, LabelKey
+            .Prune_Collapsed_Branches_After, DescriptionKey.Prune_Collapsed_Branches_After);
     private static Logger log = LoggerFactory.getLogger(DefaultUserNavigationTree.class);
     private final UserSitemap userSitemap;
     private final Navigator navigator;
@@ -69,6 +83,11 @@ public class DefaultUserNavigationTree extends Tree implements VaadinOptionConte
     private final UserNavigationTreeBuilder builder;
     private final UserSitemapSorters sorters;
 
+    /**
+     * The time at which each collapsed branch was collapsed, when the tree is lazily loaded and pruning is enabled
+     */
+    private final Map<UserSitemapNode, Long> collapsedAt = new HashMap<>();
+
     private boolean rebuildRequired = true;
     private boolean suppressValueChangeEvents;
 
@@ -87,6 +106,8 @@ public class DefaultUserNavigationTree extends Tree implements VaadinOptionConte
         setImmediate(true);
         setItemCaptionMode(ItemCaptionMode.EXPLICIT);
         addValueChangeListener(this);
+        addExpandListener(this::nodeExpanded);
+        addCollapseListener(this::nodeCollapsed);
         setId(ID.getId(Optional.empty(), this));
         sorters.setOptionSortAscending(getOptionSortAscending());
 
@@ -121,7 +142,11 @@ public class DefaultUserNavigationTree extends Tree implements VaadinOptionConte
         if (rebuildRequired) {
             log.debug("rebuilding user navigation tree");
             clear();
+            collapsedAt.clear();
             builder.build();
+            if (getOptionLazyLoad() && navigator.getCurrentNode() != null) {
+                builder.addPathTo(navigator.getCurrentNode());
+            }
             rebuildRequired = false;
             if (log.isDebugEnabled()) {
                 Collection<?> t = this.getItemIds();
@@ -204,6 +229,58 @@ public class DefaultUserNavigationTree extends Tree implements VaadinOptionConte
         }
     }
 
+    @Override
+    public boolean getOptionLazyLoad() {
+        return option.get(optionKeyLazyLoad);
+    }
+
+    public int getOptionPruneAfterSeconds() {
+        return option.get(optionKeyPruneAfterSeconds);
+    }
+
+    /**
+     * When the tree is lazily loaded, the children of the expanded node are added if they are not already there
+     */
+    protected void nodeExpanded(ExpandEvent event) {
+        if (getOptionLazyLoad()) {
+            UserSitemapNode node = (UserSitemapNode) event.getItemId();
+            collapsedAt.remove(node);
+            builder.addChildren(node);
+            pruneIdleBranches();
+        }
+    }
+
+    protected void nodeCollapsed(CollapseEvent event) {
+        if (getOptionLazyLoad() && getOptionPruneAfterSeconds() > 0) {
+            collapsedAt.put((UserSitemapNode) event.getItemId(), System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Removes the descendants of branches which have been collapsed for longer than {@link #getOptionPruneAfterSeconds()}.  There is no timer, so
+     * this is done when the user next expands a node or navigates
+     */
+    protected void pruneIdleBranches() {
+        int pruneAfterSeconds = getOptionPruneAfterSeconds();
+        if (collapsedAt.isEmpty() || pruneAfterSeconds <= 0) {
+            return;
+        }
+        long threshold = System.currentTimeMillis() - pruneAfterSeconds * 1000L;
+        Iterator<Map.Entry<UserSitemapNode, Long>> iterator = collapsedAt.entrySet()
+                                                                         .iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<UserSitemapNode, Long> entry = iterator.next();
+            UserSitemapNode node = entry.getKey();
+            if (!containsId(node) || isExpanded(node)) {
+                iterator.remove();
+            } else if (entry.getValue() < threshold) {
+                log.debug("pruning collapsed branch at '{}'", userSitemap.uri(node));
+                builder.removeChildren(node);
+                iterator.remove();
+            }
+        }
+    }
+
     @Override
     public void valueChange(Property.ValueChangeEvent event) {
         if (!suppressValueChangeEvents) {
@@ -224,6 +301,10 @@ public class DefaultUserNavigationTree extends Tree implements VaadinOptionConte
     public void afterViewChange(AfterViewChangeBusMessage busMessage) {
         // TODO could this use the message instead - the order of change then will not matter??
         UserSitemapNode selectedNode = navigator.getCurrentNode();
+        if (getOptionLazyLoad()) {
+            pruneIdleBranches();
+            builder.addPathTo(selectedNode);
+        }
         UserSitemapNode childNode = selectedNode;
 
         UserSitemapNode parentNode = (UserSitemapNode) getParent(childNode);
@@ -245,20 +326,36 @@ public class DefaultUserNavigationTree extends Tree implements VaadinOptionConte
     }
 
     /**
-     * Although only {@link UserSitemap} labels (and therefore captions) have changed, the tree may need to be
-     * re-sorted to reflect the change in language, so it is easier just to rebuild the tree
+     * Only {@link UserSitemap} labels (and therefore captions) have changed, but the tree may need to be re-sorted to reflect the change in language.
+     * The builder reconciles the tree with the {@link UserSitemap}, so that only the captions and sibling groups affected are changed.  The tree is
+     * rebuilt if the builder cannot do that, or if a rebuild is already pending
      */
     @Handler
     public void labelsChanged(UserSitemapLabelChangeMessage busMessage) {
+        if (!rebuildRequired && builder.reconcile()) {
+            log.debug("user navigation tree reconciled after label change");
+            return;
+        }
         rebuildRequired = true;
         build();
     }
 
     /**
-     * {@link UserSitemap} structure has changed, we need to rebuild
+     * {@link UserSitemap} structure has changed.  If the change lists the nodes affected, the builder applies just those, otherwise the builder
+     * reconciles the whole tree with the {@link UserSitemap}.  Only if neither is possible do we need to rebuild
      */
     @Handler
     public void structureChanged(UserSitemapStructureChangeMessage busMessage) {
+        if (!rebuildRequired && builder.applyChange(busMessage)) {
+            log.debug("user navigation tree updated, {} nodes added, {} removed", busMessage.getAddedNodes()
+                                                                                            .size(), busMessage.getRemovedNodes()
+                                                                                                               .size());
+            return;
+        }
+        if (!rebuildRequired && busMessage.isFullRebuild() && builder.reconcile()) {
+            log.debug("user navigation tree reconciled after structure change");
+            return;
+        }
         rebuildRequired = true;
         build();
     }
@@ -13,8 +13,11 @@
 package uk.q3c.krail.core.view.component;
 
 import com.google.inject.Inject;
+import com.vaadin.data.util.HierarchicalContainer;
+import com.vaadin.ui.Tree;
 import uk.q3c.krail.core.navigate.sitemap.UserSitemap;
 import uk.q3c.krail.core.navigate.sitemap.UserSitemapNode;
+import uk.q3c.krail.core.navigate.sitemap.UserSitemapStructureChangeMessage;
 import uk.q3c.krail.core.vaadin.TargetTreeWrapper_VaadinTree;
 import uk.q3c.krail.core.vaadin.UserSitemapNodeCaption;
 import uk.q3c.util.forest.NodeFilter;
@@ -23,11 +26,21 @@ import uk.q3c.util.forest.SourceTreeWrapper_BasicForest;
 import uk.q3c.util.forest.TreeCopy;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 public class DefaultUserNavigationTreeBuilder implements UserNavigationTreeBuilder {
 
     private final UserSitemap userSitemap;
+    /**
+     * The nodes whose children have been added to the tree, when it is lazily loaded
+     */
+    private final Set<UserSitemapNode> populated = new HashSet<>();
     private UserNavigationTree userNavigationTree;
 
     @Inject
@@ -35,8 +48,20 @@ public class DefaultUserNavigationTreeBuilder implements UserNavigationTreeBuild
         this.userSitemap = userSitemap;
     }
 
+    /**
+     * Copies the {@link UserSitemap} to the tree, to the maximum depth.  If the tree is lazily loaded, only the root nodes are added, and the rest
+     * are added by {@link #addChildren} and {@link #addPathTo}
+     */
     @Override
     public void build() {
+        populated.clear();
+        if (userNavigationTree.getOptionLazyLoad()) {
+            userNavigationTree.clear();
+            List<NodeFilter> filters = new ArrayList<>();
+            defineFilters(filters);
+            addSortedChildren(null, userSitemap.getRoots(), 1, filters);
+            return;
+        }
         SourceTreeWrapper<UserSitemapNode> source = new SourceTreeWrapper_BasicForest<>(userSitemap.getForest());
         TargetTreeWrapper_VaadinTree<UserSitemapNode, UserSitemapNode> target = new TargetTreeWrapper_VaadinTree<>(userNavigationTree.getTree());
         TreeCopy<UserSitemapNode, UserSitemapNode> treeCopy = new TreeCopy<>(source, target);
@@ -51,6 +76,251 @@ public class DefaultUserNavigationTreeBuilder implements UserNavigationTreeBuild
         treeCopy.copy();
     }
 
+    /**
+     * Removes and adds only the nodes listed in {@code change}, applying the same filters, maximum depth and sort order as {@link #build()}.  Only
+     * possible when the tree uses a {@link HierarchicalContainer}, which is the Vaadin default
+     */
+    @Override
+    public boolean applyChange(UserSitemapStructureChangeMessage change) {
+        Tree tree = userNavigationTree.getTree();
+        if (change.isFullRebuild() || !(tree.getContainerDataSource() instanceof HierarchicalContainer)) {
+            return false;
+        }
+        HierarchicalContainer container = (HierarchicalContainer) tree.getContainerDataSource();
+        UserNavigationTreeNodeModifier nodeModifier = new UserNavigationTreeNodeModifier(userNavigationTree, userSitemap);
+        int maxDepth = userNavigationTree.getOptionMaxDepth();
+
+        for (UserSitemapNode removedNode : change.getRemovedNodes()) {
+            if (tree.containsId(removedNode)) {
+                container.removeItemRecursively(removedNode);
+            }
+            populated.remove(removedNode);
+        }
+        // parents which have lost children may have become leaves
+        for (UserSitemapNode parent : change.getChangedParents()) {
+            if (tree.containsId(parent) && depthOf(parent) < maxDepth) {
+                nodeModifier.setLeaf(parent);
+            }
+        }
+
+        List<NodeFilter> filters = new ArrayList<>();
+        defineFilters(filters);
+        UserSitemapNodeCaption captionReader = new UserSitemapNodeCaption();
+        for (UserSitemapNode addedNode : change.getAddedNodes()) {
+            int depth = depthOf(addedNode);
+            UserSitemapNode parent = userSitemap.getParent(addedNode);
+            if (depth > maxDepth || !accepted(addedNode, filters) || (parent != null && !tree.containsId(parent))) {
+                continue;
+            }
+            // a lazily loaded parent which has not been expanded gets all its children when it is
+            if (parent != null && userNavigationTree.getOptionLazyLoad() && !populated.contains(parent)) {
+                continue;
+            }
+            tree.addItem(addedNode);
+            tree.setItemCaption(addedNode, captionReader.getCaption(addedNode));
+            if (parent != null) {
+                tree.setChildrenAllowed(parent, true);
+                tree.setParent(addedNode, parent);
+            }
+            if (depth == maxDepth) {
+                nodeModifier.forceSetLeaf(addedNode);
+            } else {
+                nodeModifier.setLeaf(addedNode);
+            }
+            moveToSortedPosition(container, addedNode, parent);
+        }
+        return true;
+    }
+
+    /**
+     * Walks the {@link UserSitemap} with the same filters, maximum depth and sort order as {@link #build()} (and, if the tree is lazily loaded, only
+     * into branches which have been populated), adding missing items, updating captions and leaf state which differ, and moving items only within
+     * sibling groups whose order has changed.  Items which should no longer be there are then removed.  Only possible when the tree uses a {@link
+     * HierarchicalContainer}
+     */
+    @Override
+    public boolean reconcile() {
+        Tree tree = userNavigationTree.getTree();
+        if (!(tree.getContainerDataSource() instanceof HierarchicalContainer)) {
+            return false;
+        }
+        HierarchicalContainer container = (HierarchicalContainer) tree.getContainerDataSource();
+        List<NodeFilter> filters = new ArrayList<>();
+        defineFilters(filters);
+        Set<UserSitemapNode> wanted = new HashSet<>();
+        reconcileChildren(container, null, userSitemap.getRoots(), 1, filters, wanted);
+        for (Object itemId : new ArrayList<>(container.getItemIds())) {
+            if (!wanted.contains(itemId) && container.containsId(itemId)) {
+                container.removeItemRecursively(itemId);
+            }
+        }
+        populated.retainAll(wanted);
+        return true;
+    }
+
+    private void reconcileChildren(HierarchicalContainer container, UserSitemapNode parent, List<UserSitemapNode> children, int depth, List<NodeFilter>
+            filters, Set<UserSitemapNode> wanted) {
+        Tree tree = userNavigationTree.getTree();
+        int maxDepth = userNavigationTree.getOptionMaxDepth();
+        boolean lazy = userNavigationTree.getOptionLazyLoad();
+        UserSitemapNodeCaption captionReader = new UserSitemapNodeCaption();
+        List<UserSitemapNode> accepted = new ArrayList<>(children.size());
+        for (UserSitemapNode child : children) {
+            if (accepted(child, filters)) {
+                accepted.add(child);
+            }
+        }
+        accepted.sort(userNavigationTree.getSortComparator());
+
+        for (UserSitemapNode child : accepted) {
+            wanted.add(child);
+            if (!tree.containsId(child)) {
+                tree.addItem(child);
+            }
+            if (!Objects.equals(tree.getParent(child), parent)) {
+                tree.setParent(child, parent);
+            }
+            String caption = captionReader.getCaption(child);
+            if (!Objects.equals(caption, tree.getItemCaption(child))) {
+                tree.setItemCaption(child, caption);
+            }
+            boolean leaf = depth >= maxDepth || userSitemap.hasNoVisibleChildren(child);
+            if (tree.areChildrenAllowed(child) == leaf) {
+                tree.setChildrenAllowed(child, !leaf);
+            }
+            if (!leaf && (!lazy || populated.contains(child))) {
+                reconcileChildren(container, child, userSitemap.getChildren(child), depth + 1, filters, wanted);
+            }
+        }
+
+        if (!inOrder(container, parent, accepted)) {
+            UserSitemapNode predecessor = null;
+            for (UserSitemapNode child : accepted) {
+                container.moveAfterSibling(child, predecessor);
+                predecessor = child;
+            }
+        }
+    }
+
+    /**
+     * Returns true if the {@code expected} nodes are already in that order among the children of {@code parent}, ignoring any other children
+     */
+    private boolean inOrder(HierarchicalContainer container, UserSitemapNode parent, List<UserSitemapNode> expected) {
+        Collection<?> siblings = (parent == null) ? container.rootItemIds() : container.getChildren(parent);
+        if (siblings == null) {
+            return expected.isEmpty();
+        }
+        Iterator<UserSitemapNode> expectedIterator = expected.iterator();
+        Set<UserSitemapNode> expectedSet = new HashSet<>(expected);
+        for (Object sibling : siblings) {
+            if (expectedSet.contains(sibling) && (!expectedIterator.hasNext() || !expectedIterator.next()
+                                                                                                 .equals(sibling))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void addChildren(UserSitemapNode parent) {
+        Tree tree = userNavigationTree.getTree();
+        if (populated.contains(parent) || !tree.containsId(parent)) {
+            return;
+        }
+        int depth = depthOf(parent) + 1;
+        if (depth > userNavigationTree.getOptionMaxDepth()) {
+            return;
+        }
+        List<NodeFilter> filters = new ArrayList<>();
+        defineFilters(filters);
+        populated.add(parent);
+        if (!addSortedChildren(parent, userSitemap.getChildren(parent), depth, filters)) {
+            tree.setChildrenAllowed(parent, false);
+        }
+    }
+
+    @Override
+    public void addPathTo(UserSitemapNode node) {
+        List<UserSitemapNode> chain = userSitemap.nodeChainFor(node);
+        for (int i = 0; i < chain.size() - 1; i++) {
+            addChildren(chain.get(i));
+        }
+    }
+
+    @Override
+    public void removeChildren(UserSitemapNode parent) {
+        Tree tree = userNavigationTree.getTree();
+        Collection<?> children = tree.getChildren(parent);
+        if (children != null) {
+            for (Object child : new ArrayList<>(children)) {
+                removeChildren((UserSitemapNode) child);
+                tree.removeItem(child);
+            }
+        }
+        populated.remove(parent);
+    }
+
+    /**
+     * Adds those of {@code children} which pass the {@code filters} to the tree, in sort order, under {@code parent}, which is null for root nodes
+     *
+     * @return true if any nodes were added
+     */
+    private boolean addSortedChildren(UserSitemapNode parent, List<UserSitemapNode> children, int depth, List<NodeFilter> filters) {
+        Tree tree = userNavigationTree.getTree();
+        UserNavigationTreeNodeModifier nodeModifier = new UserNavigationTreeNodeModifier(userNavigationTree, userSitemap);
+        UserSitemapNodeCaption captionReader = new UserSitemapNodeCaption();
+        List<UserSitemapNode> accepted = new ArrayList<>(children.size());
+        for (UserSitemapNode child : children) {
+            if (accepted(child, filters)) {
+                accepted.add(child);
+            }
+        }
+        accepted.sort(userNavigationTree.getSortComparator());
+        for (UserSitemapNode child : accepted) {
+            tree.addItem(child);
+            tree.setItemCaption(child, captionReader.getCaption(child));
+            if (parent != null) {
+                tree.setParent(child, parent);
+            }
+            if (depth >= userNavigationTree.getOptionMaxDepth()) {
+                nodeModifier.forceSetLeaf(child);
+            } else {
+                nodeModifier.setLeaf(child);
+            }
+        }
+        return !accepted.isEmpty();
+    }
+
+    private int depthOf(UserSitemapNode node) {
+        return userSitemap.nodeChainFor(node)
+                          .size();
+    }
+
+    private boolean accepted(UserSitemapNode node, List<NodeFilter> filters) {
+        for (NodeFilter filter : filters) {
+            if (!filter.accept(node)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void moveToSortedPosition(HierarchicalContainer container, UserSitemapNode node, UserSitemapNode parent) {
+        Comparator<UserSitemapNode> comparator = userNavigationTree.getSortComparator();
+        Collection<?> siblings = (parent == null) ? container.rootItemIds() : container.getChildren(parent);
+        UserSitemapNode predecessor = null;
+        if (siblings == null) {
+            return;
+        }
+        for (Object sibling : siblings) {
+            UserSitemapNode siblingNode = (UserSitemapNode) sibling;
+            if (!siblingNode.equals(node) && comparator.compare(siblingNode, node) <= 0) {
+                predecessor = siblingNode;
+            }
+        }
+        container.moveAfterSibling(node, predecessor);
+    }
+
     /**
      * Excludes nodes with positionIndex < 0 and the log out page.  Override this to use different filters
      *
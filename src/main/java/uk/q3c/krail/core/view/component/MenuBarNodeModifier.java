@@ -25,8 +25,10 @@ import uk.q3c.util.forest.TreeCopyException;
 
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static com.google.common.base.Preconditions.*;
 
@@ -34,6 +36,7 @@ public class MenuBarNodeModifier implements NodeModifier<UserSitemapNode, MenuIt
 
     private final MenuBar menuBar;
     private final Map<MenuItem, UserSitemapNode> targetLookup = new HashedMap<>();
+    private final Map<UserSitemapNode, MenuItem> sourceLookup = new HashedMap<>();
     private final Navigator navigator;
     private final CaptionReader<UserSitemapNode> captionReader;
     private UserSitemap userSitemap;
@@ -56,6 +59,7 @@ public class MenuBarNodeModifier implements NodeModifier<UserSitemapNode, MenuIt
             newTargetNode = parentNode.addItem(captionReader.getCaption(sourceNode), null);
         }
         targetLookup.put(newTargetNode, sourceNode);
+        sourceLookup.put(sourceNode, newTargetNode);
         return newTargetNode;
     }
 
@@ -90,6 +94,44 @@ public class MenuBarNodeModifier implements NodeModifier<UserSitemapNode, MenuIt
         return targetLookup.get(targetNode);
     }
 
+    /**
+     * @return the MenuItem created for {@code sourceNode}, or null if there is none
+     */
+    public MenuItem targetNodeFor(UserSitemapNode sourceNode) {
+        checkNotNull(sourceNode);
+        return sourceLookup.get(sourceNode);
+    }
+
+    /**
+     * Removes {@code sourceNode} and its MenuItem from the lookups, after the MenuItem has been removed from the menu
+     */
+    public void remove(UserSitemapNode sourceNode) {
+        checkNotNull(sourceNode);
+        MenuItem targetNode = sourceLookup.remove(sourceNode);
+        if (targetNode != null) {
+            targetLookup.remove(targetNode);
+        }
+    }
+
+    /**
+     * Points the lookups for {@code targetNode} at {@code sourceNode}, which replaces an equal node from earlier content of the {@link UserSitemap}
+     */
+    public void rebind(UserSitemapNode sourceNode, MenuItem targetNode) {
+        checkNotNull(sourceNode);
+        checkNotNull(targetNode);
+        // remove first, as put keeps the existing key
+        sourceLookup.remove(sourceNode);
+        sourceLookup.put(sourceNode, targetNode);
+        targetLookup.put(targetNode, sourceNode);
+    }
+
+    /**
+     * @return a copy of the nodes which currently have a MenuItem
+     */
+    public Set<UserSitemapNode> sourceNodes() {
+        return new HashSet<>(sourceLookup.keySet());
+    }
+
     @Override
     public void setCaption(MenuItem targetNode, String caption) {
         throw new TreeCopyException("Caption can only be set while MenuItem is being created");
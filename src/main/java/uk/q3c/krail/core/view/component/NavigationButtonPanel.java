@@ -26,6 +26,7 @@ import uk.q3c.krail.core.eventbus.UIBus;
 import uk.q3c.krail.core.navigate.Navigator;
 import uk.q3c.krail.core.navigate.sitemap.UserSitemap;
 import uk.q3c.krail.core.navigate.sitemap.UserSitemapNode;
+import uk.q3c.krail.core.navigate.sitemap.UserSitemapStructureChangeMessage;
 import uk.q3c.krail.core.vaadin.ID;
 import uk.q3c.krail.eventbus.SubscribeTo;
 import uk.q3c.krail.i18n.LocaleChangeBusMessage;
@@ -76,6 +77,17 @@ public abstract class NavigationButtonPanel extends HorizontalLayout implements
         log.debug("{} nodes to display before filtering", nodeList.size());
         List<UserSitemapNode> filteredList = filteredList(nodeList);
         log.debug("{} nodes to display after filtering", filteredList.size());
+        showButtons(filteredList);
+    }
+
+    /**
+     * Displays buttons to represent the supplied nodes, which have already been filtered by {@link #getFilters()}.  Buttons are re-used, so this
+     * does not allocate unless more buttons are needed than have been shown before
+     *
+     * @param filteredList
+     *         contains the list of buttons to display. It is assumed that these are in the right order
+     */
+    protected void showButtons(List<UserSitemapNode> filteredList) {
         int maxIndex = (filteredList.size() > buttons.size() ? filteredList.size() : buttons.size());
         for (int i = 0; i < maxIndex; i++) {
             // nothing left in chain
@@ -146,6 +158,30 @@ public abstract class NavigationButtonPanel extends HorizontalLayout implements
     }
 
 
+    /**
+     * Rebuilds only if the change affects the current node, or a node which is currently displayed
+     */
+    @Handler
+    public void structureChanged(UserSitemapStructureChangeMessage busMessage) {
+        if (isAffectedBy(busMessage)) {
+            log.debug("Responding to structure change");
+            rebuildRequired = true;
+            build();
+        }
+    }
+
+    protected boolean isAffectedBy(UserSitemapStructureChangeMessage change) {
+        if (change.affects(navigator.getCurrentNode())) {
+            return true;
+        }
+        for (NavigationButton button : buttons) {
+            if (button.isVisible() && change.affects(button.getNode())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Handler
     public void afterViewChange(AfterViewChangeBusMessage busMessage) {
         log.debug("Responding to view change");
@@ -174,6 +210,15 @@ public abstract class NavigationButtonPanel extends HorizontalLayout implements
         return sitemap;
     }
 
+    /**
+     * Returns the filters applied by {@link #organiseButtons(List)}.  The list is live, not a copy
+     *
+     * @return the filters applied by {@link #organiseButtons(List)}
+     */
+    protected List<NodeFilter<UserSitemapNode>> getFilters() {
+        return sourceFilters;
+    }
+
     public void addFilter(NodeFilter<UserSitemapNode> filter) {
         sourceFilters.add(filter);
     }
@@ -35,4 +35,18 @@ public class NoNavFilter implements NodeFilter<UserSitemapNode> {
         }
         return accept;
     }
+
+    /**
+     * All instances filter in the same way, so are equal - this lets {@link
+     * uk.q3c.krail.core.navigate.sitemap.UserSitemap#sortedVisibleChildren} share the lists it holds between panels
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o != null && o.getClass() == getClass();
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
 }
@@ -0,0 +1,28 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+package uk.q3c.krail.core.view.component;
+
+import uk.q3c.krail.core.navigate.NavigationState;
+import uk.q3c.krail.core.view.KrailView;
+
+/**
+ * Published on the UIBus when a navigation changes only the parameters of the current page, and the current view has
+ * accepted the change through {@link KrailView#parametersChanged(ParameterChangeBusMessage)}.  No
+ * {@link AfterViewChangeBusMessage} is published in that case, as the view has not changed.
+ */
+public class ParameterChangeBusMessage extends ViewChangeBusMessage {
+
+    public ParameterChangeBusMessage(NavigationState fromState, NavigationState toState) {
+        super(fromState, toState);
+    }
+}
@@ -23,6 +23,21 @@ public interface UserNavigationMenu extends Component {
 
     void setOptionMaxDepth(int depth);
 
+    /**
+     * Returns true if the submenus of the top level items are only populated when they are first opened
+     *
+     * @return true if submenus are populated on demand
+     */
+    boolean getOptionOnDemand();
+
+    /**
+     * Returns the maximum number of submenus held populated when {@link #getOptionOnDemand()} is true.  Beyond that, the submenu populated longest ago
+     * is emptied again
+     *
+     * @return the maximum number of populated submenus
+     */
+    int getOptionMaximumSubmenus();
+
     void build();
 
     void clear();
@@ -13,6 +13,9 @@
 
 package uk.q3c.krail.core.view.component;
 
+import uk.q3c.krail.core.navigate.sitemap.UserSitemap;
+import uk.q3c.krail.core.navigate.sitemap.UserSitemapStructureChangeMessage;
+
 public interface UserNavigationMenuBuilder {
 
     void build();
@@ -21,4 +24,25 @@ public interface UserNavigationMenuBuilder {
 
     void setUserNavigationMenu(UserNavigationMenu userNavigationMenu);
 
+    /**
+     * Applies an incremental change to the menu, without rebuilding it.  The default implementation does nothing
+     *
+     * @param change the change to apply
+     *
+     * @return true if the change was applied, false if the caller should rebuild the menu instead
+     */
+    default boolean applyChange(UserSitemapStructureChangeMessage change) {
+        return false;
+    }
+
+    /**
+     * Brings the menu into line with the {@link UserSitemap}, changing only the captions, items and sibling order which differ, so that, for example,
+     * a change of locale does not replace every item.  The default implementation does nothing
+     *
+     * @return true if the menu was reconciled, false if the caller should rebuild it instead
+     */
+    default boolean reconcile() {
+        return false;
+    }
+
 }
@@ -14,6 +14,7 @@ package uk.q3c.krail.core.view.component;
 
 import com.vaadin.ui.Component;
 import com.vaadin.ui.Tree;
+import uk.q3c.krail.core.navigate.sitemap.UserSitemap;
 import uk.q3c.krail.core.navigate.sitemap.comparator.DefaultUserSitemapSorters.SortType;
 import uk.q3c.krail.core.navigate.sitemap.comparator.UserSitemapSorters;
 import uk.q3c.krail.option.Option;
@@ -31,6 +32,14 @@ public interface UserNavigationTree extends Component, UserSitemapSorters {
 
     int getOptionMaxDepth();
 
+    /**
+     * Returns true if nodes are only added to the tree when their parent is expanded, or they are on the path to the current page.  Otherwise the
+     * whole of the {@link UserSitemap}, to the maximum depth, is added whenever the tree is built
+     *
+     * @return true if the tree is lazily loaded
+     */
+    boolean getOptionLazyLoad();
+
     /**
      * Set the maximum level or depth of the tree you want to be visible. A value of <=0 is ignored. This value is
      * stored in {@link Option}, and the tree is rebuilt.
@@ -13,6 +13,10 @@
 
 package uk.q3c.krail.core.view.component;
 
+import uk.q3c.krail.core.navigate.sitemap.UserSitemap;
+import uk.q3c.krail.core.navigate.sitemap.UserSitemapNode;
+import uk.q3c.krail.core.navigate.sitemap.UserSitemapStructureChangeMessage;
+
 public interface UserNavigationTreeBuilder {
 
     void build();
@@ -21,4 +25,52 @@ public interface UserNavigationTreeBuilder {
 
     void setUserNavigationTree(UserNavigationTree userNavigationTree);
 
+    /**
+     * Applies an incremental change to the tree, without rebuilding it.  The default implementation does nothing
+     *
+     * @param change the change to apply
+     *
+     * @return true if the change was applied, false if the caller should rebuild the tree instead
+     */
+    default boolean applyChange(UserSitemapStructureChangeMessage change) {
+        return false;
+    }
+
+    /**
+     * Brings the tree into line with the {@link UserSitemap}, changing only the captions, items and sibling order which differ, so that, for example,
+     * a change of locale does not replace every item.  The default implementation does nothing
+     *
+     * @return true if the tree was reconciled, false if the caller should rebuild it instead
+     */
+    default boolean reconcile() {
+        return false;
+    }
+
+    /**
+     * When the tree is lazily loaded, adds the children of {@code parent} to the tree if they have not already been added.  The default
+     * implementation does nothing
+     *
+     * @param parent the node whose children are needed, which must already be in the tree
+     */
+    default void addChildren(UserSitemapNode parent) {
+    }
+
+    /**
+     * When the tree is lazily loaded, adds whatever is needed for {@code node} and its ancestors to be in the tree.  The default implementation does
+     * nothing
+     *
+     * @param node the node which must be in the tree
+     */
+    default void addPathTo(UserSitemapNode node) {
+    }
+
+    /**
+     * When the tree is lazily loaded, removes the descendants of {@code parent} from the tree, leaving it ready to be populated again by {@link
+     * #addChildren}.  The default implementation does nothing
+     *
+     * @param parent the node whose descendants are to be removed
+     */
+    default void removeChildren(UserSitemapNode parent) {
+    }
+
 }
@@ -0,0 +1,148 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package uk.q3c.krail.core.navigate
+
+import fixture.testviews2.ViewA
+import fixture.testviews2.ViewA1
+import fixture.testviews2.ViewB
+import fixture.testviews2.ViewB1
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+import uk.q3c.krail.core.navigate.sitemap.UserSitemap
+import uk.q3c.krail.core.navigate.sitemap.UserSitemapNode
+import uk.q3c.krail.core.ui.ScopedUI
+import uk.q3c.krail.core.ui.ScopedUIProvider
+import uk.q3c.krail.core.view.ViewCache
+import uk.q3c.krail.core.view.ViewFactory
+import uk.q3c.krail.option.Option
+
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+class DefaultViewPrefetcherTest extends Specification {
+
+    def viewFactory = Mock(ViewFactory)
+    def viewCache = Mock(ViewCache)
+    def uiProvider = Mock(ScopedUIProvider)
+    def ui = Mock(ScopedUI)
+    def option = Mock(Option)
+    def userSitemap = Mock(UserSitemap)
+    def metrics = Mock(NavigationMetrics)
+    def navigationExecutors = Mock(NavigationExecutors)
+    ExecutorService executor = Executors.newSingleThreadExecutor()
+    def conditions = new PollingConditions(timeout: 5)
+    DefaultViewPrefetcher prefetcher
+    UserSitemapNode root = node(ViewB)
+    UserSitemapNode parent = node(ViewB1)
+    UserSitemapNode current = node(ViewA)
+    UserSitemapNode child = node(ViewA1)
+    boolean enabled = true
+
+    def setup() {
+        option.get(DefaultViewPrefetcher.optionKeyEnabled) >> { enabled }
+        option.get(DefaultViewPrefetcher.optionKeyMaximumViews) >> 2
+        option.get(DefaultViewPrefetcher.optionKeyTimeoutSeconds) >> 60
+        uiProvider.get() >> ui
+        ui.access(_) >> { Runnable r -> r.run(); null }
+        userSitemap.getChildren(current) >> [child]
+        userSitemap.nodeChainFor(current) >> [root, parent, current]
+        viewFactory.get(_) >> { Class c -> c.newInstance() }
+        navigationExecutors.prefetchExecutor() >> executor
+        prefetcher = new DefaultViewPrefetcher(viewFactory, viewCache, uiProvider, metrics, option, navigationExecutors)
+    }
+
+    def cleanup() {
+        executor.shutdownNow()
+    }
+
+    def "candidates are sub-pages then ancestors, nearest first, limited in number and excluding retained views"() {
+        expect:
+        prefetcher.candidates(userSitemap, current) == [ViewA1, ViewB1]
+
+        when:
+        viewCache.get(ViewA1) >> new ViewA1()
+
+        then:
+        prefetcher.candidates(userSitemap, current) == [ViewB1, ViewB]
+    }
+
+    def "prefetched view is a hit, and the rest are discarded"() {
+        when:
+        prefetcher.prefetch(userSitemap, current)
+
+        then:
+        conditions.eventually {
+            assert prefetcher.prefetched.size() == 2
+        }
+
+        when:
+        def view = prefetcher.take(ViewB1)
+
+        then:
+        view instanceof ViewB1
+        1 * metrics.recordPrefetch(true)
+        0 * metrics.recordPrefetch(false)
+        prefetcher.take(ViewA1) == null
+    }
+
+    def "view not prefetched is a miss"() {
+        given:
+        prefetcher.prefetch(userSitemap, current)
+
+        expect:
+        conditions.eventually {
+            assert prefetcher.prefetched.size() == 2
+        }
+
+        when:
+        def view = prefetcher.take(ViewB)
+
+        then:
+        view == null
+        1 * metrics.recordPrefetch(false)
+    }
+
+    def "nothing is prefetched or counted when disabled"() {
+        given:
+        enabled = false
+
+        when:
+        prefetcher.prefetch(userSitemap, current)
+        def view = prefetcher.take(ViewA1)
+
+        then:
+        view == null
+        0 * viewFactory.get(_)
+        0 * metrics.recordPrefetch(_)
+    }
+
+    def "prefetch stops when a navigation takes place between views"() {
+        when:
+        prefetcher.prefetch(userSitemap, current)
+        executor.submit({} as Runnable)
+                .get()
+
+        then:
+        _ * ui.access(_) >> { Runnable r -> r.run(); prefetcher.discard(); null }
+        1 * viewFactory.get(ViewA1) >> new ViewA1()
+        0 * viewFactory.get(ViewB1)
+        prefetcher.prefetched.isEmpty()
+    }
+
+    private UserSitemapNode node(Class viewClass) {
+        UserSitemapNode node = Mock(UserSitemapNode)
+        node.getViewClass() >> viewClass
+        return node
+    }
+}
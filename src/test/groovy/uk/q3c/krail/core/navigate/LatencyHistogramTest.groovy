@@ -0,0 +1,128 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package uk.q3c.krail.core.navigate
+
+import spock.lang.Specification
+import uk.q3c.krail.config.ApplicationConfiguration
+
+import javax.management.ObjectName
+import java.lang.management.ManagementFactory
+
+class LatencyHistogramTest extends Specification {
+
+    def "buckets are powers of two microseconds"() {
+        expect:
+        LatencyHistogram.bucketFor(0) == 0
+        LatencyHistogram.bucketFor(1_000) == 0
+        LatencyHistogram.bucketFor(1_500) == 1
+        LatencyHistogram.bucketFor(2_000) == 1
+        LatencyHistogram.bucketFor(3_000) == 2
+        LatencyHistogram.bucketFor(1_000_000) == 10
+        LatencyHistogram.bucketFor(Long.MAX_VALUE) == LatencyHistogram.BUCKETS - 1
+    }
+
+    def "count, mean, max and percentiles"() {
+        given:
+        LatencyHistogram histogram = new LatencyHistogram()
+
+        when:
+        (1..99).each { histogram.record(1_000) }
+        histogram.record(5_000_000)
+
+        then:
+        histogram.getCount() == 100
+        histogram.getMaxNanos() == 5_000_000
+        histogram.getMeanNanos() == (99 * 1_000 + 5_000_000) / 100
+        histogram.getPercentileNanos(50) == 1_000
+        histogram.getPercentileNanos(99) == 1_000
+        histogram.getPercentileNanos(100) == 5_000_000
+
+        when:
+        histogram.reset()
+
+        then:
+        histogram.getCount() == 0
+        histogram.getPercentileNanos(95) == 0
+    }
+
+    def "metrics are held per view class and phase"() {
+        given:
+        DefaultNavigationMetrics metrics = metrics(true)
+
+        when:
+        metrics.record(null, NavigationPhase.NODE_LOOKUP, 2_000_000)
+        metrics.record(null, NavigationPhase.NODE_LOOKUP, 4_000_000)
+
+        then:
+        metrics.getCounts() == ['none/NODE_LOOKUP': 2L]
+        metrics.getMeanMillis() == ['none/NODE_LOOKUP': 3.0d]
+        metrics.getMaxMillis() == ['none/NODE_LOOKUP': 4.0d]
+        metrics.percentileMillis(DefaultNavigationMetrics.NO_VIEW, 'NODE_LOOKUP', 50) > 0
+        metrics.percentileMillis('unknown', 'NODE_LOOKUP', 50) == 0
+    }
+
+    def "metrics are published through JMX only between start and stop"() {
+        given:
+        ObjectName name = new ObjectName(DefaultNavigationMetrics.OBJECT_NAME)
+        def server = ManagementFactory.getPlatformMBeanServer()
+        DefaultNavigationMetrics metrics = metrics(true)
+        unregister()
+
+        expect:
+        !server.isRegistered(name)
+
+        when:
+        metrics.start()
+
+        then:
+        server.isRegistered(name)
+
+        when:
+        metrics.stop()
+
+        then:
+        !server.isRegistered(name)
+    }
+
+    def "nothing is timed, counted or published when disabled by configuration"() {
+        given:
+        DefaultNavigationMetrics metrics = metrics(false)
+        unregister()
+
+        when:
+        metrics.start()
+        metrics.recordPrefetch(true)
+
+        then:
+        !metrics.isEnabled()
+        metrics.getPrefetchHits() == 0
+        !ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(DefaultNavigationMetrics.OBJECT_NAME))
+    }
+
+    /**
+     * Removes any registration left by another test
+     */
+    private void unregister() {
+        ObjectName name = new ObjectName(DefaultNavigationMetrics.OBJECT_NAME)
+        if (ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name)
+        }
+    }
+
+    private DefaultNavigationMetrics metrics(boolean enabled) {
+        ApplicationConfiguration configuration = Mock(ApplicationConfiguration)
+        configuration.getBoolean(DefaultNavigationMetrics.METRICS_ENABLED, true) >> enabled
+        return new DefaultNavigationMetrics(configuration)
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package uk.q3c.krail.core.navigate
+
+import com.google.common.collect.ImmutableList
+import com.google.common.collect.ImmutableMap
+import spock.lang.Specification
+
+import java.util.concurrent.*
+
+class ParsedFragmentTest extends Specification {
+
+    StrictURIFragmentHandler handler = new StrictURIFragmentHandler()
+
+    def setup() {
+        ParsedFragment.clearCache()
+    }
+
+    def "fragment is parsed into virtual page, segments and parameters, ignoring malformed parameters"() {
+        when:
+        ParsedFragment parsed = ParsedFragment.of('home/view/wiggly/id=1/bad/=x/y=/age=33')
+
+        then:
+        parsed.getVirtualPage() == 'home/view/wiggly'
+        parsed.getPathSegments() == ImmutableList.of('home', 'view', 'wiggly')
+        parsed.getParameters() == ImmutableMap.of('id', '1', 'age', '33')
+        parsed.getParameterList() == ImmutableList.of('id=1', 'age=33')
+    }
+
+    def "repeat fragments are interned"() {
+        when:
+        ParsedFragment parsed1 = ParsedFragment.of('a/b/id=1')
+        ParsedFragment parsed2 = ParsedFragment.of(new String('a/b/id=1'))
+
+        then:
+        parsed1.is(parsed2)
+        ParsedFragment.cacheSize() == 1
+    }
+
+    def "concurrent misses for the same fragment are given the same instance"() {
+        given:
+        ExecutorService executor = Executors.newFixedThreadPool(8)
+        CountDownLatch go = new CountDownLatch(1)
+        List<Future<ParsedFragment>> results = (1..8).collect {
+            executor.submit({ go.await(); ParsedFragment.of('c/d/id=2') } as Callable<ParsedFragment>)
+        }
+
+        when:
+        go.countDown()
+        Set<ParsedFragment> distinct = results.collect { it.get(5, TimeUnit.SECONDS) }.toSet()
+
+        then:
+        distinct.size() == 1
+        ParsedFragment.cacheSize() == 1
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "navigation states for the same fragment share collections, without copying on read"() {
+        when:
+        NavigationState state1 = handler.navigationState('a/b/id=1')
+        NavigationState state2 = handler.navigationState('!a/b/id=1/')
+
+        then:
+        state1.getPathSegments().is(state2.getPathSegments())
+        state1.getParameters().is(state2.getParameters())
+        state1.getParameters().is(state1.getParameters())
+        state1.getParameterList().is(state2.getParameterList())
+    }
+
+    def "modifying a state does not affect the shared parse"() {
+        given:
+        NavigationState state1 = handler.navigationState('a/b/id=1')
+        NavigationState state2 = handler.navigationState('a/b/id=1')
+
+        when:
+        state1.parameter('id', '2').parameter('x', 'y').update(handler)
+
+        then:
+        state1.getFragment() == 'a/b/id=2/x=y'
+        state1.getParameterList() == ImmutableList.of('id=2', 'x=y')
+        state2.getParameters() == ImmutableMap.of('id', '1')
+        ParsedFragment.of('a/b/id=1').getParameters() == ImmutableMap.of('id', '1')
+    }
+
+    def "the cache is bounded"() {
+        when:
+        (0..ParsedFragment.CACHE_SIZE * 2).each { ParsedFragment.of("page$it") }
+
+        then:
+        ParsedFragment.cacheSize() <= ParsedFragment.CACHE_SIZE
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package uk.q3c.krail.core.navigate.sitemap
+
+import spock.lang.Specification
+import uk.q3c.krail.core.navigate.StrictURIFragmentHandler
+import uk.q3c.util.forest.BasicForest
+
+class CompactForestTest extends Specification {
+
+    DefaultMasterSitemap sitemap
+    CompactForest<MasterSitemapNode> forest
+
+    def setup() {
+        sitemap = new DefaultMasterSitemap(new StrictURIFragmentHandler())
+        sitemap.append(new NodeRecord('public/home'))
+        sitemap.append(new NodeRecord('public/a/b/c'))
+        sitemap.append(new NodeRecord('public/a/d'))
+        sitemap.append(new NodeRecord('private/home'))
+        forest = CompactForest.of(sitemap.getForest())
+    }
+
+    private List<MasterSitemapNode> children(int position) {
+        List<MasterSitemapNode> result = []
+        for (int child = forest.firstChildOf(position); child != CompactForest.NONE; child = forest.nextSiblingOf(child)) {
+            result.add(forest.nodeAt(child))
+        }
+        return result
+    }
+
+    def "structure matches the source forest"() {
+        expect:
+        forest.size() == sitemap.getNodeCount()
+        children(CompactForest.NONE) == sitemap.getRoots()
+        forest.childCountOf(CompactForest.NONE) == sitemap.getRoots().size()
+        sitemap.getAllNodes().every { node ->
+            int position = forest.positionOf(node)
+            children(position) == sitemap.getChildren(node) &&
+                    forest.childCountOf(position) == sitemap.getChildCount(node) &&
+                    forest.childrenOf(position) == sitemap.getChildren(node) &&
+                    (forest.parentOf(position) == CompactForest.NONE ? sitemap.getParent(node) == null : forest.nodeAt(forest.parentOf(position)) == sitemap.getParent(node))
+        }
+    }
+
+    def "child lookup by segment"() {
+        given:
+        int a = forest.childFor(forest.childFor(CompactForest.NONE, 'public'), 'a')
+
+        expect:
+        forest.nodeAt(a) == sitemap.nodeFor('public/a')
+        forest.nodeAt(forest.childFor(a, 'd')) == sitemap.nodeFor('public/a/d')
+        forest.childFor(a, 'home') == CompactForest.NONE
+        forest.childFor(CompactForest.NONE, 'a') == CompactForest.NONE
+    }
+
+    def "nodes not in the forest have no position"() {
+        expect:
+        forest.positionOf(new MasterSitemapNode(999, 'x')) == CompactForest.NONE
+        forest.positionOf(null) == CompactForest.NONE
+        forest.positionOfId(-1) == CompactForest.NONE
+        forest.positionOfId(sitemap.nodeFor('private/home').getId()) == forest.positionOf(sitemap.nodeFor('private/home'))
+    }
+
+    def "sparse ids are indexed by map"() {
+        given:
+        sitemap = new DefaultMasterSitemap(new StrictURIFragmentHandler())
+        MasterSitemapNode root = new MasterSitemapNode(1000000, 'root')
+        MasterSitemapNode child = new MasterSitemapNode(5, 'child')
+        sitemap.addChild(root, child)
+
+        when:
+        forest = CompactForest.of(sitemap.getForest())
+
+        then:
+        forest.nodeAt(forest.positionOf(root)) == root
+        forest.nodeAt(forest.positionOf(child)) == child
+        forest.parentOf(forest.positionOf(child)) == forest.positionOf(root)
+    }
+
+    def "duplicate ids are rejected, whether indexed by array or by map"() {
+        given:
+        BasicForest<MasterSitemapNode> source = Mock(BasicForest)
+        MasterSitemapNode first = new MasterSitemapNode(id, 'first')
+        MasterSitemapNode second = new MasterSitemapNode(id, 'second')
+        source.getNodeCount() >> 2
+        source.getRoots() >> [first, second]
+        source.getChildren(_) >> []
+
+        when:
+        CompactForest.of(source)
+
+        then:
+        thrown(SitemapException)
+
+        where:
+        id << [3, 1000000]
+    }
+
+    def "a locked sitemap provides its compact forest"() {
+        expect:
+        sitemap.getCompactForest() == null
+
+        when:
+        sitemap.lock()
+
+        then:
+        sitemap.getCompactForest() != null
+        sitemap.getCompactForest().nodes().size() == sitemap.getNodeCount()
+    }
+
+    def "node cursor gives the same traversal whether or not the sitemap is locked"() {
+        given:
+        MasterSitemapNode a = sitemap.nodeFor('public/a')
+        MasterSitemapNode missing = new MasterSitemapNode(999, 'x')
+
+        when:
+        if (locked) {
+            sitemap.lock()
+        }
+
+        then:
+        cursorChildren(null) == sitemap.getRoots()
+        sitemap.getAllNodes().every { node -> cursorChildren(node) == sitemap.getChildren(node) }
+        sitemap.childFor(null, 'public') == sitemap.nodeFor('public')
+        sitemap.childFor(a, 'd') == sitemap.nodeFor('public/a/d')
+        sitemap.childFor(a, 'home') == null
+        sitemap.firstChildOf(missing) == null
+        sitemap.nextSiblingOf(missing) == null
+        sitemap.childFor(missing, 'a') == null
+
+        where:
+        locked << [false, true]
+    }
+
+    private List<MasterSitemapNode> cursorChildren(MasterSitemapNode parent) {
+        List<MasterSitemapNode> result = []
+        for (MasterSitemapNode child = sitemap.firstChildOf(parent); child != null; child = sitemap.nextSiblingOf(child)) {
+            result.add(child)
+        }
+        return result
+    }
+}
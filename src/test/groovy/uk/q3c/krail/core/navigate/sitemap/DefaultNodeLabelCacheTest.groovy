@@ -0,0 +1,106 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+
+
+package uk.q3c.krail.core.navigate.sitemap
+
+import spock.lang.Specification
+import uk.q3c.krail.core.i18n.LabelKey
+import uk.q3c.krail.core.shiro.PageAccessControl
+import uk.q3c.krail.core.view.PublicHomeView
+import uk.q3c.krail.i18n.I18NKey
+import uk.q3c.krail.i18n.Translate
+
+class DefaultNodeLabelCacheTest extends Specification {
+
+    Translate translate = Mock(Translate)
+    DefaultNodeLabelCache cache
+    MasterSitemapNode node1 = masterNode(1, LabelKey.Home_Page)
+    MasterSitemapNode node2 = masterNode(2, LabelKey.Log_In)
+
+    def setup() {
+        cache = new DefaultNodeLabelCache(translate)
+    }
+
+    def "a label is translated once per locale and shared after that"() {
+        when:
+        NodeLabel first = cache.labelFor(node1, Locale.UK)
+        NodeLabel second = cache.labelFor(node1, Locale.UK)
+
+        then:
+        1 * translate.from(LabelKey.Home_Page, Locale.UK) >> 'Home'
+        first.is(second)
+        first.label == 'Home'
+        first.collationKey.sourceString == 'Home'
+        cache.size() == 1
+    }
+
+    def "locales are held separately"() {
+        when:
+        NodeLabel uk = cache.labelFor(node1, Locale.UK)
+        NodeLabel germany = cache.labelFor(node1, Locale.GERMANY)
+
+        then:
+        1 * translate.from(LabelKey.Home_Page, Locale.UK) >> 'Home'
+        1 * translate.from(LabelKey.Home_Page, Locale.GERMANY) >> 'Startseite'
+        uk.label == 'Home'
+        germany.label == 'Startseite'
+        cache.size() == 2
+    }
+
+    def "an entry for a re-used id with a different label key is replaced"() {
+        given:
+        translate.from(LabelKey.Home_Page, Locale.UK) >> 'Home'
+        translate.from(LabelKey.Log_In, Locale.UK) >> 'Log In'
+        cache.labelFor(node1, Locale.UK)
+
+        when:
+        NodeLabel replaced = cache.labelFor(masterNode(1, LabelKey.Log_In), Locale.UK)
+
+        then:
+        replaced.label == 'Log In'
+        cache.size() == 1
+    }
+
+    def "invalidate removes one locale or all of them"() {
+        given:
+        translate.from(_ as I18NKey, _ as Locale) >> 'label'
+        cache.labelFor(node1, Locale.UK)
+        cache.labelFor(node2, Locale.UK)
+        cache.labelFor(node1, Locale.GERMANY)
+
+        when:
+        cache.invalidate(Locale.UK)
+
+        then:
+        cache.size() == 1
+
+        when:
+        cache.invalidate()
+
+        then:
+        cache.size() == 0
+    }
+
+    def "a node without a label key is rejected"() {
+        when:
+        cache.labelFor(masterNode(3, null), Locale.UK)
+
+        then:
+        thrown(NullPointerException)
+    }
+
+    private static MasterSitemapNode masterNode(int id, I18NKey labelKey) {
+        return new MasterSitemapNode(id, 'page' + id, PublicHomeView.class, labelKey, -1, PageAccessControl.PUBLIC, null)
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+
+
+package uk.q3c.krail.core.navigate.sitemap
+
+import fixture1.TestAnnotatedView
+import spock.lang.Specification
+import uk.q3c.krail.core.i18n.LabelKey
+import uk.q3c.krail.core.navigate.StrictURIFragmentHandler
+import uk.q3c.krail.core.shiro.PageAccessControl
+
+class MasterSitemapCodecTest extends Specification {
+
+    DefaultMasterSitemap sitemap
+    ClassLoader classLoader = getClass().getClassLoader()
+
+    def setup() {
+        sitemap = new DefaultMasterSitemap(new StrictURIFragmentHandler())
+        NodeRecord home = new NodeRecord('public/home')
+        home.setLabelKey(LabelKey.Home_Page)
+        home.setViewClass(TestAnnotatedView)
+        home.setPageAccessControl(PageAccessControl.PUBLIC)
+        home.setPositionIndex(7)
+        sitemap.append(home)
+        NodeRecord admin = new NodeRecord('private/admin')
+        admin.setPageAccessControl(PageAccessControl.ROLES)
+        admin.addRole('admin')
+        admin.addRole('super')
+        sitemap.append(admin)
+        sitemap.append(new NodeRecord('public/a/b/c'))
+        NodeRecord login = new NodeRecord('public/login')
+        login.setLabelKey(StandardPageKey.Log_In)
+        sitemap.append(login)
+        sitemap.addRedirect('public', 'public/home')
+        sitemap.setReport('the report')
+        sitemap.lock()
+    }
+
+    def "a restored sitemap has the same structure, nodes, redirects, standard pages and report"() {
+        given:
+        DefaultMasterSitemap restored = new DefaultMasterSitemap(new StrictURIFragmentHandler())
+
+        when:
+        boolean result = MasterSitemapCodec.read(new ByteArrayInputStream(write('abc')), 'abc', restored, classLoader)
+
+        then:
+        result
+        restored.uris() as Set == sitemap.uris() as Set
+        restored.getNodeCount() == sitemap.getNodeCount()
+        restored.getRedirects() == sitemap.getRedirects()
+        restored.standardPageURI(StandardPageKey.Log_In) == 'public/login'
+        restored.getReport() == 'the report'
+        sitemap.getAllNodes().every { node ->
+            MasterSitemapNode copy = restored.nodeFor(sitemap.uri(node))
+            copy.getId() == node.getId() && copy.getLabelKey() == node.getLabelKey() && copy.getViewClass() == node.getViewClass() &&
+                    copy.getPageAccessControl() == node.getPageAccessControl() && copy.getPositionIndex() == node.getPositionIndex() &&
+                    copy.getRoles() == node.getRoles()
+        }
+        restored.getChildren(restored.nodeFor('public')) == sitemap.getChildren(sitemap.nodeFor('public'))
+    }
+
+    def "a different fingerprint is not restored"() {
+        given:
+        DefaultMasterSitemap restored = new DefaultMasterSitemap(new StrictURIFragmentHandler())
+
+        expect:
+        !MasterSitemapCodec.read(new ByteArrayInputStream(write('abc')), 'xyz', restored, classLoader)
+        restored.getNodeCount() == 0
+    }
+
+    def "a view class which cannot be loaded fails the restore and leaves the sitemap empty"() {
+        given:
+        DefaultMasterSitemap restored = new DefaultMasterSitemap(new StrictURIFragmentHandler())
+        ClassLoader bootstrapOnly = new URLClassLoader(new URL[0], (ClassLoader) null)
+
+        expect:
+        !MasterSitemapCodec.read(new ByteArrayInputStream(write('abc')), 'abc', restored, bootstrapOnly)
+        restored.getNodeCount() == 0
+        restored.getRedirects().isEmpty()
+    }
+
+    private byte[] write(String fingerprint) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream()
+        MasterSitemapCodec.write(sitemap, fingerprint, out)
+        return out.toByteArray()
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package uk.q3c.krail.core.navigate.sitemap
+
+import com.google.inject.Provider
+import org.aopalliance.intercept.MethodInvocation
+import spock.lang.Specification
+import uk.q3c.krail.core.i18n.LabelKey
+import uk.q3c.krail.core.shiro.PageAccessControl
+import uk.q3c.krail.core.view.PublicHomeView
+import uk.q3c.krail.i18n.Translate
+
+class PatternChangeInterceptorTest extends Specification {
+
+    Translate translate = Mock(Translate)
+    UserSitemapCache userSitemapCache = Mock(UserSitemapCache)
+    MethodInvocation clearCache = Mock(MethodInvocation)
+    DefaultNodeLabelCache nodeLabelCache
+    PatternChangeInterceptor interceptor
+    MasterSitemapNode node = new MasterSitemapNode(1, 'home', PublicHomeView.class, LabelKey.Home_Page, -1, PageAccessControl.PUBLIC, null)
+
+    def setup() {
+        nodeLabelCache = new DefaultNodeLabelCache(translate)
+        interceptor = new PatternChangeInterceptor({ nodeLabelCache } as Provider, { userSitemapCache } as Provider)
+    }
+
+    def "a changed pattern is served once the pattern cache has been cleared"() {
+        given:
+        String pattern = 'Home'
+        translate.from(LabelKey.Home_Page, Locale.UK) >> { pattern }
+
+        expect:
+        nodeLabelCache.labelFor(node, Locale.UK).label == 'Home'
+
+        when:
+        pattern = 'Start'
+
+        then:
+        nodeLabelCache.labelFor(node, Locale.UK).label == 'Home'
+
+        when:
+        interceptor.invoke(clearCache)
+
+        then:
+        1 * clearCache.proceed()
+        1 * userSitemapCache.clear()
+        nodeLabelCache.labelFor(node, Locale.UK).label == 'Start'
+    }
+
+    def "the caches are cleared after the pattern cache"() {
+        when:
+        interceptor.invoke(clearCache)
+
+        then:
+        1 * clearCache.proceed()
+
+        then:
+        1 * userSitemapCache.clear()
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package uk.q3c.krail.core.navigate.sitemap
+
+import spock.lang.Specification
+import uk.q3c.krail.core.navigate.StrictURIFragmentHandler
+
+class RedirectTableTest extends Specification {
+
+    def "chains are resolved to their final target"() {
+        when:
+        RedirectTable table = RedirectTable.compile(['a': 'b', 'b': 'c', 'c': 'd', 'x': 'y'])
+
+        then:
+        table.targetFor('a') == 'd'
+        table.targetFor('b') == 'd'
+        table.targetFor('c') == 'd'
+        table.targetFor('x') == 'y'
+        table.targetFor('d') == 'd'
+        table.targetFor('unknown') == 'unknown'
+        !table.hasLoops()
+    }
+
+    def "loops are reported, and pages in or leading into a loop are not redirected"() {
+        when:
+        RedirectTable table = RedirectTable.compile(['in': 'p/1', 'p/1': 'p/2', 'p/2': 'p/3', 'p/3': 'p/1', 'ok': 'fine'])
+
+        then:
+        table.hasLoops()
+        table.getLoops() == ['Redirect loop: p/1 -> p/2 -> p/3 -> p/1'] as Set
+        table.targetFor('in') == 'in'
+        table.targetFor('p/2') == 'p/2'
+        table.targetFor('ok') == 'fine'
+        !table.getTargets().containsKey('in')
+    }
+
+    def "a page redirected to itself is a loop"() {
+        when:
+        RedirectTable table = RedirectTable.compile(['a': 'a'])
+
+        then:
+        table.getLoops() == ['Redirect loop: a -> a'] as Set
+        table.targetFor('a') == 'a'
+    }
+
+    def "snapshot of a locked sitemap resolves redirects from the compiled table"() {
+        given:
+        DefaultMasterSitemap sitemap = new DefaultMasterSitemap(new StrictURIFragmentHandler())
+        sitemap.addRedirect('a', 'b')
+        sitemap.addRedirect('b', 'c')
+
+        expect:
+        sitemap.getRedirectPageFor('a') == 'c'
+
+        when:
+        sitemap.lock()
+
+        then:
+        sitemap.getRedirectPageFor('a') == 'c'
+        sitemap.snapshot.getRedirectTable().getTargets() == ['a': 'c', 'b': 'c']
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package uk.q3c.krail.core.navigate.sitemap
+
+import spock.lang.Specification
+import uk.q3c.krail.core.navigate.StrictURIFragmentHandler
+
+class RouteTrieTest extends Specification {
+
+    DefaultMasterSitemap sitemap
+    RouteTrie<MasterSitemapNode> trie
+
+    def setup() {
+        sitemap = new DefaultMasterSitemap(new StrictURIFragmentHandler())
+        sitemap.append(new NodeRecord('public/home'))
+        sitemap.append(new NodeRecord('public/a/b/c'))
+        sitemap.append(new NodeRecord('private/home'))
+        trie = RouteTrie.build(sitemap.getForest())
+    }
+
+    def "exact lookup matches uri map"() {
+        expect:
+        trie.nodeFor(['public', 'a', 'b']) == sitemap.nodeFor('public/a/b')
+        trie.nodeFor(['private', 'home']) == sitemap.nodeFor('private/home')
+        trie.nodeFor(['public', 'x']) == null
+        trie.nodeFor([]) == null
+    }
+
+    def "nearest lookup returns deepest matching ancestor"() {
+        expect:
+        trie.nodeNearestFor(['public', 'a', 'b', 'x', 'y']) == sitemap.nodeFor('public/a/b')
+        trie.nodeNearestFor(['public', 'home']) == sitemap.nodeFor('public/home')
+        trie.nodeNearestFor(['wiggly']) == null
+    }
+
+    def "node chain, full and partial"() {
+        given:
+        List<MasterSitemapNode> expected = sitemap.nodeChainForUri('public/a/b/c', false)
+
+        expect:
+        trie.nodeChainFor(['public', 'a', 'b', 'c'], false) == expected
+        trie.nodeChainFor(['public', 'a', 'x'], false).isEmpty()
+        trie.nodeChainFor(['public', 'a', 'x'], true) == expected.subList(0, 2)
+    }
+
+    def "locked sitemap uses trie and gives the same answers"() {
+        when:
+        sitemap.lock()
+
+        then:
+        sitemap.routeTrie != null
+        sitemap.nodeFor('public/a/b/c') == trie.nodeFor(['public', 'a', 'b', 'c'])
+        sitemap.nodeNearestFor('public/a/b/c/d/id=1') == trie.nodeFor(['public', 'a', 'b', 'c'])
+    }
+
+    def "structural change discards trie"() {
+        given:
+        sitemap.buildRouteTrie()
+
+        when:
+        sitemap.append(new NodeRecord('public/z'))
+
+        then:
+        sitemap.routeTrie == null
+        sitemap.nodeFor('public/z') != null
+    }
+}
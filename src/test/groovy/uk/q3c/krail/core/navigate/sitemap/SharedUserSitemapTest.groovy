@@ -0,0 +1,306 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package uk.q3c.krail.core.navigate.sitemap
+
+import net.engio.mbassy.bus.common.PubSubSupport
+import spock.lang.Specification
+import uk.q3c.krail.core.eventbus.SessionBusProvider
+import uk.q3c.krail.core.i18n.LabelKey
+import uk.q3c.krail.core.navigate.StrictURIFragmentHandler
+import uk.q3c.krail.core.navigate.sitemap.comparator.DefaultUserSitemapSorters.SortType
+import uk.q3c.krail.core.shiro.PageAccessControl
+import uk.q3c.krail.core.view.PublicHomeView
+import uk.q3c.krail.core.view.component.NoNavFilter
+import uk.q3c.krail.i18n.I18NKey
+import uk.q3c.krail.i18n.LocaleChangeBusMessage
+import uk.q3c.krail.i18n.Translate
+import uk.q3c.util.forest.NodeFilter
+
+class SharedUserSitemapTest extends Specification {
+
+    Translate translate = Mock(Translate)
+    SessionBusProvider sessionBusProvider = Mock(SessionBusProvider)
+    PubSubSupport eventBus = Mock(PubSubSupport)
+    List<NodeFilter<UserSitemapNode>> noNav = [new NoNavFilter()]
+    DefaultUserSitemap original
+    UserSitemapNode a
+    UserSitemapNode a1
+    UserSitemapNode login
+
+    def setup() {
+        sessionBusProvider.get() >> eventBus
+        original = newUserSitemap()
+        a = userNode(1, 'a', LabelKey.Home_Page)
+        a1 = userNode(2, 'a1', LabelKey.Home_Page)
+        login = userNode(3, 'login', StandardPageKey.Log_In)
+        original.addChild(null, a)
+        original.addChild(a, a1)
+        original.addStandardPage(login, 'login')
+        original.addRedirect('b', 'a/a1')
+        original.setLoaded(true)
+    }
+
+    def "adopted content answers the same as the original"() {
+        given:
+        DefaultUserSitemap other = newUserSitemap()
+
+        when:
+        other.adopt(original.share())
+
+        then:
+        other.isShared()
+        other.isLoaded()
+        other.uri(other.nodeFor('a/a1')) == 'a/a1'
+        other.getChildren(a) == [a1]
+        other.standardPageNode(StandardPageKey.Log_In) == login
+        other.getRedirectPageFor('b') == 'a/a1'
+        other.getForest()
+             .getAllNodes()
+             .size() == 2
+        1 * eventBus.publish(_ as UserSitemapStructureChangeMessage)
+    }
+
+    def "sharing hands over the frozen content, which the original then treats as shared"() {
+        given:
+        translate.from(_, Locale.GERMANY) >> 'Etikett'
+
+        when:
+        SharedUserSitemap shared = original.share()
+
+        then:
+        original.isShared()
+        shared.getForest()
+              .is(original.getForest())
+        original.share()
+                .is(shared)
+
+        when:
+        original.localeChanged(new LocaleChangeBusMessage(this, Locale.GERMANY))
+
+        then:
+        shared.getSnapshot()
+              .getUriMap()
+              .get('a')
+              .getLabel() == 'label'
+    }
+
+    def "changing the original after sharing takes a private copy first"() {
+        given:
+        SharedUserSitemap shared = original.share()
+
+        when:
+        original.removeNode(a1)
+
+        then:
+        !original.isShared()
+        original.getChildCount(a) == 0
+        shared.getSnapshot()
+              .getChildCount(a) == 1
+        shared.getSnapshot()
+              .hasUri('a/a1')
+    }
+
+    def "changing an adopted sitemap takes a private copy first"() {
+        given:
+        SharedUserSitemap shared = original.share()
+        DefaultUserSitemap other = newUserSitemap()
+        other.adopt(shared)
+
+        when:
+        other.addChild(other.nodeFor('a'), userNode(4, 'a2', LabelKey.Home_Page))
+
+        then:
+        !other.isShared()
+        other.getChildCount(a) == 2
+        other.hasUri('a/a2')
+        other.getRedirectPageFor('b') == 'a/a1'
+        shared.getSnapshot()
+              .getChildCount(a) == 1
+        shared.getForest()
+              .getAllNodes()
+              .size() == 2
+    }
+
+    def "clear drops shared content without changing it"() {
+        given:
+        SharedUserSitemap shared = original.share()
+        DefaultUserSitemap other = newUserSitemap()
+        other.adopt(shared)
+
+        when:
+        other.clear()
+
+        then:
+        !other.isShared()
+        other.getNodeCount() == 0
+        shared.getSnapshot()
+              .getNodeCount() == 2
+    }
+
+    def "userNodeFor finds the node by master node id, but only for the same master node instance"() {
+        expect:
+        original.userNodeFor(a.getMasterNode()).is(a)
+        original.userNodeFor(a1.getMasterNode()).is(a1)
+        original.userNodeFor(new MasterSitemapNode(1, 'a')) == null
+        original.userNodeFor(new MasterSitemapNode(99, 'z')) == null
+    }
+
+    def "userNodeFor is a lookup by master node id while the sitemap is being changed"() {
+        given:
+        DefaultUserSitemap building = newUserSitemap()
+        UserSitemapNode b = userNode(8, 'b', LabelKey.Home_Page)
+
+        when:
+        building.addChild(null, a)
+        building.addChild(a, a1)
+        building.addNode(b)
+
+        then:
+        building.userNodeFor(a1.getMasterNode()).is(a1)
+        building.userNodeFor(b.getMasterNode()).is(b)
+
+        when:
+        building.removeNode(a1)
+
+        then:
+        building.userNodeFor(a1.getMasterNode()) == null
+        building.userNodeFor(a.getMasterNode()).is(a)
+    }
+
+    def "userNodeFor finds the private copy once shared content has been changed"() {
+        given:
+        DefaultUserSitemap other = newUserSitemap()
+        other.adopt(original.share())
+
+        when:
+        other.removeNode(other.nodeFor('a/a1'))
+
+        then:
+        other.userNodeFor(a1.getMasterNode()) == null
+        other.userNodeFor(a.getMasterNode()) == a
+        !other.userNodeFor(a.getMasterNode()).is(a)
+    }
+
+    def "standard page uri index follows changes"() {
+        expect:
+        original.standardPageURI(StandardPageKey.Log_In) == 'login'
+
+        when:
+        original.addStandardPage(userNode(5, 'signin', StandardPageKey.Log_In), 'signin')
+
+        then:
+        original.standardPageURI(StandardPageKey.Log_In) == 'signin'
+        original.getStandardPageUris().get('signin') == StandardPageKey.Log_In
+    }
+
+    def "cache returns entries by profile, and discards them when the master sitemap changes"() {
+        given:
+        UserSitemapCache cache = new DefaultUserSitemapCache()
+        MasterSitemap master1 = Mock(MasterSitemap)
+        MasterSitemap master2 = Mock(MasterSitemap)
+        BitSet bits = new BitSet()
+        bits.set(1)
+        UserSitemapProfile profile = new UserSitemapProfile(master1, Locale.UK, false, bits)
+        UserSitemapProfile sameProfile = new UserSitemapProfile(master1, Locale.UK, false, (BitSet) bits.clone())
+        UserSitemapProfile otherLocale = new UserSitemapProfile(master1, Locale.GERMANY, false, bits)
+        SharedUserSitemap shared = original.share()
+        SharedUserSitemap shared2 = original.share()
+
+        when:
+        cache.putIfAbsent(profile, shared)
+
+        then:
+        cache.get(sameProfile) == shared
+        cache.get(otherLocale) == null
+        cache.putIfAbsent(sameProfile, shared2) == shared
+
+        when:
+        cache.putIfAbsent(new UserSitemapProfile(master2, Locale.UK, false, bits), shared2)
+
+        then:
+        cache.size() == 1
+        cache.get(profile) == null
+    }
+
+    def "node chains and sorted child lists are held until the structure changes"() {
+        given:
+        UserSitemapNode b = userNode(6, 'b', LabelKey.Home_Page, 2)
+        UserSitemapNode c = userNode(7, 'c', LabelKey.Home_Page, 1)
+        original.addChild(a, b)
+        original.addChild(a, c)
+        Comparator<UserSitemapNode> byPosition = { n1, n2 -> n1.getPositionIndex() <=> n2.getPositionIndex() } as Comparator
+
+        when:
+        List<UserSitemapNode> chain = original.cachedNodeChainFor(a1)
+        List<UserSitemapNode> children = original.sortedVisibleChildren(a, SortType.POSITION, true, byPosition, noNav)
+
+        then:
+        chain == [a, a1]
+        children == [c, b]
+        original.cachedNodeChainFor(a1).is(chain)
+        original.sortedVisibleChildren(a, SortType.POSITION, true, byPosition, noNav).is(children)
+        !original.sortedVisibleChildren(a, SortType.POSITION, false, byPosition.reversed(), noNav).is(children)
+
+        when:
+        original.removeNode(c)
+
+        then:
+        original.sortedVisibleChildren(a, SortType.POSITION, true, byPosition, noNav) == [b]
+        !original.cachedNodeChainFor(a1).is(chain)
+    }
+
+    def "held child lists are kept separately for each set of filters"() {
+        given:
+        UserSitemapNode b = userNode(6, 'b', LabelKey.Home_Page, 2)
+        UserSitemapNode c = userNode(7, 'c', LabelKey.Home_Page, 1)
+        original.addChild(a, b)
+        original.addChild(a, c)
+        Comparator<UserSitemapNode> byPosition = { n1, n2 -> n1.getPositionIndex() <=> n2.getPositionIndex() } as Comparator
+        NodeFilter<UserSitemapNode> notC = { node -> node != c } as NodeFilter
+        List<UserSitemapNode> children = original.sortedVisibleChildren(a, SortType.POSITION, true, byPosition, noNav)
+
+        expect:
+        original.sortedVisibleChildren(a, SortType.POSITION, true, byPosition, [new NoNavFilter()]).is(children)
+        original.sortedVisibleChildren(a, SortType.POSITION, true, byPosition, [new NoNavFilter(), notC]) == [b]
+        original.sortedVisibleChildren(a, SortType.POSITION, true, byPosition, []).size() == original.getChildren(a).size()
+    }
+
+    def "held child lists are discarded when labels change"() {
+        given:
+        translate.from(_, Locale.GERMANY) >> 'Etikett'
+        Comparator<UserSitemapNode> byPosition = { n1, n2 -> n1.getPositionIndex() <=> n2.getPositionIndex() } as Comparator
+        List<UserSitemapNode> children = original.sortedVisibleChildren(a, SortType.POSITION, true, byPosition, noNav)
+
+        when:
+        original.localeChanged(new LocaleChangeBusMessage(this, Locale.GERMANY))
+
+        then:
+        !original.sortedVisibleChildren(a, SortType.POSITION, true, byPosition, noNav).is(children)
+    }
+
+    private DefaultUserSitemap newUserSitemap() {
+        return new DefaultUserSitemap(new DefaultNodeLabelCache(translate), new StrictURIFragmentHandler(), sessionBusProvider)
+    }
+
+    private static UserSitemapNode userNode(int id, String segment, I18NKey labelKey) {
+        return userNode(id, segment, labelKey, -1)
+    }
+
+    private static UserSitemapNode userNode(int id, String segment, I18NKey labelKey, int positionIndex) {
+        MasterSitemapNode masterNode = new MasterSitemapNode(id, segment, PublicHomeView.class, labelKey, positionIndex, PageAccessControl.PUBLIC, null)
+        UserSitemapNode userNode = new UserSitemapNode(masterNode)
+        userNode.setLabel('label')
+        return userNode
+    }
+}
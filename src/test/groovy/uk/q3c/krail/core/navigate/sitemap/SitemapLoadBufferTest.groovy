@@ -0,0 +1,68 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+
+
+package uk.q3c.krail.core.navigate.sitemap
+
+import spock.lang.Specification
+
+class SitemapLoadBufferTest extends Specification {
+
+    def "replay appends node records in buffered order, then adds redirects"() {
+        given:
+        MasterSitemap sitemap = Mock(MasterSitemap)
+        NodeRecord a = new NodeRecord('a')
+        NodeRecord b = new NodeRecord('a/b')
+        SitemapLoadBuffer buffer = new SitemapLoadBuffer()
+        buffer.append(a).append(b).addRedirect('x', 'a')
+
+        when:
+        buffer.replayInto(sitemap)
+
+        then:
+        1 * sitemap.append(a)
+
+        then:
+        1 * sitemap.append(b)
+
+        then:
+        1 * sitemap.addRedirect('x', 'a')
+        0 * _
+    }
+
+    def "later redirect for the same page replaces the earlier one"() {
+        given:
+        SitemapLoadBuffer buffer = new SitemapLoadBuffer()
+
+        when:
+        buffer.addRedirect('x', 'a').addRedirect('x', 'b')
+
+        then:
+        buffer.getRedirects() == ['x': 'b']
+        buffer.getNodeRecords().isEmpty()
+        !buffer.isEmpty()
+    }
+
+    def "loading through a MasterSitemap with nothing to load leaves the sitemap untouched"() {
+        given:
+        MasterSitemap sitemap = Mock(MasterSitemap)
+        SitemapLoader loader = new DefaultDirectSitemapLoader()
+
+        when:
+        boolean result = loader.load(sitemap)
+
+        then:
+        !result
+        0 * sitemap._
+    }
+}
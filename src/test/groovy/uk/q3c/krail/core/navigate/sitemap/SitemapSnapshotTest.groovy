@@ -0,0 +1,146 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package uk.q3c.krail.core.navigate.sitemap
+
+import spock.lang.Specification
+import uk.q3c.krail.core.navigate.StrictURIFragmentHandler
+
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+class SitemapSnapshotTest extends Specification {
+
+    DefaultMasterSitemap sitemap
+
+    def setup() {
+        sitemap = new DefaultMasterSitemap(new StrictURIFragmentHandler())
+        sitemap.append(new NodeRecord('public/home'))
+        sitemap.append(new NodeRecord('public/a/b/c'))
+        sitemap.append(new NodeRecord('public/a/d'))
+        NodeRecord login = new NodeRecord('public/login')
+        login.setLabelKey(StandardPageKey.Log_In)
+        sitemap.append(login)
+        sitemap.addRedirect('public', 'public/home')
+    }
+
+    def "lock produces a snapshot which gives the same answers as the mutable sitemap"() {
+        given:
+        MasterSitemapNode a = sitemap.nodeFor('public/a')
+        MasterSitemapNode c = sitemap.nodeFor('public/a/b/c')
+        List<MasterSitemapNode> children = sitemap.getChildren(a)
+        List<MasterSitemapNode> chain = sitemap.nodeChainFor(c)
+        List<MasterSitemapNode> roots = sitemap.getRoots()
+        int nodeCount = sitemap.getNodeCount()
+        String loginUri = sitemap.standardPageURI(StandardPageKey.Log_In)
+
+        when:
+        sitemap.lock()
+
+        then:
+        sitemap.snapshot != null
+        sitemap.getChildren(a) == children
+        sitemap.getChildCount(a) == 2
+        sitemap.nodeChainFor(c) == chain
+        sitemap.getParent(c) == sitemap.nodeFor('public/a/b')
+        sitemap.getRootFor(c) == sitemap.nodeFor('public')
+        sitemap.getRoots() == roots
+        sitemap.getNodeCount() == nodeCount
+        sitemap.uri(c) == 'public/a/b/c'
+        sitemap.containsNode(c)
+        sitemap.standardPageURI(StandardPageKey.Log_In) == loginUri
+        sitemap.standardPageNode(StandardPageKey.Log_In) == sitemap.nodeFor(loginUri)
+        sitemap.getRedirectPageFor('public') == 'public/home'
+        sitemap.getAllNodes().size() == nodeCount
+    }
+
+    def "uri segments are available before and after lock"() {
+        given:
+        MasterSitemapNode c = sitemap.nodeFor('public/a/b/c')
+        List<String> before = sitemap.uriSegments(c)
+
+        when:
+        sitemap.lock()
+
+        then:
+        before == ['public', 'a', 'b', 'c']
+        sitemap.uriSegments(c) == before
+        sitemap.uri(c).is(sitemap.uri(c))
+    }
+
+    def "uris held before lock follow a node which moves to another parent"() {
+        given:
+        MasterSitemapNode d = sitemap.nodeFor('public/a/d')
+        MasterSitemapNode home = sitemap.nodeFor('public/home')
+
+        expect:
+        sitemap.uri(d) == 'public/a/d'
+
+        when:
+        sitemap.addChild(home, d)
+
+        then:
+        sitemap.uri(d) == 'public/home/d'
+        sitemap.hasUri('public/home/d')
+        sitemap.uriSegments(d) == ['public', 'home', 'd']
+    }
+
+    def "child count of a node not in the snapshot throws SitemapException"() {
+        given:
+        sitemap.lock()
+
+        when:
+        sitemap.getChildCount(new MasterSitemapNode(999, 'wiggly'))
+
+        then:
+        thrown(SitemapException)
+    }
+
+    def "returned lists can be modified without affecting the snapshot"() {
+        given:
+        sitemap.lock()
+        MasterSitemapNode a = sitemap.nodeFor('public/a')
+
+        when:
+        sitemap.getChildren(a).clear()
+
+        then:
+        sitemap.getChildCount(a) == 2
+    }
+
+    def "concurrent readers see consistent results"() {
+        given:
+        sitemap.lock()
+        def executor = Executors.newFixedThreadPool(8)
+        def tasks = (1..8).collect {
+            { ->
+                int found = 0
+                1000.times {
+                    if (sitemap.uri(sitemap.nodeFor('public/a/b/c')) == 'public/a/b/c') {
+                        found++
+                    }
+                }
+                found
+            } as Callable<Integer>
+        }
+
+        when:
+        def results = executor.invokeAll(tasks).collect { it.get() }
+
+        then:
+        results.every { it == 1000 }
+
+        cleanup:
+        executor.shutdown()
+    }
+}
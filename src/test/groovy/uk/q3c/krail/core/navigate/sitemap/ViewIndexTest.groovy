@@ -0,0 +1,98 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+
+
+package uk.q3c.krail.core.navigate.sitemap
+
+import fixture1.TestAnnotatedView
+import spock.lang.Specification
+import uk.q3c.krail.core.shiro.PageAccessControl
+
+class ViewIndexTest extends Specification {
+
+    def "entries survive a round trip through the index format"() {
+        given:
+        ViewIndex.Entry entry = new ViewIndex.Entry('a.b.SomeView', 'x/y', 'Home', PageAccessControl.ROLES, 3, 'admin, user', ['old', 'older'])
+
+        when:
+        ViewIndex index = ViewIndex.parse(entry.toLines())
+        ViewIndex.Entry parsed = index.getEntries().get(0)
+
+        then:
+        entry.toLines().size() == 2
+        index.getEntries().size() == 1
+        parsed.getClassName() == 'a.b.SomeView'
+        parsed.hasView()
+        parsed.getUri() == 'x/y'
+        parsed.getLabelKeyName() == 'Home'
+        parsed.getPageAccessControl() == PageAccessControl.ROLES
+        parsed.getPositionIndex() == 3
+        parsed.getRoles() == 'admin, user'
+        parsed.getRedirectSources() == ['old', 'older']
+    }
+
+    def "a redirect without a view is kept, and empty roles survive"() {
+        given:
+        List<String> lines = new ViewIndex.Entry('a.Redirected', null, null, null, 0, null, ['p']).toLines()
+        lines.addAll(new ViewIndex.Entry('a.Plain', 'plain', 'Home', PageAccessControl.PUBLIC, 1, '', []).toLines())
+        lines.add('')
+
+        when:
+        ViewIndex index = ViewIndex.parse(lines)
+
+        then:
+        index.getEntries()*.getClassName() == ['a.Plain', 'a.Redirected']
+        !index.getEntries().get(1).hasView()
+        index.getEntries().get(1).hasRedirectFrom()
+        index.getEntries().get(0).getRoles() == ''
+        !index.getEntries().get(0).hasRedirectFrom()
+    }
+
+    def "entries are selected by class name prefix, as a scan would select them"() {
+        given:
+        ViewIndex index = ViewIndex.parse(['view\tfixture.testviews2.V\tv\tHome\tPUBLIC\t1\t', 'view\tfixture1.V\tw\tHome\tPUBLIC\t1\t'])
+
+        expect:
+        index.entriesFor('fixture.')*.getClassName() == ['fixture.testviews2.V']
+        index.entriesFor('fixture')*.getClassName() == ['fixture.testviews2.V', 'fixture1.V']
+        index.entriesFor('other').isEmpty()
+    }
+
+    def "an entry can be created from the annotations of a class"() {
+        when:
+        ViewIndex.Entry entry = ViewIndex.Entry.of(TestAnnotatedView)
+
+        then:
+        entry.getClassName() == TestAnnotatedView.getName()
+        entry.getUri() == 'a/b/c'
+        entry.getLabelKeyName() == 'fixture1'
+        entry.getPageAccessControl() == PageAccessControl.PUBLIC
+        !entry.hasRedirectFrom()
+    }
+
+    def "invalid lines are rejected"() {
+        when:
+        ViewIndex.parse([line])
+
+        then:
+        thrown(SitemapException)
+
+        where:
+        line << ['view\ta.V\tv\tHome\tPUBLIC\t1', 'view\ta.V\tv\tHome\tNOT_A_CONTROL\t1\t', 'view\ta.V\tv\tHome\tPUBLIC\tx\t', 'unknown\ta.V', 'view']
+    }
+
+    def "no index resources gives an empty index"() {
+        expect:
+        ViewIndex.load(new URLClassLoader(new URL[0], (ClassLoader) null)).isEmpty()
+    }
+}
@@ -146,6 +146,30 @@ class DefaultSitemapQueueTest extends Specification {
 
     }
 
+    def "versions increase as models are published, and reads do not wait once a model exists"() {
+        expect:
+        queue.getCurrentVersion() == 0
+
+        when:
+        queue.addModel(sitemap1)
+        queue.addModel(sitemap2)
+
+        then:
+        queue.getCurrentVersion() == 1
+        queue.getCurrent().getModel() == sitemap1
+
+        when:
+        queue.publishNextModel()
+
+        then:
+        queue.getCurrentVersion() == 2
+        queue.getCurrent().getModel() == sitemap2
+        queue.getCurrentModel() == sitemap2
+        queue.size() == 1
+        1 * globalBus.publish({ it instanceof SitemapChangedMessage && it.getVersion() == 2 })
+        0 * applicationConfiguration.getLong(_, _)
+    }
+
     def "add model, queue is full"() {
         when:
 
@@ -0,0 +1,148 @@
+/*
+ *
+ *  * Copyright (c) 2016. David Sowerby
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ *  * the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ *  * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ *  * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package uk.q3c.krail.core.view
+
+import com.vaadin.ui.Label
+import com.vaadin.ui.VerticalLayout
+import spock.lang.Specification
+import uk.q3c.krail.core.view.component.ViewChangeBusMessage
+import uk.q3c.krail.i18n.Translate
+import uk.q3c.krail.option.Option
+
+class DefaultViewCacheTest extends Specification {
+
+    def option = Mock(Option)
+    def translate = Mock(Translate)
+    DefaultViewCache cache
+    int maxViews = 2
+    int maxComponents = 100
+
+    def setup() {
+        option.get(DefaultViewCache.optionKeyMaximumViews) >> { maxViews }
+        option.get(DefaultViewCache.optionKeyMaximumComponents) >> { maxComponents }
+        cache = new DefaultViewCache(option)
+    }
+
+    def "component count includes the whole tree"() {
+        expect:
+        DefaultViewCache.componentCount(new VerticalLayout(new Label(), new VerticalLayout(new Label(), new Label()))) == 5
+    }
+
+    def "only views annotated with RetainView are retained"() {
+        given:
+        KrailView retained = built(new RetainedView1(translate))
+        KrailView ordinary = built(new OrdinaryView(translate))
+
+        when:
+        cache.retain(RetainedView1, retained)
+        cache.retain(OrdinaryView, ordinary)
+
+        then:
+        cache.get(RetainedView1).is(retained)
+        cache.get(OrdinaryView) == null
+        cache.size() == 1
+        cache.estimatedSize() == 3
+    }
+
+    def "least recently used view is evicted by count"() {
+        given:
+        KrailView view1 = built(new RetainedView1(translate))
+        KrailView view2 = built(new RetainedView2(translate))
+        KrailView view3 = built(new RetainedView3(translate))
+
+        when:
+        cache.retain(RetainedView1, view1)
+        cache.retain(RetainedView2, view2)
+        cache.get(RetainedView1)
+        cache.retain(RetainedView3, view3)
+
+        then:
+        cache.get(RetainedView1).is(view1)
+        cache.get(RetainedView2) == null
+        cache.get(RetainedView3).is(view3)
+        cache.estimatedSize() == 6
+    }
+
+    def "views are evicted by estimated size, and a view too large on its own is not retained"() {
+        given:
+        maxViews = 10
+        maxComponents = 5
+
+        when:
+        cache.retain(RetainedView1, built(new RetainedView1(translate)))
+        cache.retain(RetainedView2, built(new RetainedView2(translate)))
+
+        then:
+        cache.get(RetainedView1) == null
+        cache.get(RetainedView2) != null
+        cache.estimatedSize() == 3
+
+        when:
+        maxComponents = 2
+        cache.retain(RetainedView3, built(new RetainedView3(translate)))
+
+        then:
+        cache.get(RetainedView3) == null
+    }
+
+    def "clear discards everything"() {
+        given:
+        cache.retain(RetainedView1, built(new RetainedView1(translate)))
+
+        when:
+        cache.clear()
+
+        then:
+        cache.size() == 0
+        cache.estimatedSize() == 0
+    }
+
+    private KrailView built(KrailView view) {
+        view.buildView(null)
+        return view
+    }
+
+    static class OrdinaryView extends ViewBase {
+
+        OrdinaryView(Translate translate) {
+            super(translate)
+        }
+
+        @Override
+        protected void doBuild(ViewChangeBusMessage busMessage) {
+            setRootComponent(new VerticalLayout(new Label(), new Label()))
+        }
+    }
+
+    @RetainView
+    static class RetainedView1 extends OrdinaryView {
+        RetainedView1(Translate translate) {
+            super(translate)
+        }
+    }
+
+    @RetainView
+    static class RetainedView2 extends OrdinaryView {
+        RetainedView2(Translate translate) {
+            super(translate)
+        }
+    }
+
+    @RetainView
+    static class RetainedView3 extends OrdinaryView {
+        RetainedView3(Translate translate) {
+            super(translate)
+        }
+    }
+}
@@ -19,6 +19,7 @@ import fixture.testviews2.*;
 import uk.q3c.krail.core.eventbus.SessionBusProvider;
 import uk.q3c.krail.core.i18n.LabelKey;
 import uk.q3c.krail.core.navigate.URIFragmentHandler;
+import uk.q3c.krail.core.navigate.sitemap.DefaultNodeLabelCache;
 import uk.q3c.krail.core.navigate.sitemap.DefaultUserSitemap;
 import uk.q3c.krail.core.navigate.sitemap.MasterSitemapNode;
 import uk.q3c.krail.core.navigate.sitemap.StandardPageKey;
@@ -120,6 +121,7 @@ public class ReferenceUserSitemap extends DefaultUserSitemap {
     private UserSitemapNode privateNode;
     private UserSitemapNode publicHomeNode;
     private UserSitemapNode publicNode;
+    private final Translate translate;
 
 
     /**
@@ -129,8 +131,10 @@ public class ReferenceUserSitemap extends DefaultUserSitemap {
      */
 
     @Inject
-    public ReferenceUserSitemap(Translate translate, URIFragmentHandler uriHandler, SessionBusProvider sessionBusProvider) {
-        super(translate, uriHandler, sessionBusProvider);
+    public ReferenceUserSitemap(Translate translate, DefaultNodeLabelCache nodeLabelCache, URIFragmentHandler uriHandler, SessionBusProvider
+            sessionBusProvider) {
+        super(nodeLabelCache, uriHandler, sessionBusProvider);
+        this.translate = translate;
 
         insertionOrder = new LinkedList<>();
         positionIndexes = new HashMap<>();
@@ -231,7 +235,7 @@ public class ReferenceUserSitemap extends DefaultUserSitemap {
         MasterSitemapNode masterNode = new MasterSitemapNode(id, uriSegment, viewClass, labelKey, positionIndex, pageAccessControl, r);
 
         UserSitemapNode node = new UserSitemapNode(masterNode);
-        node.setLabel(getTranslate().from(labelKey));
+        node.setLabel(translate.from(labelKey));
         CollationKey collationKey = collator.getCollationKey(node.getLabel());
         node.setCollationKey(collationKey);
 
@@ -22,7 +22,11 @@ import com.mycila.testing.junit.MycilaJunitRunner;
 import com.mycila.testing.plugin.guice.GuiceContext;
 import com.mycila.testing.plugin.guice.ModuleProvider;
 import com.vaadin.server.Page;
+import com.vaadin.shared.communication.PushMode;
+import com.vaadin.ui.PushConfiguration;
 import fixture.ReferenceUserSitemap;
+import fixture.testviews2.ViewA;
+import fixture.testviews2.ViewA1;
 import fixture.testviews2.ViewB;
 import net.engio.mbassy.bus.common.PubSubSupport;
 import net.engio.mbassy.listener.Handler;
@@ -34,6 +38,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
+import uk.q3c.krail.config.ApplicationConfiguration;
+import uk.q3c.krail.config.config.ConfigKeys;
 import uk.q3c.krail.core.config.KrailApplicationConfigurationModule;
 import uk.q3c.krail.core.eventbus.EventBusModule;
 import uk.q3c.krail.core.eventbus.UIBus;
@@ -42,6 +48,7 @@ import uk.q3c.krail.core.guice.vsscope.VaadinSessionScopeModule;
 import uk.q3c.krail.core.i18n.MessageKey;
 import uk.q3c.krail.core.navigate.sitemap.*;
 import uk.q3c.krail.core.navigate.sitemap.set.MasterSitemapQueue;
+import uk.q3c.krail.core.navigate.sitemap.set.VersionedSitemap;
 import uk.q3c.krail.core.shiro.PageAccessControl;
 import uk.q3c.krail.core.shiro.PageAccessController;
 import uk.q3c.krail.core.shiro.PagePermission;
@@ -53,6 +60,7 @@ import uk.q3c.krail.core.user.status.UserStatusBusMessage;
 import uk.q3c.krail.core.user.status.UserStatusChangeSource;
 import uk.q3c.krail.core.view.*;
 import uk.q3c.krail.core.view.component.AfterViewChangeBusMessage;
+import uk.q3c.krail.core.view.component.ParameterChangeBusMessage;
 import uk.q3c.krail.core.view.component.ViewChangeBusMessage;
 import uk.q3c.krail.eventbus.BusMessage;
 import uk.q3c.krail.eventbus.SubscribeTo;
@@ -66,6 +74,10 @@ import uk.q3c.krail.util.UtilsModule;
 import uk.q3c.util.UtilModule;
 
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Matchers.any;
@@ -143,6 +155,19 @@ public class DefaultNavigatorTest {
     private Provider<UserSitemap> userSitemapProvider;
     @Inject
     private DefaultViewFactory viewFactory;
+    @Inject
+    private DefaultNavigationMetrics navigationMetrics;
+    @Mock
+    private ViewCache viewCache;
+    @Mock
+    private ViewPrefetcher viewPrefetcher;
+    @Mock
+    private NavigationExecutors navigationExecutors;
+    @Mock
+    private ApplicationConfiguration applicationConfiguration;
+    @Mock
+    private PushConfiguration pushConfiguration;
+    private ExecutorService asyncViewExecutor;
 
     @Before
     public void setup() {
@@ -155,14 +180,25 @@ public class DefaultNavigatorTest {
         when(subjectProvider.get()).thenReturn(subject);
         when(userSitemapProvider.get()).thenReturn(userSitemap);
         when(masterSitemapQueue.getCurrentModel()).thenReturn(masterSitemap);
+        when(masterSitemapQueue.getCurrent()).thenReturn(new VersionedSitemap<>(masterSitemap, 1));
+        when(masterSitemapQueue.getCurrentVersion()).thenReturn(1L);
         invalidURIHandler = new DefaultInvalidURIHandler(userNotifier);
-
+        asyncViewExecutor = Executors.newSingleThreadExecutor();
+        when(navigationExecutors.asyncViewExecutor()).thenReturn(asyncViewExecutor);
+        when(applicationConfiguration.getBoolean(ConfigKeys.SERVER_PUSH_ENABLED, true)).thenReturn(true);
+        when(scopedUI.getPushConfiguration()).thenReturn(pushConfiguration);
+        when(pushConfiguration.getPushMode()).thenReturn(PushMode.AUTOMATIC);
+        // UI.access would run the task holding the session lock
+        when(scopedUI.access(any(Runnable.class))).thenAnswer(invocation -> {
+            ((Runnable) invocation.getArguments()[0]).run();
+            return null;
+        });
 
     }
 
     @After
     public void tearDown() {
-
+        asyncViewExecutor.shutdownNow();
     }
 
     @Test
@@ -177,9 +213,29 @@ public class DefaultNavigatorTest {
         verify(builder).build();
     }
 
+    @Test
+    public void newMasterSitemapPickedUpAtNextNavigation() {
+        // given
+        navigator = createNavigator();
+        navigator.navigateTo(userSitemap.loginURI);
+        MasterSitemap newMasterSitemap = mock(MasterSitemap.class);
+        VersionedSitemap<MasterSitemap> newVersion = new VersionedSitemap<>(newMasterSitemap, 2);
+        when(masterSitemapQueue.getCurrent()).thenReturn(newVersion);
+        when(masterSitemapQueue.getCurrentVersion()).thenReturn(2L);
+        // when
+        navigator.navigateTo(userSitemap.a1URI);
+        navigator.navigateTo(userSitemap.loginURI);
+        // then
+        verify(builder, times(1)).masterSitemapChanged(newVersion);
+        verify(builder, times(1)).masterSitemapChanged(any());
+        verify(viewCache).clear();
+        verify(viewPrefetcher).discard();
+    }
+
     private DefaultNavigator createNavigator() {
         navigator = new DefaultNavigator(uriHandler, sitemapService, subjectProvider, pageAccessController, uiProvider, viewFactory, builder,
-                loginNavigationRule, logoutNavigationRule, eventBusProvider, defaultViewChangeRule, invalidURIHandler, masterSitemapQueue);
+                loginNavigationRule, logoutNavigationRule, eventBusProvider, defaultViewChangeRule, invalidURIHandler, masterSitemapQueue,
+                navigationMetrics, viewCache, viewPrefetcher, new AsyncViewBuildFactory(navigationExecutors, applicationConfiguration));
         navigator.init();
         return navigator;
     }
@@ -196,6 +252,179 @@ public class DefaultNavigatorTest {
         verify(scopedUI).changeView(any(LoginView.class));
     }
 
+    @Test
+    public void parameterChangeKeepsView() {
+        // given
+        ViewA view = mock(ViewA.class);
+        when(view.parametersChanged(any(ParameterChangeBusMessage.class))).thenReturn(true);
+        when(viewCache.get(ViewA.class)).thenReturn(view);
+        navigator = createNavigator();
+        navigator.navigateTo(userSitemap.aURI + "/id=1");
+        // when
+        navigator.navigateTo(userSitemap.aURI + "/id=2");
+        // then
+        verify(view).parametersChanged(any(ParameterChangeBusMessage.class));
+        verify(scopedUI, times(1)).changeView(view);
+        assertThat(navigator.getCurrentView()).isSameAs(view);
+        assertThat(navigator.getCurrentNavigationState()
+                            .getParameterValue("id")).isEqualTo("2");
+        assertThat(navigator.getPreviousNavigationState()
+                            .getParameterValue("id")).isEqualTo("1");
+    }
+
+    @Test
+    public void parameterChangeBlockedByListener() {
+        // given
+        ViewA view = mock(ViewA.class);
+        when(view.parametersChanged(any(ParameterChangeBusMessage.class))).thenReturn(true);
+        when(viewCache.get(ViewA.class)).thenReturn(view);
+        navigator = createNavigator();
+        navigator.navigateTo(userSitemap.aURI + "/id=1");
+        listener4.cancelBefore = true;
+        // when
+        navigator.navigateTo(userSitemap.aURI + "/id=2");
+        // then
+        verify(view, never()).parametersChanged(any(ParameterChangeBusMessage.class));
+        assertThat(navigator.getCurrentNavigationState()
+                            .getParameterValue("id")).isEqualTo("1");
+    }
+
+    @Test
+    public void parameterChangeDeclinedByView() {
+        // given
+        ViewA view = mock(ViewA.class);
+        when(viewCache.get(ViewA.class)).thenReturn(view);
+        navigator = createNavigator();
+        navigator.navigateTo(userSitemap.aURI + "/id=1");
+        // when
+        navigator.navigateTo(userSitemap.aURI + "/id=2");
+        // then
+        verify(scopedUI, times(2)).changeView(view);
+        assertThat(navigator.getCurrentNavigationState()
+                            .getParameterValue("id")).isEqualTo("2");
+    }
+
+    @Test
+    public void asyncViewShowsPlaceholderThenBuilds() throws Exception {
+        // given
+        KrailView view = mock(ViewA.class, withSettings().extraInterfaces(AsyncKrailView.class));
+        AsyncKrailView asyncView = (AsyncKrailView) view;
+        when(viewCache.get(ViewA.class)).thenReturn((ViewA) view);
+        CountDownLatch loadReleased = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            loadReleased.await();
+            return null;
+        }).when(asyncView)
+          .load(any(ViewChangeBusMessage.class));
+        navigator = createNavigator();
+        // when
+        navigator.navigateTo(userSitemap.aURI);
+        // then
+        verify(scopedUI).showPlaceholder(eq(asyncView), any());
+        verify(view, never()).buildView(any(ViewChangeBusMessage.class));
+        verify(viewPrefetcher, never()).prefetch(any(UserSitemap.class), any(UserSitemapNode.class));
+        assertThat(changeListener.getCalls()).doesNotContain("afterViewChange");
+        // when
+        loadReleased.countDown();
+        waitForAsyncViewExecutor();
+        // then
+        verify(asyncView).load(any(ViewChangeBusMessage.class));
+        verify(view).buildView(any(ViewChangeBusMessage.class));
+        verify(view).afterBuild(any(AfterViewChangeBusMessage.class));
+        verify(scopedUI).changeView(view);
+        verify(viewPrefetcher).prefetch(any(UserSitemap.class), any(UserSitemapNode.class));
+        assertThat(changeListener.getCalls()).contains("afterViewChange");
+        assertThat(navigator.getCurrentView()).isSameAs(view);
+    }
+
+    @Test
+    public void asyncViewBuildCancelledByNavigation() throws Exception {
+        // given
+        KrailView view = mock(ViewA.class, withSettings().extraInterfaces(AsyncKrailView.class));
+        AsyncKrailView asyncView = (AsyncKrailView) view;
+        when(viewCache.get(ViewA.class)).thenReturn((ViewA) view);
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch loadReleased = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            loadStarted.countDown();
+            loadReleased.await();
+            return null;
+        }).when(asyncView)
+          .load(any(ViewChangeBusMessage.class));
+        navigator = createNavigator();
+        navigator.navigateTo(userSitemap.aURI);
+        loadStarted.await(5, TimeUnit.SECONDS);
+        // when
+        navigator.navigateTo(userSitemap.a1URI);
+        loadReleased.countDown();
+        waitForAsyncViewExecutor();
+        // then
+        verify(asyncView).loadCancelled(any(ViewChangeBusMessage.class));
+        assertThat(navigator.getCurrentView()).isInstanceOf(ViewA1.class);
+        verify(view, never()).buildView(any(ViewChangeBusMessage.class));
+    }
+
+    @Test
+    public void asyncViewLoadedOnRequestThreadWithoutPush() throws Exception {
+        // given
+        KrailView view = mock(ViewA.class, withSettings().extraInterfaces(AsyncKrailView.class));
+        AsyncKrailView asyncView = (AsyncKrailView) view;
+        when(viewCache.get(ViewA.class)).thenReturn((ViewA) view);
+        when(pushConfiguration.getPushMode()).thenReturn(PushMode.DISABLED);
+        navigator = createNavigator();
+        // when
+        navigator.navigateTo(userSitemap.aURI);
+        // then
+        verify(asyncView).load(any(ViewChangeBusMessage.class));
+        verify(view).buildView(any(ViewChangeBusMessage.class));
+        verify(scopedUI).changeView(view);
+        verify(scopedUI, never()).access(any(Runnable.class));
+        assertThat(changeListener.getCalls()).contains("afterViewChange");
+    }
+
+    /**
+     * Waits until everything submitted to the async view executor so far has finished
+     */
+    private void waitForAsyncViewExecutor() throws Exception {
+        asyncViewExecutor.submit(() -> {
+        })
+                         .get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void navigationPhasesRecorded() {
+        // given
+        navigator = createNavigator();
+        navigationMetrics.reset();
+        String viewClassName = userSitemap.loginViewClass.getName();
+        // when
+        navigator.navigateTo(userSitemap.loginURI);
+        // then
+        assertThat(navigationMetrics.histogram(viewClassName, NavigationPhase.TOTAL)
+                                    .getCount()).isEqualTo(1);
+        assertThat(navigationMetrics.histogram(viewClassName, NavigationPhase.BUILD_VIEW)
+                                    .getCount()).isEqualTo(1);
+        assertThat(navigationMetrics.histogram(viewClassName, NavigationPhase.PARSE)
+                                    .getCount()).isEqualTo(1);
+        assertThat(navigationMetrics.histogram(viewClassName, NavigationPhase.FRAGMENT_UPDATE)
+                                    .getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void navigationWithNothingToDoRecorded() {
+        // given
+        navigator = createNavigator();
+        navigator.navigateTo(userSitemap.loginURI);
+        navigationMetrics.reset();
+        // when
+        navigator.navigateTo(userSitemap.loginURI);
+        // then
+        assertThat(navigationMetrics.histogram(DefaultNavigationMetrics.NO_VIEW, NavigationPhase.TOTAL)
+                                    .getCount()).isEqualTo(1);
+        assertThat(navigationMetrics.histogram(userSitemap.loginViewClass.getName(), NavigationPhase.TOTAL)
+                                    .getCount()).isEqualTo(0);
+    }
+
 
     @Test
     public void logout_rule_invoked() {
@@ -113,6 +113,27 @@ public class DefaultSitemapFinisherTest {
         }
     }
 
+    @Test
+    public void redirectsTakeTargetAccessControlAndShareChainCheck() {
+
+        // given
+        buildSitemap(2);
+        // when
+        try {
+            checker.check(sitemap);
+        } catch (SitemapException se) {
+            // expected, 'public' has no label key
+        }
+        // then
+        assertThat(checker.getMissingLabelKeys()).containsOnly("public");
+        assertThat(checker.getMissingViewClasses()).isEmpty();
+        assertThat(checker.getMissingPageAccessControl()).isEmpty();
+        assertThat(sitemap.nodeFor("public")
+                          .getPageAccessControl()).isEqualTo(PageAccessControl.PERMISSION);
+        assertThat(sitemap.nodeFor(uripublic_Node1)
+                          .getPageAccessControl()).isEqualTo(PageAccessControl.PERMISSION);
+    }
+
     public void checkOnly_report() {
 
         // given
@@ -238,6 +259,7 @@ public class DefaultSitemapFinisherTest {
                 bind(URIFragmentHandler.class).to(StrictURIFragmentHandler.class);
                 bind(MasterSitemap.class).to(DefaultMasterSitemap.class);
                 bind(UserSitemap.class).to(DefaultUserSitemap.class);
+                bind(NodeLabelCache.class).to(DefaultNodeLabelCache.class);
             }
 
         };
@@ -98,7 +98,7 @@ public class LoaderReportBuilderTest {
     class MockAnnotationLoader extends SitemapLoaderBase {
 
         @Override
-        public boolean load(MasterSitemap sitemap) {
+        public boolean load(SitemapLoadBuffer buffer) {
             addError("a", "Pattern with no params");
             addError("b", "Pattern with {0} params", 1);
             addError("b", "Pattern with {0} params, just as an {1}", 2, "example");
@@ -115,7 +115,7 @@ public class LoaderReportBuilderTest {
     class MockDirectLoader extends SitemapLoaderBase {
 
         @Override
-        public boolean load(MasterSitemap sitemap) {
+        public boolean load(SitemapLoadBuffer buffer) {
             addError("a", "Pattern with no params");
             addError("b", "Pattern with {0} params", 1);
             addError("b", "Pattern with {0} params, just as an {1}", 2, "example");
@@ -229,11 +229,13 @@ public abstract class TestWithSitemap {
      * needed before calling this method
      */
     protected void createUserSitemap() {
-        userSitemap = new DefaultUserSitemap(translate, uriHandler, sessionBusProvider);
+        NodeLabelCache nodeLabelCache = new DefaultNodeLabelCache(translate);
+        userSitemap = new DefaultUserSitemap(nodeLabelCache, uriHandler, sessionBusProvider);
         UserSitemapNodeModifier nodeModifier = new UserSitemapNodeModifier(subjectProvider, currentLocale,
-                pageAccessController, translate);
-        UserSitemapCopyExtension copyExtension = new UserSitemapCopyExtension(userSitemap, translate, currentLocale);
-        userSitemapBuilder = new UserSitemapBuilder(userSitemap, nodeModifier, copyExtension, subjectProvider);
+                pageAccessController, nodeLabelCache);
+        UserSitemapCopyExtension copyExtension = new UserSitemapCopyExtension(userSitemap, nodeLabelCache, currentLocale);
+        userSitemapBuilder = new UserSitemapBuilder(userSitemap, nodeModifier, copyExtension, subjectProvider, new DefaultUserSitemapCache(),
+                currentLocale);
         userSitemapBuilder.setMasterSitemap(masterSitemap);
         userSitemapBuilder.build();
 
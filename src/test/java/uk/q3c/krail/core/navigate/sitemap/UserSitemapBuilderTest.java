@@ -28,6 +28,7 @@ import uk.q3c.krail.core.guice.uiscope.UIScopeModule;
 import uk.q3c.krail.core.guice.vsscope.VaadinSessionScopeModule;
 import uk.q3c.krail.core.navigate.StrictURIFragmentHandler;
 import uk.q3c.krail.core.navigate.URIFragmentHandler;
+import uk.q3c.krail.core.navigate.sitemap.set.VersionedSitemap;
 import uk.q3c.krail.core.navigate.sitemap.UserSitemapBuilderTest.TestVaadinSessionScopeModule;
 import uk.q3c.krail.core.shiro.VaadinSessionProvider;
 import uk.q3c.krail.core.user.status.UserStatusBusMessage;
@@ -153,6 +154,52 @@ public class UserSitemapBuilderTest extends TestWithSitemap {
                               .keySet()).containsOnly("a");
     }
 
+    @Test
+    public void userStatusChanged_onlyChangedNodesReplaced() {
+        // given
+        buildMasterSitemap(8);
+        when(pageAccessController.isAuthorised(subject, masterSitemap, masterNode1)).thenReturn(true);
+        when(pageAccessController.isAuthorised(subject, masterSitemap, masterNode2)).thenReturn(true);
+        when(pageAccessController.isAuthorised(subject, masterSitemap, masterNode3)).thenReturn(true);
+        createUserSitemap();
+        UserSitemapNode unchanged = userSitemap.userNodeFor(masterNode1);
+        // when
+        when(pageAccessController.isAuthorised(subject, masterSitemap, masterNode2)).thenReturn(false);
+        userSitemapBuilder.userStatusChanged(new UserStatusBusMessage(userStatusChangeSource, false));
+        // then
+        assertThat(userSitemap.getUriMap()
+                              .keySet()).containsOnly("1", "1/3");
+        // the content was handed to the cache when built, so the update works on a private copy of all of it, not just the changed nodes
+        assertThat(userSitemap.userNodeFor(masterNode1)).isEqualTo(unchanged)
+                                                        .isNotSameAs(unchanged);
+        assertThat(userSitemap.userNodeFor(masterNode2)).isNull();
+        assertThat(userSitemap.standardPageNode(StandardPageKey.Log_In)).isNotNull();
+    }
+
+    @Test
+    public void masterSitemapChanged_rebuildsOncePerVersion() {
+        // given
+        buildMasterSitemap(8);
+        when(pageAccessController.isAuthorised(subject, masterSitemap, masterNode1)).thenReturn(true);
+        when(pageAccessController.isAuthorised(subject, masterSitemap, masterNode2)).thenReturn(true);
+        when(pageAccessController.isAuthorised(subject, masterSitemap, masterNode3)).thenReturn(true);
+        createUserSitemap();
+        userSitemapBuilder.setMasterSitemap(new VersionedSitemap<>(masterSitemap, 1));
+        VersionedSitemap<MasterSitemap> version2 = new VersionedSitemap<>(masterSitemap, 2);
+        userSitemapBuilder.masterSitemapChanged(version2);
+        assertThat(userSitemapContains(masterNode2)).isTrue();
+        // when
+        // another UI in the same session notices the same version - a rebuild would drop page 2
+        when(pageAccessController.isAuthorised(subject, masterSitemap, masterNode2)).thenReturn(false);
+        userSitemapBuilder.masterSitemapChanged(version2);
+        // then
+        assertThat(userSitemapContains(masterNode2)).isTrue();
+        // when
+        userSitemapBuilder.masterSitemapChanged(new VersionedSitemap<>(masterSitemap, 3));
+        // then
+        assertThat(userSitemapContains(masterNode2)).isFalse();
+    }
+
     @Test
     public void standardPages() {
         // given
@@ -198,8 +245,11 @@ public class UserSitemapBuilderTest extends TestWithSitemap {
         assertThat(userNode3.getLabel()).isEqualTo("Enable Account");
 
         // when
+        // the built content has been handed to the cache, so is replaced rather than relabelled
         currentLocale.setLocale(Locale.GERMANY);
-        ((DefaultUserSitemap) userSitemap).localeChanged(new LocaleChangeBusMessage(this, Locale.GERMANY));
+        userSitemapBuilder.localeChanged(new LocaleChangeBusMessage(this, Locale.GERMANY));
+        userNode1 = userSitemap.userNodeFor(masterNode1);
+        userNode3 = userSitemap.userNodeFor(masterNode3);
         assertThat(userNode1.getCollationKey()).isNotNull();
         assertThat(userNode1.getLabel()).isEqualTo("Ja");
         assertThat(userNode3.getCollationKey()).isNotNull();
@@ -31,6 +31,7 @@ import uk.q3c.krail.core.navigate.StrictURIFragmentHandler;
 import uk.q3c.krail.core.navigate.URIFragmentHandler;
 import uk.q3c.krail.core.navigate.sitemap.UserSitemap;
 import uk.q3c.krail.core.navigate.sitemap.comparator.DefaultUserSitemapSorters;
+import uk.q3c.krail.i18n.Translate;
 import uk.q3c.krail.i18n.test.TestI18NModule;
 import uk.q3c.krail.option.test.MockOption;
 import uk.q3c.krail.option.test.TestOptionModule;
@@ -57,6 +58,9 @@ public class DefaultUserNavigationMenuBuilderTest {
     @Inject
     MockOption option;
 
+    @Inject
+    Translate translate;
+
     @Mock
     Navigator navigator;
 
@@ -64,7 +68,7 @@ public class DefaultUserNavigationMenuBuilderTest {
 
     @Before
     public void setUp() throws Exception {
-        builder = new DefaultUserNavigationMenuBuilder(userSitemap, navigator);
+        builder = new DefaultUserNavigationMenuBuilder(userSitemap, navigator, sorters, translate);
         userNavigationMenu = new DefaultUserNavigationMenu(option, builder);
         userSitemap.populate();
     }
@@ -30,6 +30,7 @@ import uk.q3c.krail.core.i18n.LabelKey;
 import uk.q3c.krail.core.navigate.Navigator;
 import uk.q3c.krail.core.navigate.StrictURIFragmentHandler;
 import uk.q3c.krail.core.navigate.URIFragmentHandler;
+import uk.q3c.krail.core.navigate.sitemap.comparator.DefaultUserSitemapSorters;
 import uk.q3c.krail.core.shiro.DefaultShiroModule;
 import uk.q3c.krail.eventbus.EventBusAutoSubscriber;
 import uk.q3c.krail.i18n.CurrentLocale;
@@ -41,7 +42,9 @@ import uk.q3c.krail.testutil.guice.uiscope.TestUIScopeModule;
 import uk.q3c.krail.testutil.persist.TestPersistenceModuleVaadin;
 import uk.q3c.util.UtilModule;
 
+import java.text.Collator;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 
@@ -69,6 +72,9 @@ public class DefaultUserNavigationMenuTest {
     @Inject
     Translate translate;
 
+    @Inject
+    DefaultUserSitemapSorters sorters;
+
     @Inject
     EventBusAutoSubscriber autoSubscriber;
 
@@ -83,12 +89,13 @@ public class DefaultUserNavigationMenuTest {
         currentLocale.setLocale(Locale.UK);
         userSitemap.clear();
         userSitemap.populate();
-        builder = new DefaultUserNavigationMenuBuilder(userSitemap, navigator);
+        builder = new DefaultUserNavigationMenuBuilder(userSitemap, navigator, sorters, translate);
     }
 
     @After
     public void tearDown() throws Exception {
-
+        option.set(DefaultUserNavigationMenu.optionKeyOnDemand, false);
+        option.set(DefaultUserNavigationMenu.optionKeyMaximumSubmenus, 20);
     }
 
     @SuppressWarnings("ConstantConditions")
@@ -174,6 +181,70 @@ public class DefaultUserNavigationMenuTest {
         assertThat(viewB121.getCommand()).isNotNull();
     }
 
+    @Test
+    @SuppressWarnings("ConstantConditions")
+    public void build_onDemand() {
+        // given
+        option.set(DefaultUserNavigationMenu.optionKeyOnDemand, true);
+        userNavigationMenu = newMenu();
+        // when
+        userNavigationMenu.build();
+        // then
+        assertThat(menuCaptions(null)).containsOnly("Public", "Private");
+        MenuItem pblic = childWithText("Public", null);
+        String placeholderCaption = translate.from(LabelKey.Show_Submenu);
+        assertThat(menuCaptions(pblic)).containsOnly(placeholderCaption);
+        assertThat(builder.isPopulated(userSitemap.publicNode())).isFalse();
+
+        // when
+        MenuItem placeholder = childWithText(placeholderCaption, pblic);
+        placeholder.getCommand()
+                   .menuSelected(placeholder);
+        // then
+        assertThat(builder.isPopulated(userSitemap.publicNode())).isTrue();
+        assertThat(menuCaptions(pblic)).doesNotContain(placeholderCaption)
+                                       .contains("Public Home", "ViewA");
+        MenuItem viewA1 = childWithText("ViewA1", childWithText("ViewA", pblic));
+        assertThat(childWithText("ViewA11", viewA1).getCommand()).isNotNull();
+    }
+
+    @Test
+    @SuppressWarnings("ConstantConditions")
+    public void build_onDemand_maximumSubmenus() {
+        // given
+        option.set(DefaultUserNavigationMenu.optionKeyOnDemand, true);
+        option.set(DefaultUserNavigationMenu.optionKeyMaximumSubmenus, 1);
+        userNavigationMenu = newMenu();
+        userNavigationMenu.build();
+        // when
+        builder.populate(userSitemap.publicNode());
+        builder.populate(userSitemap.privateNode());
+        // then the earlier submenu is emptied again
+        assertThat(builder.isPopulated(userSitemap.publicNode())).isFalse();
+        assertThat(builder.isPopulated(userSitemap.privateNode())).isTrue();
+        assertThat(menuCaptions(childWithText("Public", null))).containsOnly(translate.from(LabelKey.Show_Submenu));
+        assertThat(menuCaptions(childWithText("Private", null))).contains("Private Home");
+    }
+
+    @Test
+    @SuppressWarnings("ConstantConditions")
+    public void build_onDemand_usesSorters() {
+        // given
+        option.set(DefaultUserNavigationMenu.optionKeyOnDemand, true);
+        sorters.setOptionSortAscending(false);
+        userNavigationMenu = newMenu();
+        // when
+        userNavigationMenu.build();
+        builder.populate(userSitemap.publicNode());
+        // then
+        assertThat(menuCaptions(null)).containsExactly("Public", "Private");
+        List<String> captions = menuCaptions(childWithText("Public", null));
+        List<String> expected = new ArrayList<>(captions);
+        expected.sort(Collections.reverseOrder(Collator.getInstance(Locale.UK)));
+        assertThat(captions).hasSize(expected.size())
+                            .isEqualTo(expected);
+    }
+
     private List<String> menuCaptions(MenuItem parentItem) {
         List<MenuItem> items = childrenOf(parentItem);
         List<String> captions = new ArrayList<>();
@@ -333,6 +404,23 @@ public class DefaultUserNavigationMenuTest {
 
     }
 
+    @Test
+    @SuppressWarnings("ConstantConditions")
+    public void localeChange_reconciled() {
+
+        // given
+        userNavigationMenu = newMenu();
+        userNavigationMenu.build();
+        MenuItem pblic = childWithText(translate.from(LabelKey.Public), null);
+
+        // when
+        currentLocale.setLocale(Locale.GERMANY);
+        // then the existing items are kept, with new captions
+        assertThat(pblic.getText()).isEqualTo("Öffentlich");
+        assertThat(childWithText("Öffentlich", null)).isSameAs(pblic);
+        assertThat(menuCaptions(null)).containsOnly("Öffentlich", "Privat");
+    }
+
     @Test
     public void defaults() {
 
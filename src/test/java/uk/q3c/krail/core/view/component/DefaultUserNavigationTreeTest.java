@@ -89,7 +89,7 @@ public class DefaultUserNavigationTreeTest {
 
     @After
     public void tearDown() throws Exception {
-
+        option.set(DefaultUserNavigationTree.optionKeyLazyLoad, false);
     }
 
     @Test
@@ -267,6 +267,22 @@ public class DefaultUserNavigationTreeTest {
         assertThat(userNavigationTree.getItemCaption(userSitemap.aNode())).isEqualTo("DE_ViewA");
     }
 
+    @Test
+    public void localeChange_reconciled() {
+
+        // given
+        userNavigationTree = newTree();
+        userNavigationTree.build();
+        userNavigationTree.expandItem(userSitemap.aNode());
+
+        // when
+        currentLocale.setLocale(Locale.GERMANY);
+        // then captions change without a rebuild, which would have lost the expansion
+        assertThat(userNavigationTree.getItemCaption(userSitemap.aNode())).isEqualTo("DE_ViewA");
+        assertThat(userNavigationTree.isExpanded(userSitemap.aNode())).isTrue();
+        assertThat(userNavigationTree.getParent(userSitemap.a11Node())).isEqualTo(userSitemap.a1Node());
+    }
+
     @Test
     public void structureChange() {
 
@@ -415,6 +431,64 @@ public class DefaultUserNavigationTreeTest {
 
     }
 
+    @Test
+    public void build_lazy() {
+        // given
+        option.set(DefaultUserNavigationTree.optionKeyLazyLoad, true);
+        userNavigationTree = newTree();
+        // when
+        userNavigationTree.build();
+        // then only the roots are loaded, but they can still be expanded
+        assertThat(userNavigationTree.getItemIds()).containsOnly(userSitemap.publicNode(), userSitemap.privateNode());
+        assertThat(userNavigationTree.areChildrenAllowed(userSitemap.publicNode())).isTrue();
+
+        // when
+        userNavigationTree.expandItem(userSitemap.publicNode());
+        // then
+        assertThat(userNavigationTree.containsId(userSitemap.aNode())).isTrue();
+        assertThat(userNavigationTree.getParent(userSitemap.aNode())).isEqualTo(userSitemap.publicNode());
+        assertThat(userNavigationTree.containsId(userSitemap.a1Node())).isFalse();
+        assertThat(userNavigationTree.containsId(userSitemap.logoutNode())).isFalse();
+        assertThat(userNavigationTree.containsId(userSitemap.bNode())).isFalse();
+    }
+
+    @Test
+    public void build_lazy_pathToCurrentNode() {
+        // given
+        option.set(DefaultUserNavigationTree.optionKeyLazyLoad, true);
+        userNavigationTree = newTree();
+        userNavigationTree.build();
+        when(navigator.getCurrentNode()).thenReturn(userSitemap.a11Node());
+        // when
+        userNavigationTree.afterViewChange(null);
+        // then
+        assertThat(userNavigationTree.getParent(userSitemap.a11Node())).isEqualTo(userSitemap.a1Node());
+        assertThat(userNavigationTree.isExpanded(userSitemap.a1Node())).isTrue();
+        assertThat(userNavigationTree.getValue()).isEqualTo(userSitemap.a11Node());
+        assertThat(userNavigationTree.containsId(userSitemap.b1Node())).isFalse();
+    }
+
+    @Test
+    public void build_lazy_removeChildren() {
+        // given
+        option.set(DefaultUserNavigationTree.optionKeyLazyLoad, true);
+        userNavigationTree = newTree();
+        userNavigationTree.build();
+        userNavigationTree.expandItem(userSitemap.publicNode());
+        userNavigationTree.expandItem(userSitemap.aNode());
+        // when
+        builder.removeChildren(userSitemap.publicNode());
+        // then
+        assertThat(userNavigationTree.getItemIds()).containsOnly(userSitemap.publicNode(), userSitemap.privateNode());
+        assertThat(userNavigationTree.areChildrenAllowed(userSitemap.publicNode())).isTrue();
+
+        // when
+        builder.addChildren(userSitemap.publicNode());
+        // then
+        assertThat(userNavigationTree.containsId(userSitemap.aNode())).isTrue();
+        assertThat(userNavigationTree.containsId(userSitemap.a1Node())).isFalse();
+    }
+
     @ModuleProvider
     protected AbstractModule moduleProvider() {
         return new AbstractModule() {